@@ -2,11 +2,13 @@ package com.example.a2a.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * A2A 示例服务端入口，启动 Spring Boot 应用。
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class A2AServerApplication {
 
     /**
@@ -0,0 +1,54 @@
+package com.example.a2a.server.agent;
+
+import java.util.List;
+
+/**
+ * Agent 技能的执行 SPI。每个实现对应 AgentCard 中公布的一个技能，由 {@link SkillRegistry} 按
+ * 技能 ID 路由，并在该技能独立的线程池、超时与指标下执行。新增技能只需注册一个实现该接口的 Bean。
+ */
+public interface AgentExecutor {
+
+    /**
+     * 技能 ID，与 AgentCard 中的 {@code skills[].id} 以及 JSON-RPC 方法名保持一致。
+     *
+     * @return 技能 ID
+     */
+    String skillId();
+
+    /**
+     * 技能在 AgentCard 中的描述信息。
+     *
+     * @return 技能描述
+     */
+    SkillCard card();
+
+    /**
+     * 执行一次技能调用。实现应当响应线程中断，超时后注册中心会中断执行线程。
+     *
+     * @param input 用户输入文本
+     * @return 结果文本
+     */
+    String execute(String input);
+
+    /**
+     * 以流式方式执行一次技能调用，按产生顺序把推理与正文片段交给 {@code sink}。默认实现在
+     * {@link #execute(String)} 完成后一次性输出整段正文，能够提前产出片段的技能应覆盖此方法。
+     *
+     * @param input 用户输入文本
+     * @param sink  片段接收端
+     */
+    default void executeStreaming(String input, AgentStreamSink sink) {
+        sink.text(execute(input));
+    }
+
+    /**
+     * AgentCard 中单个技能的公开描述。
+     */
+    class SkillCard {
+        public String id;
+        public String name;
+        public String description;
+        public List<String> tags;
+        public List<String> examples;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.a2a.server.agent;
+
+/**
+ * 流式技能调用的结果接收端。技能在执行线程上按产生顺序回调，调用方负责把片段转发给客户端；
+ * 技能返回即表示输出结束，最后收到的片段就是最后一块。
+ */
+public interface AgentStreamSink {
+
+    /**
+     * 接收一段推理说明。
+     *
+     * @param chunk 推理片段
+     */
+    void reasoning(String chunk);
+
+    /**
+     * 接收一段正文。
+     *
+     * @param chunk 正文片段
+     */
+    void text(String chunk);
+}
@@ -0,0 +1,214 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取本地列式数据集的天气上游，设置 {@code a2a.weather.dataset.enabled=true} 后替代
+ * {@link StaticWeatherBackend}，让压测与剖析在无网络时也能走到真实的查询路径。
+ * <p>
+ * 数据文件由 {@link ForecastDataset} 只读映射，按地点 ID 与当前小时桶直接读取列值。后台线程按
+ * {@code reload-interval} 检查文件的修改时间、大小与文件标识，发现新文件（建议写临时文件后原子
+ * 重命名放入）即映射新版本并原子替换引用；新文件无法解析时保留旧版本并记录告警。
+ * 文件不存在且开启 {@code generate-if-missing} 时，按地名索引中的全部地点生成一份合成数据集。
+ */
+@Component
+@ConditionalOnProperty(prefix = "a2a.weather.dataset", name = "enabled", havingValue = "true")
+public class DatasetWeatherBackend implements WeatherBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetWeatherBackend.class);
+    static final String UNKNOWN_LOCATION = "No forecast available";
+
+    private final Path path;
+    private final Clock clock;
+    private final Counter reloads;
+    private final Counter reloadFailures;
+    private final ScheduledExecutorService scheduler;
+    private volatile ForecastDataset dataset;
+    private volatile Object fileVersion;
+
+    /**
+     * 按配置映射数据文件并启动后台重载。
+     *
+     * @param properties    Agent 配置
+     * @param meterRegistry 指标注册表
+     */
+    @Autowired
+    public DatasetWeatherBackend(WeatherAgentProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC(), true);
+    }
+
+    /**
+     * 指定时钟并可关闭后台重载，测试通过 {@link #reloadIfChanged()} 手动触发。
+     *
+     * @param properties    Agent 配置
+     * @param meterRegistry 指标注册表
+     * @param clock         用于计算当前小时桶的时钟
+     * @param schedule      是否启动后台重载线程
+     */
+    DatasetWeatherBackend(WeatherAgentProperties properties, MeterRegistry meterRegistry, Clock clock,
+                          boolean schedule) {
+        WeatherAgentProperties.Dataset config = properties.getDataset();
+        this.path = Path.of(config.getPath());
+        this.clock = clock;
+        this.reloads = Counter.builder("a2a.weather.dataset.reloads")
+                .description("Forecast dataset reloads")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.reloadFailures = Counter.builder("a2a.weather.dataset.reloads")
+                .description("Forecast dataset reloads")
+                .tag("result", "failure")
+                .register(meterRegistry);
+
+        try {
+            if (config.isGenerateIfMissing() && !Files.exists(path)) {
+                generate(config, properties.getGazetteer());
+            }
+            this.fileVersion = version(path);
+            this.dataset = ForecastDataset.open(path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open forecast dataset " + path, ex);
+        }
+        log.info("Mapped forecast dataset {} ({} locations x {} hours)", path, dataset.locationCount(),
+                dataset.hours());
+        // 首次加载成功后才注册，指标读取时 dataset 一定非空。
+        Gauge.builder("a2a.weather.dataset.locations", this, backend -> backend.dataset.locationCount())
+                .description("Locations in the mapped forecast dataset")
+                .register(meterRegistry);
+
+        long intervalMillis = config.getReloadInterval().toMillis();
+        if (schedule && intervalMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "a2a-forecast-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::reloadIfChanged, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 查询地点在当前小时桶的预报。
+     *
+     * @param locationKey 规范地点 ID
+     * @return 天气描述，地点不在数据集中时返回 {@value #UNKNOWN_LOCATION}
+     */
+    @Override
+    public String forecast(String locationKey) {
+        String forecast = dataset.forecast(locationKey, currentEpochHour());
+        return forecast != null ? forecast : UNKNOWN_LOCATION;
+    }
+
+    /**
+     * 批量查询，整批使用同一个数据集版本与小时桶。
+     *
+     * @param locationKeys 规范地点 ID
+     * @return 地点 ID 到天气描述的映射
+     */
+    @Override
+    public Map<String, String> forecastAll(List<String> locationKeys) {
+        ForecastDataset current = dataset;
+        long epochHour = currentEpochHour();
+        Map<String, String> results = new HashMap<>(locationKeys.size() * 2);
+        for (String locationKey : locationKeys) {
+            String forecast = current.forecast(locationKey, epochHour);
+            results.put(locationKey, forecast != null ? forecast : UNKNOWN_LOCATION);
+        }
+        return results;
+    }
+
+    /**
+     * 文件发生变化时映射新版本并替换；解析失败保留旧版本。
+     *
+     * @return 是否加载了新版本
+     */
+    boolean reloadIfChanged() {
+        try {
+            Object version = version(path);
+            if (Objects.equals(version, fileVersion)) {
+                return false;
+            }
+            ForecastDataset reloaded = ForecastDataset.open(path);
+            dataset = reloaded;
+            fileVersion = version;
+            reloads.increment();
+            log.info("Reloaded forecast dataset {} ({} locations x {} hours)", path, reloaded.locationCount(),
+                    reloaded.hours());
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        } catch (IOException | RuntimeException ex) {
+            reloadFailures.increment();
+            log.warn("Keeping previous forecast dataset; failed to reload {}", path, ex);
+            return false;
+        }
+    }
+
+    /**
+     * 停止后台重载线程。
+     */
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前时钟对应的 epoch 小时。
+     */
+    private long currentEpochHour() {
+        return Math.floorDiv(clock.millis(), Duration.ofHours(1).toMillis());
+    }
+
+    /**
+     * 以修改时间、大小与文件标识共同判定文件版本。
+     */
+    private static Object version(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return List.of(attributes.lastModifiedTime(), attributes.size(),
+                Objects.requireNonNullElse(attributes.fileKey(), ""));
+    }
+
+    /**
+     * 按地名索引中的地点生成合成数据集。
+     */
+    private void generate(WeatherAgentProperties.Dataset config, WeatherAgentProperties.Gazetteer gazetteer)
+            throws IOException {
+        Gazetteer index;
+        try (InputStream in = new DefaultResourceLoader().getResource(gazetteer.getLocation()).getInputStream()) {
+            index = Gazetteer.load(in, gazetteer.getMinPrefixLength(), gazetteer.getMaxEditDistance());
+        }
+        long baseEpochHour = Math.floorDiv(clock.millis(), Duration.ofHours(1).toMillis());
+        ForecastDataset.writeSynthetic(path, index.ids(), baseEpochHour, Math.max(1, config.getHours()));
+        log.info("Generated synthetic forecast dataset {} for {} locations", path, index.size());
+    }
+}
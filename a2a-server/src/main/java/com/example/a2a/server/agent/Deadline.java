@@ -0,0 +1,93 @@
+package com.example.a2a.server.agent;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 请求截止时间，基于单调时钟，与墙钟调整无关。
+ * <p>
+ * 由传输层按请求头、参数或服务端默认值创建，随任务传入 {@link SkillRegistry}：注册中心在排队结束、
+ * 技能开始前丢弃已过期的调用，并把等待时间限制在剩余时间内；技能执行期间可通过
+ * {@link #current()} 取得当前截止时间，在访问上游前再次检查。
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    /**
+     * 以单调时钟上的绝对时刻创建截止时间。
+     */
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * 从现在起经过 {@code timeout} 后到期；非正数表示已经到期。
+     *
+     * @param timeout 剩余时间
+     * @return 截止时间
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + Math.max(0, timeout.toNanos()));
+    }
+
+    /**
+     * 当前线程正在执行的技能调用的截止时间。
+     *
+     * @return 截止时间，未设置时返回 {@code null}
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在当前线程上以给定截止时间执行任务，结束后恢复原值。
+     *
+     * @param deadline 截止时间，可为 {@code null}
+     * @param task     任务
+     * @param <T>      结果类型
+     * @return 任务结果
+     * @throws Exception 任务抛出的异常
+     */
+    static <T> T callWith(Deadline deadline, Callable<T> task) throws Exception {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 剩余纳秒数，已到期时不大于 0。
+     *
+     * @return 剩余纳秒
+     */
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    /**
+     * 是否已到期。
+     *
+     * @return 到期返回 {@code true}
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * 输出剩余毫秒，便于日志排查。
+     */
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + Duration.ofNanos(remainingNanos()).toMillis() + "ms]";
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.a2a.server.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 请求截止时间配置，对应 {@code a2a.deadline.*}。客户端可通过请求头 {@value #TIMEOUT_HEADER}
+ * 或参数 {@code timeoutMs} 指定相对超时（毫秒），请求头优先；都未提供时使用 {@link #defaultTimeout}，
+ * 任何来源都不会超过 {@link #maxTimeout}。
+ */
+@ConfigurationProperties(prefix = "a2a.deadline")
+public class DeadlineProperties {
+
+    /**
+     * 携带相对超时毫秒数的请求头。
+     */
+    public static final String TIMEOUT_HEADER = "a2a-timeout-ms";
+
+    /**
+     * 客户端未指定时的默认超时。
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 客户端可指定的最大超时。
+     */
+    private Duration maxTimeout = Duration.ofMinutes(5);
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public void setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * 按请求头、参数、默认值的顺序确定本次请求的截止时间。
+     *
+     * @param header      请求头原值，可为 {@code null}
+     * @param paramMillis 参数中的超时毫秒，可为 {@code null}
+     * @return 截止时间
+     * @throws IllegalArgumentException 请求头不是整数
+     */
+    public Deadline resolve(String header, Long paramMillis) {
+        Duration timeout = defaultTimeout;
+        if (header != null && !header.isBlank()) {
+            try {
+                timeout = Duration.ofMillis(Long.parseLong(header.trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid " + TIMEOUT_HEADER + " header: " + header);
+            }
+        } else if (paramMillis != null) {
+            timeout = Duration.ofMillis(paramMillis);
+        }
+        return Deadline.after(timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.a2a.server.agent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 只读映射的列式天气数据集，按“地点 ID × 小时桶”定位一条预报。
+ * <p>
+ * 文件布局（大端序）：
+ * <pre>
+ * int    magic = 'A2AF'
+ * int    version = 1
+ * int    locationCount
+ * int    hours                 每个地点覆盖的小时数
+ * long   baseEpochHour         第 0 个小时桶对应的 epoch 小时
+ * int    idTableBytes
+ * byte[] idTable               locationCount 个 [short 长度][UTF-8 ID]
+ * (按 2 字节对齐)
+ * short[locationCount*hours]   温度列，单位 0.1°C，下标 location*hours+hour
+ * byte[locationCount*hours]    天气现象列，取值见 {@link #CONDITIONS}
+ * </pre>
+ * 打开时整文件以 {@link FileChannel.MapMode#READ_ONLY} 映射，只把 ID 表解码进一张小的哈希表；
+ * 之后每次查询按下标直接从映射区读取两个列值，不复制、不解码整行。数据按小时桶循环使用：
+ * 超出覆盖范围的时间按 {@code hours} 取模，便于用固定文件做长时间压测。
+ */
+final class ForecastDataset {
+
+    static final int MAGIC = 0x41324146;
+    static final int VERSION = 1;
+    static final String[] CONDITIONS = {"Sunny", "Clear", "Cloudy", "Overcast", "Rain", "Thunderstorm", "Snow", "Fog"};
+
+    private static final int HEADER_BYTES = 28;
+
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> locations;
+    private final int hours;
+    private final long baseEpochHour;
+    private final int temperatureOffset;
+    private final int conditionOffset;
+
+    /**
+     * 由已校验的映射区创建数据集。
+     */
+    private ForecastDataset(MappedByteBuffer buffer, Map<String, Integer> locations, int hours, long baseEpochHour,
+                            int temperatureOffset, int conditionOffset) {
+        this.buffer = buffer;
+        this.locations = locations;
+        this.hours = hours;
+        this.baseEpochHour = baseEpochHour;
+        this.temperatureOffset = temperatureOffset;
+        this.conditionOffset = conditionOffset;
+    }
+
+    /**
+     * 映射并校验数据文件。
+     *
+     * @param path 数据文件
+     * @return 数据集
+     * @throws IOException              读取失败
+     * @throws IllegalArgumentException 文件格式不正确或被截断
+     */
+    static ForecastDataset open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid forecast dataset size " + size + ": " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a forecast dataset: " + path);
+        }
+        int locationCount = buffer.getInt(8);
+        int hours = buffer.getInt(12);
+        long baseEpochHour = buffer.getLong(16);
+        int idTableBytes = buffer.getInt(24);
+        if (locationCount < 0 || hours <= 0 || idTableBytes < 0
+                || (long) locationCount * Short.BYTES > idTableBytes) {
+            throw new IllegalArgumentException("Corrupt forecast dataset header: " + path);
+        }
+        // 头部字段来自文件，全部按 long 计算后再与文件大小比较，避免损坏的计数溢出 int 后绕过检查。
+        long idTableEnd = (long) HEADER_BYTES + idTableBytes;
+        long temperatureOffset = (idTableEnd + 1) & ~1L;
+        long cells = (long) locationCount * hours;
+        long conditionOffset = temperatureOffset + cells * Short.BYTES;
+        if (conditionOffset + cells > buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated forecast dataset: " + path);
+        }
+
+        Map<String, Integer> locations = new HashMap<>(locationCount * 2);
+        int position = HEADER_BYTES;
+        for (int i = 0; i < locationCount; i++) {
+            if (position + Short.BYTES > idTableEnd) {
+                throw new IllegalArgumentException("Corrupt forecast id table: " + path);
+            }
+            int length = buffer.getShort(position) & 0xFFFF;
+            if (position + Short.BYTES + length > idTableEnd) {
+                throw new IllegalArgumentException("Corrupt forecast id table: " + path);
+            }
+            byte[] id = new byte[length];
+            buffer.get(position + Short.BYTES, id);
+            locations.put(new String(id, StandardCharsets.UTF_8), i);
+            position += Short.BYTES + length;
+        }
+        if (position != idTableEnd) {
+            throw new IllegalArgumentException("Corrupt forecast id table: " + path);
+        }
+        return new ForecastDataset(buffer, locations, hours, baseEpochHour, (int) temperatureOffset,
+                (int) conditionOffset);
+    }
+
+    /**
+     * 查询某地点在某小时桶的预报。
+     *
+     * @param locationId 规范地点 ID
+     * @param epochHour  epoch 小时
+     * @return 形如 {@code Rain 12.5°C} 的描述，地点不在数据集中时返回 {@code null}
+     */
+    String forecast(String locationId, long epochHour) {
+        Integer location = locations.get(locationId);
+        if (location == null) {
+            return null;
+        }
+        int hour = (int) Math.floorMod(epochHour - baseEpochHour, (long) hours);
+        int cell = location * hours + hour;
+        short temperature = buffer.getShort(temperatureOffset + cell * Short.BYTES);
+        int condition = buffer.get(conditionOffset + cell) & 0xFF;
+        return format(condition, temperature);
+    }
+
+    /**
+     * 数据集包含的地点数。
+     *
+     * @return 地点数
+     */
+    int locationCount() {
+        return locations.size();
+    }
+
+    /**
+     * 每个地点覆盖的小时数。
+     *
+     * @return 小时数
+     */
+    int hours() {
+        return hours;
+    }
+
+    /**
+     * 写出数据集；先写临时文件再原子替换，正在读取旧文件的进程不会看到半个文件。
+     *
+     * @param path          目标文件
+     * @param ids           地点 ID，顺序即行号
+     * @param baseEpochHour 第 0 个小时桶
+     * @param hours         每个地点的小时数
+     * @param temperatures  温度列，单位 0.1°C，长度为 {@code ids.size()*hours}
+     * @param conditions    天气现象列，长度同上
+     * @throws IOException 写入失败
+     */
+    static void write(Path path, List<String> ids, long baseEpochHour, int hours, short[] temperatures,
+                      byte[] conditions) throws IOException {
+        int cells = ids.size() * hours;
+        if (temperatures.length != cells || conditions.length != cells) {
+            throw new IllegalArgumentException("Column length must be ids*hours = " + cells);
+        }
+        byte[][] encodedIds = new byte[ids.size()][];
+        int idTableBytes = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            encodedIds[i] = ids.get(i).getBytes(StandardCharsets.UTF_8);
+            idTableBytes += Short.BYTES + encodedIds[i].length;
+        }
+        int temperatureOffset = align2(HEADER_BYTES + idTableBytes);
+        ByteBuffer out = ByteBuffer.allocate(temperatureOffset + cells * Short.BYTES + cells);
+        out.putInt(MAGIC).putInt(VERSION).putInt(ids.size()).putInt(hours).putLong(baseEpochHour).putInt(idTableBytes);
+        for (byte[] id : encodedIds) {
+            out.putShort((short) id.length).put(id);
+        }
+        out.position(temperatureOffset);
+        for (short temperature : temperatures) {
+            out.putShort(temperature);
+        }
+        out.put(conditions);
+        out.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 为给定地点生成确定性的合成数据集，供本地压测与剖析使用：温度随地点与昼夜变化，
+     * 天气现象按地点与小时散列。
+     *
+     * @param path          目标文件
+     * @param ids           地点 ID
+     * @param baseEpochHour 第 0 个小时桶
+     * @param hours         每个地点的小时数
+     * @throws IOException 写入失败
+     */
+    static void writeSynthetic(Path path, List<String> ids, long baseEpochHour, int hours) throws IOException {
+        short[] temperatures = new short[ids.size() * hours];
+        byte[] conditions = new byte[temperatures.length];
+        for (int location = 0; location < ids.size(); location++) {
+            int seed = ids.get(location).hashCode();
+            int base = Math.floorMod(seed, 300) - 50;
+            for (int hour = 0; hour < hours; hour++) {
+                int cell = location * hours + hour;
+                long epochHour = baseEpochHour + hour;
+                int diurnal = (int) Math.round(60 * Math.sin(2 * Math.PI * Math.floorMod(epochHour - 6, 24L) / 24.0));
+                temperatures[cell] = (short) (base + diurnal);
+                int mixed = seed * 31 + (int) (epochHour / 6);
+                conditions[cell] = (byte) Math.floorMod(mixed ^ (mixed >>> 7), CONDITIONS.length);
+            }
+        }
+        write(path, ids, baseEpochHour, hours, temperatures, conditions);
+    }
+
+    /**
+     * 把列值格式化为描述文本。
+     */
+    private static String format(int condition, short temperature) {
+        String name = condition < CONDITIONS.length ? CONDITIONS[condition] : "Unknown";
+        int whole = Math.abs(temperature) / 10;
+        int tenths = Math.abs(temperature) % 10;
+        return name + (temperature < 0 ? " -" : " ") + whole + "." + tenths + "°C";
+    }
+
+    /**
+     * 向上对齐到 2 字节。
+     */
+    private static int align2(int offset) {
+        return (offset + 1) & ~1;
+    }
+}
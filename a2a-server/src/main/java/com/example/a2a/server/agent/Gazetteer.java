@@ -0,0 +1,381 @@
+package com.example.a2a.server.agent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 只读的地名索引，把用户输入的地点解析为规范地点 ID，供缓存与微批作为键使用。
+ * <p>
+ * 所有规范名称与别名折叠（转小写、只保留字母和数字）后存入一棵数组化的字典树：节点只占用
+ * 几个并行数组中的一格，没有逐节点对象。每个节点额外记录其子树是否只指向同一个地点，
+ * 因此前缀查询在走到前缀末尾时即可判定是否唯一。查询依次尝试：
+ * <ol>
+ *     <li>精确匹配名称或别名；</li>
+ *     <li>唯一前缀匹配（折叠后不少于 {@code minPrefixLength} 个字符，且前缀下只有一个地点）；</li>
+ *     <li>有界编辑距离匹配：在字典树上逐层维护 Levenshtein 行，超过上限的分支整体剪枝；
+ *     折叠后 4–7 个字符允许 1 处差异，更长允许 {@code maxEditDistance} 处，最近距离上出现多个
+ *     不同地点时视为无法判定。</li>
+ * </ol>
+ * 短于 4 个字符的输入（如“南京”“LA”）只做精确或前缀匹配，避免把相近的短地名误判为同一地点。
+ * <p>
+ * 文件格式为 UTF-8 文本，每行 {@code ID<TAB>规范名称<TAB>别名1|别名2}，{@code #} 开头的行为注释。
+ */
+final class Gazetteer {
+
+    /**
+     * 匹配方式，用于指标区分。
+     */
+    enum MatchType { EXACT, PREFIX, FUZZY }
+
+    /**
+     * 一次成功的解析结果。
+     */
+    static final class Match {
+        final String id;
+        final String name;
+        final MatchType type;
+
+        /**
+         * 创建解析结果。
+         */
+        Match(String id, String name, MatchType type) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static final int NO_LOCATION = -1;
+    private static final int AMBIGUOUS = -2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int LONG_QUERY_LENGTH = 8;
+
+    private final String[] ids;
+    private final Match[][] matches;
+    private final int minPrefixLength;
+    private final int maxEditDistance;
+
+    private char[] labels;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] terminal;
+    private int[] subtree;
+    private int nodeCount;
+    private int maxDepth;
+
+    /**
+     * 由解析好的条目构建索引。
+     */
+    private Gazetteer(List<String[]> entries, int minPrefixLength, int maxEditDistance) {
+        this.ids = new String[entries.size()];
+        this.matches = new Match[entries.size()][];
+        this.minPrefixLength = Math.max(1, minPrefixLength);
+        this.maxEditDistance = Math.max(0, maxEditDistance);
+        int capacity = 64;
+        this.labels = new char[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.terminal = new int[capacity];
+        newNode('\0');
+
+        for (int location = 0; location < entries.size(); location++) {
+            String[] entry = entries.get(location);
+            ids[location] = entry[0];
+            matches[location] = new Match[MatchType.values().length];
+            for (MatchType type : MatchType.values()) {
+                matches[location][type.ordinal()] = new Match(entry[0], entry[1], type);
+            }
+            for (int i = 1; i < entry.length; i++) {
+                insert(fold(entry[i]), location);
+            }
+        }
+        this.subtree = new int[nodeCount];
+        summarise(0);
+        trim();
+    }
+
+    /**
+     * 从 UTF-8 文本流加载索引。
+     *
+     * @param in              地名文件
+     * @param minPrefixLength 前缀匹配的最短折叠长度
+     * @param maxEditDistance 长输入允许的最大编辑距离
+     * @return 索引
+     * @throws IOException              读取失败
+     * @throws IllegalArgumentException 格式错误，或同一名称指向不同地点
+     */
+    static Gazetteer load(InputStream in, int minPrefixLength, int maxEditDistance) throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        Map<String, Boolean> seenIds = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", -1);
+                if (columns.length < 2 || columns[0].isBlank() || columns[1].isBlank()) {
+                    throw new IllegalArgumentException("Invalid gazetteer line " + lineNumber + ": " + line);
+                }
+                if (seenIds.put(columns[0].trim(), Boolean.TRUE) != null) {
+                    throw new IllegalArgumentException("Duplicate location id at line " + lineNumber + ": " + columns[0]);
+                }
+                List<String> fields = new ArrayList<>();
+                fields.add(columns[0].trim());
+                fields.add(columns[1].trim());
+                if (columns.length > 2 && !columns[2].isBlank()) {
+                    for (String alias : columns[2].split("\\|")) {
+                        if (!alias.isBlank()) {
+                            fields.add(alias.trim());
+                        }
+                    }
+                }
+                entries.add(fields.toArray(new String[0]));
+            }
+        }
+        return new Gazetteer(entries, minPrefixLength, maxEditDistance);
+    }
+
+    /**
+     * 解析地点。
+     *
+     * @param query 规范化后的用户输入
+     * @return 解析结果，无法唯一确定时返回 {@code null}
+     */
+    Match resolve(String query) {
+        String key = fold(query);
+        if (key.isEmpty()) {
+            return null;
+        }
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = child(node, key.charAt(i));
+        }
+        if (node >= 0) {
+            if (terminal[node] >= 0) {
+                return match(terminal[node], MatchType.EXACT);
+            }
+            if (key.length() >= minPrefixLength && subtree[node] >= 0) {
+                return match(subtree[node], MatchType.PREFIX);
+            }
+        }
+        int limit = key.length() < MIN_FUZZY_LENGTH ? 0
+                : key.length() < LONG_QUERY_LENGTH ? Math.min(1, maxEditDistance) : maxEditDistance;
+        if (limit == 0) {
+            return null;
+        }
+        int location = nearest(key, limit);
+        return location >= 0 ? match(location, MatchType.FUZZY) : null;
+    }
+
+    /**
+     * 已加载的地点数。
+     *
+     * @return 地点数
+     */
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * 按文件顺序返回全部规范地点 ID。
+     *
+     * @return 地点 ID 列表
+     */
+    List<String> ids() {
+        return List.of(ids);
+    }
+
+    /**
+     * 字典树节点数。
+     *
+     * @return 节点数
+     */
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 把名称折叠为索引键：转小写，只保留字母和数字。
+     *
+     * @param text 原始名称
+     * @return 折叠后的键
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = null;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            char lower = Character.toLowerCase(c);
+            boolean keep = Character.isLetterOrDigit(c);
+            if (builder == null) {
+                if (keep && lower == c) {
+                    continue;
+                }
+                builder = new StringBuilder(length);
+                builder.append(text, 0, i);
+            }
+            if (keep) {
+                builder.append(lower);
+            }
+        }
+        return builder == null ? text : builder.toString();
+    }
+
+    /**
+     * 返回预先构造好的结果对象，查询路径上不再分配。
+     */
+    private Match match(int location, MatchType type) {
+        return matches[location][type.ordinal()];
+    }
+
+    /**
+     * 在编辑距离上限内查找最近的唯一地点。
+     *
+     * @return 地点下标，未找到或最近距离上有多个地点时返回 {@link #NO_LOCATION}
+     */
+    private int nearest(String key, int limit) {
+        int columns = key.length() + 1;
+        int[][] rows = new int[maxDepth + 1][columns];
+        for (int j = 0; j < columns; j++) {
+            rows[0][j] = j;
+        }
+        // best[0] 为最近距离，best[1] 为对应地点或 AMBIGUOUS
+        int[] best = {limit + 1, NO_LOCATION};
+        for (int c = firstChild[0]; c >= 0; c = nextSibling[c]) {
+            search(c, 1, key, limit, rows, best);
+        }
+        return best[0] <= limit && best[1] >= 0 ? best[1] : NO_LOCATION;
+    }
+
+    /**
+     * 深度优先计算当前节点的 Levenshtein 行，行内最小值超过当前最优距离时剪枝。
+     */
+    private void search(int node, int depth, String key, int limit, int[][] rows, int[] best) {
+        int[] previous = rows[depth - 1];
+        int[] row = rows[depth];
+        char label = labels[node];
+        row[0] = depth;
+        int rowMin = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int cost = key.charAt(j - 1) == label ? 0 : 1;
+            int value = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            row[j] = value;
+            rowMin = Math.min(rowMin, value);
+        }
+        int distance = row[row.length - 1];
+        if (terminal[node] >= 0 && distance <= best[0]) {
+            if (distance < best[0]) {
+                best[0] = distance;
+                best[1] = terminal[node];
+            } else if (best[1] != terminal[node]) {
+                best[1] = AMBIGUOUS;
+            }
+        }
+        if (rowMin > Math.min(best[0], limit)) {
+            return;
+        }
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            search(c, depth + 1, key, limit, rows, best);
+        }
+    }
+
+    /**
+     * 插入一个折叠后的键。
+     */
+    private void insert(String key, int location) {
+        if (key.isEmpty()) {
+            return;
+        }
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int next = child(node, c);
+            if (next < 0) {
+                next = newNode(c);
+                nextSibling[next] = firstChild[node];
+                firstChild[node] = next;
+            }
+            node = next;
+        }
+        maxDepth = Math.max(maxDepth, key.length());
+        if (terminal[node] >= 0 && terminal[node] != location) {
+            throw new IllegalArgumentException("Name '" + key + "' maps to both " + ids[terminal[node]]
+                    + " and " + ids[location]);
+        }
+        terminal[node] = location;
+    }
+
+    /**
+     * 在兄弟链表中查找指定字符的子节点。
+     *
+     * @return 子节点下标，不存在返回 -1
+     */
+    private int child(int node, char c) {
+        for (int n = firstChild[node]; n >= 0; n = nextSibling[n]) {
+            if (labels[n] == c) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 分配新节点，必要时扩容。
+     */
+    private int newNode(char label) {
+        if (nodeCount == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            terminal = Arrays.copyOf(terminal, capacity);
+        }
+        int node = nodeCount++;
+        labels[node] = label;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        terminal[node] = NO_LOCATION;
+        return node;
+    }
+
+    /**
+     * 自底向上记录每个子树唯一指向的地点，多个地点记为 {@link #AMBIGUOUS}。
+     */
+    private int summarise(int node) {
+        int location = terminal[node];
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            int childLocation = summarise(c);
+            if (location == NO_LOCATION) {
+                location = childLocation;
+            } else if (childLocation != NO_LOCATION && childLocation != location) {
+                location = AMBIGUOUS;
+            }
+        }
+        subtree[node] = location;
+        return location;
+    }
+
+    /**
+     * 构建完成后收缩数组到实际节点数。
+     */
+    private void trim() {
+        labels = Arrays.copyOf(labels, nodeCount);
+        firstChild = Arrays.copyOf(firstChild, nodeCount);
+        nextSibling = Arrays.copyOf(nextSibling, nodeCount);
+        terminal = Arrays.copyOf(terminal, nodeCount);
+    }
+}
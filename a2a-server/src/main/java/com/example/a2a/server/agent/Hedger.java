@@ -0,0 +1,211 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求：上游调用超过近期延迟的指定分位数仍未返回时，再发出一份相同的调用，取先成功的结果，
+ * 另一份随即取消。慢请求多由上游个别实例抖动造成，第二份调用大概率落在正常实例上，
+ * 以约 {@code 1 - percentile} 的额外调用量换取尾延迟的明显下降。
+ * <p>
+ * 分位数由最近 {@value #WINDOW} 次调用的耗时估算，每 {@value #RECOMPUTE_EVERY} 次重新计算，
+ * 并限制在 {@code [minDelay, maxDelay]} 内；样本不足时按 {@code maxDelay} 对冲。被取消的调用按
+ * 取消时已耗费的时间计入样本。两份调用均在有界线程池上执行，线程耗尽时不对冲、直接在调用线程上执行。
+ * 发出的对冲数、对冲胜出数与当前对冲延迟通过 {@code a2a.hedge.requests}、{@code a2a.hedge.wins}、
+ * {@code a2a.hedge.delay}（按 {@code name} 标签区分）暴露。
+ */
+final class Hedger implements AutoCloseable {
+
+    static final int WINDOW = 1024;
+    static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final ThreadPoolExecutor pool;
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final Counter hedges;
+    private final Counter wins;
+    private volatile long delayNanos;
+
+    /**
+     * 创建对冲器。
+     *
+     * @param name          名称，用于线程名与指标标签
+     * @param percentile    触发对冲的延迟分位数，取值 (0, 1)
+     * @param minDelay      对冲延迟下限
+     * @param maxDelay      对冲延迟上限，样本不足时使用
+     * @param threads       执行上游调用的最大线程数
+     * @param meterRegistry 指标注册表
+     */
+    Hedger(String name, double percentile, Duration minDelay, Duration maxDelay, int threads,
+           MeterRegistry meterRegistry) {
+        this.percentile = Math.min(Math.max(percentile, 0.0), 1.0);
+        this.minDelayNanos = Math.max(0, minDelay.toNanos());
+        this.maxDelayNanos = Math.max(minDelayNanos, maxDelay.toNanos());
+        this.delayNanos = maxDelayNanos;
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(0, Math.max(2, threads), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "a2a-hedge-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hedges = Counter.builder("a2a.hedge.requests")
+                .description("Hedged upstream calls issued")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.wins = Counter.builder("a2a.hedge.wins")
+                .description("Hedged upstream calls that returned before the original")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("a2a.hedge.delay", this, hedger -> hedger.delayNanos / 1_000_000.0)
+                .description("Current hedging delay in milliseconds")
+                .tag("name", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行一次可对冲的上游调用。
+     *
+     * @param call 上游调用，须可安全重复执行
+     * @param <T>  结果类型
+     * @return 先成功的一份调用结果
+     * @throws RuntimeException 所有已发出的调用均失败时抛出最后一个失败原因，等待被中断时抛出
+     *                          {@link IllegalStateException}
+     */
+    <T> T call(Supplier<T> call) {
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(pool);
+        Future<T> primary;
+        try {
+            primary = completion.submit(() -> timed(call));
+        } catch (RejectedExecutionException ex) {
+            return timed(call);
+        }
+        Future<T> hedge = null;
+        try {
+            Future<T> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                try {
+                    hedge = completion.submit(() -> timed(call));
+                    hedges.increment();
+                } catch (RejectedExecutionException ex) {
+                    hedge = null;
+                }
+                done = completion.take();
+            }
+            try {
+                T result = done.get();
+                if (done == hedge) {
+                    wins.increment();
+                }
+                return result;
+            } catch (ExecutionException ex) {
+                if (hedge == null) {
+                    throw unwrap(ex);
+                }
+                Future<T> other = completion.take();
+                try {
+                    T result = other.get();
+                    if (other == hedge) {
+                        wins.increment();
+                    }
+                    return result;
+                } catch (ExecutionException second) {
+                    throw unwrap(second);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for upstream", ex);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 当前的对冲延迟。
+     *
+     * @return 延迟纳秒
+     */
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * 停止线程池，进行中的调用被中断。
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 执行调用并记录耗时样本，失败或被中断时同样记录。
+     */
+    private <T> T timed(Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 写入环形样本缓冲，每 {@value #RECOMPUTE_EVERY} 个样本重新估算一次对冲延迟。
+     */
+    private void record(long nanos) {
+        long count = sampleCount.incrementAndGet();
+        samples.set((int) ((count - 1) % WINDOW), nanos);
+        if (count % RECOMPUTE_EVERY == 0) {
+            recompute((int) Math.min(count, WINDOW));
+        }
+    }
+
+    /**
+     * 对最近的样本排序取分位数，并限制在上下限之间。
+     */
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        long estimate = sorted[Math.max(0, index)];
+        delayNanos = Math.min(maxDelayNanos, Math.max(minDelayNanos, estimate));
+    }
+
+    /**
+     * 还原上游调用抛出的运行时异常。
+     */
+    private static RuntimeException unwrap(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException("Upstream call failed", cause);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 微批网关：把短时间内并发到达的单键查询合并成一次批量调用，再把结果分发回各自等待的 Future。
+ * <p>
+ * 窗口内第一个键到达时开始计时，窗口结束或凑满 {@code maxBatchSize} 个键时立即发出批量调用，
+ * 两者先到者为准；同一窗口内重复的键共享同一个 Future，只向上游查询一次。无论凑满还是计时触发，
+ * 批次都在内部线程上调用上游，提交线程（可能属于某个技能调用的隔离舱，超时时会被中断）从不执行
+ * 批量调用，一个调用方被中断不会波及同批的其他键。批量调用失败或结果缺少某个键时，
+ * 对应的 Future 以异常结束。批大小与批量调用耗时通过 {@code a2a.batch.size}、
+ * {@code a2a.batch.call}（按 {@code name} 标签区分）暴露。
+ *
+ * @param <K> 查询键
+ * @param <V> 结果
+ */
+final class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final Function<List<K>, Map<K, V>> batchLoader;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary batchSizes;
+    private final Timer batchCalls;
+
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+    private long generation;
+
+    /**
+     * 创建微批网关。
+     *
+     * @param name          名称，用于线程名与指标标签
+     * @param batchLoader   批量查询函数，返回的映射应包含每个请求的键
+     * @param maxBatchSize  单批最多键数
+     * @param window        收集窗口
+     * @param concurrency   批次的最大并发数
+     * @param meterRegistry 指标注册表
+     */
+    MicroBatcher(String name, Function<List<K>, Map<K, V>> batchLoader, int maxBatchSize, Duration window,
+                 int concurrency, MeterRegistry meterRegistry) {
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = Math.max(0, window.toNanos());
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "a2a-batch-" + name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        this.batchSizes = DistributionSummary.builder("a2a.batch.size")
+                .description("Keys per batched upstream call")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.batchCalls = Timer.builder("a2a.batch.call")
+                .description("Latency of batched upstream calls")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交一个键，返回在所在批次完成时结束的 Future。不阻塞，等待多久由调用方决定，
+     * 调用方放弃等待不影响批次本身。
+     *
+     * @param key 查询键
+     * @return 结果 Future
+     */
+    CompletableFuture<V> submit(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                long scheduledGeneration = generation;
+                timer = scheduler.schedule(() -> flush(scheduledGeneration), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            Map<K, CompletableFuture<V>> batch = full;
+            try {
+                scheduler.execute(() -> dispatch(batch));
+            } catch (RejectedExecutionException ex) {
+                IllegalStateException closed = new IllegalStateException("Batcher closed");
+                batch.values().forEach(pendingFuture -> pendingFuture.completeExceptionally(closed));
+            }
+        }
+        return future;
+    }
+
+    /**
+     * 停止内部调度线程，尚未发出的批次以异常结束。
+     */
+    @Override
+    public void close() {
+        Map<K, CompletableFuture<V>> remaining;
+        synchronized (lock) {
+            remaining = takePending();
+        }
+        scheduler.shutdownNow();
+        IllegalStateException closed = new IllegalStateException("Batcher closed");
+        remaining.values().forEach(future -> future.completeExceptionally(closed));
+    }
+
+    /**
+     * 计时到期：仅当批次仍是计时开始时的那一批才发出。
+     */
+    private void flush(long scheduledGeneration) {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (scheduledGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * 取出当前批次并开始新一代，调用方需持有锁。
+     */
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        generation++;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return batch;
+    }
+
+    /**
+     * 发出一次批量调用并把结果分发给各个 Future。
+     */
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        List<K> keys = new ArrayList<>(batch.keySet());
+        batchSizes.record(keys.size());
+        long start = System.nanoTime();
+        Map<K, V> results;
+        try {
+            results = batchLoader.apply(keys);
+        } catch (Throwable ex) {
+            batch.values().forEach(future -> future.completeExceptionally(ex));
+            return;
+        } finally {
+            batchCalls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+            V value = results == null ? null : results.get(entry.getKey());
+            if (value != null) {
+                entry.getValue().complete(value);
+            } else {
+                entry.getValue().completeExceptionally(
+                        new IllegalStateException("No result for key: " + entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.a2a.server.agent;
+
+/**
+ * 技能调用无法完成时抛出的运行时异常，携带 JSON-RPC 错误码，控制器直接映射为错误响应。
+ */
+public class SkillExecutionException extends RuntimeException {
+
+    /**
+     * 未注册的技能 ID。
+     */
+    public static final int UNKNOWN_SKILL = -32601;
+
+    /**
+     * 技能的线程池与等待队列均已占满。
+     */
+    public static final int SKILL_BUSY = -32010;
+
+    /**
+     * 技能执行超过配置的超时时间。
+     */
+    public static final int SKILL_TIMEOUT = -32011;
+
+    /**
+     * 请求的截止时间已过，调用在开始前被丢弃或在等待中放弃。
+     */
+    public static final int DEADLINE_EXCEEDED = -32012;
+
+    /**
+     * 技能执行过程中抛出异常。
+     */
+    public static final int SKILL_FAILED = -32603;
+
+    private final int code;
+
+    /**
+     * 构造异常实例。
+     *
+     * @param code    JSON-RPC 错误码
+     * @param message 错误描述
+     * @param cause   原始异常，可为 {@code null}
+     */
+    public SkillExecutionException(int code, String message, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    /**
+     * 返回对应的 JSON-RPC 错误码。
+     *
+     * @return 错误码
+     */
+    public int getCode() {
+        return code;
+    }
+}
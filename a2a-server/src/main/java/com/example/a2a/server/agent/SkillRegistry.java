@@ -0,0 +1,385 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 技能注册中心：收集所有 {@link AgentExecutor}，按技能 ID 路由调用，并为每个技能提供独立的隔离舱。
+ * <p>
+ * 每个技能拥有自己的有界线程池与等待队列，队列满时立即拒绝而不是占用调用方线程；单次调用超过
+ * 技能超时后中断执行线程并返回超时错误。因此一个变慢的技能最多耗尽自己的线程，不会拖垮其他技能。
+ * 调用可携带请求的 {@link Deadline}：提交前与出队开始执行时已到期的调用直接丢弃，不占用技能线程；
+ * 等待时间取技能超时与剩余时间的较小者，执行期间技能可通过 {@link Deadline#current()} 读取截止时间。
+ * 每个技能的耗时按结果（success/failure/timeout/expired/rejected）记录到 {@code a2a.skill.execution}，
+ * 活跃线程与排队数通过 {@code a2a.skill.active}、{@code a2a.skill.queued} 暴露。
+ * <p>
+ * 第一个注册的技能作为默认技能，供未指定技能 ID 的任务使用。
+ */
+@Component
+public class SkillRegistry {
+
+    private final Map<String, Skill> skills = new LinkedHashMap<>();
+    private final String defaultSkillId;
+
+    /**
+     * 注册所有技能并为每个技能创建隔离舱。
+     *
+     * @param executors     技能实现
+     * @param properties    隔离舱配置
+     * @param meterRegistry 指标注册表
+     */
+    public SkillRegistry(List<AgentExecutor> executors, SkillRegistryProperties properties,
+                         MeterRegistry meterRegistry) {
+        for (AgentExecutor executor : executors) {
+            String skillId = executor.skillId();
+            if (skills.containsKey(skillId)) {
+                throw new IllegalStateException("Duplicate skill id: " + skillId);
+            }
+            skills.put(skillId, new Skill(executor, properties.forSkill(skillId), meterRegistry));
+        }
+        this.defaultSkillId = skills.isEmpty() ? null : skills.keySet().iterator().next();
+    }
+
+    /**
+     * 在技能的隔离舱中执行一次调用，阻塞等待结果直到超时。
+     *
+     * @param skillId 技能 ID，为 {@code null} 时使用默认技能
+     * @param input   用户输入
+     * @return 技能结果
+     * @throws SkillExecutionException 技能不存在、繁忙、超时或执行失败
+     */
+    public String execute(String skillId, String input) {
+        return execute(skillId, input, null);
+    }
+
+    /**
+     * 在技能的隔离舱中执行一次受截止时间约束的调用。
+     *
+     * @param skillId  技能 ID，为 {@code null} 时使用默认技能
+     * @param input    用户输入
+     * @param deadline 请求截止时间，为 {@code null} 时只受技能超时约束
+     * @return 技能结果
+     * @throws SkillExecutionException 技能不存在、繁忙、超时、截止时间已过或执行失败
+     */
+    public String execute(String skillId, String input, Deadline deadline) {
+        return resolve(skillId).execute(input, deadline);
+    }
+
+    /**
+     * 查找技能，空 ID 使用默认技能。
+     *
+     * @throws SkillExecutionException 技能不存在
+     */
+    private Skill resolve(String skillId) {
+        String resolved = skillId == null || skillId.isBlank() ? defaultSkillId : skillId;
+        Skill skill = resolved == null ? null : skills.get(resolved);
+        if (skill == null) {
+            throw new SkillExecutionException(SkillExecutionException.UNKNOWN_SKILL,
+                    "Unknown skill: " + skillId, null);
+        }
+        return skill;
+    }
+
+    /**
+     * 在技能的隔离舱中以流式方式执行一次调用，片段在技能线程上回调 {@code sink}，本方法在技能
+     * 结束后返回。超时或失败后技能线程上迟到的片段会被丢弃。
+     *
+     * @param skillId 技能 ID，为 {@code null} 时使用默认技能
+     * @param input   用户输入
+     * @param sink    片段接收端
+     * @throws SkillExecutionException 技能不存在、繁忙、超时或执行失败
+     */
+    public void executeStreaming(String skillId, String input, AgentStreamSink sink) {
+        executeStreaming(skillId, input, sink, null);
+    }
+
+    /**
+     * 以流式方式执行一次受截止时间约束的调用。
+     *
+     * @param skillId  技能 ID，为 {@code null} 时使用默认技能
+     * @param input    用户输入
+     * @param sink     片段接收端
+     * @param deadline 请求截止时间，为 {@code null} 时只受技能超时约束
+     * @throws SkillExecutionException 技能不存在、繁忙、超时、截止时间已过或执行失败
+     */
+    public void executeStreaming(String skillId, String input, AgentStreamSink sink, Deadline deadline) {
+        resolve(skillId).executeStreaming(input, sink, deadline);
+    }
+
+    /**
+     * 判断技能是否已注册。
+     *
+     * @param skillId 技能 ID
+     * @return 已注册返回 {@code true}
+     */
+    public boolean contains(String skillId) {
+        return skillId != null && skills.containsKey(skillId);
+    }
+
+    /**
+     * 按注册顺序返回所有技能 ID。
+     *
+     * @return 技能 ID 列表
+     */
+    public List<String> skillIds() {
+        return List.copyOf(skills.keySet());
+    }
+
+    /**
+     * 默认技能 ID。
+     *
+     * @return 第一个注册的技能 ID，没有技能时返回 {@code null}
+     */
+    public String defaultSkillId() {
+        return defaultSkillId;
+    }
+
+    /**
+     * 按注册顺序返回所有技能的 AgentCard 描述。
+     *
+     * @return 技能描述列表
+     */
+    public List<AgentExecutor.SkillCard> skillCards() {
+        List<AgentExecutor.SkillCard> cards = new ArrayList<>(skills.size());
+        for (Skill skill : skills.values()) {
+            cards.add(skill.executor.card());
+        }
+        return cards;
+    }
+
+    /**
+     * 关闭所有技能线程池。
+     */
+    @PreDestroy
+    public void shutdown() {
+        skills.values().forEach(skill -> skill.pool.shutdownNow());
+    }
+
+    /**
+     * 单个技能的隔离舱：专用线程池、超时与按结果区分的耗时指标。
+     */
+    private static final class Skill {
+        final AgentExecutor executor;
+        final ThreadPoolExecutor pool;
+        final Duration timeout;
+        final Timer success;
+        final Timer failure;
+        final Timer timedOut;
+        final Timer expired;
+        final Timer rejected;
+
+        /**
+         * 按配置创建线程池并注册指标。
+         */
+        Skill(AgentExecutor executor, SkillRegistryProperties.Bulkhead bulkhead, MeterRegistry meterRegistry) {
+            String skillId = executor.skillId();
+            int threads = Math.max(1, bulkhead.getThreads());
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = executor;
+            this.timeout = bulkhead.getTimeout();
+            this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, bulkhead.getQueueCapacity())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "a2a-skill-" + skillId + "-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.pool.allowCoreThreadTimeOut(true);
+
+            this.success = timer(meterRegistry, skillId, "success");
+            this.failure = timer(meterRegistry, skillId, "failure");
+            this.timedOut = timer(meterRegistry, skillId, "timeout");
+            this.expired = timer(meterRegistry, skillId, "expired");
+            this.rejected = timer(meterRegistry, skillId, "rejected");
+            Gauge.builder("a2a.skill.active", pool, ThreadPoolExecutor::getActiveCount)
+                    .description("Skill invocations currently running")
+                    .tag("skill", skillId)
+                    .register(meterRegistry);
+            Gauge.builder("a2a.skill.queued", pool, executorPool -> executorPool.getQueue().size())
+                    .description("Skill invocations waiting for a bulkhead thread")
+                    .tag("skill", skillId)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 提交到隔离舱并等待结果。
+         */
+        String execute(String input, Deadline deadline) {
+            return run(() -> executor.execute(input), null, deadline);
+        }
+
+        /**
+         * 提交流式调用并等待技能结束，结束后关闭片段转发。
+         */
+        void executeStreaming(String input, AgentStreamSink sink, Deadline deadline) {
+            GuardedSink guarded = new GuardedSink(sink);
+            run(() -> {
+                executor.executeStreaming(input, guarded);
+                return null;
+            }, guarded, deadline);
+        }
+
+        /**
+         * 提交任务并等待，按结果记录指标并转换异常；返回或抛出前关闭 {@code guard}，超时时在
+         * 中断技能线程之前关闭，保证被中断唤醒的技能无法再写出片段。
+         */
+        private <T> T run(Callable<T> task, GuardedSink guard, Deadline deadline) {
+            try {
+                return await(task, guard, deadline);
+            } finally {
+                close(guard);
+            }
+        }
+
+        /**
+         * 提交到线程池并在技能超时与剩余时间的较小者内等待结果；已到期的调用不提交，排队期间到期的
+         * 调用在开始前丢弃。
+         */
+        private <T> T await(Callable<T> task, GuardedSink guard, Deadline deadline) {
+            long start = System.nanoTime();
+            if (deadline != null && deadline.isExpired()) {
+                record(expired, start);
+                throw deadlineExceeded("before submission");
+            }
+            Future<T> future;
+            try {
+                future = pool.submit(() -> {
+                    if (deadline == null) {
+                        return task.call();
+                    }
+                    if (deadline.isExpired()) {
+                        throw deadlineExceeded("while queued");
+                    }
+                    return Deadline.callWith(deadline, task);
+                });
+            } catch (RejectedExecutionException ex) {
+                record(rejected, start);
+                throw new SkillExecutionException(SkillExecutionException.SKILL_BUSY,
+                        "Skill busy: " + executor.skillId(), ex);
+            }
+            long timeoutNanos = timeout.toNanos();
+            boolean deadlineBound = deadline != null && deadline.remainingNanos() < timeoutNanos;
+            try {
+                T result = future.get(deadlineBound ? deadline.remainingNanos() : timeoutNanos, TimeUnit.NANOSECONDS);
+                record(success, start);
+                return result;
+            } catch (TimeoutException ex) {
+                close(guard);
+                future.cancel(true);
+                if (deadlineBound) {
+                    record(expired, start);
+                    throw deadlineExceeded("while waiting");
+                }
+                record(timedOut, start);
+                throw new SkillExecutionException(SkillExecutionException.SKILL_TIMEOUT,
+                        "Skill timed out after " + timeout.toMillis() + " ms: " + executor.skillId(), ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof SkillExecutionException skillException) {
+                    record(skillException.getCode() == SkillExecutionException.DEADLINE_EXCEEDED ? expired : failure,
+                            start);
+                    throw skillException;
+                }
+                record(failure, start);
+                throw new SkillExecutionException(SkillExecutionException.SKILL_FAILED,
+                        "Skill failed: " + (cause == null ? ex.getMessage() : cause.getMessage()), cause);
+            } catch (InterruptedException ex) {
+                close(guard);
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                record(failure, start);
+                throw new SkillExecutionException(SkillExecutionException.SKILL_FAILED,
+                        "Interrupted while waiting for skill: " + executor.skillId(), ex);
+            }
+        }
+
+        /**
+         * 构造截止时间已过的异常。
+         */
+        private SkillExecutionException deadlineExceeded(String stage) {
+            return new SkillExecutionException(SkillExecutionException.DEADLINE_EXCEEDED,
+                    "Deadline exceeded " + stage + ": " + executor.skillId(), null);
+        }
+
+        /**
+         * 停止转发片段。
+         */
+        private static void close(GuardedSink guard) {
+            if (guard != null) {
+                guard.open = false;
+            }
+        }
+
+        /**
+         * 记录自 {@code start} 起的耗时。
+         */
+        private static void record(Timer timer, long start) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * 创建带技能与结果标签的计时器。
+         */
+        private static Timer timer(MeterRegistry meterRegistry, String skillId, String outcome) {
+            return Timer.builder("a2a.skill.execution")
+                    .description("Skill invocation latency by outcome")
+                    .tag("skill", skillId)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 只在技能调用进行期间转发片段，超时或失败后丢弃技能线程上迟到的回调。
+     */
+    private static final class GuardedSink implements AgentStreamSink {
+        private final AgentStreamSink delegate;
+        volatile boolean open = true;
+
+        /**
+         * 包装实际接收端。
+         */
+        GuardedSink(AgentStreamSink delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reasoning(String chunk) {
+            if (open) {
+                delegate.reasoning(chunk);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void text(String chunk) {
+            if (open) {
+                delegate.text(chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.a2a.server.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 技能隔离舱配置，对应 {@code a2a.skills.*}。每个技能拥有独立的有界线程池、等待队列与超时，
+ * 未单独配置的技能使用 {@link #defaults}。
+ */
+@ConfigurationProperties(prefix = "a2a.skills")
+public class SkillRegistryProperties {
+
+    /**
+     * 默认隔离舱配置。
+     */
+    private Bulkhead defaults = new Bulkhead();
+
+    /**
+     * 按技能 ID 覆盖的隔离舱配置，整体替换默认值。
+     */
+    private Map<String, Bulkhead> overrides = new HashMap<>();
+
+    public Bulkhead getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Bulkhead defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Bulkhead> getOverrides() {
+        return overrides;
+    }
+
+    public void setOverrides(Map<String, Bulkhead> overrides) {
+        this.overrides = overrides;
+    }
+
+    /**
+     * 查找技能对应的隔离舱配置。
+     *
+     * @param skillId 技能 ID
+     * @return 覆盖配置，未配置时返回默认配置
+     */
+    public Bulkhead forSkill(String skillId) {
+        return overrides.getOrDefault(skillId, defaults);
+    }
+
+    /**
+     * 单个技能的隔离舱参数。
+     */
+    public static class Bulkhead {
+
+        /**
+         * 技能专用线程数。
+         */
+        private int threads = 8;
+
+        /**
+         * 线程全忙时允许排队的调用数，超出后立即拒绝。
+         */
+        private int queueCapacity = 32;
+
+        /**
+         * 单次调用的超时时间，超时后中断执行线程。
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
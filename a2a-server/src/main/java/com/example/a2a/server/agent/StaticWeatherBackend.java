@@ -0,0 +1,24 @@
+package com.example.a2a.server.agent;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 占位上游：对任何地点都返回固定天气，便于联调与测试。真实环境可替换为调用天气服务的实现；
+ * 开启 {@code a2a.weather.dataset.enabled} 后由 {@link DatasetWeatherBackend} 取代。
+ */
+@Component
+@ConditionalOnProperty(prefix = "a2a.weather.dataset", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class StaticWeatherBackend implements WeatherBackend {
+
+    /**
+     * 返回固定的天气描述。
+     *
+     * @param locationKey 规范化后的地点键
+     * @return 固定天气描述
+     */
+    @Override
+    public String forecast(String locationKey) {
+        return "Sunny 25°C";
+    }
+}
@@ -1,13 +1,171 @@
 package com.example.a2a.server.agent;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineStatsCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * HarmonyOS message/stream 示例流程中的极简占位 Agent，实现固定返回值以便联调和测试。
  * 真实项目可替换为对接华为聚合搜索或企业自有服务的具体实现。
+ * <p>
+ * 规范化后的地点先经 {@link Gazetteer} 解析为规范地点 ID（支持别名、唯一前缀与拼写容错），
+ * “NYC”“New York”“纽约”因此共享同一个缓存项与上游键；无法解析时退回规范化文本的小写形式。
+ * 解析结果按匹配方式计入 {@code a2a.weather.location.resolved{match}}。
+ * <p>
+ * 天气数据来自 {@link WeatherBackend}，结果按地点键缓存：容量与有效期可配置，热门地点在
+ * 过期前由后台刷新，同一地点的并发未命中只触发一次上游调用。缓存是异步缓存，加载耗时从发起查询计到
+ * 查询完成，命中率与加载耗时通过 {@code cache.*{cache=weather}} 指标暴露。缓存未命中（含后台刷新）不直接访问
+ * 上游，而是交给 {@link MicroBatcher} 在短窗口内与其他地点合并，以一次 {@link WeatherBackend#forecastAll}
+ * 调用完成。开启对冲后，上游调用（单个或批量）由 {@link Hedger} 在超过近期 p95 延迟时补发一份。
+ * <p>
+ * 上游查询由多个调用方共享，因此不受任何一个调用方的截止时间约束；技能调用携带的 {@link Deadline}
+ * 只限制该调用方自己的等待：已到期时不再发起查询，等待超过剩余时间时单独失败，共享的查询继续完成并写入缓存。
+ * 失败的查询在完成时即由缓存移除，不等调用方发现。
+ * <p>
+ * 作为 {@code weather_search} 技能注册到 {@link SkillRegistry}。
  */
 @Component
-public class WeatherAgent {
+public class WeatherAgent implements AgentExecutor {
+
+    /**
+     * 天气查询技能 ID。
+     */
+    public static final String SKILL_ID = "weather_search";
+
+    private static final String CACHE_NAME = "weather";
+    private static final String MISSING_LOCATION = "Please provide a valid location.";
+    private static final String PREFIX = "weather in";
+
+    private final WeatherBackend backend;
+    private final Gazetteer gazetteer;
+    private final Counter[] resolved;
+    private final Counter unresolved;
+    private final Timer upstream;
+    private final Hedger hedger;
+    private final MicroBatcher<String, String> batcher;
+    private final Executor executor;
+    private final AsyncLoadingCache<String, String> forecasts;
+
+    /**
+     * 使用固定结果的上游与默认缓存配置创建 Agent，便于测试直接构造。
+     */
+    public WeatherAgent() {
+        this(new StaticWeatherBackend(), new WeatherAgentProperties(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * 注入上游、缓存配置与指标注册表。
+     *
+     * @param backend       天气数据上游
+     * @param properties    Agent 配置
+     * @param meterRegistry 指标注册表
+     */
+    @Autowired
+    public WeatherAgent(WeatherBackend backend, WeatherAgentProperties properties, MeterRegistry meterRegistry) {
+        this(backend, properties, meterRegistry, ForkJoinPool.commonPool(), Ticker.systemTicker());
+    }
+
+    /**
+     * 指定刷新执行器与时钟，测试可借此确定性地触发过期与后台刷新。
+     *
+     * @param backend       天气数据上游
+     * @param properties    Agent 配置
+     * @param meterRegistry 指标注册表
+     * @param executor      后台刷新执行器，未启用微批时也用于执行上游查询
+     * @param ticker        缓存时钟
+     */
+    WeatherAgent(WeatherBackend backend, WeatherAgentProperties properties, MeterRegistry meterRegistry,
+                 Executor executor, Ticker ticker) {
+        this.backend = backend;
+        this.gazetteer = loadGazetteer(properties.getGazetteer());
+        this.resolved = new Counter[Gazetteer.MatchType.values().length];
+        for (Gazetteer.MatchType type : Gazetteer.MatchType.values()) {
+            resolved[type.ordinal()] = resolutionCounter(meterRegistry, type.name().toLowerCase(Locale.ROOT));
+        }
+        this.unresolved = resolutionCounter(meterRegistry, "none");
+        this.upstream = Timer.builder("a2a.weather.upstream")
+                .description("Latency of upstream forecast lookups, from submission to completion")
+                .register(meterRegistry);
+        this.hedger = buildHedger(properties.getHedge(), meterRegistry);
+        this.batcher = buildBatcher(properties.getBatch(), meterRegistry);
+        this.executor = executor;
+        this.forecasts = buildCache(properties.getCache(), meterRegistry, executor, ticker);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String skillId() {
+        return SKILL_ID;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SkillCard card() {
+        SkillCard card = new SkillCard();
+        card.id = SKILL_ID;
+        card.name = "Search weather";
+        card.description = "Helps with weather in cities or states";
+        card.tags = List.of("weather");
+        card.examples = List.of("weather in LA, CA");
+        return card;
+    }
+
+    /**
+     * 技能入口，等同于 {@link #search(String)}。
+     *
+     * @param input 用户输入的地理位置描述
+     * @return 天气说明文本
+     */
+    @Override
+    public String execute(String input) {
+        return search(input);
+    }
+
+    /**
+     * 流式技能入口：地点解析完成后先输出一段推理说明，查询到天气后再输出完整回答。
+     *
+     * @param input 用户输入的地理位置描述
+     * @param sink  片段接收端
+     */
+    @Override
+    public void executeStreaming(String input, AgentStreamSink sink) {
+        String normalisedLocation = normaliseLocation(input);
+        if (normalisedLocation.isBlank()) {
+            sink.text(MISSING_LOCATION);
+            return;
+        }
+        String key = locationKey(normalisedLocation);
+        sink.reasoning("Looking up forecast for " + key);
+        sink.text(answer(normalisedLocation, key));
+    }
 
     /**
      * 根据输入位置返回可预测的天气结果，帮助验证上层的流式消息处理流程。
@@ -16,43 +174,312 @@ public class WeatherAgent {
      * @return 构造好的天气说明文本
      */
     public String search(String location) {
-        // 占位实现：可在真实环境中替换为调用天气服务的逻辑
         String normalisedLocation = normaliseLocation(location);
         if (normalisedLocation.isBlank()) {
-            return "Please provide a valid location.";
+            return MISSING_LOCATION;
+        }
+        return answer(normalisedLocation, locationKey(normalisedLocation));
+    }
+
+    /**
+     * 查询天气并拼装回答，等待时间受当前技能调用的截止时间约束。
+     *
+     * @param normalisedLocation 规范化后的地点，用于回答文本
+     * @param key                地点键
+     * @return 天气说明文本
+     * @throws SkillExecutionException 截止时间已到期或等待超时
+     */
+    private String answer(String normalisedLocation, String key) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            throw new SkillExecutionException(SkillExecutionException.DEADLINE_EXCEEDED,
+                    "Deadline exceeded before upstream call: " + key, null);
+        }
+        CompletableFuture<String> pending = forecasts != null ? forecasts.get(key) : fetch(key);
+        return "Weather in " + normalisedLocation + ": " + await(key, pending, deadline);
+    }
+
+    /**
+     * 在调用方的截止时间内等待查询结果；超时只影响当前调用方。
+     *
+     * @param key      地点键
+     * @param pending  共享的查询
+     * @param deadline 调用方截止时间，为 {@code null} 时不限制
+     * @return 天气描述
+     * @throws SkillExecutionException 等待超过截止时间
+     * @throws RuntimeException        查询失败的原因，或等待被中断
+     */
+    private String await(String key, CompletableFuture<String> pending, Deadline deadline) {
+        try {
+            return deadline == null ? pending.get() : pending.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new SkillExecutionException(SkillExecutionException.DEADLINE_EXCEEDED,
+                    "Deadline exceeded waiting for upstream: " + key, null);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Upstream call failed: " + key, cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for upstream", ex);
+        }
+    }
+
+    /**
+     * 把规范化后的地点映射为缓存与上游使用的键。
+     *
+     * @param normalisedLocation 规范化后的地点
+     * @return 规范地点 ID，无法解析时为小写文本
+     */
+    String locationKey(String normalisedLocation) {
+        if (gazetteer != null) {
+            Gazetteer.Match match = gazetteer.resolve(normalisedLocation);
+            if (match != null) {
+                resolved[match.type.ordinal()].increment();
+                return match.id;
+            }
+            unresolved.increment();
+        }
+        return normalisedLocation.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 关闭微批网关与对冲器的线程。
+     */
+    @PreDestroy
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        if (hedger != null) {
+            hedger.close();
+        }
+    }
+
+    /**
+     * 发起单个地点的上游查询，不阻塞调用线程：启用微批时与同一窗口内的其他查询合并，否则在执行器上调用上游。
+     * 查询由所有等待该地点的调用方共享，不读取任何调用方的截止时间。从发起到完成（含失败）的耗时计入
+     * {@code a2a.weather.upstream}，是否启用缓存与微批都会记录。
+     *
+     * @param key 规范化后的地点键
+     * @return 查询结果的 Future
+     */
+    private CompletableFuture<String> fetch(String key) {
+        long start = System.nanoTime();
+        CompletableFuture<String> pending = batcher != null ? batcher.submit(key) : CompletableFuture.supplyAsync(
+                () -> hedger != null ? hedger.call(() -> backend.forecast(key)) : backend.forecast(key), executor);
+        pending.whenComplete((value, failure) -> upstream.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        return pending;
+    }
+
+    /**
+     * 批量查询上游，开启对冲时整批对冲。
+     */
+    private Map<String, String> fetchAll(List<String> keys) {
+        return hedger != null ? hedger.call(() -> backend.forecastAll(keys)) : backend.forecastAll(keys);
+    }
+
+    /**
+     * 按配置加载地名索引。
+     *
+     * @param config 地名索引配置
+     * @return 索引，未启用时返回 {@code null}
+     * @throws UncheckedIOException 地名文件无法读取
+     */
+    private static Gazetteer loadGazetteer(WeatherAgentProperties.Gazetteer config) {
+        if (config == null || !config.isEnabled()) {
+            return null;
+        }
+        try (InputStream in = new DefaultResourceLoader().getResource(config.getLocation()).getInputStream()) {
+            return Gazetteer.load(in, config.getMinPrefixLength(), config.getMaxEditDistance());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to load gazetteer from " + config.getLocation(), ex);
+        }
+    }
+
+    /**
+     * 创建按匹配方式区分的解析计数器。
+     */
+    private static Counter resolutionCounter(MeterRegistry meterRegistry, String match) {
+        return Counter.builder("a2a.weather.location.resolved")
+                .description("Location lookups by gazetteer match type")
+                .tag("match", match)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按配置构建微批网关。
+     *
+     * @param batch         微批配置
+     * @param meterRegistry 指标注册表
+     * @return 微批网关，未启用时返回 {@code null}
+     */
+    private MicroBatcher<String, String> buildBatcher(WeatherAgentProperties.Batch batch, MeterRegistry meterRegistry) {
+        if (batch == null || !batch.isEnabled()) {
+            return null;
+        }
+        return new MicroBatcher<>(CACHE_NAME, this::fetchAll, batch.getMaxBatchSize(), batch.getWindow(),
+                batch.getConcurrency(), meterRegistry);
+    }
+
+    /**
+     * 按配置构建对冲器。
+     *
+     * @param hedge         对冲配置
+     * @param meterRegistry 指标注册表
+     * @return 对冲器，未启用时返回 {@code null}
+     */
+    private static Hedger buildHedger(WeatherAgentProperties.Hedge hedge, MeterRegistry meterRegistry) {
+        if (hedge == null || !hedge.isEnabled()) {
+            return null;
+        }
+        return new Hedger(CACHE_NAME, hedge.getPercentile(), hedge.getMinDelay(), hedge.getMaxDelay(),
+                hedge.getThreads(), meterRegistry);
+    }
+
+    /**
+     * 按配置构建结果缓存；刷新间隔不小于有效期时不启用后台刷新。未命中时缓存立即得到查询的 Future，
+     * 同一地点的后续调用共享它；后台刷新在新结果完成后再替换，刷新期间读到的仍是旧值。
+     *
+     * @param cache         缓存配置
+     * @param meterRegistry 指标注册表
+     * @param executor      后台刷新执行器
+     * @param ticker        缓存时钟
+     * @return 缓存实例，未启用时返回 {@code null}
+     */
+    private AsyncLoadingCache<String, String> buildCache(WeatherAgentProperties.Cache cache,
+                                                         MeterRegistry meterRegistry, Executor executor,
+                                                         Ticker ticker) {
+        if (cache == null || !cache.isEnabled()) {
+            return null;
+        }
+        CaffeineStatsCounter stats = new CaffeineStatsCounter(meterRegistry, CACHE_NAME);
+        Duration ttl = cache.getTtl();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cache.getMaximumSize()))
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .ticker(ticker)
+                .recordStats(() -> stats);
+        Duration refreshAfter = cache.getRefreshAfter();
+        if (refreshAfter != null && refreshAfter.compareTo(ttl) < 0) {
+            builder.refreshAfterWrite(refreshAfter);
+        }
+        AsyncLoadingCache<String, String> built = builder.buildAsync(new ForecastLoader());
+        stats.registerSizeMetric(built.synchronous());
+        return built;
+    }
+
+    /**
+     * 异步缓存加载器：加载与刷新都直接返回共享的查询，不占用线程等待上游。刷新先切换到缓存执行器再发起，
+     * 读取触发刷新的调用方不承担发起查询的开销；刷新失败时缓存保留旧值。
+     */
+    private final class ForecastLoader implements AsyncCacheLoader<String, String> {
+
+        @Override
+        public CompletableFuture<String> asyncLoad(String key, Executor executor) {
+            return fetch(key);
+        }
+
+        @Override
+        public CompletableFuture<String> asyncReload(String key, String oldValue, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> key, executor).thenCompose(WeatherAgent.this::fetch);
         }
-        return "Weather in " + normalisedLocation + ": Sunny 25°C";
     }
 
     /**
      * 规范化用户输入，去除多余前缀和标点，方便后续处理。
+     * <p>
+     * 单次扫描只移动首尾下标，不创建中间字符串也不使用正则，最后至多截取一次子串；依次完成：
+     * 去除首尾空白、忽略大小写去掉 {@code weather in} 前缀及随后的冒号、去掉开头的
+     * 空白/逗号/冒号/连字符、去掉结尾的空白/问号/句号/感叹号、再次去除首尾空白。
+     * 全角的逗号、顿号、冒号、连字符与问号、句号、感叹号按对应半角符号处理。
      *
      * @param raw 原始输入文本
      * @return 清洗后的地理位置
      */
-    private String normaliseLocation(String raw) {
+    static String normaliseLocation(String raw) {
         if (raw == null) {
             return "";
         }
+        int start = 0;
+        int end = raw.length();
+        while (start < end && Character.isWhitespace(raw.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(raw.charAt(end - 1))) {
+            end--;
+        }
 
-        String trimmed = raw.strip();
-        if (trimmed.isEmpty()) {
-            return "";
+        if (startsWithPrefix(raw, start, end)) {
+            start += PREFIX.length();
+            while (start < end && Character.isWhitespace(raw.charAt(start))) {
+                start++;
+            }
+            if (start < end && isColon(raw.charAt(start))) {
+                start++;
+            }
+        }
+
+        while (start < end && isLeadingPunctuation(raw.charAt(start))) {
+            start++;
         }
+        while (end > start && isTrailingPunctuation(raw.charAt(end - 1))) {
+            end--;
+        }
+        while (start < end && Character.isWhitespace(raw.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(raw.charAt(end - 1))) {
+            end--;
+        }
+        return start == 0 && end == raw.length() ? raw : raw.substring(start, end);
+    }
 
-        String prefix = "weather in";
-        String lower = trimmed.toLowerCase();
-        if (lower.startsWith(prefix)) {
-            trimmed = trimmed.substring(prefix.length()).stripLeading();
-            if (!trimmed.isEmpty() && trimmed.charAt(0) == ':') {
-                trimmed = trimmed.substring(1);
+    /**
+     * 忽略大小写判断 {@code [start, end)} 是否以 {@code weather in} 开头。
+     */
+    private static boolean startsWithPrefix(String raw, int start, int end) {
+        if (end - start < PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < PREFIX.length(); i++) {
+            if (Character.toLowerCase(raw.charAt(start + i)) != PREFIX.charAt(i)) {
+                return false;
             }
         }
+        return true;
+    }
 
-        // 去除前导标点以及句尾的标点符号。
-        trimmed = trimmed.replaceFirst("^[\\s,:-]+", "");
-        trimmed = trimmed.replaceFirst("[\\s?.!]+$", "");
+    /**
+     * 半角或全角冒号。
+     */
+    private static boolean isColon(char c) {
+        return c == ':' || c == '：';
+    }
 
-        return trimmed.strip();
+    /**
+     * 开头需要去掉的字符：ASCII 空白、逗号、冒号、连字符及其全角形式。
+     */
+    private static boolean isLeadingPunctuation(char c) {
+        return isAsciiSpace(c) || c == ',' || c == ':' || c == '-'
+                || c == '，' || c == '、' || c == '：' || c == '－' || c == '\u3000';
+    }
+
+    /**
+     * 结尾需要去掉的字符：ASCII 空白、问号、句号、感叹号及其全角形式。
+     */
+    private static boolean isTrailingPunctuation(char c) {
+        return isAsciiSpace(c) || c == '?' || c == '.' || c == '!'
+                || c == '？' || c == '。' || c == '．' || c == '！' || c == '\u3000';
+    }
+
+    /**
+     * 与正则 {@code \s} 相同的 ASCII 空白集合。
+     */
+    private static boolean isAsciiSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
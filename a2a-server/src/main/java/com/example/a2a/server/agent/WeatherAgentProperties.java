@@ -0,0 +1,395 @@
+package com.example.a2a.server.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 天气 Agent 的配置项，对应 {@code a2a.weather.*}。包含地名解析、结果缓存、上游微批与对冲请求：热门城市的查询结果在
+ * 有效期内直接复用，临近过期时后台刷新，避免请求线程等待上游；缓存未命中的并发查询在短窗口内
+ * 合并为一次批量调用。
+ */
+@ConfigurationProperties(prefix = "a2a.weather")
+public class WeatherAgentProperties {
+
+    /**
+     * 结果缓存配置。
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 上游微批配置。
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 地名索引配置。
+     */
+    private Gazetteer gazetteer = new Gazetteer();
+
+    /**
+     * 本地数据集上游配置。
+     */
+    private Dataset dataset = new Dataset();
+
+    /**
+     * 上游对冲请求配置。
+     */
+    private Hedge hedge = new Hedge();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Gazetteer getGazetteer() {
+        return gazetteer;
+    }
+
+    public void setGazetteer(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Hedge hedge) {
+        this.hedge = hedge;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * 结果缓存配置，对应 {@code a2a.weather.cache.*}。
+     */
+    public static class Cache {
+
+        /**
+         * 是否启用结果缓存。
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的地点数量。
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * 结果写入后的有效期，过期后下一次查询会同步回源。
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 结果写入多久后在被访问时触发后台刷新，应小于 {@link #ttl}。
+         */
+        private Duration refreshAfter = Duration.ofMinutes(8);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getRefreshAfter() {
+            return refreshAfter;
+        }
+
+        public void setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+        }
+    }
+
+    /**
+     * 上游微批配置，对应 {@code a2a.weather.batch.*}。
+     */
+    public static class Batch {
+
+        /**
+         * 是否合并并发的上游查询。
+         */
+        private boolean enabled = true;
+
+        /**
+         * 第一个查询到达后最多等待多久再发出批量调用。
+         */
+        private Duration window = Duration.ofMillis(5);
+
+        /**
+         * 单批最多地点数，凑满后不再等待窗口结束。
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * 同时进行中的批次上限，凑满与计时触发的批次共用。
+         */
+        private int concurrency = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    /**
+     * 地名索引配置，对应 {@code a2a.weather.gazetteer.*}。
+     */
+    public static class Gazetteer {
+
+        /**
+         * 是否把输入解析为规范地点 ID；关闭后以规范化文本的小写形式作为键。
+         */
+        private boolean enabled = true;
+
+        /**
+         * 地名文件位置，支持 {@code classpath:} 与 {@code file:} 前缀。
+         */
+        private String location = "classpath:gazetteer/locations.tsv";
+
+        /**
+         * 唯一前缀匹配要求的最短折叠长度。
+         */
+        private int minPrefixLength = 3;
+
+        /**
+         * 折叠后不少于 8 个字符的输入允许的最大编辑距离。
+         */
+        private int maxEditDistance = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public int getMinPrefixLength() {
+            return minPrefixLength;
+        }
+
+        public void setMinPrefixLength(int minPrefixLength) {
+            this.minPrefixLength = minPrefixLength;
+        }
+
+        public int getMaxEditDistance() {
+            return maxEditDistance;
+        }
+
+        public void setMaxEditDistance(int maxEditDistance) {
+            this.maxEditDistance = maxEditDistance;
+        }
+    }
+
+    /**
+     * 本地列式数据集上游配置，对应 {@code a2a.weather.dataset.*}。
+     */
+    public static class Dataset {
+
+        /**
+         * 是否用 {@link DatasetWeatherBackend} 替代固定结果的占位上游。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 数据文件路径。
+         */
+        private String path = "data/forecast.a2af";
+
+        /**
+         * 检查文件是否被替换的间隔，不大于 0 时不做热重载。
+         */
+        private Duration reloadInterval = Duration.ofSeconds(10);
+
+        /**
+         * 文件不存在时是否按地名索引生成合成数据集。
+         */
+        private boolean generateIfMissing = true;
+
+        /**
+         * 生成合成数据集时每个地点覆盖的小时数。
+         */
+        private int hours = 168;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+
+        public boolean isGenerateIfMissing() {
+            return generateIfMissing;
+        }
+
+        public void setGenerateIfMissing(boolean generateIfMissing) {
+            this.generateIfMissing = generateIfMissing;
+        }
+
+        public int getHours() {
+            return hours;
+        }
+
+        public void setHours(int hours) {
+            this.hours = hours;
+        }
+    }
+
+    /**
+     * 上游对冲请求配置，对应 {@code a2a.weather.hedge.*}。
+     */
+    public static class Hedge {
+
+        /**
+         * 是否在上游调用变慢时发出对冲请求；会增加上游调用量，默认关闭。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 触发对冲的近期延迟分位数。
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲延迟下限，避免上游很快时几乎每次都对冲。
+         */
+        private Duration minDelay = Duration.ofMillis(2);
+
+        /**
+         * 对冲延迟上限，样本不足时使用。
+         */
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        /**
+         * 执行上游调用的最大线程数，耗尽时不再对冲。
+         */
+        private int threads = 32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.a2a.server.agent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link WeatherAgent} 背后真正提供天气数据的上游。Agent 负责输入规范化、缓存与文案拼装，
+ * 上游只按规范化后的地点键返回天气描述。支持批量查询的上游应覆盖 {@link #forecastAll(List)}，
+ * Agent 会把并发的未命中合并后一次调用。
+ */
+@FunctionalInterface
+public interface WeatherBackend {
+
+    /**
+     * 查询指定地点的天气描述。
+     *
+     * @param locationKey 规范化后的地点键
+     * @return 天气描述，例如 {@code Sunny 25°C}
+     */
+    String forecast(String locationKey);
+
+    /**
+     * 批量查询多个地点的天气描述。默认实现逐个调用 {@link #forecast(String)}。
+     *
+     * @param locationKeys 规范化后的地点键，不含重复
+     * @return 地点键到天气描述的映射
+     */
+    default Map<String, String> forecastAll(List<String> locationKeys) {
+        Map<String, String> results = new HashMap<>(locationKeys.size() * 2);
+        for (String locationKey : locationKeys) {
+            results.put(locationKey, forecast(locationKey));
+        }
+        return results;
+    }
+}
@@ -1,25 +1,35 @@
 package com.example.a2a.server.core;
 
+import com.example.a2a.server.core.snapshot.DirtyKeyTracker;
+import com.example.a2a.server.core.snapshot.SnapshotIO;
+import com.example.a2a.server.core.snapshot.SnapshotParticipant;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * 按照华为 HarmonyOS 协议维护 agent-session 标识，使用内存存储并设定默认 7 天有效期。
  * 服务负责校验请求头，并在收到 {@code notifications/initialized} RPC 后标记会话已完成初始化。
+ * 会话表通过 {@link SnapshotParticipant} 参与本地快照，重启后无需重新 initialize。
+ * 会话的创建与过期移除发出 {@link FlightEvents} 中的 JFR 事件。
  */
 @Service
-public class AgentSessionService {
+public class AgentSessionService implements SnapshotParticipant<AgentSessionService.SessionRecord> {
 
     private static final Duration DEFAULT_TTL = Duration.ofDays(7);
 
     private final Clock clock;
     private final Map<String, SessionRecord> sessions = new ConcurrentHashMap<>();
+    private final DirtyKeyTracker dirtyKeys = new DirtyKeyTracker();
 
     /**
      * 使用系统 UTC 时钟创建服务实例。
@@ -47,6 +57,13 @@ public class AgentSessionService {
         Instant now = clock.instant();
         SessionRecord record = new SessionRecord(id, now.plus(DEFAULT_TTL));
         sessions.put(id, record);
+        dirtyKeys.mark(id);
+        FlightEvents.SessionCreated created = new FlightEvents.SessionCreated();
+        if (created.shouldCommit()) {
+            created.agentSessionId = id;
+            created.ttl = DEFAULT_TTL.toSeconds();
+            created.commit();
+        }
         return record;
     }
 
@@ -64,8 +81,11 @@ public class AgentSessionService {
         if (record == null) {
             throw new AgentSessionException("Unknown agentSessionId");
         }
-        if (record.expiresAt.isBefore(clock.instant())) {
+        Instant now = clock.instant();
+        if (record.expiresAt.isBefore(now)) {
             sessions.remove(agentSessionId);
+            dirtyKeys.mark(agentSessionId);
+            expired(record, now, false);
             throw new AgentSessionException("agentSessionId expired");
         }
         return record;
@@ -79,6 +99,7 @@ public class AgentSessionService {
     public void markInitialized(String agentSessionId) {
         SessionRecord record = requireSession(agentSessionId);
         record.initialized = true;
+        dirtyKeys.mark(agentSessionId);
     }
 
     /**
@@ -88,6 +109,7 @@ public class AgentSessionService {
      */
     public void clearSession(String agentSessionId) {
         sessions.remove(agentSessionId);
+        dirtyKeys.mark(agentSessionId);
     }
 
     /**
@@ -110,6 +132,78 @@ public class AgentSessionService {
         return record != null && record.initialized;
     }
 
+    @Override
+    public String snapshotName() {
+        return "agent-sessions";
+    }
+
+    @Override
+    public DirtyKeyTracker dirtyKeys() {
+        return dirtyKeys;
+    }
+
+    @Override
+    public void forEachEntry(BiConsumer<String, SessionRecord> action) {
+        sessions.forEach(action);
+    }
+
+    @Override
+    public SessionRecord snapshotValue(String key) {
+        return sessions.get(key);
+    }
+
+    @Override
+    public void writeValue(SessionRecord value, DataOutput out) throws IOException {
+        SnapshotIO.writeInstant(out, value.expiresAt);
+        out.writeBoolean(value.initialized);
+    }
+
+    @Override
+    public SessionRecord readValue(String key, DataInput in) throws IOException {
+        SessionRecord record = new SessionRecord(key, SnapshotIO.readInstant(in));
+        record.initialized = in.readBoolean();
+        return record;
+    }
+
+    /**
+     * 恢复会话记录，停机期间已过期的会话直接丢弃。
+     *
+     * @param key   会话标识
+     * @param value 会话记录
+     */
+    @Override
+    public void restoreEntry(String key, SessionRecord value) {
+        Instant now = clock.instant();
+        if (value.expiresAt.isBefore(now)) {
+            sessions.remove(key);
+            expired(value, now, true);
+            return;
+        }
+        sessions.put(key, value);
+    }
+
+    @Override
+    public void removeEntry(String key) {
+        sessions.remove(key);
+    }
+
+    /**
+     * 发出会话过期事件。
+     *
+     * @param record   过期的会话
+     * @param now      发现过期的时间
+     * @param restored 是否在恢复快照时发现
+     */
+    private static void expired(SessionRecord record, Instant now, boolean restored) {
+        FlightEvents.SessionExpired event = new FlightEvents.SessionExpired();
+        if (event.shouldCommit()) {
+            event.agentSessionId = record.agentSessionId;
+            event.overdue = Duration.between(record.expiresAt, now).toMillis();
+            event.restored = restored;
+            event.commit();
+        }
+    }
+
     /**
      * 会话记录结构，包含标识、过期时间及初始化状态。
      */
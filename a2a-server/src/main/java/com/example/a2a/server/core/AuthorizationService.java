@@ -1,46 +1,148 @@
 package com.example.a2a.server.core;
 
+import com.example.a2a.server.core.snapshot.DirtyKeyTracker;
+import com.example.a2a.server.core.snapshot.SnapshotIO;
+import com.example.a2a.server.core.snapshot.SnapshotParticipant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * 负责 {@code authorize} 方法产生的 agent login 会话标识的生命周期管理，使用内存保存状态，
- * 满足示例和测试场景的需求。
+ * 满足示例和测试场景的需求。登录表通过 {@link SnapshotParticipant} 参与本地快照，重启后无需重新授权。
+ * <p>
+ * 每个登录带有独立的过期时间，后台线程按过期时间顺序清理，随容器启动与销毁；同时维护按 Agent 会话和
+ * 授权码的二级索引，支持列出与批量撤销。{@link #isActive(String)} 与 {@link #requireLogin(String)} 只做一次
+ * {@link ConcurrentHashMap#get(Object)} 与时间比较，热路径上不加锁；索引维护仅发生在创建和撤销时，
+ * 且与主表的写入在同一个 {@code compute} 内完成，并发撤销不会留下过时的索引项。
+ * <p>
+ * 快照值格式 2 起带有过期时间；格式 1 的记录按创建时间加默认有效期迁移。
  */
 @Service
-public class AuthorizationService {
+public class AuthorizationService implements SnapshotParticipant<AuthorizationService.AuthorizationRecord> {
 
+    private static final Duration DEFAULT_LOGIN_TTL = Duration.ofDays(7);
+    private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(30);
+    private static final Comparator<AuthorizationRecord> EXPIRY_ORDER = Comparator
+            .comparing((AuthorizationRecord record) -> record.expiresAt)
+            .thenComparing(record -> record.agentLoginSessionId);
+
+    private final Clock clock;
     private final Map<String, AuthorizationRecord> activeLogins = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> loginsBySession = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> loginsByAuthCode = new ConcurrentHashMap<>();
+    private final NavigableSet<AuthorizationRecord> expiryQueue = new ConcurrentSkipListSet<>(EXPIRY_ORDER);
+    private final DirtyKeyTracker dirtyKeys = new DirtyKeyTracker();
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * 使用系统 UTC 时钟创建服务实例。
+     */
+    @Autowired
+    public AuthorizationService() {
+        this(Clock.systemUTC());
+    }
 
     /**
-     * 创建新的登录会话并缓存。
+     * 指定时钟的构造函数，方便测试覆盖。构造时不启动后台线程，测试中可手动调用 {@link #purgeExpired()}。
+     *
+     * @param clock 用于计算过期时间的时钟
+     */
+    AuthorizationService(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 容器初始化完成后启动后台过期清理。
+     */
+    @PostConstruct
+    public synchronized void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "a2a-login-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::purgeExpired, SWEEP_INTERVAL.toMillis(),
+                SWEEP_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台清理线程。
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * 创建新的登录会话并缓存，使用默认有效期。
      *
      * @param agentSessionId Agent 会话标识
      * @param authCode       授权码
      * @return 新的登录记录
      */
     public AuthorizationRecord createLoginSession(String agentSessionId, String authCode) {
+        return createLoginSession(agentSessionId, authCode, DEFAULT_LOGIN_TTL);
+    }
+
+    /**
+     * 创建指定有效期的登录会话并写入索引。
+     *
+     * @param agentSessionId Agent 会话标识
+     * @param authCode       授权码
+     * @param ttl            登录有效期
+     * @return 新的登录记录
+     */
+    public AuthorizationRecord createLoginSession(String agentSessionId, String authCode, Duration ttl) {
         String loginId = UUID.randomUUID().toString().replaceAll("-", "");
-        AuthorizationRecord record = new AuthorizationRecord(loginId, agentSessionId, authCode, Instant.now());
-        activeLogins.put(loginId, record);
+        Instant now = clock.instant();
+        AuthorizationRecord record = new AuthorizationRecord(loginId, agentSessionId, authCode, now, now.plus(ttl));
+        index(record);
+        dirtyKeys.mark(loginId);
         return record;
     }
 
     /**
-     * 根据登录会话标识获取记录，若不存在则抛出异常。
+     * 根据登录会话标识获取记录，若不存在或已过期则抛出异常。
      *
      * @param agentLoginSessionId 登录会话标识
      * @return 对应的登录记录
      */
     public AuthorizationRecord requireLogin(String agentLoginSessionId) {
-        AuthorizationRecord record = activeLogins.get(agentLoginSessionId);
+        AuthorizationRecord record = agentLoginSessionId == null ? null : activeLogins.get(agentLoginSessionId);
         if (record == null) {
             throw new IllegalArgumentException("Unknown agentLoginSessionId");
         }
+        if (record.isExpired(clock.instant())) {
+            throw new IllegalArgumentException("agentLoginSessionId expired");
+        }
         return record;
     }
 
@@ -51,17 +153,283 @@ public class AuthorizationService {
      * @return {@code true} 表示成功移除
      */
     public boolean revokeLogin(String agentLoginSessionId) {
-        return activeLogins.remove(agentLoginSessionId) != null;
+        if (agentLoginSessionId == null || unindexAndRemove(agentLoginSessionId, null) == null) {
+            return false;
+        }
+        dirtyKeys.mark(agentLoginSessionId);
+        return true;
     }
 
     /**
      * 判断登录会话是否仍然有效。
      *
      * @param agentLoginSessionId 登录会话标识
-     * @return {@code true} 表示存在有效记录
+     * @return {@code true} 表示存在未过期的记录
      */
     public boolean isActive(String agentLoginSessionId) {
-        return activeLogins.containsKey(agentLoginSessionId);
+        AuthorizationRecord record = agentLoginSessionId == null ? null : activeLogins.get(agentLoginSessionId);
+        return record != null && !record.isExpired(clock.instant());
+    }
+
+    /**
+     * 列出某个 Agent 会话下仍有效的登录。
+     *
+     * @param agentSessionId Agent 会话标识
+     * @return 登录记录列表
+     */
+    public List<AuthorizationRecord> listBySession(String agentSessionId) {
+        return lookup(loginsBySession, agentSessionId);
+    }
+
+    /**
+     * 列出使用同一授权码创建的仍有效的登录。
+     *
+     * @param authCode 授权码
+     * @return 登录记录列表
+     */
+    public List<AuthorizationRecord> listByAuthCode(String authCode) {
+        return lookup(loginsByAuthCode, authCode);
+    }
+
+    /**
+     * 撤销某个 Agent 会话下的全部登录。
+     *
+     * @param agentSessionId Agent 会话标识
+     * @return 实际撤销的数量
+     */
+    public int revokeAllForSession(String agentSessionId) {
+        return revokeAll(loginsBySession, agentSessionId);
+    }
+
+    /**
+     * 撤销使用同一授权码创建的全部登录。
+     *
+     * @param authCode 授权码
+     * @return 实际撤销的数量
+     */
+    public int revokeAllForAuthCode(String authCode) {
+        return revokeAll(loginsByAuthCode, authCode);
+    }
+
+    /**
+     * 按过期时间顺序清理已过期的登录，后台线程周期调用。
+     *
+     * @return 本次清理的数量
+     */
+    public int purgeExpired() {
+        Instant now = clock.instant();
+        int purged = 0;
+        AuthorizationRecord head;
+        while ((head = expiryQueue.pollFirst()) != null) {
+            if (!head.isExpired(now)) {
+                // 取出的记录尚未过期，放回后结束本轮。
+                expiryQueue.add(head);
+                break;
+            }
+            if (unindexAndRemove(head.agentLoginSessionId, head) != null) {
+                dirtyKeys.mark(head.agentLoginSessionId);
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * 在主表同一键的锁内写入记录、过期队列与二级索引，替换已有记录时先撤下其索引。
+     *
+     * @param record 登录记录
+     */
+    private void index(AuthorizationRecord record) {
+        activeLogins.compute(record.agentLoginSessionId, (loginId, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            expiryQueue.add(record);
+            addToIndex(loginsBySession, record.agentSessionId, loginId);
+            addToIndex(loginsByAuthCode, record.authCode, loginId);
+            return record;
+        });
+    }
+
+    /**
+     * 在主表同一键的锁内移除记录并撤下其索引。
+     *
+     * @param loginId  登录会话标识
+     * @param expected 只在当前记录为该对象时移除，为 {@code null} 时无条件移除
+     * @return 被移除的记录，未移除返回 {@code null}
+     */
+    private AuthorizationRecord unindexAndRemove(String loginId, AuthorizationRecord expected) {
+        AuthorizationRecord[] removed = new AuthorizationRecord[1];
+        activeLogins.computeIfPresent(loginId, (key, current) -> {
+            if (expected != null && current != expected) {
+                return current;
+            }
+            unindex(current);
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 从过期队列与二级索引中移除记录，主表由调用方在同一键的锁内处理。
+     *
+     * @param record 登录记录
+     */
+    private void unindex(AuthorizationRecord record) {
+        expiryQueue.remove(record);
+        removeFromIndex(loginsBySession, record.agentSessionId, record.agentLoginSessionId);
+        removeFromIndex(loginsByAuthCode, record.authCode, record.agentLoginSessionId);
+    }
+
+    /**
+     * 查询二级索引并过滤掉已过期的记录。
+     *
+     * @param index 索引
+     * @param key   索引键
+     * @return 登录记录列表
+     */
+    private List<AuthorizationRecord> lookup(Map<String, Set<String>> index, String key) {
+        Set<String> loginIds = key == null ? null : index.get(key);
+        if (loginIds == null) {
+            return List.of();
+        }
+        Instant now = clock.instant();
+        List<AuthorizationRecord> records = new ArrayList<>(loginIds.size());
+        for (String loginId : loginIds) {
+            AuthorizationRecord record = activeLogins.get(loginId);
+            if (record != null && !record.isExpired(now)) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 撤销索引键下的全部登录。
+     *
+     * @param index 索引
+     * @param key   索引键
+     * @return 实际撤销的数量
+     */
+    private int revokeAll(Map<String, Set<String>> index, String key) {
+        Set<String> loginIds = key == null ? null : index.get(key);
+        if (loginIds == null) {
+            return 0;
+        }
+        int revoked = 0;
+        for (String loginId : List.copyOf(loginIds)) {
+            if (revokeLogin(loginId)) {
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * 在同一索引键的锁内追加登录标识，与移除操作串行，避免丢失索引项。
+     */
+    private static void addToIndex(Map<String, Set<String>> index, String key, String loginId) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, loginIds) -> {
+            Set<String> target = loginIds != null ? loginIds : ConcurrentHashMap.newKeySet();
+            target.add(loginId);
+            return target;
+        });
+    }
+
+    /**
+     * 移除登录标识，集合为空时一并删除索引键。
+     */
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String loginId) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, loginIds) -> {
+            loginIds.remove(loginId);
+            return loginIds.isEmpty() ? null : loginIds;
+        });
+    }
+
+    @Override
+    public String snapshotName() {
+        return "authorization-logins";
+    }
+
+    @Override
+    public DirtyKeyTracker dirtyKeys() {
+        return dirtyKeys;
+    }
+
+    @Override
+    public void forEachEntry(BiConsumer<String, AuthorizationRecord> action) {
+        activeLogins.forEach(action);
+    }
+
+    @Override
+    public AuthorizationRecord snapshotValue(String key) {
+        return activeLogins.get(key);
+    }
+
+    @Override
+    public void writeValue(AuthorizationRecord value, DataOutput out) throws IOException {
+        SnapshotIO.writeString(out, value.agentSessionId);
+        SnapshotIO.writeString(out, value.authCode);
+        SnapshotIO.writeInstant(out, value.createdAt);
+        SnapshotIO.writeInstant(out, value.expiresAt);
+    }
+
+    @Override
+    public AuthorizationRecord readValue(String key, DataInput in) throws IOException {
+        return new AuthorizationRecord(key, SnapshotIO.readString(in), SnapshotIO.readString(in),
+                SnapshotIO.readInstant(in), SnapshotIO.readInstant(in));
+    }
+
+    /**
+     * 格式 2 起写出过期时间。
+     *
+     * @return 当前格式版本
+     */
+    @Override
+    public int formatVersion() {
+        return 2;
+    }
+
+    /**
+     * 读取登录记录，格式 1 没有过期时间，按创建时间加默认有效期迁移。
+     */
+    @Override
+    public AuthorizationRecord readValue(String key, DataInput in, int formatVersion) throws IOException {
+        if (formatVersion == 1) {
+            String agentSessionId = SnapshotIO.readString(in);
+            String authCode = SnapshotIO.readString(in);
+            Instant createdAt = SnapshotIO.readInstant(in);
+            return new AuthorizationRecord(key, agentSessionId, authCode, createdAt,
+                    createdAt.plus(DEFAULT_LOGIN_TTL));
+        }
+        return SnapshotParticipant.super.readValue(key, in, formatVersion);
+    }
+
+    /**
+     * 恢复登录记录并重建索引，停机期间已过期的登录直接丢弃。
+     *
+     * @param key   登录会话标识
+     * @param value 登录记录
+     */
+    @Override
+    public void restoreEntry(String key, AuthorizationRecord value) {
+        if (value.isExpired(clock.instant())) {
+            removeEntry(key);
+        } else {
+            index(value);
+        }
+    }
+
+    @Override
+    public void removeEntry(String key) {
+        unindexAndRemove(key, null);
     }
 
     /**
@@ -72,6 +440,7 @@ public class AuthorizationService {
         public final String agentSessionId;
         public final String authCode;
         public final Instant createdAt;
+        public final Instant expiresAt;
 
         /**
          * 记录登录会话的关键字段。
@@ -80,12 +449,25 @@ public class AuthorizationService {
          * @param agentSessionId      Agent 会话标识
          * @param authCode            授权码
          * @param createdAt           创建时间
+         * @param expiresAt           过期时间
          */
-        public AuthorizationRecord(String agentLoginSessionId, String agentSessionId, String authCode, Instant createdAt) {
+        public AuthorizationRecord(String agentLoginSessionId, String agentSessionId, String authCode,
+                                   Instant createdAt, Instant expiresAt) {
             this.agentLoginSessionId = agentLoginSessionId;
             this.agentSessionId = agentSessionId;
             this.authCode = authCode;
             this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 判断记录在给定时刻是否已过期。
+         *
+         * @param now 当前时间
+         * @return {@code true} 表示已过期
+         */
+        public boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
         }
     }
 }
@@ -0,0 +1,568 @@
+package com.example.a2a.server.core;
+
+import com.example.a2a.server.core.ConversationContextService.ContextKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 会话上下文的冷存储层：长时间未访问或被挤出堆内预算的上下文序列化后追加写入内存映射的段文件，
+ * 堆内只保留 {@code 键 -> (段, 偏移, 长度)} 的索引。
+ * <p>
+ * 所有访问段的操作都经过同一把读写锁：读取、移除与删除持有读锁，可以并发按索引从映射区拷贝；追加写入、
+ * 回收与关闭持有写锁，因此段被解除映射时不会有读线程仍在访问它。覆盖或删除只会让旧记录变成死数据，
+ * 活动段写满切换时以及后台按 {@code reclaimInterval} 定期回收：完全无存活数据的段直接删除，存活比例过低的段
+ * 把存活记录搬到活动段后删除；磁盘总量仍超预算时整段丢弃最旧的段，并通过回调通知上层这些上下文已被淘汰。
+ * 删除的段立即解除映射，磁盘空间随之释放，{@link #diskBytes()} 与实际占用保持一致；运行时不支持显式解除
+ * 映射时退化为等待 GC 回收映射。
+ * <p>
+ * 段文件只在进程生命周期内有效，启动时清空目录；跨重启的持久化由快照负责。
+ */
+final class ColdContextStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ColdContextStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final double COMPACTION_RATIO = 0.5;
+    private static final MethodHandle UNMAPPER = unmapper();
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final Consumer<ContextKey> droppedListener;
+    private final Map<ContextKey, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService reclaimer;
+    private long nextSegmentId;
+    private Segment active;
+    private boolean closed;
+
+    /**
+     * 创建不做后台定期回收的冷存储，回收只在活动段切换时发生，测试可借此确定性地控制回收时机。
+     *
+     * @param directory       段文件目录
+     * @param segmentBytes    单个段文件大小
+     * @param maxBytes        所有段文件的磁盘总量上限
+     * @param droppedListener 上下文因磁盘预算被丢弃时的回调，在写线程上同步调用
+     */
+    ColdContextStore(Path directory, long segmentBytes, long maxBytes, Consumer<ContextKey> droppedListener) {
+        this(directory, segmentBytes, maxBytes, null, droppedListener);
+    }
+
+    /**
+     * 创建冷存储并清空目录中上次运行遗留的段文件。
+     *
+     * @param directory       段文件目录
+     * @param segmentBytes    单个段文件大小
+     * @param maxBytes        所有段文件的磁盘总量上限
+     * @param reclaimInterval 后台定期回收的间隔，为 {@code null} 或非正数时不启动后台回收
+     * @param droppedListener 上下文因磁盘预算被丢弃时的回调，在写线程或回收线程上同步调用
+     */
+    ColdContextStore(Path directory, long segmentBytes, long maxBytes, Duration reclaimInterval,
+                     Consumer<ContextKey> droppedListener) {
+        this.directory = directory;
+        this.segmentBytes = Math.min(Integer.MAX_VALUE, Math.max(4096, segmentBytes));
+        this.maxBytes = Math.max(this.segmentBytes, maxBytes);
+        this.droppedListener = droppedListener;
+        try {
+            Files.createDirectories(directory);
+            List<Path> stale;
+            try (Stream<Path> files = Files.list(directory)) {
+                stale = files.filter(ColdContextStore::isSegmentFile).toList();
+            }
+            for (Path path : stale) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to prepare cold context directory " + directory, ex);
+        }
+        if (reclaimInterval != null && reclaimInterval.toMillis() > 0) {
+            reclaimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "a2a-context-cold-reclaim");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reclaimer.scheduleWithFixedDelay(this::reclaimNow, reclaimInterval.toMillis(),
+                    reclaimInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            reclaimer = null;
+        }
+    }
+
+    /**
+     * 把上下文消息追加写入活动段，并替换该键之前的记录。
+     *
+     * @param key      上下文键
+     * @param messages 需要下沉的消息
+     */
+    void put(ContextKey key, List<String> messages) {
+        byte[] record = encode(messages);
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            ensureOpen();
+            Segment segment = writableSegment(record.length);
+            int offset = segment.append(record);
+            Location previous = index.put(key, new Location(segment, offset, record.length));
+            release(previous);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * 读取并移除冷存储中的上下文，用于提升回堆内。
+     *
+     * @param key 上下文键
+     * @return 消息列表，未找到返回 {@code null}
+     */
+    List<String> remove(ContextKey key) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            Location location = index.remove(key);
+            if (location == null) {
+                return null;
+            }
+            List<String> messages = decode(location);
+            release(location);
+            return messages;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * 只读取不移除，快照写出时使用。
+     *
+     * @param key 上下文键
+     * @return 消息列表，未找到返回 {@code null}
+     */
+    List<String> peek(ContextKey key) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            Location location = index.get(key);
+            return location == null ? null : decode(location);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * 删除冷存储中的上下文，不读取内容。
+     *
+     * @param key 上下文键
+     */
+    void delete(ContextKey key) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            release(index.remove(key));
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * 判断冷存储中是否存在该上下文。
+     *
+     * @param key 上下文键
+     * @return 存在返回 {@code true}
+     */
+    boolean contains(ContextKey key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * 冷存储中的上下文数量。
+     *
+     * @return 条目数
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * 当前段文件占用的磁盘字节总数。
+     *
+     * @return 字节数
+     */
+    long diskBytes() {
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.capacity;
+        }
+        return total;
+    }
+
+    /**
+     * 当前段文件数量。
+     *
+     * @return 段数
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 立即回收已封存的段，后台回收线程定期调用，也可由测试直接触发。
+     */
+    void reclaimNow() {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (!closed && active != null) {
+                reclaim();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to reclaim cold context segments", ex);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * 停止后台回收，解除所有段的映射并删除段文件；之后的写入会失败，读取返回 {@code null}。
+     */
+    void close() {
+        if (reclaimer != null) {
+            reclaimer.shutdownNow();
+        }
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            index.clear();
+            for (Segment segment : List.copyOf(segments.values())) {
+                dropSegment(segment, false);
+            }
+            active = null;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * 返回能容纳记录的活动段，写满时切换新段并回收旧段。
+     *
+     * @param length 记录长度
+     * @return 可写入的段
+     */
+    private Segment writableSegment(int length) {
+        while (active == null || active.remaining() < length) {
+            Segment sealed = active;
+            active = openSegment(Math.max(segmentBytes, length));
+            if (sealed != null) {
+                // 压缩会占用新活动段的空间，放不下当前记录时再切换一次。
+                reclaim();
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 回收已封存的段：删除空段、压缩稀疏段，磁盘仍超预算时丢弃最旧的段。调用方必须持有写锁。
+     */
+    private void reclaim() {
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment != active && segment.live.get() == 0) {
+                dropSegment(segment, false);
+            }
+        }
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment != active && segment.live.get() < segment.written * COMPACTION_RATIO
+                    && active.remaining() >= segment.live.get()) {
+                compact(segment);
+            }
+        }
+        while (diskBytes() > maxBytes) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active) {
+                break;
+            }
+            dropSegment(oldest, true);
+        }
+    }
+
+    /**
+     * 把段内仍被索引引用的记录搬到活动段，然后删除该段。
+     *
+     * @param segment 待压缩的段
+     */
+    private void compact(Segment segment) {
+        for (Map.Entry<ContextKey, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.segment != segment) {
+                continue;
+            }
+            byte[] record = segment.read(location.offset, location.length);
+            int offset = active.append(record);
+            Location moved = new Location(active, offset, record.length);
+            if (index.replace(entry.getKey(), location, moved)) {
+                segment.live.addAndGet(-location.length);
+            } else {
+                active.live.addAndGet(-record.length);
+            }
+        }
+        dropSegment(segment, false);
+    }
+
+    /**
+     * 解除段的映射并删除段文件；{@code evict} 为真时同时移除仍指向该段的索引并通知上层。调用方必须持有写锁，
+     * 保证没有读线程仍在访问该段。
+     *
+     * @param segment 段
+     * @param evict   是否丢弃段内存活的上下文
+     */
+    private void dropSegment(Segment segment, boolean evict) {
+        if (evict) {
+            List<ContextKey> dropped = new ArrayList<>();
+            for (Map.Entry<ContextKey, Location> entry : index.entrySet()) {
+                if (entry.getValue().segment == segment && index.remove(entry.getKey(), entry.getValue())) {
+                    dropped.add(entry.getKey());
+                }
+            }
+            dropped.forEach(droppedListener);
+            if (!dropped.isEmpty()) {
+                log.warn("Dropped {} cold conversation contexts to stay within the disk budget", dropped.size());
+            }
+        }
+        segments.remove(segment.id);
+        unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            log.warn("Failed to delete cold context segment {}", segment.path, ex);
+        }
+    }
+
+    /**
+     * 创建并映射一个新的段文件。
+     *
+     * @param capacity 段大小
+     * @return 新段
+     */
+    private Segment openSegment(long capacity) {
+        long id = nextSegmentId++;
+        Path path = directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            Segment segment = new Segment(id, path, buffer, (int) capacity);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to create cold context segment " + path, ex);
+        }
+    }
+
+    /**
+     * 写入前确认存储未关闭。
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cold context store is closed");
+        }
+    }
+
+    /**
+     * 显式解除映射，使删除的段文件立即释放磁盘空间；运行时不支持时交给 GC。
+     *
+     * @param buffer 映射区
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAPPER == null) {
+            return;
+        }
+        try {
+            UNMAPPER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable ex) {
+            log.warn("Failed to unmap cold context segment", ex);
+        }
+    }
+
+    /**
+     * 查找 {@code sun.misc.Unsafe#invokeCleaner}，JDK 9 起由 {@code jdk.unsupported} 模块提供。
+     *
+     * @return 绑定到 Unsafe 实例的方法句柄，不可用时返回 {@code null}
+     */
+    private static MethodHandle unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            log.warn("Explicit unmapping is unavailable, cold context segments are released by GC", ex);
+            return null;
+        }
+    }
+
+    /**
+     * 把旧记录计为死数据。
+     *
+     * @param location 记录位置，可为 {@code null}
+     */
+    private void release(Location location) {
+        if (location != null) {
+            location.segment.live.addAndGet(-location.length);
+        }
+    }
+
+    /**
+     * 编码为 {@code [条数][长度][UTF-8 字节]...}。
+     *
+     * @param messages 消息列表
+     * @return 记录字节
+     */
+    private static byte[] encode(List<String> messages) {
+        byte[][] encoded = new byte[messages.size()][];
+        int length = Integer.BYTES;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = messages.get(i).getBytes(StandardCharsets.UTF_8);
+            length += Integer.BYTES + encoded[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(encoded.length);
+        for (byte[] message : encoded) {
+            buffer.putInt(message.length);
+            buffer.put(message);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 从映射区读取并解码记录。
+     *
+     * @param location 记录位置
+     * @return 消息列表
+     */
+    private static List<String> decode(Location location) {
+        ByteBuffer record = ByteBuffer.wrap(location.segment.read(location.offset, location.length));
+        int count = record.getInt();
+        List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = record.getInt();
+            messages.add(new String(record.array(), record.position(), length, StandardCharsets.UTF_8));
+            record.position(record.position() + length);
+        }
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * 判断是否为本存储创建的段文件。
+     *
+     * @param path 文件路径
+     * @return 是段文件返回 {@code true}
+     */
+    private static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 记录在段中的位置，身份比较用于压缩时的 CAS 替换。
+     */
+    private static final class Location {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        /**
+         * 构造位置并把长度计入段的存活字节。
+         */
+        Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            segment.live.addAndGet(length);
+        }
+    }
+
+    /**
+     * 一个内存映射的只追加段文件。
+     */
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final AtomicLong live = new AtomicLong();
+        int written;
+
+        /**
+         * 包装已映射的段文件。
+         */
+        Segment(long id, Path path, MappedByteBuffer buffer, int capacity) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /**
+         * 剩余可写字节。
+         */
+        int remaining() {
+            return capacity - written;
+        }
+
+        /**
+         * 在段尾追加记录，仅由持有存储锁的写线程调用。
+         *
+         * @return 记录起始偏移
+         */
+        int append(byte[] record) {
+            int offset = written;
+            buffer.put(offset, record);
+            written += record.length;
+            return offset;
+        }
+
+        /**
+         * 按绝对位置拷贝记录，不修改缓冲区游标，可并发调用。
+         */
+        byte[] read(int offset, int length) {
+            byte[] record = new byte[length];
+            buffer.get(offset, record);
+            return record;
+        }
+    }
+}
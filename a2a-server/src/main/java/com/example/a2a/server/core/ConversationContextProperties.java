@@ -0,0 +1,164 @@
+package com.example.a2a.server.core;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 会话上下文的容量配置，对应 {@code a2a.context.*}。每个业务会话只保留最近的消息，超过条数或
+ * 字节上限时从最旧的消息开始丢弃，保证单个会话的内存占用不随对话轮数增长；全部会话再共享一个
+ * 全局预算，超出时整段淘汰不活跃的会话。开启冷存储后，被淘汰或长时间空闲的会话下沉到内存映射的
+ * 段文件，再次访问时提升回堆内。
+ */
+@ConfigurationProperties(prefix = "a2a.context")
+public class ConversationContextProperties {
+
+    /**
+     * 单个会话最多保留的消息条数。
+     */
+    private int maxMessages = 64;
+
+    /**
+     * 单个会话消息正文的 UTF-8 字节总量上限。
+     */
+    private long maxBytes = 64 * 1024;
+
+    /**
+     * 所有会话上下文共享的全局内存预算（估算字节），超出后按 W-TinyLFU 淘汰。
+     */
+    private long maxTotalBytes = 256L * 1024 * 1024;
+
+    /**
+     * 重复消息驻留表的槽位数，0 表示不去重。
+     */
+    private int internSlots = 4096;
+
+    /**
+     * 冷存储配置。
+     */
+    private Cold cold = new Cold();
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public void setMaxMessages(int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public int getInternSlots() {
+        return internSlots;
+    }
+
+    public void setInternSlots(int internSlots) {
+        this.internSlots = internSlots;
+    }
+
+    public Cold getCold() {
+        return cold;
+    }
+
+    public void setCold(Cold cold) {
+        this.cold = cold;
+    }
+
+    /**
+     * 冷存储配置，对应 {@code a2a.context.cold.*}。
+     */
+    public static class Cold {
+
+        /**
+         * 是否启用内存映射冷存储；关闭时被淘汰的上下文直接丢弃。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 段文件目录，启动时清空。
+         */
+        private String directory = "data/context-cold";
+
+        /**
+         * 上下文空闲多久后下沉到冷存储。
+         */
+        private Duration idleAfter = Duration.ofMinutes(30);
+
+        /**
+         * 单个段文件大小。
+         */
+        private long segmentBytes = 16L * 1024 * 1024;
+
+        /**
+         * 所有段文件的磁盘总量上限，超出后丢弃最旧的段。
+         */
+        private long maxBytes = 1024L * 1024 * 1024;
+
+        /**
+         * 后台定期回收空段与稀疏段的间隔；为 0 时只在活动段写满切换时回收。
+         */
+        private Duration reclaimInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getIdleAfter() {
+            return idleAfter;
+        }
+
+        public void setIdleAfter(Duration idleAfter) {
+            this.idleAfter = idleAfter;
+        }
+
+        public long getSegmentBytes() {
+            return segmentBytes;
+        }
+
+        public void setSegmentBytes(long segmentBytes) {
+            this.segmentBytes = segmentBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public Duration getReclaimInterval() {
+            return reclaimInterval;
+        }
+
+        public void setReclaimInterval(Duration reclaimInterval) {
+            this.reclaimInterval = reclaimInterval;
+        }
+    }
+}
@@ -1,36 +1,207 @@
 package com.example.a2a.server.core;
 
+import com.example.a2a.server.core.snapshot.DirtyKeyTracker;
+import com.example.a2a.server.core.snapshot.SnapshotIO;
+import com.example.a2a.server.core.snapshot.SnapshotParticipant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
 
 /**
  * 内存中的会话上下文存储，实现按 {@code sessionId} 保留短期多轮消息，供控制器在收到
- * {@code clearContext} RPC 时清理。结构简洁，便于在示例项目中快速替换。
+ * {@code clearContext} RPC 时清理。结构简洁，便于在示例项目中快速替换。快照以 Agent 会话为单位，
+ * 任一业务会话变化都会重写该 Agent 会话下的全部上下文。
+ * <p>
+ * 每个业务会话的消息保存在有界窗口中，条数与字节数受 {@link ConversationContextProperties} 限制，
+ * 同一会话上的并发 {@code message/stream} 通过 CAS 无锁追加。消息以 UTF-8 字节存放在会话私有的 arena 中，
+ * 跨会话重复的短消息通过有界驻留表共享同一份字节，只有读取时才创建 {@link String}。
+ * <p>
+ * 所有上下文共享一个全局字节预算，由 Caffeine 的 W-TinyLFU 策略淘汰：频繁访问的会话常驻，
+ * 只出现一次的会话优先被淘汰。被淘汰的会话会留下墓碑，下次追加时返回 {@code true} 告知调用方。
+ * 命中/未命中次数与占用字节通过 {@code a2a.context.*} 指标暴露。
+ * <p>
+ * 启用 {@code a2a.context.cold} 后形成两级存储：被挤出预算或空闲超时的上下文下沉到
+ * {@link ColdContextStore} 的内存映射段文件，再次追加或读取时提升回堆内，只有冷存储超出磁盘预算
+ * 时才真正淘汰。快照同时覆盖两级。
  */
 @Service
-public class ConversationContextService {
+public class ConversationContextService
+        implements SnapshotParticipant<Map<String, ConversationContextService.ConversationContext>> {
 
-    private final Map<String, Map<String, ConversationContext>> sessionContexts = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(ConversationContextService.class);
+
+    private static final long EVICTION_TOMBSTONES = 100_000;
+    private static final long CONTEXT_OVERHEAD = 128;
+    private static final long MESSAGE_OVERHEAD = 16;
+    private static final long KEY_OVERHEAD = 96;
+    private static final int REWEIGH_MIN_BYTES = 512;
+    private static final Duration EVICTION_TOMBSTONE_TTL = Duration.ofHours(1);
+
+    private final Cache<ContextKey, ConversationContext> contexts;
+    private final Cache<ContextKey, Boolean> evictedKeys;
+    private final ColdContextStore cold;
+    private final MessageInterner interner;
+    private final Executor executor;
+    private final Map<String, Set<String>> sessionIdsByAgent = new ConcurrentHashMap<>();
+    private final DirtyKeyTracker dirtyKeys = new DirtyKeyTracker();
+    private final int maxMessages;
+    private final long maxBytes;
+
+    /**
+     * 使用默认容量配置创建服务，便于测试直接构造。
+     */
+    public ConversationContextService() {
+        this(new ConversationContextProperties(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * 按配置的条数、字节上限与全局预算创建服务，并注册缓存指标。
+     *
+     * @param properties    上下文容量配置
+     * @param meterRegistry 指标注册表
+     */
+    @Autowired
+    public ConversationContextService(ConversationContextProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, ForkJoinPool.commonPool(), Ticker.systemTicker());
+    }
+
+    /**
+     * 指定缓存维护与淘汰回调使用的执行器和时钟，测试可借此确定性地触发淘汰与空闲下沉。
+     *
+     * @param properties    上下文容量配置
+     * @param meterRegistry 指标注册表
+     * @param executor      缓存维护执行器
+     * @param ticker        空闲计时使用的时钟
+     */
+    ConversationContextService(ConversationContextProperties properties, MeterRegistry meterRegistry,
+                               Executor executor, Ticker ticker) {
+        this.maxMessages = Math.max(1, properties.getMaxMessages());
+        this.maxBytes = Math.max(1, properties.getMaxBytes());
+        this.executor = executor;
+        this.interner = properties.getInternSlots() > 0 ? new MessageInterner(properties.getInternSlots()) : null;
+
+        ConversationContextProperties.Cold coldProperties = properties.getCold();
+        Caffeine<ContextKey, ConversationContext> builder = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, properties.getMaxTotalBytes()))
+                .weigher((ContextKey key, ConversationContext context) -> context.settleWeight(key))
+                .removalListener(this::onRemoval)
+                .evictionListener(this::onEviction)
+                .executor(executor)
+                .ticker(ticker)
+                .recordStats();
+        if (coldProperties != null && coldProperties.isEnabled()) {
+            this.cold = new ColdContextStore(Paths.get(coldProperties.getDirectory()),
+                    coldProperties.getSegmentBytes(), coldProperties.getMaxBytes(),
+                    coldProperties.getReclaimInterval(), key -> executor.execute(() -> forget(key)));
+            builder.expireAfterAccess(coldProperties.getIdleAfter())
+                    .scheduler(Scheduler.systemScheduler());
+        } else {
+            this.cold = null;
+        }
+        this.contexts = builder.build();
+        this.evictedKeys = Caffeine.newBuilder()
+                .maximumSize(EVICTION_TOMBSTONES)
+                .expireAfterWrite(EVICTION_TOMBSTONE_TTL)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, contexts, "a2a.context");
+        Gauge.builder("a2a.context.bytes", contexts,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0))
+                                .orElse(0L))
+                .description("Estimated bytes held by conversation contexts")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (interner != null) {
+            FunctionCounter.builder("a2a.context.interned", interner, MessageInterner::hits)
+                    .description("Context messages that reused a shared interned copy")
+                    .register(meterRegistry);
+        }
+        if (cold != null) {
+            Gauge.builder("a2a.context.cold.entries", cold, ColdContextStore::size)
+                    .description("Conversation contexts held in the memory-mapped cold tier")
+                    .register(meterRegistry);
+            Gauge.builder("a2a.context.cold.disk", cold, ColdContextStore::diskBytes)
+                    .description("Bytes of memory-mapped segment files backing the cold tier")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 停止冷存储的后台回收并释放段文件映射。
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (cold != null) {
+            cold.close();
+        }
+    }
 
     /**
      * 向指定会话追加一条消息，缺失 sessionId 时自动忽略。
+     * <p>
+     * 追加本身不持有缓存锁：淘汰回调在条目锁内先把上下文标记为已退役，之后对该对象的追加都会失败，
+     * 这里据此重新查找（此时已从冷存储提升或新建）再追加，因此不会把消息写进已被淘汰或下沉的孤立对象。
+     * 上下文权重在追加后相对上次结算的变化超过阈值时才重新结算，避免每次追加都去竞争缓存的桶锁。
      *
      * @param agentSessionId Agent 会话标识
      * @param sessionId      业务会话标识
      * @param message        需要追加的消息文本
+     * @return {@code true} 表示该会话此前的上下文因内存预算被淘汰，本次从空上下文重新开始
      */
-    public void append(String agentSessionId, String sessionId, String message) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return;
+    public boolean append(String agentSessionId, String sessionId, String message) {
+        if (agentSessionId == null || sessionId == null || sessionId.isBlank()) {
+            return false;
+        }
+        ContextKey key = new ContextKey(agentSessionId, sessionId);
+        boolean evicted = false;
+        while (true) {
+            ConversationContext context = contexts.getIfPresent(key);
+            if (context == null) {
+                context = createContext(key);
+                evicted |= evictedKeys.asMap().remove(key) != null;
+            }
+            if (context.tryAppend(message)) {
+                if (context.needsReweigh(key)) {
+                    contexts.asMap().computeIfPresent(key, (k, current) -> current);
+                }
+                break;
+            }
         }
-        sessionContexts
-                .computeIfAbsent(agentSessionId, key -> new ConcurrentHashMap<>())
-                .computeIfAbsent(sessionId, key -> new ConversationContext())
-                .messages.add(message);
+        dirtyKeys.mark(agentSessionId);
+        return evicted;
     }
 
     /**
@@ -40,35 +211,719 @@ public class ConversationContextService {
      * @param sessionId      指定会话标识，为 {@code null} 时清空全部
      */
     public void clear(String agentSessionId, String sessionId) {
-        Map<String, ConversationContext> contexts = sessionContexts.get(agentSessionId);
-        if (contexts != null) {
-            if (sessionId == null) {
-                contexts.clear();
-            } else {
-                contexts.remove(sessionId);
-            }
+        if (agentSessionId == null || !sessionIdsByAgent.containsKey(agentSessionId)) {
+            return;
         }
+        removeContexts(agentSessionId, sessionId);
+        dirtyKeys.mark(agentSessionId);
     }
 
     /**
-     * 获取指定会话的上下文。
+     * 获取指定会话的上下文，计入命中/未命中统计；上下文位于冷存储时提升回堆内。
      *
      * @param agentSessionId Agent 会话标识
      * @param sessionId      业务会话标识
-     * @return 对应上下文，未找到返回 {@code null}
+     * @return 对应上下文，未找到或已被淘汰返回 {@code null}
      */
     public ConversationContext getContext(String agentSessionId, String sessionId) {
-        Map<String, ConversationContext> contexts = sessionContexts.get(agentSessionId);
-        if (contexts == null) {
+        if (agentSessionId == null || sessionId == null) {
+            return null;
+        }
+        ContextKey key = new ContextKey(agentSessionId, sessionId);
+        ConversationContext context = contexts.getIfPresent(key);
+        if (context != null || cold == null) {
+            return context;
+        }
+        AtomicReference<ConversationContext> promoted = new AtomicReference<>();
+        sessionIdsByAgent.computeIfPresent(agentSessionId, (agent, sessionIds) -> {
+            if (sessionIds.contains(sessionId)) {
+                promoted.set(contexts.get(key, this::promote));
+            }
+            return sessionIds;
+        });
+        return promoted.get();
+    }
+
+    /**
+     * 判断会话上下文是否因内存预算被淘汰且尚未重新开始。
+     *
+     * @param agentSessionId Agent 会话标识
+     * @param sessionId      业务会话标识
+     * @return {@code true} 表示已被淘汰
+     */
+    public boolean isEvicted(String agentSessionId, String sessionId) {
+        if (agentSessionId == null || sessionId == null) {
+            return false;
+        }
+        return evictedKeys.getIfPresent(new ContextKey(agentSessionId, sessionId)) != null;
+    }
+
+    /**
+     * 按配置创建空上下文，共享服务级驻留表。
+     *
+     * @return 新上下文
+     */
+    private ConversationContext newContext() {
+        return new ConversationContext(maxMessages, maxBytes, interner);
+    }
+
+    /**
+     * 立即执行挂起的缓存维护（淘汰、权重结算），供测试使用。
+     */
+    void cleanUp() {
+        contexts.cleanUp();
+    }
+
+    /**
+     * 在 Agent 索引键的锁内创建上下文，与淘汰回调串行，保证索引与缓存一致。
+     *
+     * @param key 上下文键
+     * @return 已存在或新建的上下文
+     */
+    private ConversationContext createContext(ContextKey key) {
+        AtomicReference<ConversationContext> created = new AtomicReference<>();
+        sessionIdsByAgent.compute(key.agentSessionId, (agent, sessionIds) -> {
+            Set<String> target = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+            target.add(key.sessionId);
+            created.set(contexts.get(key, k -> {
+                ConversationContext promoted = promote(k);
+                return promoted != null ? promoted : newContext();
+            }));
+            return target;
+        });
+        return created.get();
+    }
+
+    /**
+     * 从缓存与索引中移除上下文，不记录淘汰墓碑。
+     *
+     * @param agentSessionId Agent 会话标识
+     * @param sessionId      业务会话标识，为 {@code null} 时移除全部
+     */
+    private void removeContexts(String agentSessionId, String sessionId) {
+        sessionIdsByAgent.computeIfPresent(agentSessionId, (agent, sessionIds) -> {
+            List<String> targets = sessionId == null ? List.copyOf(sessionIds) : List.of(sessionId);
+            for (String target : targets) {
+                ContextKey key = new ContextKey(agent, target);
+                sessionIds.remove(target);
+                contexts.invalidate(key);
+                if (cold != null) {
+                    cold.delete(key);
+                }
+                evictedKeys.invalidate(key);
+            }
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    /**
+     * 从冷存储取回上下文并重建堆内窗口。
+     *
+     * @param key 上下文键
+     * @return 提升后的上下文，冷存储中不存在返回 {@code null}
+     */
+    private ConversationContext promote(ContextKey key) {
+        List<String> messages = cold == null ? null : cold.remove(key);
+        if (messages == null) {
+            return null;
+        }
+        ConversationContext context = newContext();
+        messages.forEach(context::append);
+        return context;
+    }
+
+    /**
+     * 淘汰回调（在缓存条目锁内同步执行）：先让上下文退役，使仍持有该对象的追加改为重新查找；启用冷存储时
+     * 再把退役时的窗口写入冷存储，期间同键的读写会等待，不会看到“既不在堆内也不在冷存储”的空窗。
+     *
+     * @param key     上下文键
+     * @param context 被淘汰的上下文
+     * @param cause   淘汰原因
+     */
+    private void onEviction(ContextKey key, ConversationContext context, RemovalCause cause) {
+        if (key == null || context == null) {
+            return;
+        }
+        context.retire();
+        if (cold == null) {
+            return;
+        }
+        try {
+            cold.put(key, context.messages());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to spill conversation context to the cold tier", ex);
+            executor.execute(() -> forget(key));
+        }
+    }
+
+    /**
+     * 缓存移除回调：未启用冷存储时，被容量淘汰的上下文直接遗忘；启用时由冷存储负责淘汰。
+     *
+     * @param key     上下文键
+     * @param context 被移除的上下文
+     * @param cause   移除原因
+     */
+    private void onRemoval(ContextKey key, ConversationContext context, RemovalCause cause) {
+        if (key == null || !cause.wasEvicted() || cold != null) {
+            return;
+        }
+        forget(key);
+    }
+
+    /**
+     * 记录淘汰墓碑，并在上下文确实不在任何一层时清理索引。
+     *
+     * @param key 被淘汰的上下文键
+     */
+    private void forget(ContextKey key) {
+        evictedKeys.put(key, Boolean.TRUE);
+        sessionIdsByAgent.computeIfPresent(key.agentSessionId, (agent, sessionIds) -> {
+            if (!contexts.asMap().containsKey(key) && (cold == null || !cold.contains(key))) {
+                sessionIds.remove(key.sessionId);
+            }
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+        dirtyKeys.mark(key.agentSessionId);
+    }
+
+    @Override
+    public String snapshotName() {
+        return "conversation-contexts";
+    }
+
+    @Override
+    public DirtyKeyTracker dirtyKeys() {
+        return dirtyKeys;
+    }
+
+    @Override
+    public void forEachEntry(BiConsumer<String, Map<String, ConversationContext>> action) {
+        for (String agentSessionId : sessionIdsByAgent.keySet()) {
+            Map<String, ConversationContext> value = snapshotValue(agentSessionId);
+            if (value != null) {
+                action.accept(agentSessionId, value);
+            }
+        }
+    }
+
+    /**
+     * 汇总某个 Agent 会话下的全部上下文，读取时不影响淘汰策略的频率统计。
+     *
+     * @param key Agent 会话标识
+     * @return 业务会话到上下文的映射，没有上下文时返回 {@code null}
+     */
+    @Override
+    public Map<String, ConversationContext> snapshotValue(String key) {
+        Set<String> sessionIds = sessionIdsByAgent.get(key);
+        if (sessionIds == null) {
             return null;
         }
-        return contexts.get(sessionId);
+        Map<String, ConversationContext> value = new HashMap<>();
+        for (String sessionId : sessionIds) {
+            ContextKey contextKey = new ContextKey(key, sessionId);
+            ConversationContext context = contexts.policy().getIfPresentQuietly(contextKey);
+            if (context == null && cold != null) {
+                List<String> messages = cold.peek(contextKey);
+                if (messages != null) {
+                    context = newContext();
+                    messages.forEach(context::append);
+                }
+            }
+            if (context != null) {
+                value.put(sessionId, context);
+            }
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    @Override
+    public void writeValue(Map<String, ConversationContext> value, DataOutput out) throws IOException {
+        List<Map.Entry<String, ConversationContext>> entries = new ArrayList<>(value.entrySet());
+        out.writeInt(entries.size());
+        for (Map.Entry<String, ConversationContext> entry : entries) {
+            SnapshotIO.writeString(out, entry.getKey());
+            List<String> messages = entry.getValue().messages();
+            out.writeInt(messages.size());
+            for (String message : messages) {
+                SnapshotIO.writeString(out, message);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, ConversationContext> readValue(String key, DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<String, ConversationContext> value = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String sessionId = SnapshotIO.readString(in);
+            ConversationContext context = newContext();
+            int messages = in.readInt();
+            for (int j = 0; j < messages; j++) {
+                context.append(SnapshotIO.readString(in));
+            }
+            value.put(sessionId, context);
+        }
+        return value;
+    }
+
+    @Override
+    public void restoreEntry(String key, Map<String, ConversationContext> value) {
+        removeContexts(key, null);
+        value.forEach((sessionId, context) -> sessionIdsByAgent.compute(key, (agent, sessionIds) -> {
+            Set<String> target = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+            target.add(sessionId);
+            contexts.put(new ContextKey(agent, sessionId), context);
+            return target;
+        }));
+    }
+
+    @Override
+    public void removeEntry(String key) {
+        removeContexts(key, null);
     }
 
     /**
-     * 简单的会话载体，仅保存消息列表。
+     * 单个业务会话的上下文，消息保存在有界窗口中。
+     * <p>
+     * 窗口是不可变快照，追加时复制出新窗口并以 CAS 发布，失败则基于最新窗口重试；读取只需一次
+     * volatile 读即可得到一致视图。窗口长度受 {@code maxMessages} 约束，复制成本是常数。
+     * <p>
+     * 消息正文以 UTF-8 字节写入会话私有的分块 arena，窗口只记录（块，偏移，长度）切片；块写满后换上
+     * 容量翻倍（不超过字节上限）的新块，旧块在不再被任何窗口引用后回收；全局预算按块的整块容量计重。重复出现的短消息直接引用
+     * {@link MessageInterner} 中的共享副本。只有读取 {@link #messages()} 的元素时才
+     * 解码成 {@link String}。
+     * <p>
+     * 每条消息只在追加时估算一次 token 数，窗口同时维护 token 前缀和，{@link #lastTokens(int)}
+     * 的定位成本只取决于窗口长度，与历史对话轮数无关。
      */
     public static class ConversationContext {
-        public final List<String> messages = new ArrayList<>();
+        private static final int MIN_CHUNK = 16;
+        private static final int MAX_CHUNK = 16 * 1024;
+        private static final ThreadLocal<byte[]> SCRATCH =
+                ThreadLocal.withInitial(() -> new byte[MessageInterner.MAX_INTERNED_BYTES]);
+        private static final AtomicReferenceFieldUpdater<ConversationContext, Window> WINDOW =
+                AtomicReferenceFieldUpdater.newUpdater(ConversationContext.class, Window.class, "window");
+
+        private final int maxMessages;
+        private final long maxBytes;
+        private final MessageInterner interner;
+        private final TokenEstimator tokenEstimator;
+        private volatile Window window = Window.EMPTY;
+        private volatile int settledWeight;
+        private byte[] arena;
+        private int arenaUsed;
+
+        /**
+         * 指定容量上限创建上下文。
+         *
+         * @param maxMessages 最多保留的消息条数
+         * @param maxBytes    消息正文的字节上限
+         */
+        public ConversationContext(int maxMessages, long maxBytes) {
+            this(maxMessages, maxBytes, null);
+        }
+
+        /**
+         * 指定容量上限与共享驻留表创建上下文。
+         *
+         * @param maxMessages 最多保留的消息条数
+         * @param maxBytes    消息正文的字节上限
+         * @param interner    驻留表，为 {@code null} 时不去重
+         */
+        ConversationContext(int maxMessages, long maxBytes, MessageInterner interner) {
+            this(maxMessages, maxBytes, interner, TokenEstimator.HEURISTIC);
+        }
+
+        /**
+         * 指定容量上限、驻留表与 token 估算器创建上下文。
+         *
+         * @param maxMessages    最多保留的消息条数
+         * @param maxBytes       消息正文的字节上限
+         * @param interner       驻留表，为 {@code null} 时不去重
+         * @param tokenEstimator 追加时估算单条消息 token 数的函数
+         */
+        ConversationContext(int maxMessages, long maxBytes, MessageInterner interner,
+                            TokenEstimator tokenEstimator) {
+            this.maxMessages = maxMessages;
+            this.maxBytes = maxBytes;
+            this.interner = interner;
+            this.tokenEstimator = tokenEstimator;
+        }
+
+        /**
+         * 无锁追加一条消息，超过上限时淘汰最旧的消息。单条消息超过字节上限时只保留这一条。
+         *
+         * @param message 消息文本，{@code null} 时忽略
+         */
+        public void append(String message) {
+            tryAppend(message);
+        }
+
+        /**
+         * 追加一条消息；上下文已退役时不追加并返回 {@code false}，由调用方改投当前的上下文。
+         *
+         * @param message 消息文本，{@code null} 时忽略
+         * @return 已追加或消息为 {@code null} 时返回 {@code true}
+         */
+        boolean tryAppend(String message) {
+            if (message == null) {
+                return true;
+            }
+            if (window.retired) {
+                return false;
+            }
+            int size = Utf8.length(message);
+            int tokens = Math.max(0, tokenEstimator.estimate(message));
+            byte[] scratch = null;
+            if (interner != null && size <= MessageInterner.MAX_INTERNED_BYTES) {
+                scratch = SCRATCH.get();
+                Utf8.encode(message, scratch, 0);
+                byte[] shared = interner.intern(scratch, 0, size);
+                if (shared != null) {
+                    return publish(shared, 0, size, tokens);
+                }
+            }
+
+            byte[] target;
+            int offset;
+            synchronized (this) {
+                // 只在 arena 内推进写指针，同一会话极少并发，写入与窗口发布都在锁外完成。
+                if (arena == null || arena.length - arenaUsed < size) {
+                    // 块容量不超过字节上限：窗口本身放不下更多正文，更大的块只会留下用不到的尾部。
+                    int capacity = arena == null ? size
+                            : (int) Math.min(Math.min(MAX_CHUNK, maxBytes), arena.length * 2L);
+                    arena = new byte[Math.max(Math.max(MIN_CHUNK, capacity), size)];
+                    arenaUsed = 0;
+                }
+                target = arena;
+                offset = arenaUsed;
+                arenaUsed += size;
+            }
+            if (scratch != null) {
+                System.arraycopy(scratch, 0, target, offset, size);
+            } else {
+                Utf8.encode(message, target, offset);
+            }
+            return publish(target, offset, size, tokens);
+        }
+
+        /**
+         * 以 CAS 发布包含新切片的窗口，失败则基于最新窗口重试；窗口已退役时放弃。
+         *
+         * @param slab   消息字节所在数组
+         * @param offset 起始偏移
+         * @param size   字节长度
+         * @param tokens 消息的 token 数
+         * @return 是否已发布
+         */
+        private boolean publish(byte[] slab, int offset, int size, int tokens) {
+            Window current;
+            Window next;
+            do {
+                current = window;
+                if (current.retired) {
+                    return false;
+                }
+                next = current.append(slab, offset, size, tokens, maxMessages, maxBytes);
+            } while (!WINDOW.compareAndSet(this, current, next));
+            return true;
+        }
+
+        /**
+         * 把当前窗口标记为已退役：内容保持可读，之后的追加都会失败。与追加的 CAS 串行，
+         * 退役前发布的消息都包含在退役后的窗口中。
+         */
+        void retire() {
+            Window current;
+            do {
+                current = window;
+                if (current.retired) {
+                    return;
+                }
+            } while (!WINDOW.compareAndSet(this, current, current.retired()));
+        }
+
+        /**
+         * 返回当前消息的一致快照，按追加顺序排列，列表不可修改，元素在读取时才解码。
+         *
+         * @return 消息列表
+         */
+        public List<String> messages() {
+            return window.view(0);
+        }
+
+        /**
+         * 返回最近不超过 {@code maxTokens} 个 token 的完整消息，按追加顺序排列。借助追加时维护的
+         * token 前缀和二分定位起点，不重新分词，也不复制消息字节；单条消息超出预算时不会被截断，
+         * 而是整体排除。
+         *
+         * @param maxTokens token 预算
+         * @return 只读视图，元素在读取时解码
+         */
+        public List<String> lastTokens(int maxTokens) {
+            Window current = window;
+            return current.view(current.startForTokens(maxTokens));
+        }
+
+        /**
+         * 当前保留消息的 token 总数。
+         *
+         * @return token 数
+         */
+        public int tokens() {
+            return window.tokens();
+        }
+
+        /**
+         * 当前保留的消息条数。
+         *
+         * @return 条数
+         */
+        public int size() {
+            return window.slabs.length;
+        }
+
+        /**
+         * 当前保留消息的 UTF-8 字节总数。
+         *
+         * @return 字节数
+         */
+        public long bytes() {
+            return window.totalBytes;
+        }
+
+        /**
+         * 估算上下文占用的堆内存，作为全局预算的权重。消息正文按所在 arena 块的整块容量计入（含未写满的
+         * 尾部与已淘汰消息仍占着的部分），当前块尚未被窗口引用时也计入。
+         *
+         * @param key 上下文键
+         * @return 估算字节数，至少为 1
+         */
+        int weight(ContextKey key) {
+            Window current = window;
+            byte[] chunk;
+            synchronized (this) {
+                chunk = arena;
+            }
+            long estimate = CONTEXT_OVERHEAD + key.weight()
+                    + (long) current.slabs.length * MESSAGE_OVERHEAD + current.retainedBytes;
+            if (chunk != null && !current.references(chunk)) {
+                estimate += chunk.length;
+            }
+            return (int) Math.min(Integer.MAX_VALUE, estimate);
+        }
+
+        /**
+         * 计算权重并记为已结算，由缓存的 weigher 调用。
+         *
+         * @param key 上下文键
+         * @return 估算字节数
+         */
+        int settleWeight(ContextKey key) {
+            int weight = weight(key);
+            settledWeight = weight;
+            return weight;
+        }
+
+        /**
+         * 当前权重相对上次结算的变化是否超过阈值（{@value ConversationContextService#REWEIGH_MIN_BYTES} 字节与已结算权重的 1/8
+         * 中的较大者），全局预算的偏差因此有界。
+         *
+         * @param key 上下文键
+         * @return 需要重新结算时返回 {@code true}
+         */
+        boolean needsReweigh(ContextKey key) {
+            int settled = settledWeight;
+            return Math.abs(weight(key) - settled) >= Math.max(REWEIGH_MIN_BYTES, settled >>> 3);
+        }
+
+    }
+
+    /**
+     * 缓存键：Agent 会话与业务会话的组合。
+     */
+    static final class ContextKey {
+        final String agentSessionId;
+        final String sessionId;
+        private final int hash;
+
+        /**
+         * 构造组合键并预先计算哈希。
+         */
+        ContextKey(String agentSessionId, String sessionId) {
+            this.agentSessionId = agentSessionId;
+            this.sessionId = sessionId;
+            this.hash = 31 * agentSessionId.hashCode() + sessionId.hashCode();
+        }
+
+        /**
+         * 估算键本身占用的字节。
+         */
+        long weight() {
+            return KEY_OVERHEAD + agentSessionId.length() + sessionId.length();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ContextKey that)) {
+                return false;
+            }
+            return hash == that.hash && agentSessionId.equals(that.agentSessionId)
+                    && sessionId.equals(that.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 不可变的消息窗口，数组在发布后不再修改，可被多个读者安全共享。每条消息是一个 UTF-8 切片：
+     * {@code slabs[i]} 为所在字节数组，{@code slices[i]} 高 32 位为偏移、低 32 位为长度；
+     * {@code tokenEnds[i]} 是窗口内前 {@code i + 1} 条消息的 token 前缀和。{@code retired} 表示所属上下文
+     * 已被淘汰，不再接受追加。
+     */
+    private static final class Window {
+        static final Window EMPTY = new Window(new byte[0][], new long[0], new int[0], 0, 0, false);
+
+        final byte[][] slabs;
+        final long[] slices;
+        final int[] tokenEnds;
+        final long totalBytes;
+        /**
+         * 窗口引用的数组的总容量：相邻切片落在同一数组时只计一次，同一数组被其他数组隔开时重复计入，估算只会偏大。
+         */
+        final long retainedBytes;
+        final boolean retired;
+
+        /**
+         * 记录窗口内容。
+         */
+        Window(byte[][] slabs, long[] slices, int[] tokenEnds, long totalBytes, long retainedBytes,
+               boolean retired) {
+            this.slabs = slabs;
+            this.slices = slices;
+            this.tokenEnds = tokenEnds;
+            this.totalBytes = totalBytes;
+            this.retainedBytes = retainedBytes;
+            this.retired = retired;
+        }
+
+        /**
+         * 内容相同、标记为已退役的窗口。
+         */
+        Window retired() {
+            return new Window(slabs, slices, tokenEnds, totalBytes, retainedBytes, true);
+        }
+
+        /**
+         * 窗口是否引用该数组。从尾部向前查找，当前 arena 块通常就在末尾。
+         */
+        boolean references(byte[] array) {
+            for (int i = slabs.length - 1; i >= 0; i--) {
+                if (slabs[i] == array) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 窗口内的 token 总数。
+         */
+        int tokens() {
+            return tokenEnds.length == 0 ? 0 : tokenEnds[tokenEnds.length - 1];
+        }
+
+        /**
+         * 在前缀和上二分，找到满足 token 预算的最早消息下标。
+         *
+         * @param maxTokens token 预算
+         * @return 起始下标，预算连最后一条都放不下时返回消息条数
+         */
+        int startForTokens(int maxTokens) {
+            int total = tokens();
+            if (total <= maxTokens) {
+                return 0;
+            }
+            // 起点 i 需满足 total - tokenEnds[i - 1] <= maxTokens，即第一个 tokenEnds[j] >= total - maxTokens 之后。
+            int threshold = total - Math.max(0, maxTokens);
+            int low = 0;
+            int high = tokenEnds.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tokenEnds[mid] >= threshold) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low + 1;
+        }
+
+        /**
+         * 生成追加一条消息后的新窗口，从头部淘汰直到满足条数与字节上限，前缀和随复制一起平移。
+         */
+        Window append(byte[] slab, int offset, int size, int tokens, int maxMessages, long maxBytes) {
+            int count = slabs.length;
+            int drop = 0;
+            long bytes = totalBytes + size;
+            long retained = retainedBytes;
+            while (drop < count && (count - drop + 1 > maxMessages || bytes > maxBytes)) {
+                bytes -= length(slices[drop]);
+                if (drop + 1 == count || slabs[drop + 1] != slabs[drop]) {
+                    retained -= slabs[drop].length;
+                }
+                drop++;
+            }
+            int kept = count - drop;
+            byte[][] nextSlabs = new byte[kept + 1][];
+            long[] nextSlices = new long[kept + 1];
+            System.arraycopy(slabs, drop, nextSlabs, 0, kept);
+            System.arraycopy(slices, drop, nextSlices, 0, kept);
+            nextSlabs[kept] = slab;
+            nextSlices[kept] = ((long) offset << 32) | size;
+
+            int[] nextTokenEnds = new int[kept + 1];
+            int dropped = drop == 0 ? 0 : tokenEnds[drop - 1];
+            for (int i = 0; i < kept; i++) {
+                nextTokenEnds[i] = tokenEnds[drop + i] - dropped;
+            }
+            nextTokenEnds[kept] = (kept == 0 ? 0 : nextTokenEnds[kept - 1]) + tokens;
+            if (kept == 0 || nextSlabs[kept - 1] != slab) {
+                retained += slab.length;
+            }
+            return new Window(nextSlabs, nextSlices, nextTokenEnds, bytes, retained, false);
+        }
+
+        /**
+         * 以只读列表形式暴露从 {@code from} 开始的窗口内容，不复制数组，元素在访问时解码。
+         */
+        List<String> view(int from) {
+            return new AbstractList<>() {
+                @Override
+                public String get(int index) {
+                    int position = from + Objects.checkIndex(index, size());
+                    long slice = slices[position];
+                    return new String(slabs[position], (int) (slice >>> 32), length(slice), StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public int size() {
+                    return slabs.length - from;
+                }
+            };
+        }
+
+        /**
+         * 取出切片中的长度。
+         */
+        private static int length(long slice) {
+            return (int) slice;
+        }
     }
 }
@@ -0,0 +1,143 @@
+package com.example.a2a.server.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 任务、SSE 与会话生命周期的 JDK Flight Recorder 事件，用于把延迟尖刺对应到具体的任务与会话：
+ * {@code jcmd <pid> JFR.start} 开始录制后，在 JMC 中按 {@code A2A} 分类查看，或用
+ * {@code jfr print --events com.example.a2a.*} 导出。
+ * <p>
+ * 调用方按 JFR 的惯用写法先创建事件、判断 {@code shouldCommit()} 再填充字段并提交：未录制时事件对象不逃逸，
+ * 由 JIT 消除分配，开销只剩一次已内联的开关判断。事件都关闭了调用栈采集，靠 ID 字段关联。
+ */
+final class FlightEvents {
+
+    /**
+     * 工具类不需要实例化。
+     */
+    private FlightEvents() {
+    }
+
+    /**
+     * {@code task_submit} 创建了任务。
+     */
+    @Name("com.example.a2a.TaskSubmitted")
+    @Label("Task Submitted")
+    @Category({"A2A", "Task"})
+    @StackTrace(false)
+    static final class TaskSubmitted extends Event {
+        @Label("Task ID")
+        String taskId;
+
+        @Label("Skill ID")
+        String skillId;
+
+        @Label("Push Notification")
+        boolean push;
+    }
+
+    /**
+     * 执行线程接手了任务。
+     */
+    @Name("com.example.a2a.TaskStarted")
+    @Label("Task Started")
+    @Category({"A2A", "Task"})
+    @StackTrace(false)
+    static final class TaskStarted extends Event {
+        @Label("Task ID")
+        String taskId;
+
+        @Label("Queue Wait")
+        @Description("Time from submission until an executor thread picked the task up")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+    /**
+     * 任务进入终态，事件时长即执行耗时。
+     */
+    @Name("com.example.a2a.TaskFinished")
+    @Label("Task Finished")
+    @Category({"A2A", "Task"})
+    @StackTrace(false)
+    static final class TaskFinished extends Event {
+        @Label("Task ID")
+        String taskId;
+
+        @Label("Skill ID")
+        String skillId;
+
+        @Label("State")
+        String state;
+    }
+
+    /**
+     * 流式任务通过 SSE 发出一个事件，事件时长覆盖序列化与写出。
+     */
+    @Name("com.example.a2a.SseEventSent")
+    @Label("SSE Event Sent")
+    @Category({"A2A", "Stream"})
+    @StackTrace(false)
+    static final class SseEventSent extends Event {
+        @Label("Task ID")
+        String taskId;
+
+        @Label("Request ID")
+        String requestId;
+
+        @Label("Kind")
+        String kind;
+
+        @Label("Payload Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Serialize Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long serializeTime;
+    }
+
+    /**
+     * {@code initialize} 创建了会话。
+     */
+    @Name("com.example.a2a.SessionCreated")
+    @Label("Agent Session Created")
+    @Category({"A2A", "Session"})
+    @StackTrace(false)
+    static final class SessionCreated extends Event {
+        @Label("Agent Session ID")
+        String agentSessionId;
+
+        @Label("TTL")
+        @Timespan(Timespan.SECONDS)
+        long ttl;
+    }
+
+    /**
+     * 会话被发现已过期并移除。
+     */
+    @Name("com.example.a2a.SessionExpired")
+    @Label("Agent Session Expired")
+    @Category({"A2A", "Session"})
+    @StackTrace(false)
+    static final class SessionExpired extends Event {
+        @Label("Agent Session ID")
+        String agentSessionId;
+
+        @Label("Overdue")
+        @Description("How long after its expiry the session was found and removed")
+        @Timespan(Timespan.MILLISECONDS)
+        long overdue;
+
+        @Label("On Restore")
+        @Description("Whether the session expired while the server was down")
+        boolean restored;
+    }
+}
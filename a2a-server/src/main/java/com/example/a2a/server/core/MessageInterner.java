@@ -0,0 +1,85 @@
+package com.example.a2a.server.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的 UTF-8 消息驻留表，让大量会话中重复出现的短提示（如“北京天气”）共享同一份字节。
+ * <p>
+ * 采用直接映射、允许覆盖的槽位：每个槽位只保存一条消息，冲突时后来者替换先来者，表大小固定不随
+ * 流量增长。为避免一次性消息不断冲刷热门条目，同一哈希需要在槽位上连续出现两次才会被收录。
+ * 槽位读写不加锁，竞争时最坏只是少驻留一次，不影响正确性。
+ */
+final class MessageInterner {
+
+    /**
+     * 超过该长度的消息不参与驻留，长文本很少完全重复。
+     */
+    static final int MAX_INTERNED_BYTES = 256;
+
+    private final AtomicReferenceArray<byte[]> slots;
+    private final int[] candidates;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 创建指定槽位数的驻留表，槽位数向上取整为 2 的幂。
+     *
+     * @param capacity 槽位数
+     */
+    MessageInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.candidates = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 查找与给定字节相同的驻留副本；第二次见到同一消息时收录并返回新副本。
+     *
+     * @param bytes  消息所在数组
+     * @param offset 起始偏移
+     * @param length 字节长度
+     * @return 共享副本，未命中或不参与驻留返回 {@code null}
+     */
+    byte[] intern(byte[] bytes, int offset, int length) {
+        if (length > MAX_INTERNED_BYTES) {
+            return null;
+        }
+        int hash = hash(bytes, offset, length);
+        int slot = hash & mask;
+        byte[] existing = slots.get(slot);
+        if (existing != null && Arrays.equals(existing, 0, existing.length, bytes, offset, offset + length)) {
+            hits.increment();
+            return existing;
+        }
+        if (candidates[slot] != hash) {
+            candidates[slot] = hash;
+            return null;
+        }
+        byte[] copy = Arrays.copyOfRange(bytes, offset, offset + length);
+        slots.set(slot, copy);
+        return copy;
+    }
+
+    /**
+     * 累计命中次数。
+     *
+     * @return 命中次数
+     */
+    long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * 计算字节区间的哈希并打散高位。
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
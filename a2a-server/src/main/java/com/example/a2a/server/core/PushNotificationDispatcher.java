@@ -0,0 +1,444 @@
+package com.example.a2a.server.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务进入终态（COMPLETED、FAILED、CANCELED）后向 {@code task_submit} 登记的回调地址 POST 任务结果，
+ * 替代客户端轮询 {@code task_status}。
+ * <p>
+ * 回调地址在提交时与每次投递前都要校验：配置了 {@code allowed-hosts} 时只接受名单内的主机；否则拒绝解析到
+ * 回环、链路本地、站点本地（私有网段）、通配与组播地址的主机，避免任意调用方借服务端访问内网（SSRF）。
+ * 地址检查是尽力而为：HTTP 客户端连接时会重新解析主机，检查与连接之间的 DNS 变化（DNS rebinding）无法排除，
+ * 需要严格隔离时应配置 {@code allowed-hosts} 或在网络出口限制。
+ * <p>
+ * 投递（含投递前的主机解析）与重试都在 HTTP 线程池上进行，登记通知的任务线程与重试调度线程不做阻塞操作。
+ * <p>
+ * 每个回调地址对应一条投递通道：通道内同一时刻只有一个请求在途，待投递的通知按到达顺序排队（任务只进入
+ * 终态一次，每个任务至多一条通知）。连接失败、超时、429 与 5xx 响应按指数退避（带抖动）重试，重试期间该
+ * 地址的后续通知排队等待；其余 4xx 响应视为接收方拒绝，不再重试。通道空闲后即释放，地址数与每个地址的待投递数都有
+ * 上限。请求体与 {@code task_result} 的结构一致，回调令牌放在 {@value #TOKEN_HEADER} 请求头中供接收方校验。
+ * 投递结果通过 {@code a2a.push.deliveries}（按 {@code outcome} 标签区分）暴露。
+ */
+@Service
+public class PushNotificationDispatcher {
+
+    /**
+     * 携带回调令牌的请求头。
+     */
+    public static final String TOKEN_HEADER = "X-A2A-Notification-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(PushNotificationDispatcher.class);
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final ExecutorService httpExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int maxEndpoints;
+    private final int maxPendingPerEndpoint;
+    private final Set<String> allowedHosts;
+    private final boolean allowPrivateAddresses;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter dropped;
+
+    /**
+     * 按配置创建异步 HTTP 客户端与重试调度线程。
+     *
+     * @param properties    回调配置
+     * @param objectMapper  JSON 映射器
+     * @param meterRegistry 指标注册表
+     */
+    public PushNotificationDispatcher(PushNotificationProperties properties, ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        AtomicInteger counter = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "a2a-push-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "a2a-push-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .executor(httpExecutor)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        this.requestTimeout = properties.getRequestTimeout();
+        this.maxAttempts = Math.max(1, properties.getMaxAttempts());
+        this.initialBackoffMillis = Math.max(1, properties.getInitialBackoff().toMillis());
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, properties.getMaxBackoff().toMillis());
+        this.maxEndpoints = Math.max(1, properties.getMaxEndpoints());
+        this.maxPendingPerEndpoint = Math.max(1, properties.getMaxPendingPerEndpoint());
+        this.allowedHosts = properties.getAllowedHosts().stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.allowPrivateAddresses = properties.isAllowPrivateAddresses();
+        this.delivered = outcome(meterRegistry, "delivered");
+        this.failed = outcome(meterRegistry, "failed");
+        this.retried = outcome(meterRegistry, "retried");
+        this.dropped = outcome(meterRegistry, "dropped");
+    }
+
+    /**
+     * 校验回调地址：必须是带主机名的绝对 http/https 地址，且主机符合地址策略。
+     *
+     * @param url 回调地址
+     * @return 解析后的地址
+     * @throws IllegalArgumentException 地址为空、不合法或指向不允许的主机
+     */
+    public URI validate(String url) {
+        URI uri = parse(url);
+        checkHost(uri);
+        return uri;
+    }
+
+    /**
+     * 解析回调地址，只检查格式。
+     */
+    private static URI parse(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("push notification url required");
+        }
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("invalid push notification url: " + url);
+        }
+        String scheme = uri.getScheme();
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new IllegalArgumentException("push notification url must be an absolute http(s) url: " + url);
+        }
+        return uri;
+    }
+
+    /**
+     * 按地址策略检查主机：名单非空时只看名单；否则解析主机，任一地址落在内部网段即拒绝。
+     */
+    private void checkHost(URI uri) {
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        if (!allowedHosts.isEmpty()) {
+            if (!allowedHosts.contains(host)) {
+                throw new IllegalArgumentException("push notification host not allowed: " + host);
+            }
+            return;
+        }
+        if (allowPrivateAddresses) {
+            return;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("push notification host cannot be resolved: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new IllegalArgumentException("push notification host resolves to an internal address: "
+                        + host);
+            }
+        }
+    }
+
+    /**
+     * 判断地址是否属于回环、链路本地、站点本地、通配、组播或 IPv6 唯一本地（fc00::/7）网段。
+     */
+    static boolean isInternal(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isSiteLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        return address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc;
+    }
+
+    /**
+     * 为进入终态的任务登记一次投递；任务未配置回调地址时直接返回。不抛出异常，不阻塞调用线程：
+     * 投递交给 HTTP 线程池执行。
+     *
+     * @param data 已进入终态的任务
+     */
+    public void notifyTerminal(TaskService.TaskData data) {
+        if (data.pushUrl == null) {
+            return;
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload(data));
+        } catch (JsonProcessingException e) {
+            failed.increment();
+            log.warn("Failed to encode push notification for task {}", data.taskId, e);
+            return;
+        }
+        Delivery delivery = new Delivery(data.taskId, URI.create(data.pushUrl), data.pushToken, body);
+        boolean[] start = new boolean[1];
+        Lane lane = lanes.compute(data.pushUrl, (url, existing) -> {
+            Lane target = existing;
+            if (target == null) {
+                if (lanes.size() >= maxEndpoints) {
+                    return null;
+                }
+                target = new Lane(url);
+            }
+            start[0] = target.offer(delivery);
+            return target;
+        });
+        if (lane == null) {
+            dropped.increment();
+            log.warn("Dropped push notification for task {}: too many pending endpoints", data.taskId);
+            return;
+        }
+        if (start[0]) {
+            dispatch(lane, () -> drain(lane));
+        }
+    }
+
+    /**
+     * 停止 HTTP 客户端线程与重试调度，尚未投递的通知被丢弃。
+     */
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+
+    /**
+     * 当前持有待投递通知的回调地址数。
+     */
+    int activeEndpoints() {
+        return lanes.size();
+    }
+
+    /**
+     * 构造与 {@code task_result} 相同结构的请求体，附带任务 ID 与终态。
+     */
+    private static Map<String, Object> payload(TaskService.TaskData data) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("taskId", data.taskId);
+        payload.put("state", data.state);
+        if (data.resultText != null) {
+            Map<String, Object> part = new LinkedHashMap<>();
+            part.put("kind", "text");
+            part.put("text", data.resultText);
+            payload.put("message", Map.of("parts", List.of(part)));
+        }
+        return payload;
+    }
+
+    /**
+     * 把投递步骤交给 HTTP 线程池；线程池已关闭时丢弃通道中剩余的通知。
+     */
+    private void dispatch(Lane lane, Runnable step) {
+        try {
+            httpExecutor.execute(step);
+        } catch (RejectedExecutionException e) {
+            for (Delivery rest = lane.next(); rest != null; rest = lane.next()) {
+                dropped.increment();
+            }
+            lanes.remove(lane.url, lane);
+        }
+    }
+
+    /**
+     * 取出通道中的下一条通知发出；通道已空时尝试释放通道。只在 HTTP 线程池上调用。
+     */
+    private void drain(Lane lane) {
+        Delivery next = lane.next();
+        if (next == null) {
+            lanes.computeIfPresent(lane.url, (url, current) -> current == lane && lane.isIdle() ? null : current);
+            return;
+        }
+        send(lane, next);
+    }
+
+    /**
+     * 检查主机后异步发出一次投递。只在 HTTP 线程池上调用，主机解析不占用任务线程或重试调度线程。
+     */
+    private void send(Lane lane, Delivery delivery) {
+        try {
+            // 提交后主机的解析结果可能变化，每次投递前重新检查（尽力而为，见类说明）
+            checkHost(delivery.uri);
+        } catch (IllegalArgumentException e) {
+            failed.increment();
+            log.warn("Push notification for task {} not sent: {}", delivery.taskId, e.getMessage());
+            drain(lane);
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(delivery.uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(delivery.body));
+        if (delivery.token != null) {
+            request.header(TOKEN_HEADER, delivery.token);
+        }
+        try {
+            client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) ->
+                            onResponse(lane, delivery, response == null ? -1 : response.statusCode(), error));
+        } catch (RuntimeException e) {
+            onResponse(lane, delivery, -1, e);
+        }
+    }
+
+    /**
+     * 根据投递结果决定继续下一条、退避重试或放弃。
+     */
+    private void onResponse(Lane lane, Delivery delivery, int status, Throwable error) {
+        if (error == null && status >= 200 && status < 300) {
+            delivered.increment();
+            drain(lane);
+            return;
+        }
+        boolean retryable = error != null || status == 408 || status == 429 || status >= 500;
+        if (retryable && delivery.attempts < maxAttempts) {
+            retried.increment();
+            long delay = backoffMillis(delivery.attempts);
+            delivery.attempts++;
+            try {
+                retryScheduler.schedule(() -> dispatch(lane, () -> send(lane, delivery)), delay,
+                        TimeUnit.MILLISECONDS);
+                return;
+            } catch (RuntimeException e) {
+                // 调度器已关闭，按放弃处理
+            }
+        }
+        failed.increment();
+        log.warn("Push notification for task {} to {} failed (status {})", delivery.taskId, delivery.uri,
+                status, error);
+        drain(lane);
+    }
+
+    /**
+     * 第 {@code attempts} 次失败后的退避时间：指数增长、封顶，并在后一半区间内随机抖动。
+     */
+    private long backoffMillis(int attempts) {
+        long base = initialBackoffMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMillis, base);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * 注册投递结果计数器。
+     */
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("a2a.push.deliveries")
+                .description("Push notification deliveries by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 一条待投递的通知。
+     */
+    private static final class Delivery {
+        final String taskId;
+        final URI uri;
+        final String token;
+        final byte[] body;
+        int attempts = 1; // 仅由通道当前的投递线程修改
+
+        /**
+         * 创建通知。
+         */
+        Delivery(String taskId, URI uri, String token, byte[] body) {
+            this.taskId = taskId;
+            this.uri = uri;
+            this.token = token;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 单个回调地址的投递通道：按到达顺序保存待投递通知。
+     */
+    private final class Lane {
+        final String url;
+        private final ArrayDeque<Delivery> pending = new ArrayDeque<>();
+        private boolean running;
+
+        /**
+         * 创建通道。
+         */
+        Lane(String url) {
+            this.url = url;
+        }
+
+        /**
+         * 加入一条通知，返回调用方是否需要启动投递。
+         */
+        synchronized boolean offer(Delivery delivery) {
+            pending.addLast(delivery);
+            if (pending.size() > maxPendingPerEndpoint) {
+                pending.removeFirst();
+                dropped.increment();
+            }
+            if (running) {
+                return false;
+            }
+            running = true;
+            return true;
+        }
+
+        /**
+         * 取出下一条通知，没有时结束投递。
+         */
+        synchronized Delivery next() {
+            Delivery delivery = pending.pollFirst();
+            if (delivery == null) {
+                running = false;
+            }
+            return delivery;
+        }
+
+        /**
+         * 通道是否没有在途或待投递的通知。
+         */
+        synchronized boolean isIdle() {
+            return !running && pending.isEmpty();
+        }
+    }
+}
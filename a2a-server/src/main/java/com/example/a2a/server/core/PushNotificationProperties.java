@@ -0,0 +1,146 @@
+package com.example.a2a.server.core;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务完成回调配置，对应 {@code a2a.push.*}。同一回调地址的投递串行执行，失败后按指数退避重试；
+ * 地址数与每个地址的待投递数都有上限，超出部分直接丢弃并计入指标。回调主机默认不得解析到内部网段，
+ * 可用 {@code allowed-hosts} 改为只接受名单内的主机。
+ */
+@ConfigurationProperties(prefix = "a2a.push")
+public class PushNotificationProperties {
+
+    /**
+     * 异步 HTTP 客户端的线程数。
+     */
+    private int threads = 2;
+
+    /**
+     * 建立连接的超时。
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 单次投递等待响应的超时。
+     */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 单个通知最多投递次数（含首次）。
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 首次重试前的退避时间，之后每次翻倍。
+     */
+    private Duration initialBackoff = Duration.ofMillis(200);
+
+    /**
+     * 退避时间上限。
+     */
+    private Duration maxBackoff = Duration.ofSeconds(10);
+
+    /**
+     * 同时保有待投递通知的回调地址数上限。
+     */
+    private int maxEndpoints = 1024;
+
+    /**
+     * 单个回调地址的待投递通知数上限，超出时丢弃最早的通知。
+     */
+    private int maxPendingPerEndpoint = 256;
+
+    /**
+     * 允许的回调主机名或 IP 字面量，非空时只接受名单内的主机（包括内部地址）。
+     */
+    private List<String> allowedHosts = new ArrayList<>();
+
+    /**
+     * 名单为空时是否允许回调解析到回环、链路本地、私有网段等内部地址，仅用于本地开发。
+     */
+    private boolean allowPrivateAddresses = false;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int getMaxEndpoints() {
+        return maxEndpoints;
+    }
+
+    public void setMaxEndpoints(int maxEndpoints) {
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    public int getMaxPendingPerEndpoint() {
+        return maxPendingPerEndpoint;
+    }
+
+    public void setMaxPendingPerEndpoint(int maxPendingPerEndpoint) {
+        this.maxPendingPerEndpoint = maxPendingPerEndpoint;
+    }
+
+    public List<String> getAllowedHosts() {
+        return allowedHosts;
+    }
+
+    public void setAllowedHosts(List<String> allowedHosts) {
+        this.allowedHosts = allowedHosts;
+    }
+
+    public boolean isAllowPrivateAddresses() {
+        return allowPrivateAddresses;
+    }
+
+    public void setAllowPrivateAddresses(boolean allowPrivateAddresses) {
+        this.allowPrivateAddresses = allowPrivateAddresses;
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.a2a.server.core;
 
-import com.example.a2a.server.agent.WeatherAgent;
+import com.example.a2a.server.agent.AgentStreamSink;
+import com.example.a2a.server.agent.Deadline;
+import com.example.a2a.server.agent.SkillExecutionException;
+import com.example.a2a.server.agent.SkillRegistry;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentFilePart;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentMessagePart;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.CancelResult;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.MessageStreamParams;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskArtifact;
@@ -13,11 +18,17 @@ import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskStatusEnv
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskStatusUpdateEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,29 +38,56 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 负责实现 {@code message/stream} RPC 的服务端逻辑，通过 SSE 推送符合 HarmonyOS 规范的
  * 事件序列。实现保持确定性输出，便于集成测试覆盖流式分支且结果可预期。
+ * <p>
+ * 流的时延通过以下指标暴露：{@code a2a.stream.first-event}（开始到第一个事件）、{@code a2a.stream.event.gap}
+ * （相邻事件间隔）、{@code a2a.stream.duration}（开始到结束，按 {@code outcome} 区分）以及活动流数
+ * {@code a2a.stream.active}。计时器在构造时注册，发送事件时只取一次时钟。
  */
 @Service
 public class StreamingTaskService {
 
+    private static final Logger log = LoggerFactory.getLogger(StreamingTaskService.class);
     private static final Duration STREAM_DELAY = Duration.ofMillis(150);
+    private static final String DEADLINE_EXCEEDED_MESSAGE = "请求已超过截止时间";
 
-    private final WeatherAgent weatherAgent;
+    private final SkillRegistry skillRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final ExecutorService executor = Executors.newCachedThreadPool();
     private final Map<String, TaskHandle> activeTasks = new ConcurrentHashMap<>();
+    private final Timer firstEvent;
+    private final Timer eventGap;
+    private final Map<String, Timer> durations = new ConcurrentHashMap<>();
 
     /**
-     * 构造服务并注入天气查询占位实现。
+     * 构造服务，注入技能注册中心并注册流指标。
      *
-     * @param weatherAgent 天气查询 Agent
+     * @param skillRegistry 技能注册中心
+     * @param meterRegistry 指标注册表
      */
-    public StreamingTaskService(WeatherAgent weatherAgent) {
-        this.weatherAgent = weatherAgent;
+    public StreamingTaskService(SkillRegistry skillRegistry, MeterRegistry meterRegistry) {
+        this.skillRegistry = skillRegistry;
+        this.firstEvent = Timer.builder("a2a.stream.first-event")
+                .description("Time from stream start until its first SSE event is sent")
+                .register(meterRegistry);
+        this.eventGap = Timer.builder("a2a.stream.event.gap")
+                .description("Time between consecutive SSE events of a stream")
+                .register(meterRegistry);
+        for (String outcome : List.of("completed", "canceled", "failed", "error")) {
+            durations.put(outcome, Timer.builder("a2a.stream.duration")
+                    .description("Time from stream start until it ends")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("a2a.stream.active", activeTasks, Map::size)
+                .description("Streams that have started and not yet ended")
+                .register(meterRegistry);
     }
 
     /**
@@ -62,22 +100,68 @@ public class StreamingTaskService {
      * @return 可用于推送事件的 {@link SseEmitter}
      */
     public SseEmitter startStream(String requestId, MessageStreamParams params, String summary, String userQuery) {
+        return startStream(requestId, params, summary, userQuery, null);
+    }
+
+    /**
+     * 启动受截止时间约束的流式任务：开始执行或调用技能前截止时间已过时直接以失败状态结束，
+     * 截止时间同时传入技能调用。
+     *
+     * @param requestId JSON-RPC 请求标识
+     * @param params    客户端传入的流式参数
+     * @param summary   任务摘要文本
+     * @param userQuery 用户原始查询内容
+     * @param deadline  请求截止时间，为 {@code null} 时不限制
+     * @return 可用于推送事件的 {@link SseEmitter}
+     */
+    public SseEmitter startStream(String requestId, MessageStreamParams params, String summary, String userQuery,
+                                  Deadline deadline) {
+        return startStream(requestId, params, summary, userQuery, deadline, null);
+    }
+
+    /**
+     * 启动流式任务并接管请求附带的资源（如文件部件的落盘区）：资源在流结束、出错或超时时关闭，
+     * 因此消息中的文件部件在整个流期间都可读取。
+     *
+     * @param requestId JSON-RPC 请求标识
+     * @param params    客户端传入的流式参数
+     * @param summary   任务摘要文本
+     * @param userQuery 用户原始查询内容
+     * @param deadline  请求截止时间，为 {@code null} 时不限制
+     * @param resources 流结束时关闭的资源，可为 {@code null}
+     * @return 可用于推送事件的 {@link SseEmitter}
+     */
+    public SseEmitter startStream(String requestId, MessageStreamParams params, String summary, String userQuery,
+                                  Deadline deadline, AutoCloseable resources) {
         String taskId = params != null && params.id != null && !params.id.isBlank()
                 ? params.id
                 : UUID.randomUUID().toString();
 
         SseEmitter emitter = new SseEmitter(0L);
-        TaskHandle handle = new TaskHandle(taskId, requestId, params, summary, emitter);
+        TaskHandle handle = new TaskHandle(taskId, requestId, params, summary, emitter, deadline);
+        handle.resources.set(resources);
         activeTasks.put(taskId, handle);
 
-        emitter.onCompletion(() -> activeTasks.remove(taskId));
+        emitter.onCompletion(() -> {
+            release(handle);
+            activeTasks.remove(taskId);
+        });
         emitter.onTimeout(() -> {
             cancelInternal(handle, "failed", "流式响应超时");
             activeTasks.remove(taskId);
         });
-        emitter.onError(ex -> activeTasks.remove(taskId));
+        emitter.onError(ex -> {
+            ended(handle, "error");
+            activeTasks.remove(taskId);
+        });
 
-        executor.submit(() -> runStream(handle, userQuery));
+        try {
+            executor.submit(() -> runStream(handle, userQuery));
+        } catch (RuntimeException ex) {
+            activeTasks.remove(taskId);
+            release(handle);
+            throw ex;
+        }
         return emitter;
     }
 
@@ -119,6 +203,10 @@ public class StreamingTaskService {
      * @param userQuery 用户原始查询
      */
     private void runStream(TaskHandle handle, String userQuery) {
+        if (handle.isExpired()) {
+            cancelInternal(handle, "failed", DEADLINE_EXCEEDED_MESSAGE);
+            return;
+        }
         try {
             sendStatus(handle, "submitted", "任务已提交", false);
             if (handle.canceled.get()) {
@@ -140,11 +228,23 @@ public class StreamingTaskService {
             }
             sleep();
 
-            String result = weatherAgent.search(userQuery);
-            sendArtifact(handle, "text", handle.summary + "\n" + result, null,
-                    true, true, true);
+            if (handle.isExpired()) {
+                cancelInternal(handle, "failed", DEADLINE_EXCEEDED_MESSAGE);
+                return;
+            }
+            String skillId = handle.params != null ? handle.params.skillId : null;
+            ArtifactStream stream = new ArtifactStream(handle);
+            skillRegistry.executeStreaming(skillId, userQuery, stream, handle.deadline);
+            if (handle.canceled.get()) {
+                return;
+            }
+            stream.finish();
             handle.completed.set(true);
+            ended(handle, "completed");
             handle.emitter.complete();
+        } catch (SkillExecutionException ex) {
+            cancelInternal(handle, "failed", ex.getCode() == SkillExecutionException.DEADLINE_EXCEEDED
+                    ? DEADLINE_EXCEEDED_MESSAGE : "任务执行失败");
         } catch (Exception ex) {
             cancelInternal(handle, "failed", "任务执行失败");
         }
@@ -165,6 +265,7 @@ public class StreamingTaskService {
             sendStatus(handle, state, message, true);
         } catch (IOException ignored) {
         }
+        ended(handle, state);
         handle.emitter.complete();
     }
 
@@ -231,25 +332,102 @@ public class StreamingTaskService {
     }
 
     /**
-     * 将事件对象写入 SSE 通道。
+     * 将事件对象写入 SSE 通道。JFR 录制开启时发出 {@link FlightEvents.SseEventSent}，记录负载字节数与
+     * 序列化耗时；未录制时不额外取时钟。
      *
      * @param handle  任务上下文
      * @param payload 需要下发的事件内容
      * @throws IOException 写入失败时抛出
      */
     private void sendEvent(TaskHandle handle, Object payload) throws IOException {
+        FlightEvents.SseEventSent sent = new FlightEvents.SseEventSent();
+        boolean recording = sent.isEnabled();
+        sent.begin();
         try {
+            long serializeStarted = recording ? System.nanoTime() : 0;
             String json = objectMapper.writeValueAsString(
                     com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentRpcResponse.success(
                             handle.requestId, payload));
+            long serializeTime = recording ? System.nanoTime() - serializeStarted : 0;
             handle.emitter.send(SseEmitter.event()
                     .data(json, MediaType.APPLICATION_JSON)
                     .reconnectTime(0));
+            long now = System.nanoTime();
+            long last = handle.lastEventNanos;
+            if (last == 0) {
+                firstEvent.record(now - handle.startedNanos, TimeUnit.NANOSECONDS);
+            } else {
+                eventGap.record(now - last, TimeUnit.NANOSECONDS);
+            }
+            handle.lastEventNanos = now;
+            sent.end();
+            if (sent.shouldCommit()) {
+                sent.taskId = handle.taskId;
+                sent.requestId = handle.requestId;
+                sent.kind = payload instanceof TaskStatusUpdateEvent ? "status-update"
+                        : payload instanceof TaskArtifactUpdateEvent ? "artifact-update"
+                        : payload.getClass().getSimpleName();
+                sent.bytes = Utf8.length(json);
+                sent.serializeTime = serializeTime;
+                sent.commit();
+            }
         } catch (JsonProcessingException e) {
             throw new IOException("Failed to serialise event", e);
         }
     }
 
+    /**
+     * 流结束时记录总耗时（只记录第一次结束）并关闭流接管的资源。
+     *
+     * @param handle  任务上下文
+     * @param outcome 结束方式：completed、canceled、failed 或 error
+     */
+    private void ended(TaskHandle handle, String outcome) {
+        if (handle.ended.compareAndSet(false, true)) {
+            durations.get(outcome).record(System.nanoTime() - handle.startedNanos, TimeUnit.NANOSECONDS);
+        }
+        release(handle);
+    }
+
+    /**
+     * 描述一个文件部件：内联内容给出大小（内容在流结束前都可通过 {@code openStream} 读取），
+     * 引用只给出 URI，服务端不主动拉取。
+     *
+     * @param file 文件部件
+     * @return 描述文本
+     */
+    private static String describeFile(AgentFilePart file) {
+        StringBuilder sb = new StringBuilder("file=");
+        sb.append(file.name == null ? "unnamed" : file.name);
+        if (file.mimeType != null) {
+            sb.append(" (").append(file.mimeType).append(')');
+        }
+        if (file.bytes != null) {
+            sb.append(", bytes=").append(file.bytes.size());
+        }
+        if (file.uri != null) {
+            sb.append(", uri=").append(file.uri);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 关闭流接管的资源，只执行一次。
+     *
+     * @param handle 任务上下文
+     */
+    private void release(TaskHandle handle) {
+        AutoCloseable resources = handle.resources.getAndSet(null);
+        if (resources == null) {
+            return;
+        }
+        try {
+            resources.close();
+        } catch (Exception ex) {
+            log.warn("Failed to release resources of stream {}", handle.taskId, ex);
+        }
+    }
+
     /**
      * 控制流式事件之间的延迟，模拟真实耗时。
      */
@@ -281,6 +459,13 @@ public class StreamingTaskService {
         if (userQuery != null && !userQuery.isBlank()) {
             parts.add("query=\"" + userQuery + "\"");
         }
+        if (params != null && params.message != null && params.message.parts != null) {
+            for (AgentMessagePart part : params.message.parts) {
+                if (part != null && part.file != null) {
+                    parts.add(describeFile(part.file));
+                }
+            }
+        }
         if (parts.isEmpty()) {
             return "处理中";
         }
@@ -297,6 +482,86 @@ public class StreamingTaskService {
         return value == null ? "<空>" : value;
     }
 
+    /**
+     * 把技能的流式片段转发为同一产物上的 {@code artifact-update} 事件（均为 {@code append=true}，
+     * 首块是开始执行前的“正在分析请求”）。
+     * <p>
+     * 推理片段到达即发送；正文片段滞后一块发送，这样技能结束时仍持有的最后一块正文可以带上
+     * {@code lastChunk=true} 与终止标记，而无需额外发送空事件。第一块正文前拼接任务摘要，
+     * 与非流式时的最终产物保持一致。任务已取消时丢弃后续片段。
+     */
+    private final class ArtifactStream implements AgentStreamSink {
+        private final TaskHandle handle;
+        private String heldText;
+        private boolean textSeen;
+
+        /**
+         * 绑定任务上下文。
+         *
+         * @param handle 任务上下文
+         */
+        ArtifactStream(TaskHandle handle) {
+            this.handle = handle;
+        }
+
+        /**
+         * 先发出滞留的正文以保持顺序，再立即发送推理片段。
+         *
+         * @param chunk 推理片段
+         */
+        @Override
+        public void reasoning(String chunk) {
+            flushHeldText();
+            send(null, chunk, false);
+        }
+
+        /**
+         * 发出上一块正文并滞留当前块。
+         *
+         * @param chunk 正文片段
+         */
+        @Override
+        public void text(String chunk) {
+            flushHeldText();
+            heldText = textSeen ? chunk : handle.summary + "\n" + chunk;
+            textSeen = true;
+        }
+
+        /**
+         * 技能结束后以最后一块正文收尾；技能未产出正文时以任务摘要收尾。
+         */
+        void finish() {
+            String last = heldText != null ? heldText : textSeen ? "" : handle.summary;
+            heldText = null;
+            send(last, null, true);
+        }
+
+        /**
+         * 把滞留的正文作为非最后一块发出。
+         */
+        private void flushHeldText() {
+            if (heldText != null) {
+                String text = heldText;
+                heldText = null;
+                send(text, null, false);
+            }
+        }
+
+        /**
+         * 发送一个追加片段，最后一块同时作为终止事件。
+         */
+        private void send(String text, String reasoningText, boolean lastChunk) {
+            if (handle.canceled.get()) {
+                return;
+            }
+            try {
+                sendArtifact(handle, "text", text, reasoningText, true, lastChunk, lastChunk);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
     /**
      * 内部任务状态载体，持有 SSE 通道和取消标志。
      */
@@ -306,8 +571,13 @@ public class StreamingTaskService {
         final MessageStreamParams params;
         final String summary;
         final SseEmitter emitter;
+        final Deadline deadline;
         final AtomicBoolean canceled = new AtomicBoolean(false);
         final AtomicBoolean completed = new AtomicBoolean(false);
+        final AtomicBoolean ended = new AtomicBoolean(false);
+        final AtomicReference<AutoCloseable> resources = new AtomicReference<>();
+        final long startedNanos = System.nanoTime();
+        volatile long lastEventNanos;
 
         /**
          * 记录任务基础信息。
@@ -317,13 +587,23 @@ public class StreamingTaskService {
          * @param params   客户端传入的流式参数
          * @param summary  任务摘要
          * @param emitter  SSE 通道
+         * @param deadline 请求截止时间，可为 {@code null}
          */
-        TaskHandle(String taskId, String requestId, MessageStreamParams params, String summary, SseEmitter emitter) {
+        TaskHandle(String taskId, String requestId, MessageStreamParams params, String summary, SseEmitter emitter,
+                   Deadline deadline) {
             this.taskId = taskId;
             this.requestId = requestId;
             this.params = params;
             this.summary = Objects.requireNonNullElse(summary, "任务总结");
             this.emitter = emitter;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 截止时间是否已过。
+         */
+        boolean isExpired() {
+            return deadline != null && deadline.isExpired();
         }
     }
 }
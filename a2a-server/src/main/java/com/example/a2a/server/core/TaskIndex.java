@@ -0,0 +1,174 @@
+package com.example.a2a.server.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务的有序二级索引，支撑 {@code task_list} 的分页扫描。
+ * <p>
+ * 所有任务按 {@code (创建时间, 序号)} 存入一张跳表，另按状态各维护一张同键跳表；状态迁移时从旧状态表
+ * 移到新状态表。分页从新到旧遍历对应跳表的逆序视图，时间范围直接换算成跳表的键区间，游标是上一页最后
+ * 一个键的编码，下一页从该键之后继续，因此单页开销只与页大小和 {@code log n} 有关，与任务总数无关。
+ * <p>
+ * 同一任务的迁移只由其执行线程发起，状态表之间的移动不是原子的：并发读取可能短暂看不到正在迁移的任务，
+ * 返回前按任务的当前状态再过滤一次，保证结果与筛选条件一致。
+ */
+final class TaskIndex {
+
+    private static final String CURSOR_PREFIX = "t1:";
+
+    private final ConcurrentSkipListMap<Key, TaskService.TaskData> byCreation = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Key, TaskService.TaskData>> byState = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 索引键：创建时间相同的任务按提交序号排序。
+     */
+    record Key(long createdAt, long seq) implements Comparable<Key> {
+
+        /**
+         * 先比较创建时间，再比较序号。
+         */
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * 一页查询结果。
+     *
+     * @param tasks      按创建时间从新到旧排列的任务
+     * @param nextCursor 下一页游标，没有更多结果时为 {@code null}
+     */
+    record Page(List<TaskService.TaskData> tasks, String nextCursor) {
+    }
+
+    /**
+     * 为新任务分配索引键并按当前状态加入索引。
+     *
+     * @param data 新任务，{@code createdAt} 与 {@code state} 已赋值
+     */
+    void add(TaskService.TaskData data) {
+        data.indexKey = new Key(data.createdAt, sequence.incrementAndGet());
+        byCreation.put(data.indexKey, data);
+        stateMap(data.state).put(data.indexKey, data);
+    }
+
+    /**
+     * 任务状态已从 {@code previous} 变为当前值后，把任务移到新状态表。
+     *
+     * @param data     任务
+     * @param previous 迁移前的状态
+     */
+    void moved(TaskService.TaskData data, String previous) {
+        if (previous.equals(data.state)) {
+            return;
+        }
+        stateMap(data.state).put(data.indexKey, data);
+        ConcurrentSkipListMap<Key, TaskService.TaskData> old = byState.get(previous);
+        if (old != null) {
+            old.remove(data.indexKey);
+        }
+    }
+
+    /**
+     * 按条件分页列出任务。
+     *
+     * @param state       状态筛选，为 {@code null} 时不限
+     * @param createdFrom 创建时间下界（含，毫秒时间戳），为 {@code null} 时不限
+     * @param createdTo   创建时间上界（不含，毫秒时间戳），为 {@code null} 时不限
+     * @param cursor      上一页返回的游标，为 {@code null} 时从最新的任务开始
+     * @param limit       页大小，调用方负责限制范围
+     * @return 一页结果
+     * @throws IllegalArgumentException 游标无法解析
+     */
+    Page list(String state, Long createdFrom, Long createdTo, String cursor, int limit) {
+        NavigableMap<Key, TaskService.TaskData> source = state == null ? byCreation : byState.get(state);
+        if (source == null) {
+            return new Page(List.of(), null);
+        }
+        // 游标与 createdTo 都是不含的上界，取较小者；下界超过上界时（含游标越出时间窗口）直接返回空页，
+        // 避免子视图在越界键上抛出 IllegalArgumentException。
+        Key lower = createdFrom == null ? null : new Key(createdFrom, Long.MIN_VALUE);
+        Key upper = createdTo == null ? null : new Key(createdTo, Long.MIN_VALUE);
+        if (cursor != null) {
+            Key after = decodeCursor(cursor);
+            if (upper == null || after.compareTo(upper) < 0) {
+                upper = after;
+            }
+        }
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+            return new Page(List.of(), null);
+        }
+        if (lower != null) {
+            source = source.tailMap(lower, true);
+        }
+        if (upper != null) {
+            source = source.headMap(upper, false);
+        }
+        List<TaskService.TaskData> tasks = new ArrayList<>(Math.min(limit, 64));
+        Key last = null;
+        boolean more = false;
+        for (Map.Entry<Key, TaskService.TaskData> entry : source.descendingMap().entrySet()) {
+            TaskService.TaskData data = entry.getValue();
+            if (state != null && !state.equals(data.state)) {
+                continue;
+            }
+            if (tasks.size() == limit) {
+                more = true;
+                break;
+            }
+            tasks.add(data);
+            last = entry.getKey();
+        }
+        return new Page(tasks, more ? encodeCursor(last) : null);
+    }
+
+    /**
+     * 索引中的任务数。
+     */
+    int size() {
+        return byCreation.size();
+    }
+
+    /**
+     * 返回状态对应的跳表，不存在时创建。
+     */
+    private ConcurrentSkipListMap<Key, TaskService.TaskData> stateMap(String state) {
+        return byState.computeIfAbsent(state, ignored -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * 把键编码为不透明游标。
+     */
+    static String encodeCursor(Key key) {
+        String raw = CURSOR_PREFIX + key.createdAt() + ":" + key.seq();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析游标。
+     */
+    static Key decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+            int split = raw.indexOf(':', CURSOR_PREFIX.length());
+            return new Key(Long.parseLong(raw.substring(CURSOR_PREFIX.length(), split)),
+                    Long.parseLong(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
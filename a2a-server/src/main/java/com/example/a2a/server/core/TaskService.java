@@ -1,17 +1,27 @@
 package com.example.a2a.server.core;
 
-import com.example.a2a.server.agent.WeatherAgent;
+import com.example.a2a.server.agent.Deadline;
+import com.example.a2a.server.agent.SkillRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 基于内存的数据结构实现的轻量任务编排器，复用示例 {@link WeatherAgent} 来模拟任务生命周期。
+ * 基于内存的数据结构实现的轻量任务编排器，通过 {@link SkillRegistry} 把任务路由到对应技能来模拟任务生命周期。
  * 主要用于 JSON-RPC 演示，和 HarmonyOS 流式实现相互独立，便于替换为真实的异步任务引擎。
+ * <p>
+ * 已提交未开始执行的任务数通过 {@code a2a.task.queued} 暴露，从提交到执行线程接手的等待时间记入
+ * {@code a2a.task.queue.wait}。提交、开始与结束同时发出 {@link FlightEvents} 中的 JFR 事件。
  */
 @Service
 public class TaskService {
@@ -22,68 +32,234 @@ public class TaskService {
     public static class TaskData {
         public String taskId;
         public volatile String state; // 可取值：SUBMITTED、RUNNING、COMPLETED、FAILED、CANCELED
+        public String skillId; // 为 null 时使用默认技能
         public String inputText;
+        public Deadline deadline; // 为 null 时只受技能超时约束
         public String resultText; // 简化为文本，返回时再包装为 JSON-RPC Message/Part 结构
         public volatile boolean cancelRequested;
+        public String pushUrl; // 为 null 时不回调
+        public String pushToken; // 回调时放入 X-A2A-Notification-Token 请求头
+        public long createdAt; // 提交时间，毫秒时间戳
+        TaskIndex.Key indexKey;
+        long submittedNanos;
+    }
+
+    /**
+     * {@code task_list} 未指定页大小时的默认值。
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * {@code task_list} 单页最多返回的任务数。
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * 一页任务列表。
+     */
+    public static class TaskPage {
+        public final List<TaskData> tasks;
+        public final String nextCursor; // 没有更多结果时为 null
+
+        /**
+         * 创建一页结果。
+         *
+         * @param tasks      本页任务
+         * @param nextCursor 下一页游标
+         */
+        public TaskPage(List<TaskData> tasks, String nextCursor) {
+            this.tasks = tasks;
+            this.nextCursor = nextCursor;
+        }
     }
 
     private final Map<String, TaskData> tasks = new ConcurrentHashMap<>();
+    private final TaskIndex index = new TaskIndex();
     private final ExecutorService executor = Executors.newCachedThreadPool();
-    private final WeatherAgent weatherAgent;
+    private final SkillRegistry skillRegistry;
+    private final PushNotificationDispatcher pushNotifications;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer queueWait;
+
+    /**
+     * 注入技能注册中心与任务完成回调分发器，并注册排队指标。
+     *
+     * @param skillRegistry     技能注册中心
+     * @param pushNotifications 任务完成回调分发器
+     * @param meterRegistry     指标注册表
+     */
+    public TaskService(SkillRegistry skillRegistry, PushNotificationDispatcher pushNotifications,
+                       MeterRegistry meterRegistry) {
+        this.skillRegistry = skillRegistry;
+        this.pushNotifications = pushNotifications;
+        Gauge.builder("a2a.task.queued", queued, AtomicInteger::get)
+                .description("Tasks submitted but not yet picked up by an executor thread")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("a2a.task.queue.wait")
+                .description("Time from task submission until an executor thread starts it")
+                .register(meterRegistry);
+    }
 
     /**
-     * 注入示例天气 Agent。
+     * 使用默认技能提交任务。
      *
-     * @param weatherAgent 天气查询实现
+     * @param text 用户输入
+     * @return 新建的任务
      */
-    public TaskService(WeatherAgent weatherAgent) {
-        this.weatherAgent = weatherAgent;
+    public TaskData submit(String text) {
+        return submit(null, text);
     }
 
     /**
      * 接收到 JSON-RPC 的 `task_submit` 请求后进入此流程：创建任务、异步执行并持续更新
      * 任务状态。真实业务可在此触发华为侧工作流或自定义线程池。
+     *
+     * @param skillId 目标技能 ID，为 {@code null} 时使用默认技能
+     * @param text    用户输入
+     * @return 新建的任务
      */
-    public TaskData submit(String text) {
+    public TaskData submit(String skillId, String text) {
+        return submit(skillId, text, null);
+    }
+
+    /**
+     * 提交受截止时间约束的任务：开始执行前或模拟处理后截止时间已过的任务直接标记为 FAILED，
+     * 不再调用技能；截止时间同时传入技能调用。
+     *
+     * @param skillId  目标技能 ID，为 {@code null} 时使用默认技能
+     * @param text     用户输入
+     * @param deadline 请求截止时间，为 {@code null} 时不限制
+     * @return 新建的任务
+     */
+    public TaskData submit(String skillId, String text, Deadline deadline) {
+        return submit(skillId, text, deadline, null, null);
+    }
+
+    /**
+     * 提交任务并登记完成回调：任务进入 COMPLETED、FAILED 或 CANCELED 后，由
+     * {@link PushNotificationDispatcher} 向 {@code pushUrl} POST 任务结果。
+     *
+     * @param skillId   目标技能 ID，为 {@code null} 时使用默认技能
+     * @param text      用户输入
+     * @param deadline  请求截止时间，为 {@code null} 时不限制
+     * @param pushUrl   回调地址，为 {@code null} 时不回调
+     * @param pushToken 回调令牌，可为 {@code null}
+     * @return 新建的任务
+     * @throws IllegalArgumentException 回调地址不是合法的 http/https 地址，或指向不允许的主机
+     */
+    public TaskData submit(String skillId, String text, Deadline deadline, String pushUrl, String pushToken) {
+        if (pushUrl != null) {
+            pushNotifications.validate(pushUrl);
+        }
         TaskData data = new TaskData();
         data.taskId = UUID.randomUUID().toString();
+        data.skillId = skillId;
         data.inputText = text;
+        data.deadline = deadline;
+        data.pushUrl = pushUrl;
+        data.pushToken = pushToken;
         data.state = "SUBMITTED";
+        data.createdAt = System.currentTimeMillis();
         tasks.put(data.taskId, data);
+        index.add(data);
 
+        queued.incrementAndGet();
+        data.submittedNanos = System.nanoTime();
+        FlightEvents.TaskSubmitted submitted = new FlightEvents.TaskSubmitted();
+        if (submitted.shouldCommit()) {
+            submitted.taskId = data.taskId;
+            submitted.skillId = skillId;
+            submitted.push = pushUrl != null;
+            submitted.commit();
+        }
         executor.submit(() -> runTask(data));
         return data;
     }
 
     /**
-     * 后台线程执行任务：模拟耗时、检查取消标记并生成结果。
+     * 后台线程执行任务，任务进入终态后登记完成回调。
      *
      * @param data 当前任务数据
      */
     private void runTask(TaskData data) {
+        queued.decrementAndGet();
+        long waited = System.nanoTime() - data.submittedNanos;
+        queueWait.record(waited, TimeUnit.NANOSECONDS);
+        FlightEvents.TaskStarted started = new FlightEvents.TaskStarted();
+        if (started.shouldCommit()) {
+            started.taskId = data.taskId;
+            started.queueWait = waited;
+            started.commit();
+        }
+        FlightEvents.TaskFinished finished = new FlightEvents.TaskFinished();
+        finished.begin();
+        try {
+            execute(data);
+        } finally {
+            finished.end();
+            if (finished.shouldCommit()) {
+                finished.taskId = data.taskId;
+                finished.skillId = data.skillId;
+                finished.state = data.state;
+                finished.commit();
+            }
+            pushNotifications.notifyTerminal(data);
+        }
+    }
+
+    /**
+     * 模拟耗时、检查取消标记与截止时间并生成结果，返回时任务已处于终态。
+     *
+     * @param data 当前任务数据
+     */
+    private void execute(TaskData data) {
         if (data.cancelRequested) {
-            data.state = "CANCELED";
+            transition(data, "CANCELED");
             return;
         }
-        data.state = "RUNNING";
+        if (isExpired(data)) {
+            transition(data, "FAILED");
+            return;
+        }
+        transition(data, "RUNNING");
         try {
             // 模拟处理时间
             Thread.sleep(300);
             if (data.cancelRequested) {
-                data.state = "CANCELED";
+                transition(data, "CANCELED");
+                return;
+            }
+            if (isExpired(data)) {
+                transition(data, "FAILED");
                 return;
             }
-            String result = weatherAgent.search(data.inputText);
+            String result = skillRegistry.execute(data.skillId, data.inputText, data.deadline);
             data.resultText = result;
-            data.state = "COMPLETED";
+            transition(data, "COMPLETED");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            data.state = "FAILED";
+            transition(data, "FAILED");
         } catch (Exception e) {
-            data.state = "FAILED";
+            transition(data, "FAILED");
         }
     }
 
+    /**
+     * 更新任务状态并同步状态索引。同一任务只由其执行线程迁移。
+     */
+    private void transition(TaskData data, String state) {
+        String previous = data.state;
+        data.state = state;
+        index.moved(data, previous);
+    }
+
+    /**
+     * 任务的截止时间是否已过。
+     */
+    private static boolean isExpired(TaskData data) {
+        return data.deadline != null && data.deadline.isExpired();
+    }
+
     /**
      * 根据任务标识获取最新的任务状态。
      *
@@ -94,6 +270,27 @@ public class TaskService {
         return tasks.get(taskId);
     }
 
+    /**
+     * 处理 `task_list`：按创建时间从新到旧分页列出任务，可按状态与创建时间区间筛选。扫描走有序索引，
+     * 单页开销只与页大小相关；页大小超出 {@link #MAX_PAGE_SIZE} 时按上限处理。
+     *
+     * @param state       状态筛选，为 {@code null} 时不限
+     * @param createdFrom 创建时间下界（含，毫秒时间戳），可为 {@code null}
+     * @param createdTo   创建时间上界（不含，毫秒时间戳），可为 {@code null}
+     * @param cursor      上一页返回的游标，为 {@code null} 时从第一页开始
+     * @param limit       页大小，为 {@code null} 时使用 {@link #DEFAULT_PAGE_SIZE}
+     * @return 一页任务
+     * @throws IllegalArgumentException 页大小不是正数或游标无效
+     */
+    public TaskPage list(String state, Long createdFrom, Long createdTo, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        TaskIndex.Page page = index.list(state, createdFrom, createdTo, cursor, Math.min(pageSize, MAX_PAGE_SIZE));
+        return new TaskPage(page.tasks(), page.nextCursor());
+    }
+
     /**
      * 支持通过 `task_cancel` 请求标记任务取消。HarmonyOS 流程不会调用该接口，可视实际
      * 场景决定是否保留。
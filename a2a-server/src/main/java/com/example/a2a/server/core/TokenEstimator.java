@@ -0,0 +1,53 @@
+package com.example.a2a.server.core;
+
+/**
+ * 估算一段文本占用的模型 token 数。会话上下文在追加消息时调用一次并把结果累加进前缀和，
+ * 之后按 token 预算截取窗口时不再重新分词。
+ */
+@FunctionalInterface
+public interface TokenEstimator {
+
+    /**
+     * 默认的启发式估算：连续的 ASCII 字母数字按每 4 个字符 1 个 token 向上取整，其余每个非空白码点
+     * （ASCII 标点以及包括 CJK、假名、谚文在内的所有非 ASCII 字符，代理对按一个码点）计 1 个 token，
+     * 空白不计。不区分文字系统，西里尔、带变音符的拉丁字母等也按每字符 1 个计，对这类文本会偏高。
+     * 单次线性扫描，不分配对象。
+     */
+    TokenEstimator HEURISTIC = TokenEstimator::heuristic;
+
+    /**
+     * 估算文本的 token 数。
+     *
+     * @param text 文本
+     * @return token 数，不小于 0
+     */
+    int estimate(String text);
+
+    /**
+     * {@link #HEURISTIC} 的实现。
+     *
+     * @param text 文本
+     * @return token 数
+     */
+    private static int heuristic(String text) {
+        int tokens = 0;
+        int run = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80 && Character.isLetterOrDigit(c)) {
+                run++;
+                continue;
+            }
+            tokens += (run + 3) >>> 2;
+            run = 0;
+            if (Character.isLowSurrogate(c) && i > 0 && Character.isHighSurrogate(text.charAt(i - 1))) {
+                continue;
+            }
+            if (!Character.isWhitespace(c)) {
+                tokens++;
+            }
+        }
+        return tokens + ((run + 3) >>> 2);
+    }
+}
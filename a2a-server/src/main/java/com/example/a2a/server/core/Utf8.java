@@ -0,0 +1,73 @@
+package com.example.a2a.server.core;
+
+/**
+ * 不经过 {@link java.nio.charset.CharsetEncoder} 的 UTF-8 长度计算与编码，会话上下文的 arena 写入与流式事件的
+ * 字节统计共用同一套规则：不成对的代理字符按 U+FFFD 计 3 字节。
+ */
+final class Utf8 {
+
+    /**
+     * 工具类不需要实例化。
+     */
+    private Utf8() {
+    }
+
+    /**
+     * 计算字符串的 UTF-8 编码长度而不实际编码。
+     *
+     * @param text 文本
+     * @return 字节数
+     */
+    static int length(String text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                bytes += 2;
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    // 代理对共占 4 字节，两个 char 已各计 1 字节。
+                    i++;
+                }
+            } else if (c >= 0x80) {
+                bytes += 1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 把字符串按 UTF-8 写入目标数组，长度与 {@link #length(String)} 一致；不成对的代理字符
+     * 写为 U+FFFD。
+     *
+     * @param text   文本
+     * @param dst    目标数组
+     * @param offset 起始偏移
+     * @return 写入后的偏移
+     */
+    static int encode(String text, byte[] dst, int offset) {
+        int length = text.length();
+        int pos = offset;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                dst[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[pos++] = (byte) (0xC0 | (c >> 6));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                dst[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                dst[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                dst[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                char unit = Character.isSurrogate(c) ? '\uFFFD' : c;
+                dst[pos++] = (byte) (0xE0 | (unit >> 12));
+                dst[pos++] = (byte) (0x80 | ((unit >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (unit & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.a2a.server.core.snapshot;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录自上次快照以来发生变化的键，供增量快照只写出改动部分。未激活时 {@link #mark(String)}
+ * 直接返回，避免关闭快照功能时集合无限增长。
+ * <p>
+ * 调用方必须先修改存储再调用 {@link #mark(String)}：{@link #drain()} 在读取值之前先移除键，
+ * 因此之后的任何修改都会重新标记并进入下一次增量。
+ */
+public class DirtyKeyTracker {
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean active;
+
+    /**
+     * 开始记录变更，通常在启动恢复完成后由 {@link SnapshotManager} 调用。
+     */
+    public void activate() {
+        active = true;
+    }
+
+    /**
+     * 标记某个键已变化。
+     *
+     * @param key 发生变化的键
+     */
+    public void mark(String key) {
+        if (active && key != null) {
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * 逐个移除并返回当前累计的脏键。
+     *
+     * @return 自上次调用以来变化过的键
+     */
+    public List<String> drain() {
+        List<String> drained = new ArrayList<>();
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
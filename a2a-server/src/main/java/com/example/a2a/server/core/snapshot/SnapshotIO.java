@@ -0,0 +1,77 @@
+package com.example.a2a.server.core.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * 快照编解码的辅助方法，统一字符串与时间戳的二进制格式，避免 {@link DataOutput#writeUTF(String)}
+ * 的 64KB 长度限制。
+ */
+public final class SnapshotIO {
+
+    /**
+     * 工具类不需要实例化。
+     */
+    private SnapshotIO() {
+    }
+
+    /**
+     * 写出可为空的 UTF-8 字符串，长度为 -1 表示 {@code null}。
+     *
+     * @param out   输出流
+     * @param value 字符串
+     * @throws IOException 写入失败
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取 {@link #writeString(DataOutput, String)} 写出的字符串。
+     *
+     * @param in 输入流
+     * @return 字符串，可能为 {@code null}
+     * @throws IOException 读取失败
+     */
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以毫秒精度写出时间戳，{@code null} 使用 {@link Long#MIN_VALUE} 表示。
+     *
+     * @param out     输出流
+     * @param instant 时间戳
+     * @throws IOException 写入失败
+     */
+    public static void writeInstant(DataOutput out, Instant instant) throws IOException {
+        out.writeLong(instant == null ? Long.MIN_VALUE : instant.toEpochMilli());
+    }
+
+    /**
+     * 读取 {@link #writeInstant(DataOutput, Instant)} 写出的时间戳。
+     *
+     * @param in 输入流
+     * @return 时间戳，可能为 {@code null}
+     * @throws IOException 读取失败
+     */
+    public static Instant readInstant(DataInput in) throws IOException {
+        long millis = in.readLong();
+        return millis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(millis);
+    }
+}
@@ -0,0 +1,611 @@
+package com.example.a2a.server.core.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 负责会话类内存存储的本地快照：运行期按固定间隔写出增量文件，累计到阈值后改写分片全量快照；
+ * 启动时用线程池并行加载全量分片，再按顺序回放增量。
+ * <p>
+ * 作为 {@link SmartLifecycle} 在最早阶段启动、最晚阶段停止，因此恢复完成前内嵌 Web 容器尚未启动，
+ * 就绪探针也不会上报可用；停机时 Web 容器关闭后再写出最后一次增量。
+ * <p>
+ * 磁盘布局：每个参与者一个子目录，包含 {@code MANIFEST}、{@code full-<seq>-<shard>.bin} 与
+ * {@code delta-<seq>.bin}。所有文件先写临时文件再原子改名，MANIFEST 最后更新，保证崩溃时只会
+ * 看到完整的快照集合。
+ * <p>
+ * 文件头依次为魔数、文件版本、参与者名称与参与者的 {@link SnapshotParticipant#formatVersion() 值格式版本}。
+ * 版本 1 的文件没有值格式版本，按格式 1 交给参与者迁移；更高或未知的文件版本整体跳过。
+ */
+@Component
+public class SnapshotManager implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotManager.class);
+
+    private static final int MAGIC = 0x41325353;
+    private static final int VERSION = 2;
+    private static final int LEGACY_VERSION = 1;
+    private static final byte OP_END = 0;
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final String MANIFEST = "MANIFEST";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SnapshotProperties properties;
+    private final List<SnapshotParticipant<?>> participants;
+    private final Map<String, Manifest> manifests = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    /**
+     * 注入配置与所有快照参与者。
+     *
+     * @param properties   快照配置
+     * @param participants 需要持久化的内存存储
+     */
+    public SnapshotManager(SnapshotProperties properties, List<SnapshotParticipant<?>> participants) {
+        this.properties = properties;
+        this.participants = List.copyOf(participants);
+    }
+
+    /**
+     * 启动时先恢复快照，再激活脏键跟踪并开始周期写出。
+     */
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            SnapshotStats restored = restore();
+            log.info("Restored {} snapshot entries ({} bytes) in {} ms",
+                    restored.entries, restored.bytes, restored.elapsed.toMillis());
+            participants.forEach(participant -> participant.dirtyKeys().activate());
+
+            long intervalMillis = Math.max(1L, properties.getInterval().toMillis());
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "a2a-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    /**
+     * 停止周期任务并写出最后一次快照。
+     */
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotQuietly();
+            scheduler = null;
+        }
+        running = false;
+    }
+
+    /**
+     * 判断生命周期是否已启动。
+     *
+     * @return {@code true} 表示已启动
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 使用最小的阶段值，保证先于 Web 容器启动、晚于 Web 容器停止。
+     *
+     * @return 生命周期阶段
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * 从磁盘恢复全部参与者：全量分片并行加载，各参与者的增量在其全量完成后顺序回放。
+     *
+     * @return 恢复的记录数、字节数与耗时
+     */
+    public SnapshotStats restore() {
+        long started = System.nanoTime();
+        AtomicLong entries = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        ExecutorService loader = Executors.newFixedThreadPool(Math.max(1, properties.getLoaderThreads()));
+        try {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (SnapshotParticipant<?> participant : participants) {
+                Path dir = directoryOf(participant);
+                Manifest manifest = Manifest.read(dir);
+                manifests.put(participant.snapshotName(), manifest);
+                if (manifest.fullSeq < 0) {
+                    continue;
+                }
+                List<CompletableFuture<Void>> shards = new ArrayList<>();
+                for (int shard = 0; shard < manifest.shards; shard++) {
+                    Path file = dir.resolve(fullFileName(manifest.fullSeq, shard));
+                    shards.add(CompletableFuture.runAsync(
+                            () -> loadSegment(participant, file, entries, bytes), loader));
+                }
+                pending.add(CompletableFuture.allOf(shards.toArray(new CompletableFuture[0]))
+                        .thenRunAsync(() -> manifest.deltas.forEach(seq ->
+                                loadSegment(participant, dir.resolve(deltaFileName(seq)), entries, bytes)), loader));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } finally {
+            loader.shutdown();
+        }
+        return new SnapshotStats(entries.get(), bytes.get(), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * 立即为所有参与者写出一次快照：首次或增量过多时写全量，否则写增量。
+     *
+     * @return 写出的记录数、字节数与耗时
+     * @throws IOException 写入失败
+     */
+    public synchronized SnapshotStats snapshotNow() throws IOException {
+        long started = System.nanoTime();
+        long entries = 0;
+        long bytes = 0;
+        for (SnapshotParticipant<?> participant : participants) {
+            Path dir = directoryOf(participant);
+            Files.createDirectories(dir);
+            Manifest manifest = manifests.computeIfAbsent(participant.snapshotName(), name -> Manifest.read(dir));
+            SnapshotStats stats = manifest.fullSeq < 0 || manifest.deltas.size() >= properties.getMaxDeltas()
+                    ? writeFull(participant, dir, manifest)
+                    : writeDelta(participant, dir, manifest);
+            entries += stats.entries;
+            bytes += stats.bytes;
+        }
+        return new SnapshotStats(entries, bytes, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * 周期任务入口，吞掉异常避免调度线程终止。
+     */
+    private void snapshotQuietly() {
+        try {
+            snapshotNow();
+        } catch (Exception ex) {
+            log.warn("Failed to write snapshot", ex);
+        }
+    }
+
+    /**
+     * 写出分片全量快照并清理旧文件。
+     *
+     * @param participant 参与者
+     * @param dir         参与者目录
+     * @param manifest    当前清单
+     * @return 写出统计
+     * @throws IOException 写入失败
+     */
+    private <V> SnapshotStats writeFull(SnapshotParticipant<V> participant, Path dir, Manifest manifest)
+            throws IOException {
+        long started = System.nanoTime();
+        long seq = manifest.lastSeq() + 1;
+        int shards = Math.max(1, properties.getShards());
+        // 全量覆盖当前状态；遍历期间的修改会重新标记，进入下一次增量。
+        participant.dirtyKeys().drain();
+
+        SegmentWriter[] writers = new SegmentWriter[shards];
+        long entries;
+        long bytes = 0;
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                writers[shard] = new SegmentWriter(dir.resolve(fullFileName(seq, shard)), participant);
+            }
+            AtomicLong counter = new AtomicLong();
+            participant.forEachEntry((key, value) -> {
+                try {
+                    writers[Math.floorMod(key.hashCode(), shards)].upsert(participant, key, value);
+                    counter.incrementAndGet();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            entries = counter.get();
+            for (SegmentWriter writer : writers) {
+                bytes += writer.commit();
+            }
+        } catch (UncheckedIOException ex) {
+            abortAll(writers);
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            abortAll(writers);
+            throw ex;
+        }
+
+        Manifest next = new Manifest(seq, shards, List.of());
+        next.write(dir);
+        manifests.put(participant.snapshotName(), next);
+        deleteObsolete(dir, next);
+        return new SnapshotStats(entries, bytes, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * 只写出自上次快照以来变化过的键，已删除的键写删除记录。
+     *
+     * @param participant 参与者
+     * @param dir         参与者目录
+     * @param manifest    当前清单
+     * @return 写出统计
+     * @throws IOException 写入失败
+     */
+    private <V> SnapshotStats writeDelta(SnapshotParticipant<V> participant, Path dir, Manifest manifest)
+            throws IOException {
+        long started = System.nanoTime();
+        List<String> keys = participant.dirtyKeys().drain();
+        if (keys.isEmpty()) {
+            return new SnapshotStats(0, 0, Duration.ZERO);
+        }
+        long seq = manifest.lastSeq() + 1;
+        SegmentWriter writer = new SegmentWriter(dir.resolve(deltaFileName(seq)), participant);
+        long bytes;
+        try {
+            for (String key : keys) {
+                V value = participant.snapshotValue(key);
+                if (value == null) {
+                    writer.delete(key);
+                } else {
+                    writer.upsert(participant, key, value);
+                }
+            }
+            bytes = writer.commit();
+        } catch (IOException | RuntimeException ex) {
+            writer.abort();
+            // 写入失败时把键放回，下一次重试。
+            keys.forEach(participant.dirtyKeys()::mark);
+            throw ex;
+        }
+
+        Manifest next = manifest.withDelta(seq);
+        next.write(dir);
+        manifests.put(participant.snapshotName(), next);
+        return new SnapshotStats(keys.size(), bytes, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * 读取单个快照文件并写回参与者，失败时记录告警并跳过该文件。
+     *
+     * @param participant 参与者
+     * @param file        快照文件
+     * @param entries     恢复记录计数
+     * @param bytes       读取字节计数
+     */
+    private <V> void loadSegment(SnapshotParticipant<V> participant, Path file, AtomicLong entries, AtomicLong bytes) {
+        long count = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected snapshot header");
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != LEGACY_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            if (!participant.snapshotName().equals(SnapshotIO.readString(in))) {
+                throw new IOException("Unexpected snapshot header");
+            }
+            int formatVersion = version == LEGACY_VERSION ? 1 : in.readInt();
+            byte op;
+            while ((op = in.readByte()) != OP_END) {
+                String key = SnapshotIO.readString(in);
+                if (op == OP_UPSERT) {
+                    participant.restoreEntry(key, participant.readValue(key, in, formatVersion));
+                } else if (op == OP_DELETE) {
+                    participant.removeEntry(key);
+                } else {
+                    throw new IOException("Unknown snapshot record type " + op);
+                }
+                count++;
+            }
+            bytes.addAndGet(Files.size(file));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Skipping unreadable snapshot file {} after {} entries", file, count, ex);
+        }
+        entries.addAndGet(count);
+    }
+
+    /**
+     * 删除清单中不再引用的文件。
+     *
+     * @param dir      参与者目录
+     * @param manifest 最新清单
+     * @throws IOException 列目录失败
+     */
+    private void deleteObsolete(Path dir, Manifest manifest) throws IOException {
+        Set<String> live = new HashSet<>();
+        live.add(MANIFEST);
+        for (int shard = 0; shard < manifest.shards; shard++) {
+            live.add(fullFileName(manifest.fullSeq, shard));
+        }
+        manifest.deltas.forEach(seq -> live.add(deltaFileName(seq)));
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!live.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 放弃一组尚未提交的写出器。
+     *
+     * @param writers 写出器，允许包含 {@code null}
+     */
+    private static void abortAll(SegmentWriter[] writers) {
+        for (SegmentWriter writer : writers) {
+            if (writer != null) {
+                writer.abort();
+            }
+        }
+    }
+
+    /**
+     * 计算参与者的快照目录。
+     *
+     * @param participant 参与者
+     * @return 目录路径
+     */
+    private Path directoryOf(SnapshotParticipant<?> participant) {
+        return Paths.get(properties.getDirectory()).resolve(participant.snapshotName());
+    }
+
+    /**
+     * 全量分片文件名。
+     */
+    private static String fullFileName(long seq, int shard) {
+        return "full-" + seq + "-" + shard + ".bin";
+    }
+
+    /**
+     * 增量文件名。
+     */
+    private static String deltaFileName(long seq) {
+        return "delta-" + seq + ".bin";
+    }
+
+    /**
+     * 快照读写的统计结果。
+     */
+    public static class SnapshotStats {
+        public final long entries;
+        public final long bytes;
+        public final Duration elapsed;
+
+        /**
+         * 记录统计值。
+         *
+         * @param entries 记录数
+         * @param bytes   文件字节数
+         * @param elapsed 耗时
+         */
+        public SnapshotStats(long entries, long bytes, Duration elapsed) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.elapsed = elapsed;
+        }
+    }
+
+    /**
+     * 单个快照文件的写出器：先写临时文件，提交时刷盘并原子改名。
+     */
+    private static class SegmentWriter {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+
+        /**
+         * 创建临时文件并写入文件头。
+         *
+         * @param target      目标文件
+         * @param participant 参与者，提供名称与值格式版本
+         * @throws IOException 创建失败
+         */
+        SegmentWriter(Path target, SnapshotParticipant<?> participant) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            SnapshotIO.writeString(out, participant.snapshotName());
+            out.writeInt(participant.formatVersion());
+        }
+
+        /**
+         * 写入一条新增或更新记录。
+         */
+        <V> void upsert(SnapshotParticipant<V> participant, String key, V value) throws IOException {
+            out.writeByte(OP_UPSERT);
+            SnapshotIO.writeString(out, key);
+            participant.writeValue(value, out);
+        }
+
+        /**
+         * 写入一条删除记录。
+         */
+        void delete(String key) throws IOException {
+            out.writeByte(OP_DELETE);
+            SnapshotIO.writeString(out, key);
+        }
+
+        /**
+         * 写入结束标记、刷盘并改名为正式文件。
+         *
+         * @return 文件字节数
+         * @throws IOException 写入失败
+         */
+        long commit() throws IOException {
+            out.writeByte(OP_END);
+            out.flush();
+            channel.force(true);
+            out.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return Files.size(target);
+        }
+
+        /**
+         * 放弃写入并删除临时文件。
+         */
+        void abort() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 快照清单：当前全量序号、分片数及其后的增量序号。
+     */
+    private static final class Manifest {
+        final long fullSeq;
+        final int shards;
+        final List<Long> deltas;
+
+        /**
+         * 记录清单内容。
+         */
+        Manifest(long fullSeq, int shards, List<Long> deltas) {
+            this.fullSeq = fullSeq;
+            this.shards = shards;
+            this.deltas = deltas;
+        }
+
+        /**
+         * 最近一次写出的序号，空清单返回 -1。
+         */
+        long lastSeq() {
+            return deltas.isEmpty() ? fullSeq : deltas.get(deltas.size() - 1);
+        }
+
+        /**
+         * 追加一个增量序号后的新清单。
+         */
+        Manifest withDelta(long seq) {
+            List<Long> next = new ArrayList<>(deltas);
+            next.add(seq);
+            return new Manifest(fullSeq, shards, List.copyOf(next));
+        }
+
+        /**
+         * 读取清单，文件不存在时返回空清单。
+         *
+         * @param dir 参与者目录
+         * @return 清单
+         */
+        static Manifest read(Path dir) {
+            Path file = dir.resolve(MANIFEST);
+            if (!Files.exists(file)) {
+                return new Manifest(-1, 0, List.of());
+            }
+            try {
+                long fullSeq = -1;
+                int shards = 0;
+                List<Long> deltas = new ArrayList<>();
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] fields = line.trim().split(" ");
+                    if ("full".equals(fields[0])) {
+                        fullSeq = Long.parseLong(fields[1]);
+                        shards = Integer.parseInt(fields[2]);
+                    } else if ("delta".equals(fields[0])) {
+                        deltas.add(Long.parseLong(fields[1]));
+                    }
+                }
+                return new Manifest(fullSeq, shards, List.copyOf(deltas));
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Ignoring unreadable snapshot manifest {}", file, ex);
+                return new Manifest(-1, 0, List.of());
+            }
+        }
+
+        /**
+         * 原子且持久地写出清单：临时文件刷盘后改名，再刷写目录，使改名（连同之前的分片改名）在断电后仍然有效。
+         *
+         * @param dir 参与者目录
+         * @throws IOException 写入失败
+         */
+        void write(Path dir) throws IOException {
+            StringBuilder content = new StringBuilder()
+                    .append("full ").append(fullSeq).append(' ').append(shards).append('\n');
+            deltas.forEach(seq -> content.append("delta ").append(seq).append('\n'));
+            Path temp = dir.resolve(MANIFEST + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(content));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(dir);
+        }
+
+        /**
+         * 刷写目录项。部分平台（如 Windows）不能以通道打开目录，此时跳过。
+         */
+        private static void syncDirectory(Path dir) throws IOException {
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(dir, StandardOpenOption.READ);
+            } catch (IOException | UnsupportedOperationException ex) {
+                return;
+            }
+            try (channel) {
+                channel.force(true);
+            }
+        }
+    }
+}
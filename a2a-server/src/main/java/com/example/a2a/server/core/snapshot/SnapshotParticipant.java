@@ -0,0 +1,104 @@
+package com.example.a2a.server.core.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * 可被 {@link SnapshotManager} 持久化的内存存储。实现方以字符串键组织状态，负责单条值的二进制
+ * 编解码，并通过 {@link DirtyKeyTracker} 报告变化过的键以支持增量快照。
+ *
+ * @param <V> 单个键对应的值类型
+ */
+public interface SnapshotParticipant<V> {
+
+    /**
+     * 快照名称，同时作为磁盘子目录名，需保持稳定。
+     *
+     * @return 参与者名称
+     */
+    String snapshotName();
+
+    /**
+     * 返回记录变更键的跟踪器。
+     *
+     * @return 脏键跟踪器
+     */
+    DirtyKeyTracker dirtyKeys();
+
+    /**
+     * 遍历当前全部记录，用于写出全量快照。
+     *
+     * @param action 对每个键值对执行的回调
+     */
+    void forEachEntry(BiConsumer<String, V> action);
+
+    /**
+     * 读取指定键的当前值，用于写出增量快照。
+     *
+     * @param key 键
+     * @return 当前值，已删除返回 {@code null}
+     */
+    V snapshotValue(String key);
+
+    /**
+     * 将单个值写入快照流。
+     *
+     * @param value 需要写出的值
+     * @param out   输出流
+     * @throws IOException 写入失败
+     */
+    void writeValue(V value, DataOutput out) throws IOException;
+
+    /**
+     * 从快照流中读取单个值。
+     *
+     * @param key 值所属的键
+     * @param in  输入流
+     * @return 解码后的值
+     * @throws IOException 读取失败
+     */
+    V readValue(String key, DataInput in) throws IOException;
+
+    /**
+     * 单个值编码的格式版本，写入每个快照文件头；编码变化时递增，并覆盖
+     * {@link #readValue(String, DataInput, int)} 迁移旧格式。
+     *
+     * @return 当前格式版本，从 1 开始
+     */
+    default int formatVersion() {
+        return 1;
+    }
+
+    /**
+     * 按文件头记录的格式版本读取单个值。默认只接受当前版本，其他版本的文件被拒绝并跳过。
+     *
+     * @param key           值所属的键
+     * @param in            输入流
+     * @param formatVersion 写出该文件时的格式版本
+     * @return 解码后的值
+     * @throws IOException 读取失败或版本不受支持
+     */
+    default V readValue(String key, DataInput in, int formatVersion) throws IOException {
+        if (formatVersion != formatVersion()) {
+            throw new IOException("Unsupported " + snapshotName() + " format version " + formatVersion);
+        }
+        return readValue(key, in);
+    }
+
+    /**
+     * 恢复阶段写回一条记录，可能被多个加载线程并发调用。
+     *
+     * @param key   键
+     * @param value 值
+     */
+    void restoreEntry(String key, V value);
+
+    /**
+     * 恢复阶段应用增量中的删除记录。
+     *
+     * @param key 被删除的键
+     */
+    void removeEntry(String key);
+}
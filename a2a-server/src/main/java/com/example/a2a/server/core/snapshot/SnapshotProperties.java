@@ -0,0 +1,91 @@
+package com.example.a2a.server.core.snapshot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 会话类内存状态快照的配置项，对应 {@code a2a.snapshot.*}。默认关闭，开启后服务会周期性地把
+ * 会话、登录与上下文写入本地磁盘，并在下次启动时先恢复再对外提供服务。
+ */
+@ConfigurationProperties(prefix = "a2a.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * 是否启用快照与启动恢复。
+     */
+    private boolean enabled = false;
+
+    /**
+     * 快照文件根目录，每个参与者使用独立子目录。
+     */
+    private String directory = "data/snapshots";
+
+    /**
+     * 增量快照的写出间隔。
+     */
+    private Duration interval = Duration.ofSeconds(30);
+
+    /**
+     * 全量快照的分片数量，决定启动时可并行加载的文件数。
+     */
+    private int shards = 8;
+
+    /**
+     * 启动恢复时使用的加载线程数。
+     */
+    private int loaderThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 累计多少个增量文件后改写一次全量快照。
+     */
+    private int maxDeltas = 16;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public int getLoaderThreads() {
+        return loaderThreads;
+    }
+
+    public void setLoaderThreads(int loaderThreads) {
+        this.loaderThreads = loaderThreads;
+    }
+
+    public int getMaxDeltas() {
+        return maxDeltas;
+    }
+
+    public void setMaxDeltas(int maxDeltas) {
+        this.maxDeltas = maxDeltas;
+    }
+}
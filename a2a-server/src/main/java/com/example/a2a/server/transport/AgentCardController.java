@@ -0,0 +1,59 @@
+package com.example.a2a.server.transport;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 {@code /.well-known/agent-card.json} 公布 AgentCard，供发现客户端按 HTTP 缓存语义拉取。
+ * 响应体直接写出 {@link AgentCardPublisher} 预先编码的字节，并附带强 ETag 与 {@code Cache-Control}；
+ * {@code If-None-Match} 命中时返回不带响应体的 304。
+ */
+@RestController
+public class AgentCardController {
+
+    private final AgentCardPublisher publisher;
+    private final CacheControl cacheControl;
+
+    /**
+     * 注入卡片发布器与缓存配置。
+     *
+     * @param publisher  卡片发布器
+     * @param properties AgentCard 配置
+     */
+    public AgentCardController(AgentCardPublisher publisher, AgentCardProperties properties) {
+        this.publisher = publisher;
+        long maxAge = Math.max(0, properties.getCacheMaxAge().toSeconds());
+        this.cacheControl = maxAge == 0
+                ? CacheControl.noCache().cachePublic()
+                : CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * 返回预编码的 AgentCard，ETag 未变化时返回 304。
+     */
+    @GetMapping("/.well-known/agent-card.json")
+    public ResponseEntity<byte[]> agentCard(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                            String ifNoneMatch) {
+        AgentCardPublisher.EncodedCard card = publisher.current();
+        if (AgentCardPublisher.matches(ifNoneMatch, card.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(card.etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(card.etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(card.bytes.length)
+                .body(card.bytes);
+    }
+}
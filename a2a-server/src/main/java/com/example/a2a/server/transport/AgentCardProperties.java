@@ -0,0 +1,102 @@
+package com.example.a2a.server.transport;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AgentCard 公开信息配置，对应 {@code a2a.agent-card.*}。技能列表取自 {@code SkillRegistry}，
+ * 其余字段均来自本配置；{@link AgentCardPublisher} 只在这些值变化时重新编码卡片。
+ */
+@ConfigurationProperties(prefix = "a2a.agent-card")
+public class AgentCardProperties {
+
+    private String name = "Weather Agent";
+
+    private String description = "Helps with weather";
+
+    /**
+     * 对外公布的服务地址。
+     */
+    private String url = "http://localhost:10001";
+
+    private String version = "1.0.0";
+
+    private String protocolVersion = "0.3.0";
+
+    private List<String> defaultInputModes = new ArrayList<>(List.of("text"));
+
+    private List<String> defaultOutputModes = new ArrayList<>(List.of("text"));
+
+    /**
+     * {@code /.well-known/agent-card.json} 响应的 {@code Cache-Control: max-age}，为 0 时要求客户端每次以
+     * {@code If-None-Match} 重新验证。
+     */
+    private Duration cacheMaxAge = Duration.ofMinutes(5);
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(String protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public List<String> getDefaultInputModes() {
+        return defaultInputModes;
+    }
+
+    public void setDefaultInputModes(List<String> defaultInputModes) {
+        this.defaultInputModes = defaultInputModes;
+    }
+
+    public List<String> getDefaultOutputModes() {
+        return defaultOutputModes;
+    }
+
+    public void setDefaultOutputModes(List<String> defaultOutputModes) {
+        this.defaultOutputModes = defaultOutputModes;
+    }
+
+    public Duration getCacheMaxAge() {
+        return cacheMaxAge;
+    }
+
+    public void setCacheMaxAge(Duration cacheMaxAge) {
+        this.cacheMaxAge = cacheMaxAge;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.a2a.server.transport;
+
+import com.example.a2a.server.agent.AgentExecutor;
+import com.example.a2a.server.agent.SkillRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static com.example.a2a.server.transport.JsonRpcDtos.AgentCardDto;
+import static com.example.a2a.server.transport.JsonRpcDtos.AgentSkillDto;
+
+/**
+ * 持有预先编码好的 AgentCard。卡片由 {@link AgentCardProperties} 与 {@link SkillRegistry} 构建一次后
+ * 编码为 UTF-8 字节并计算强 ETag，{@code agent_card} 方法与 {@code /.well-known/agent-card.json}
+ * 直接复用同一份编码结果，请求路径上不再构造对象图或序列化。
+ * <p>
+ * 卡片在启动时固定：应用不支持运行期重新绑定配置，技能也只在启动时注册，修改卡片需要重启。
+ */
+@Component
+public class AgentCardPublisher {
+
+    /**
+     * 一次编码结果，创建后不再修改。
+     */
+    public static final class EncodedCard {
+        public final byte[] bytes;
+        public final String etag;
+        final RawValue raw;
+
+        /**
+         * 创建编码结果。
+         */
+        EncodedCard(byte[] bytes, String etag, RawValue raw) {
+            this.bytes = bytes;
+            this.etag = etag;
+            this.raw = raw;
+        }
+    }
+
+    private final AgentCardProperties properties;
+    private final SkillRegistry skillRegistry;
+    private final ObjectMapper objectMapper;
+    private final EncodedCard current;
+
+    /**
+     * 注入配置、技能注册中心与 JSON 映射器，并立即编码一次卡片。
+     *
+     * @param properties    AgentCard 配置
+     * @param skillRegistry 技能注册中心
+     * @param objectMapper  JSON 映射器
+     */
+    public AgentCardPublisher(AgentCardProperties properties, SkillRegistry skillRegistry,
+                              ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.skillRegistry = skillRegistry;
+        this.objectMapper = objectMapper;
+        this.current = encode();
+    }
+
+    /**
+     * 返回当前编码结果。
+     *
+     * @return 编码结果
+     */
+    public EncodedCard current() {
+        return current;
+    }
+
+    /**
+     * 返回可直接作为 JSON-RPC {@code result} 写出的原始 JSON。
+     *
+     * @return 原始 JSON 值
+     */
+    RawValue rawValue() {
+        return current.raw;
+    }
+
+    /**
+     * 判断 {@code If-None-Match} 是否命中当前 ETag，按 RFC 9110 的弱比较处理 {@code W/} 前缀与 {@code *}。
+     *
+     * @param ifNoneMatch 请求头取值，可为空
+     * @param etag        当前 ETag
+     * @return 命中时返回 true
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 构建卡片对象图并编码为字节与强 ETag。
+     */
+    private EncodedCard encode() {
+        AgentCardDto card = new AgentCardDto();
+        card.name = properties.getName();
+        card.description = properties.getDescription();
+        card.url = properties.getUrl();
+        card.version = properties.getVersion();
+        card.defaultInputModes = List.copyOf(properties.getDefaultInputModes());
+        card.defaultOutputModes = List.copyOf(properties.getDefaultOutputModes());
+        List<AgentSkillDto> skills = new ArrayList<>();
+        for (AgentExecutor.SkillCard skillCard : skillRegistry.skillCards()) {
+            AgentSkillDto skill = new AgentSkillDto();
+            skill.id = skillCard.id;
+            skill.name = skillCard.name;
+            skill.description = skillCard.description;
+            skill.tags = skillCard.tags;
+            skill.examples = skillCard.examples;
+            skills.add(skill);
+        }
+        card.skills = skills;
+        card.protocolVersion = properties.getProtocolVersion();
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(card);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+            return new EncodedCard(bytes, etag, new RawValue(new String(bytes, StandardCharsets.UTF_8)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode agent card", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.a2a.server.transport;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code /jsonrpc} 批量请求配置，对应 {@code a2a.jsonrpc.batch.*}。批内各调用在有界线程池上并行执行，
+ * 线程与等待队列都占满时由请求线程自行执行，天然形成背压。
+ */
+@ConfigurationProperties(prefix = "a2a.jsonrpc.batch")
+public class JsonRpcBatchProperties {
+
+    /**
+     * 单个批量请求最多包含的调用数，超出时整批以 {@code -32600} 拒绝。
+     */
+    private int maxSize = 100;
+
+    /**
+     * 执行批内调用的线程数。
+     */
+    private int threads = 8;
+
+    /**
+     * 等待线程的调用数上限。
+     */
+    private int queueCapacity = 256;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -1,14 +1,29 @@
 package com.example.a2a.server.transport;
 
-import com.example.a2a.server.agent.WeatherAgent;
+import com.example.a2a.server.agent.Deadline;
+import com.example.a2a.server.agent.DeadlineProperties;
+import com.example.a2a.server.agent.SkillExecutionException;
+import com.example.a2a.server.agent.SkillRegistry;
 import com.example.a2a.server.core.TaskService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.example.a2a.server.transport.JsonRpcDtos.*;
 
@@ -19,58 +34,194 @@ import static com.example.a2a.server.transport.JsonRpcDtos.*;
 @RestController
 public class JsonRpcController {
 
-    private final WeatherAgent weatherAgent;
+    private final SkillRegistry skillRegistry;
     private final TaskService taskService;
+    private final AgentCardPublisher agentCardPublisher;
+    private final DeadlineProperties deadlineProperties;
+    private final JsonRpcRequestReader requestReader;
+    private final int maxBatchSize;
+    private final ThreadPoolExecutor batchExecutor;
+    private final RpcMetrics metrics;
 
     /**
-     * 注入天气 Agent 与任务服务。
+     * 注入技能注册中心、任务服务、AgentCard 发布器、截止时间与批量请求配置，建立方法表并创建批内调用线程池。
+     * 内置方法先于技能注册，与内置方法同名的技能不会暴露为 JSON-RPC 方法。每个方法的调用按
+     * {@link RpcMetrics} 计时。
      *
-     * @param weatherAgent 天气查询实现
-     * @param taskService  任务编排服务
+     * @param skillRegistry      技能注册中心
+     * @param taskService        任务编排服务
+     * @param agentCardPublisher 预编码 AgentCard 的发布器
+     * @param deadlineProperties 请求截止时间配置
+     * @param batchProperties    批量请求配置
+     * @param objectMapper       JSON 映射器
+     * @param meterRegistry      指标注册表
      */
-    public JsonRpcController(WeatherAgent weatherAgent, TaskService taskService) {
-        this.weatherAgent = weatherAgent;
+    public JsonRpcController(SkillRegistry skillRegistry, TaskService taskService,
+                             AgentCardPublisher agentCardPublisher, DeadlineProperties deadlineProperties,
+                             JsonRpcBatchProperties batchProperties, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.skillRegistry = skillRegistry;
         this.taskService = taskService;
+        this.agentCardPublisher = agentCardPublisher;
+        this.deadlineProperties = deadlineProperties;
+        JsonRpcMethodRegistry methods = new JsonRpcMethodRegistry(objectMapper);
+        methods.register("agent_card", null, (base, params, timeoutHeader) -> handleAgentCard(base));
+        methods.register("task_submit", TaskSubmitParams.class, this::handleTaskSubmit);
+        methods.register("task_status", TaskIdParams.class,
+                (base, params, timeoutHeader) -> handleTaskStatus(base, params));
+        methods.register("task_result", TaskIdParams.class,
+                (base, params, timeoutHeader) -> handleTaskResult(base, params));
+        methods.register("task_cancel", TaskIdParams.class,
+                (base, params, timeoutHeader) -> handleTaskCancel(base, params));
+        methods.register("task_list", TaskListParams.class,
+                (base, params, timeoutHeader) -> handleTaskList(base, params));
+        for (String skillId : skillRegistry.skillIds()) {
+            methods.register(skillId, WeatherParams.class,
+                    (base, params, timeoutHeader) -> handleSkill(skillId, base, params, timeoutHeader));
+        }
+        this.requestReader = new JsonRpcRequestReader(objectMapper, methods);
+        this.metrics = new RpcMetrics(meterRegistry, "jsonrpc", methods.names());
+        this.maxBatchSize = Math.max(1, batchProperties.getMaxSize());
+        int threads = Math.max(1, batchProperties.getThreads());
+        AtomicInteger counter = new AtomicInteger();
+        this.batchExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchProperties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "a2a-jsonrpc-batch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> runnable.run());
+        this.batchExecutor.allowCoreThreadTimeOut(true);
     }
 
     /**
-     * 支持 `agent_card`、`weather_search` 以及 `task_*` 系列方法，便于非 HarmonyOS 客户端
-     * 复用同一套能力。返回值遵循 JSON-RPC 2.0 规范。
+     * `/jsonrpc` 入口：以 {@link JsonRpcRequestReader} 单遍流式读取请求体，请求体为数组时按 JSON-RPC 2.0
+     * 批量请求处理，否则按单个请求处理。请求体不是合法 JSON 时返回 {@code -32700}。
+     * <p>
+     * 批内各调用彼此独立，在有界线程池上并行执行，响应按请求顺序合并为一个数组返回；没有 {@code id}
+     * 成员的通知照常执行但不产生响应，全部为通知时返回 204。空数组或超过
+     * {@code a2a.jsonrpc.batch.max-size} 的批量请求以单个 {@code -32600} 错误拒绝，批内不是对象的元素
+     * 各自得到 {@code id} 为空的 {@code -32600} 错误。
      */
     @PostMapping("/jsonrpc")
-    public ResponseEntity<JsonRpcResponse<?>> handle(@RequestBody JsonRpcRequest request,
-                                                     @RequestHeader(value = "agent-session-id", required = false)
-                                                     String agentSessionId) {
+    public ResponseEntity<?> handle(InputStream body,
+                                    @RequestHeader(value = "agent-session-id", required = false)
+                                    String agentSessionId,
+                                    @RequestHeader(value = DeadlineProperties.TIMEOUT_HEADER,
+                                            required = false) String timeoutHeader) throws IOException {
+        long started = System.nanoTime();
+        JsonRpcRequestReader.Body parsed;
+        try {
+            parsed = requestReader.read(body);
+        } catch (JsonProcessingException e) {
+            metrics.record(null, -32700, System.nanoTime() - started);
+            return ResponseEntity.badRequest()
+                    .body(errorResponse(null, -32700, "Parse error: " + e.getOriginalMessage()));
+        }
+        if (parsed.batch) {
+            return handleBatch(parsed.calls, timeoutHeader);
+        }
+        return dispatch(parsed.calls.get(0), timeoutHeader);
+    }
+
+    /**
+     * 停止批内调用线程池。
+     */
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * 并行执行批内调用并按请求顺序收集非通知调用的响应。
+     */
+    private ResponseEntity<?> handleBatch(List<JsonRpcRequestReader.Call> batch, String timeoutHeader) {
+        if (batch.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse(null, -32600, "Invalid Request: empty batch"));
+        }
+        if (batch.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(errorResponse(null, -32600,
+                    "Invalid Request: batch of " + batch.size() + " exceeds limit " + maxBatchSize));
+        }
+        List<CompletableFuture<JsonRpcResponse<?>>> calls = new ArrayList<>(batch.size());
+        for (JsonRpcRequestReader.Call call : batch) {
+            CompletableFuture<JsonRpcResponse<?>> pending = CompletableFuture.supplyAsync(
+                    () -> dispatch(call, timeoutHeader).getBody(), batchExecutor);
+            if (call.hasId) {
+                calls.add(pending);
+            }
+        }
+        List<JsonRpcResponse<?>> responses = new ArrayList<>(calls.size());
+        for (CompletableFuture<JsonRpcResponse<?>> call : calls) {
+            responses.add(call.join());
+        }
+        if (responses.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(responses);
+    }
+
+    /**
+     * 构造只含错误的响应。
+     */
+    private static JsonRpcResponse<?> errorResponse(String id, int code, String message) {
+        JsonRpcResponse<?> resp = new JsonRpcResponse<>();
+        resp.id = id;
+        resp.error = new JsonRpcError(code, message);
+        return resp;
+    }
+
+    /**
+     * 执行单个调用并按方法与错误码记录耗时。
+     */
+    private ResponseEntity<JsonRpcResponse<?>> dispatch(JsonRpcRequestReader.Call call, String timeoutHeader) {
+        long started = System.nanoTime();
+        ResponseEntity<JsonRpcResponse<?>> response = invoke(call, timeoutHeader);
+        JsonRpcResponse<?> body = response.getBody();
+        int code = body != null && body.error != null ? body.error.code : 0;
+        metrics.record(call.target != null ? call.request.method : null, code, System.nanoTime() - started);
+        return response;
+    }
+
+    /**
+     * 按方法表把调用交给对应处理函数：`agent_card`、`task_*` 系列方法以及与技能 ID 同名的方法
+     * （如 `weather_search`），便于非 HarmonyOS 客户端复用同一套能力。返回值遵循 JSON-RPC 2.0 规范，
+     * 处理过程中的异常都转换为该调用自己的错误响应。
+     * <p>
+     * 技能调用与 `task_submit` 的截止时间取自请求头 {@value DeadlineProperties#TIMEOUT_HEADER}、参数
+     * {@code timeoutMs} 或服务端默认值，已过期的调用返回 {@link SkillExecutionException#DEADLINE_EXCEEDED}。
+     */
+    private ResponseEntity<JsonRpcResponse<?>> invoke(JsonRpcRequestReader.Call call, String timeoutHeader) {
+        JsonRpcRequest request = call.request;
         JsonRpcResponse<?> base = new JsonRpcResponse<>();
         base.id = request.id;
 
+        if (call.error != null && call.error.code == -32600) {
+            base.error = call.error;
+            return ResponseEntity.badRequest().body(base);
+        }
         if (request.jsonrpc == null || !"2.0".equals(request.jsonrpc)) {
             base.error = new JsonRpcError(-32600, "Invalid Request: jsonrpc must be '2.0'");
             return ResponseEntity.badRequest().body(base);
         }
+        if (call.target == null) {
+            base.error = new JsonRpcError(-32601, "Method not found: " + request.method);
+            return ResponseEntity.ok(base);
+        }
+        if (call.error != null) {
+            base.error = call.error;
+            return ResponseEntity.ok(base);
+        }
 
         try {
-            if ("weather_search".equals(request.method)) {
-                JsonRpcResponse<ResponseMessage> r = handleWeatherSearch(request, base);
-                return ResponseEntity.ok((JsonRpcResponse<?>) r);
-            } else if ("agent_card".equals(request.method)) {
-                JsonRpcResponse<AgentCardDto> r = handleAgentCard(base);
-                return ResponseEntity.ok((JsonRpcResponse<?>) r);
-            } else if ("task_submit".equals(request.method)) {
-                JsonRpcResponse<TaskSubmitResult> r = handleTaskSubmit(request, base);
-                return ResponseEntity.ok((JsonRpcResponse<?>) r);
-            } else if ("task_status".equals(request.method)) {
-                JsonRpcResponse<TaskStatusResult> r = handleTaskStatus(request, base);
-                return ResponseEntity.ok((JsonRpcResponse<?>) r);
-            } else if ("task_result".equals(request.method)) {
-                JsonRpcResponse<TaskResult> r = handleTaskResult(request, base);
-                return ResponseEntity.ok((JsonRpcResponse<?>) r);
-            } else if ("task_cancel".equals(request.method)) {
-                return handleTaskCancel(request, base);
-            } else {
-                base.error = new JsonRpcError(-32601, "Method not found: " + request.method);
-                return ResponseEntity.ok(base);
-            }
+            return ResponseEntity.ok(call.target.invoke(base, request.params, timeoutHeader));
+        } catch (SkillExecutionException e) {
+            base.error = new JsonRpcError(e.getCode(), e.getMessage());
+            return ResponseEntity.ok(base);
+        } catch (IllegalArgumentException e) {
+            base.error = new JsonRpcError(-32602, "Invalid params: " + e.getMessage());
+            return ResponseEntity.ok(base);
         } catch (Exception e) {
             base.error = new JsonRpcError(-32603, "Internal error: " + e.getMessage());
             return ResponseEntity.ok(base);
@@ -78,15 +229,16 @@ public class JsonRpcController {
     }
 
     /**
-     * 处理天气查询请求并返回文本部件。
+     * 把与技能 ID 同名的方法路由到对应技能，并返回文本部件。
      */
-    private JsonRpcResponse<ResponseMessage> handleWeatherSearch(JsonRpcRequest request, JsonRpcResponse<?> base) {
+    private JsonRpcResponse<ResponseMessage> handleSkill(String skillId, JsonRpcResponse<?> base,
+                                                         WeatherParams params, String timeoutHeader) {
         JsonRpcResponse<ResponseMessage> resp = new JsonRpcResponse<>();
         resp.id = base.id;
 
-        WeatherParams params = mapWeatherParams(request.params);
         String query = params != null ? params.text : "";
-        String result = weatherAgent.search(query);
+        Deadline deadline = deadlineProperties.resolve(timeoutHeader, params != null ? params.timeoutMs : null);
+        String result = skillRegistry.execute(skillId, query, deadline);
 
         ResponseMessage message = new ResponseMessage();
         message.parts = java.util.List.of(new PartDto(result));
@@ -95,42 +247,36 @@ public class JsonRpcController {
     }
 
     /**
-     * 返回示例 AgentCard。
+     * 返回 {@link AgentCardPublisher} 预先编码的 AgentCard，原样嵌入响应的 {@code result}。
      */
-    private JsonRpcResponse<AgentCardDto> handleAgentCard(JsonRpcResponse<?> base) {
-        JsonRpcResponse<AgentCardDto> resp = new JsonRpcResponse<>();
+    private JsonRpcResponse<RawValue> handleAgentCard(JsonRpcResponse<?> base) {
+        JsonRpcResponse<RawValue> resp = new JsonRpcResponse<>();
         resp.id = base.id;
-        AgentCardDto card = new AgentCardDto();
-        card.name = "Weather Agent";
-        card.description = "Helps with weather";
-        card.url = "http://localhost:10001";
-        card.version = "1.0.0";
-        card.defaultInputModes = java.util.List.of("text");
-        card.defaultOutputModes = java.util.List.of("text");
-        AgentSkillDto skill = new AgentSkillDto();
-        skill.id = "weather_search";
-        skill.name = "Search weather";
-        skill.description = "Helps with weather in cities or states";
-        skill.tags = java.util.List.of("weather");
-        skill.examples = java.util.List.of("weather in LA, CA");
-        card.skills = java.util.List.of(skill);
-        card.protocolVersion = "0.3.0";
-        resp.result = card;
+        resp.result = agentCardPublisher.rawValue();
         return resp;
     }
 
     /**
-     * 处理任务提交请求并异步执行。
+     * 处理任务提交请求并异步执行。携带 {@code pushNotificationConfig} 时任务结束后回调其 {@code url}，
+     * 地址不合法时返回 {@code -32602}。
      */
-    private JsonRpcResponse<TaskSubmitResult> handleTaskSubmit(JsonRpcRequest request, JsonRpcResponse<?> base) {
+    private JsonRpcResponse<TaskSubmitResult> handleTaskSubmit(JsonRpcResponse<?> base, TaskSubmitParams params,
+                                                               String timeoutHeader) {
         JsonRpcResponse<TaskSubmitResult> resp = new JsonRpcResponse<>();
         resp.id = base.id;
-        TaskSubmitParams params = mapTaskSubmitParams(request.params);
         if (params == null || params.text == null) {
             resp.error = new JsonRpcError(-32602, "Invalid params: text required");
             return resp;
         }
-        TaskService.TaskData data = taskService.submit(params.text);
+        if (params.skillId != null && !skillRegistry.contains(params.skillId)) {
+            resp.error = new JsonRpcError(SkillExecutionException.UNKNOWN_SKILL, "Unknown skill: " + params.skillId);
+            return resp;
+        }
+        Deadline deadline = deadlineProperties.resolve(timeoutHeader, params.timeoutMs);
+        PushNotificationConfig push = params.pushNotificationConfig;
+        TaskService.TaskData data = push == null
+                ? taskService.submit(params.skillId, params.text, deadline)
+                : taskService.submit(params.skillId, params.text, deadline, push.url, push.token);
         TaskSubmitResult result = new TaskSubmitResult();
         result.taskId = data.taskId;
         result.state = data.state;
@@ -141,10 +287,9 @@ public class JsonRpcController {
     /**
      * 查询任务状态并返回当前状态。
      */
-    private JsonRpcResponse<TaskStatusResult> handleTaskStatus(JsonRpcRequest request, JsonRpcResponse<?> base) {
+    private JsonRpcResponse<TaskStatusResult> handleTaskStatus(JsonRpcResponse<?> base, TaskIdParams params) {
         JsonRpcResponse<TaskStatusResult> resp = new JsonRpcResponse<>();
         resp.id = base.id;
-        TaskIdParams params = mapTaskIdParams(request.params);
         if (params == null || params.taskId == null) {
             resp.error = new JsonRpcError(-32602, "Invalid params: taskId required");
             return resp;
@@ -164,10 +309,9 @@ public class JsonRpcController {
     /**
      * 获取已完成任务的最终结果。
      */
-    private JsonRpcResponse<TaskResult> handleTaskResult(JsonRpcRequest request, JsonRpcResponse<?> base) {
+    private JsonRpcResponse<TaskResult> handleTaskResult(JsonRpcResponse<?> base, TaskIdParams params) {
         JsonRpcResponse<TaskResult> resp = new JsonRpcResponse<>();
         resp.id = base.id;
-        TaskIdParams params = mapTaskIdParams(request.params);
         if (params == null || params.taskId == null) {
             resp.error = new JsonRpcError(-32602, "Invalid params: taskId required");
             return resp;
@@ -189,78 +333,56 @@ public class JsonRpcController {
         return resp;
     }
 
+    /**
+     * 按状态与创建时间区间分页列出任务，从新到旧排列；{@code nextCursor} 为空表示没有更多结果。
+     * 页大小非正数或游标无效时返回 {@code -32602}。
+     */
+    private JsonRpcResponse<TaskListResult> handleTaskList(JsonRpcResponse<?> base, TaskListParams params) {
+        JsonRpcResponse<TaskListResult> resp = new JsonRpcResponse<>();
+        resp.id = base.id;
+        TaskListParams filter = params != null ? params : new TaskListParams();
+        TaskService.TaskPage page = taskService.list(filter.state, filter.createdFrom, filter.createdTo,
+                filter.cursor, filter.limit);
+        List<TaskSummary> tasks = new ArrayList<>(page.tasks.size());
+        for (TaskService.TaskData data : page.tasks) {
+            TaskSummary summary = new TaskSummary();
+            summary.taskId = data.taskId;
+            summary.state = data.state;
+            summary.skillId = data.skillId;
+            summary.createdAt = data.createdAt;
+            tasks.add(summary);
+        }
+        TaskListResult result = new TaskListResult();
+        result.tasks = tasks;
+        result.nextCursor = page.nextCursor;
+        resp.result = result;
+        return resp;
+    }
+
     /**
      * 处理任务取消请求。
      */
-    private ResponseEntity<JsonRpcResponse<?>> handleTaskCancel(JsonRpcRequest request, JsonRpcResponse<?> base) {
+    private JsonRpcResponse<TaskStatusResult> handleTaskCancel(JsonRpcResponse<?> base, TaskIdParams params) {
         JsonRpcResponse<TaskStatusResult> resp = new JsonRpcResponse<>();
         resp.id = base.id;
-        TaskIdParams params = mapTaskIdParams(request.params);
         if (params == null || params.taskId == null) {
             resp.error = new JsonRpcError(-32602, "Invalid params: taskId required");
-            return ResponseEntity.ok(resp);
+            return resp;
         }
         TaskService.TaskData data = taskService.get(params.taskId);
         if (data == null) {
             resp.error = new JsonRpcError(-32004, "Task not found");
-            return ResponseEntity.ok(resp);
+            return resp;
         }
         boolean canceled = taskService.cancel(params.taskId);
         if (!canceled) {
             resp.error = new JsonRpcError(-32001, "Task not cancelable or already completed");
-            return ResponseEntity.ok(resp);
+            return resp;
         }
         TaskStatusResult result = new TaskStatusResult();
         result.taskId = data.taskId;
         result.state = data.state; // 可能稍后异步变为CANCELED
         resp.result = result;
-        return ResponseEntity.ok(resp);
-    }
-
-    /**
-     * 解析天气查询参数。
-     */
-    private WeatherParams mapWeatherParams(Object params) {
-        if (params == null) return null;
-        if (params instanceof WeatherParams wp) {
-            return wp;
-        }
-        if (params instanceof java.util.Map<?,?> map) {
-            Object text = map.get("text");
-            WeatherParams wp = new WeatherParams();
-            wp.text = text == null ? null : String.valueOf(text);
-            return wp;
-        }
-        return null;
-    }
-
-    /**
-     * 解析任务提交参数。
-     */
-    private TaskSubmitParams mapTaskSubmitParams(Object params) {
-        if (params == null) return null;
-        if (params instanceof TaskSubmitParams p) return p;
-        if (params instanceof java.util.Map<?,?> map) {
-            Object text = map.get("text");
-            TaskSubmitParams p = new TaskSubmitParams();
-            p.text = text == null ? null : String.valueOf(text);
-            return p;
-        }
-        return null;
-    }
-
-    /**
-     * 解析只包含任务 ID 的参数结构。
-     */
-    private TaskIdParams mapTaskIdParams(Object params) {
-        if (params == null) return null;
-        if (params instanceof TaskIdParams p) return p;
-        if (params instanceof java.util.Map<?,?> map) {
-            Object taskId = map.get("taskId");
-            TaskIdParams p = new TaskIdParams();
-            p.taskId = taskId == null ? null : String.valueOf(taskId);
-            return p;
-        }
-        return null;
+        return resp;
     }
 }
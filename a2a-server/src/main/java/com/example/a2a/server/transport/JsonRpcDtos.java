@@ -12,7 +12,7 @@ public class JsonRpcDtos {
     public static class JsonRpcRequest {
         public String jsonrpc;
         public String method;
-        public Object params;
+        public Object params; // 由 JsonRpcRequestReader 直接绑定为目标方法的参数 DTO
         public String id;
     }
 
@@ -21,6 +21,7 @@ public class JsonRpcDtos {
      */
     public static class WeatherParams {
         public String text;
+        public Long timeoutMs; // 可选，相对超时毫秒，请求头优先
     }
 
     /**
@@ -129,6 +130,17 @@ public class JsonRpcDtos {
      */
     public static class TaskSubmitParams {
         public String text;
+        public String skillId; // 可选，缺省使用默认技能
+        public Long timeoutMs; // 可选，相对超时毫秒，请求头优先
+        public PushNotificationConfig pushNotificationConfig; // 可选，任务结束后回调
+    }
+
+    /**
+     * 任务完成回调配置。
+     */
+    public static class PushNotificationConfig {
+        public String url;
+        public String token; // 可选，回调时放入 X-A2A-Notification-Token 请求头
     }
 
     /**
@@ -138,6 +150,35 @@ public class JsonRpcDtos {
         public String taskId;
     }
 
+    /**
+     * 分页列出任务的请求参数，全部可选。
+     */
+    public static class TaskListParams {
+        public String state; // 状态筛选，如 RUNNING、COMPLETED
+        public Long createdFrom; // 创建时间下界（含），毫秒时间戳
+        public Long createdTo; // 创建时间上界（不含），毫秒时间戳
+        public String cursor; // 上一页返回的 nextCursor
+        public Integer limit; // 页大小，超过服务端上限时按上限处理
+    }
+
+    /**
+     * 任务列表中的单个任务摘要。
+     */
+    public static class TaskSummary {
+        public String taskId;
+        public String state;
+        public String skillId;
+        public long createdAt;
+    }
+
+    /**
+     * 一页任务列表。
+     */
+    public static class TaskListResult {
+        public List<TaskSummary> tasks;
+        public String nextCursor; // 没有更多结果时为 null
+    }
+
     /**
      * 任务提交后返回的结果。
      */
@@ -0,0 +1,140 @@
+package com.example.a2a.server.transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.a2a.server.transport.JsonRpcDtos.JsonRpcResponse;
+
+/**
+ * {@code /jsonrpc} 方法表：方法名到参数类型与处理函数的映射，取代按方法名逐个比较的分支链。
+ * <p>
+ * 每个方法在注册时即为其参数 DTO 准备好 {@link ObjectReader}，{@link JsonRpcRequestReader} 读到
+ * {@code method} 后查表，直接把 {@code params} 从解析器流式绑定为该 DTO，不经过中间的 Map。
+ * 注册完成后只读，可被请求线程并发查询。
+ */
+final class JsonRpcMethodRegistry {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Method<?>> methods = new HashMap<>();
+
+    /**
+     * 创建方法表。
+     *
+     * @param objectMapper 用于创建参数读取器的映射器
+     */
+    JsonRpcMethodRegistry(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 注册方法，同名方法已存在时忽略，先注册者优先。
+     *
+     * @param name       方法名
+     * @param paramsType 参数 DTO 类型，为 {@code null} 时忽略 {@code params}
+     * @param handler    处理函数
+     * @param <P>        参数类型
+     * @return 是否注册成功
+     */
+    <P> boolean register(String name, Class<P> paramsType, Handler<P> handler) {
+        if (methods.containsKey(name)) {
+            return false;
+        }
+        ObjectReader reader = paramsType == null ? null : objectMapper.readerFor(paramsType);
+        methods.put(name, new Method<>(name, paramsType, reader, handler));
+        return true;
+    }
+
+    /**
+     * 按方法名查找。
+     *
+     * @param name 方法名，可为 {@code null}
+     * @return 方法，未注册时返回 {@code null}
+     */
+    Method<?> find(String name) {
+        return name == null ? null : methods.get(name);
+    }
+
+    /**
+     * 已注册的方法名。
+     *
+     * @return 只读的方法名集合
+     */
+    Set<String> names() {
+        return Collections.unmodifiableSet(methods.keySet());
+    }
+
+    /**
+     * 方法处理函数。
+     *
+     * @param <P> 参数类型
+     */
+    @FunctionalInterface
+    interface Handler<P> {
+
+        /**
+         * 处理一次调用。
+         *
+         * @param base          已填好 {@code id} 的响应骨架
+         * @param params        绑定后的参数，请求未携带时为 {@code null}
+         * @param timeoutHeader 超时请求头原值，可为 {@code null}
+         * @return JSON-RPC 响应
+         */
+        JsonRpcResponse<?> handle(JsonRpcResponse<?> base, P params, String timeoutHeader);
+    }
+
+    /**
+     * 已注册的方法。
+     *
+     * @param <P> 参数类型
+     */
+    static final class Method<P> {
+        final String name;
+        private final Class<P> paramsType;
+        private final ObjectReader paramsReader;
+        private final Handler<P> handler;
+
+        /**
+         * 记录方法定义。
+         */
+        private Method(String name, Class<P> paramsType, ObjectReader paramsReader, Handler<P> handler) {
+            this.name = name;
+            this.paramsType = paramsType;
+            this.paramsReader = paramsReader;
+            this.handler = handler;
+        }
+
+        /**
+         * 从解析器当前位置读取 {@code params} 值；方法不接受参数时跳过该值。
+         *
+         * @param parser 位于 {@code params} 值首个记号的解析器
+         * @return 参数 DTO，不接受参数或值为 {@code null} 时返回 {@code null}
+         * @throws IOException 读取或绑定失败
+         */
+        P readParams(JsonParser parser) throws IOException {
+            if (paramsReader == null) {
+                parser.skipChildren();
+                return null;
+            }
+            return paramsReader.readValue(parser);
+        }
+
+        /**
+         * 调用处理函数。
+         *
+         * @param base          响应骨架
+         * @param params        {@link #readParams} 的结果
+         * @param timeoutHeader 超时请求头原值
+         * @return JSON-RPC 响应
+         */
+        JsonRpcResponse<?> invoke(JsonRpcResponse<?> base, Object params, String timeoutHeader) {
+            return handler.handle(base, paramsType == null ? null : paramsType.cast(params), timeoutHeader);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.a2a.server.transport;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.a2a.server.transport.JsonRpcDtos.JsonRpcError;
+import static com.example.a2a.server.transport.JsonRpcDtos.JsonRpcRequest;
+
+/**
+ * 以流式解析器单遍读取 {@code /jsonrpc} 请求体，支持单个请求与批量数组。
+ * <p>
+ * 逐个字段读取请求对象：{@code method} 先于 {@code params} 出现时（常见写法），读到 {@code params}
+ * 即按 {@link JsonRpcMethodRegistry} 中该方法的参数类型直接绑定；{@code params} 先出现时把它复制进
+ * {@link TokenBuffer}，待读到 {@code method} 后再从缓冲绑定。两种情况都不会先构造 Map 再拷贝字段。
+ * 未知方法的参数直接跳过。参数无法绑定时记为 {@code -32602}，并把解析器推进到参数值末尾，
+ * 继续读取同一请求的其余字段；JSON 语法错误则使整个请求体失败。
+ */
+final class JsonRpcRequestReader {
+
+    private final JsonFactory jsonFactory;
+    private final ObjectCodec codec;
+    private final JsonRpcMethodRegistry methods;
+
+    /**
+     * 创建读取器。
+     *
+     * @param objectMapper 提供解析工厂与缓冲回放所需的编解码器
+     * @param methods      方法表
+     */
+    JsonRpcRequestReader(ObjectMapper objectMapper, JsonRpcMethodRegistry methods) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.codec = objectMapper;
+        this.methods = methods;
+    }
+
+    /**
+     * 读取整个请求体。
+     *
+     * @param in 请求体
+     * @return 解析结果
+     * @throws JsonParseException 请求体为空、不是合法 JSON 或含有多余内容
+     * @throws IOException        读取失败
+     */
+    Body read(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            parser.setCodec(codec);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Empty request body");
+            }
+            Body body;
+            if (token == JsonToken.START_ARRAY) {
+                List<Call> calls = new ArrayList<>();
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new JsonParseException(parser, "Unterminated batch");
+                    }
+                    calls.add(readCall(parser));
+                }
+                body = new Body(true, calls);
+            } else {
+                body = new Body(false, List.of(readCall(parser)));
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after request");
+            }
+            return body;
+        }
+    }
+
+    /**
+     * 读取解析器当前位置的一个请求；不是对象时跳过该值并记为 {@code -32600}。
+     */
+    private Call readCall(JsonParser parser) throws IOException {
+        Call call = new Call();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            call.hasId = true;
+            call.error = new JsonRpcError(-32600, "Invalid Request");
+            return call;
+        }
+        TokenBuffer pendingParams = null;
+        boolean methodSeen = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "jsonrpc" -> call.request.jsonrpc = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "id" -> {
+                    call.hasId = true;
+                    call.request.id = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                    parser.skipChildren();
+                }
+                case "method" -> {
+                    methodSeen = true;
+                    call.request.method = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    call.target = methods.find(call.request.method);
+                    parser.skipChildren();
+                }
+                case "params" -> {
+                    if (methodSeen) {
+                        bindParams(call, parser);
+                    } else {
+                        pendingParams = new TokenBuffer(parser);
+                        pendingParams.copyCurrentStructure(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (pendingParams != null) {
+            try (JsonParser buffered = pendingParams.asParser(codec)) {
+                buffered.nextToken();
+                bindParams(call, buffered);
+            }
+        }
+        return call;
+    }
+
+    /**
+     * 按目标方法的参数类型绑定 {@code params}；绑定失败时记录错误并跳到参数值末尾。
+     */
+    private static void bindParams(Call call, JsonParser parser) throws IOException {
+        if (call.target == null) {
+            parser.skipChildren();
+            return;
+        }
+        JsonStreamContext owner = parser.currentToken().isStructStart()
+                ? parser.getParsingContext().getParent()
+                : parser.getParsingContext();
+        try {
+            call.request.params = call.target.readParams(parser);
+        } catch (JsonMappingException e) {
+            call.error = new JsonRpcError(-32602, "Invalid params: " + e.getOriginalMessage());
+            while (parser.getParsingContext() != owner) {
+                if (parser.nextToken() == null) {
+                    throw new JsonParseException(parser, "Unterminated params");
+                }
+            }
+        }
+    }
+
+    /**
+     * 请求体的解析结果。
+     */
+    static final class Body {
+        final boolean batch;
+        final List<Call> calls;
+
+        /**
+         * 记录是否为批量请求及其中的调用。
+         */
+        Body(boolean batch, List<Call> calls) {
+            this.batch = batch;
+            this.calls = calls;
+        }
+    }
+
+    /**
+     * 单个调用：请求字段、是否携带 {@code id}、目标方法与解析阶段发现的错误。
+     */
+    static final class Call {
+        final JsonRpcRequest request = new JsonRpcRequest();
+        boolean hasId;
+        JsonRpcMethodRegistry.Method<?> target;
+        JsonRpcError error;
+    }
+}
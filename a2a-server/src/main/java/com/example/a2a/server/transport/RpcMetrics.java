@@ -0,0 +1,101 @@
+package com.example.a2a.server.transport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-RPC 端点的按方法计时：每次调用记入 {@code a2a.rpc.server.requests} 计时器，按 {@code endpoint}、
+ * {@code method} 与 {@code code}（成功为 0，否则为 JSON-RPC 错误码）打标签，计时器的计数即调用次数。
+ * <p>
+ * 方法名只取登记过的方法，其余一律记为 {@value #UNKNOWN_METHOD}，避免客户端任意传值撑大标签基数。
+ * 计时器按方法预先创建，成功路径只有一次只读 Map 查找与一次 {@link Timer#record}；错误码的计时器在首次
+ * 出现时创建并缓存。
+ */
+public final class RpcMetrics {
+
+    /**
+     * 未登记方法使用的标签值。
+     */
+    public static final String UNKNOWN_METHOD = "unknown";
+
+    private static final String METER = "a2a.rpc.server.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final String endpoint;
+    private final Map<String, MethodTimers> methods = new HashMap<>();
+    private final MethodTimers unknown;
+
+    /**
+     * 为端点登记方法并创建各方法成功调用的计时器。
+     *
+     * @param meterRegistry 指标注册表
+     * @param endpoint      端点标签值，如 {@code jsonrpc}、{@code agent}
+     * @param methodNames   端点支持的方法名
+     */
+    public RpcMetrics(MeterRegistry meterRegistry, String endpoint, Collection<String> methodNames) {
+        this.meterRegistry = meterRegistry;
+        this.endpoint = endpoint;
+        for (String method : methodNames) {
+            methods.put(method, new MethodTimers(method));
+        }
+        this.unknown = new MethodTimers(UNKNOWN_METHOD);
+    }
+
+    /**
+     * 记录一次调用。
+     *
+     * @param method 方法名，可为 {@code null}
+     * @param code   0 表示成功，否则为错误码
+     * @param nanos  耗时纳秒
+     */
+    public void record(String method, int code, long nanos) {
+        MethodTimers timers = method == null ? unknown : methods.getOrDefault(method, unknown);
+        timers.timer(code).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 单个方法的计时器：成功计时器直接持有，错误码计时器按需创建。
+     */
+    private final class MethodTimers {
+        private final String method;
+        private final Timer success;
+        private final Map<Integer, Timer> errors = new ConcurrentHashMap<>();
+
+        /**
+         * 创建成功计时器。
+         */
+        MethodTimers(String method) {
+            this.method = method;
+            this.success = register(0);
+        }
+
+        /**
+         * 返回错误码对应的计时器。
+         */
+        Timer timer(int code) {
+            if (code == 0) {
+                return success;
+            }
+            Timer timer = errors.get(code);
+            return timer != null ? timer : errors.computeIfAbsent(code, this::register);
+        }
+
+        /**
+         * 注册计时器。
+         */
+        private Timer register(int code) {
+            return Timer.builder(METER)
+                    .description("JSON-RPC calls handled by the server")
+                    .tag("endpoint", endpoint)
+                    .tag("method", method)
+                    .tag("code", Integer.toString(code))
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.a2a.server.transport.agent;
 
+import com.example.a2a.server.agent.Deadline;
+import com.example.a2a.server.agent.DeadlineProperties;
 import com.example.a2a.server.core.AgentSessionException;
 import com.example.a2a.server.core.AgentSessionService;
 import com.example.a2a.server.core.AuthorizationService;
 import com.example.a2a.server.core.ConversationContextService;
 import com.example.a2a.server.core.StreamingTaskService;
 import com.example.a2a.server.core.AgentSessionService.SessionRecord;
+import com.example.a2a.server.transport.RpcMetrics;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AckResult;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentMessage;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentRpcRequest;
@@ -19,19 +22,25 @@ import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.DeauthorizePa
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.DeauthorizeResult;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.InitializeResult;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.MessageStreamParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.RateLimitedData;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskCancelParams;
 import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskStatusEnvelope;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -42,11 +51,15 @@ import java.util.Optional;
 @RequestMapping("/agent")
 public class AgentMessageController {
 
-    private final ObjectMapper objectMapper;
+    private final AgentRpcRequestReader requestReader;
     private final AgentSessionService agentSessionService;
     private final AuthorizationService authorizationService;
     private final ConversationContextService conversationContextService;
     private final StreamingTaskService streamingTaskService;
+    private final DeadlineProperties deadlineProperties;
+    private final AgentRateLimiter rateLimiter;
+    private final AttachmentSpooler attachmentSpooler;
+    private final RpcMetrics metrics;
 
     /**
      * 注入控制器依赖。
@@ -55,34 +68,106 @@ public class AgentMessageController {
                                   AgentSessionService agentSessionService,
                                   AuthorizationService authorizationService,
                                   ConversationContextService conversationContextService,
-                                  StreamingTaskService streamingTaskService) {
-        this.objectMapper = objectMapper;
+                                  StreamingTaskService streamingTaskService,
+                                  DeadlineProperties deadlineProperties,
+                                  AgentRateLimiter rateLimiter,
+                                  AttachmentSpooler attachmentSpooler,
+                                  MeterRegistry meterRegistry) {
+        this.requestReader = new AgentRpcRequestReader(objectMapper)
+                .params("message/stream", MessageStreamParams.class)
+                .params("tasks/cancel", TaskCancelParams.class)
+                .params("clearContext", ClearContextParams.class)
+                .params("authorize", AuthorizationParams.class)
+                .params("deauthorize", DeauthorizeParams.class);
         this.agentSessionService = agentSessionService;
         this.authorizationService = authorizationService;
         this.conversationContextService = conversationContextService;
         this.streamingTaskService = streamingTaskService;
+        this.deadlineProperties = deadlineProperties;
+        this.rateLimiter = rateLimiter;
+        this.attachmentSpooler = attachmentSpooler;
+        this.metrics = new RpcMetrics(meterRegistry, "agent", List.of("initialize", "notifications/initialized",
+                "message/stream", "tasks/cancel", "clearContext", "authorize", "deauthorize"));
     }
 
     /**
-     * 分发所有 Agent RPC 调用并根据方法名路由。
+     * 分发所有 Agent RPC 调用并根据方法名路由。请求体由 {@link AgentRpcRequestReader} 单遍读取，
+     * {@code params} 直接绑定为对应方法的参数 DTO。message/stream 的截止时间取自请求头
+     * {@value DeadlineProperties#TIMEOUT_HEADER}、参数 {@code timeoutMs} 或服务端默认值。
+     * <p>
+     * 读取请求体之前先按会话与客户端 IP 经过 {@link AgentRateLimiter}（格式错误的请求同样计数），读出方法后
+     * 再检查方法限额；超出限额的调用返回 429 与
+     * {@value AgentRateLimiter#RATE_LIMITED} 错误，{@code error.data.retryAfterMs} 与 {@code Retry-After}
+     * 头给出重试等待时间。
+     * <p>
+     * 文件部件的内容在解析时落入本请求的 {@link AttachmentSpool}。message/stream 成功返回 SSE 通道时，
+     * 落盘区交给 {@link StreamingTaskService}，在流结束、出错或超时时删除；其余情况在请求返回时删除。
+     * 每次调用按方法与错误码记入 {@link RpcMetrics}；message/stream 只计到返回 SSE 通道为止，流本身的耗时见
+     * {@link StreamingTaskService}。
      */
     @PostMapping("/message")
-    public Object handle(@RequestBody AgentRpcRequest request,
-                         @RequestHeader(value = "agent-session-id", required = false) String agentSessionId) {
+    public Object handle(InputStream body,
+                         @RequestHeader(value = "agent-session-id", required = false) String agentSessionId,
+                         @RequestHeader(value = DeadlineProperties.TIMEOUT_HEADER, required = false)
+                         String timeoutHeader,
+                         HttpServletRequest servletRequest) throws IOException {
+        long started = System.nanoTime();
+        long retryAfterMs = rateLimiter.admit(agentSessionId, servletRequest.getRemoteAddr());
+        if (retryAfterMs > 0) {
+            metrics.record(null, AgentRateLimiter.RATE_LIMITED, System.nanoTime() - started);
+            return rateLimited(null, retryAfterMs);
+        }
+        String method = null;
+        Object response = null;
+        AttachmentSpool spool = attachmentSpooler.open();
+        try {
+            AgentRpcRequestReader.Call call = requestReader.read(body, spool);
+            method = call.request.method;
+            response = dispatch(call, spool, agentSessionId, timeoutHeader, servletRequest);
+        } catch (JsonProcessingException ex) {
+            response = ResponseEntity.badRequest()
+                    .body(AgentRpcResponse.error(null, -32700, "Parse error: " + ex.getOriginalMessage()));
+        } finally {
+            if (!(response instanceof SseEmitter)) {
+                spool.close();
+            }
+        }
+        metrics.record(method, errorCode(response), System.nanoTime() - started);
+        return response;
+    }
+
+    /**
+     * 校验请求、按方法限流并按方法名路由。
+     */
+    private Object dispatch(AgentRpcRequestReader.Call call, AttachmentSpool spool, String agentSessionId,
+                            String timeoutHeader, HttpServletRequest servletRequest) {
+        AgentRpcRequest request = call.request;
+        if (call.invalid) {
+            return ResponseEntity.badRequest()
+                    .body(AgentRpcResponse.error(null, -32600, "Invalid Request: object expected"));
+        }
         if (request.jsonrpc == null || !"2.0".equals(request.jsonrpc)) {
             return ResponseEntity.badRequest()
                     .body(AgentRpcResponse.error(request.id, -32600, "Invalid Request: jsonrpc must be '2.0'"));
         }
+        if (request.method == null) {
+            return AgentRpcResponse.error(request.id, -32601, "Method not found: null");
+        }
+        long retryAfterMs = rateLimiter.acquireMethod(request.method, agentSessionId,
+                servletRequest.getRemoteAddr());
+        if (retryAfterMs > 0) {
+            return rateLimited(request.id, retryAfterMs);
+        }
 
         try {
             return switch (request.method) {
                 case "initialize" -> handleInitialize(request);
                 case "notifications/initialized" -> handleInitialized(request, agentSessionId);
-                case "message/stream" -> handleMessageStream(request, agentSessionId);
-                case "tasks/cancel" -> handleTaskCancel(request, agentSessionId);
-                case "clearContext" -> handleClearContext(request, agentSessionId);
-                case "authorize" -> handleAuthorize(request, agentSessionId);
-                case "deauthorize" -> handleDeauthorize(request, agentSessionId);
+                case "message/stream" -> handleMessageStream(call, spool, agentSessionId, timeoutHeader);
+                case "tasks/cancel" -> handleTaskCancel(call, agentSessionId);
+                case "clearContext" -> handleClearContext(call, agentSessionId);
+                case "authorize" -> handleAuthorize(call, agentSessionId);
+                case "deauthorize" -> handleDeauthorize(call, agentSessionId);
                 default -> AgentRpcResponse.error(request.id, -32601,
                         "Method not found: " + request.method);
             };
@@ -95,6 +180,28 @@ public class AgentMessageController {
         }
     }
 
+    /**
+     * 取出响应中的错误码，成功时为 0。
+     */
+    private static int errorCode(Object response) {
+        Object body = response instanceof ResponseEntity<?> entity ? entity.getBody() : response;
+        return body instanceof AgentRpcResponse<?> rpc && rpc.error != null ? rpc.error.code : 0;
+    }
+
+    /**
+     * 构造限流错误响应：HTTP 429，{@code Retry-After} 按秒向上取整。
+     */
+    private static ResponseEntity<AgentRpcResponse<Object>> rateLimited(String id, long retryAfterMs) {
+        AgentRpcResponse<Object> response = AgentRpcResponse.error(id, AgentRateLimiter.RATE_LIMITED,
+                "Rate limit exceeded, retry after " + retryAfterMs + " ms");
+        RateLimitedData data = new RateLimitedData();
+        data.retryAfterMs = retryAfterMs;
+        response.error.data = data;
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000))
+                .body(response);
+    }
+
     /**
      * 处理 initialize 请求，创建新的会话。
      */
@@ -115,64 +222,63 @@ public class AgentMessageController {
     }
 
     /**
-     * 处理 message/stream 请求，返回 SSE 流。
+     * 处理 message/stream 请求，返回 SSE 流。落盘区随流一起交给 {@link StreamingTaskService}，
+     * 文件部件在流结束前保持可读。
      */
-    private SseEmitter handleMessageStream(AgentRpcRequest request, String agentSessionId)
-            throws JsonProcessingException {
+    private SseEmitter handleMessageStream(AgentRpcRequestReader.Call call, AttachmentSpool spool,
+                                           String agentSessionId, String timeoutHeader) {
         agentSessionService.requireSession(agentSessionId);
 
-        MessageStreamParams params = readParams(request.params, MessageStreamParams.class);
+        MessageStreamParams params = readParams(call, MessageStreamParams.class);
         if (params == null || params.message == null || params.message.parts == null || params.message.parts.isEmpty()) {
             throw new IllegalArgumentException("Invalid params: message with parts required");
         }
+        Deadline deadline = deadlineProperties.resolve(timeoutHeader, params.timeoutMs);
 
         String textQuery = extractTextParam(params.message).orElse("");
-        String summary = buildSummary(request.id, params, agentSessionId);
+        boolean contextEvicted = conversationContextService.append(agentSessionId, params.sessionId, textQuery);
+        String summary = buildSummary(call.request.id, params, agentSessionId, contextEvicted);
 
-        conversationContextService.append(agentSessionId, params.sessionId, textQuery);
-
-        return streamingTaskService.startStream(request.id, params, summary, textQuery);
+        return streamingTaskService.startStream(call.request.id, params, summary, textQuery, deadline, spool);
     }
 
     /**
      * 处理 tasks/cancel 请求，尝试取消指定任务。
      */
-    private AgentRpcResponse<CancelResult> handleTaskCancel(AgentRpcRequest request, String agentSessionId)
-            throws JsonProcessingException {
+    private AgentRpcResponse<CancelResult> handleTaskCancel(AgentRpcRequestReader.Call call, String agentSessionId) {
         agentSessionService.requireSession(agentSessionId);
-        TaskCancelParams params = readParams(request.params, TaskCancelParams.class);
+        TaskCancelParams params = readParams(call, TaskCancelParams.class);
         if (params == null || params.id == null || params.id.isBlank()) {
             throw new IllegalArgumentException("Invalid params: id required");
         }
         CancelResult result = streamingTaskService.cancelTask(params.id);
         if (result == null) {
-            return AgentRpcResponse.error(request.id, -32004, "Task not found");
+            return AgentRpcResponse.error(call.request.id, -32004, "Task not found");
         }
-        return AgentRpcResponse.success(request.id, result);
+        return AgentRpcResponse.success(call.request.id, result);
     }
 
     /**
      * 处理 clearContext 请求，清除对话上下文。
      */
-    private AgentRpcResponse<ClearContextResult> handleClearContext(AgentRpcRequest request, String agentSessionId)
-            throws JsonProcessingException {
+    private AgentRpcResponse<ClearContextResult> handleClearContext(AgentRpcRequestReader.Call call,
+                                                                    String agentSessionId) {
         agentSessionService.requireSession(agentSessionId);
-        ClearContextParams params = readParams(request.params, ClearContextParams.class);
+        ClearContextParams params = readParams(call, ClearContextParams.class);
         conversationContextService.clear(agentSessionId, params != null ? params.sessionId : null);
 
         ClearContextResult result = new ClearContextResult();
         result.status = new TaskStatusEnvelope();
         result.status.state = "cleared";
-        return AgentRpcResponse.success(request.id, result);
+        return AgentRpcResponse.success(call.request.id, result);
     }
 
     /**
      * 处理 authorize 请求，创建登录会话。
      */
-    private AgentRpcResponse<AuthorizeResult> handleAuthorize(AgentRpcRequest request, String agentSessionId)
-            throws JsonProcessingException {
+    private AgentRpcResponse<AuthorizeResult> handleAuthorize(AgentRpcRequestReader.Call call, String agentSessionId) {
         agentSessionService.requireSession(agentSessionId);
-        AuthorizationParams params = readParams(request.params, AuthorizationParams.class);
+        AuthorizationParams params = readParams(call, AuthorizationParams.class);
         String authCode = extractDataField(params != null ? params.message : null, "authCode")
                 .orElseThrow(() -> new IllegalArgumentException("Invalid params: authCode required"));
 
@@ -181,32 +287,33 @@ public class AgentMessageController {
 
         AuthorizeResult result = new AuthorizeResult();
         result.agentLoginSessionId = record.agentLoginSessionId;
-        return AgentRpcResponse.success(request.id, result);
+        return AgentRpcResponse.success(call.request.id, result);
     }
 
     /**
      * 处理 deauthorize 请求，撤销登录会话。
      */
-    private AgentRpcResponse<DeauthorizeResult> handleDeauthorize(AgentRpcRequest request, String agentSessionId)
-            throws JsonProcessingException {
+    private AgentRpcResponse<DeauthorizeResult> handleDeauthorize(AgentRpcRequestReader.Call call,
+                                                                  String agentSessionId) {
         agentSessionService.requireSession(agentSessionId);
-        DeauthorizeParams params = readParams(request.params, DeauthorizeParams.class);
+        DeauthorizeParams params = readParams(call, DeauthorizeParams.class);
         String agentLoginSessionId = extractDataField(params != null ? params.message : null, "agentLoginSessionId")
                 .orElseThrow(() -> new IllegalArgumentException("Invalid params: agentLoginSessionId required"));
 
         boolean removed = authorizationService.revokeLogin(agentLoginSessionId);
         if (!removed) {
-            return AgentRpcResponse.error(request.id, -32005, "agentLoginSessionId not found");
+            return AgentRpcResponse.error(call.request.id, -32005, "agentLoginSessionId not found");
         }
 
         DeauthorizeResult result = new DeauthorizeResult();
-        return AgentRpcResponse.success(request.id, result);
+        return AgentRpcResponse.success(call.request.id, result);
     }
 
     /**
-     * 构造流式任务摘要，记录关键标识。
+     * 构造流式任务摘要，记录关键标识；上下文因内存预算被淘汰时附加 {@code contextEvicted=true}。
      */
-    private String buildSummary(String requestId, MessageStreamParams params, String agentSessionId) {
+    private String buildSummary(String requestId, MessageStreamParams params, String agentSessionId,
+                                boolean contextEvicted) {
         StringBuilder builder = new StringBuilder("message/stream requestId=")
                 .append(requestId == null ? "<unknown>" : requestId)
                 .append(" taskId=")
@@ -220,6 +327,9 @@ public class AgentMessageController {
         if (agentSessionId != null && !agentSessionId.isBlank()) {
             builder.append(" agentSessionId=").append(agentSessionId);
         }
+        if (contextEvicted) {
+            builder.append(" contextEvicted=true");
+        }
         return builder.toString();
     }
 
@@ -252,12 +362,12 @@ public class AgentMessageController {
     }
 
     /**
-     * 将 JSON 参数节点转换为指定类型。
+     * 取出读取器已绑定的参数；绑定失败时以 {@code Invalid params} 报告。
      */
-    private <T> T readParams(JsonNode node, Class<T> type) throws JsonProcessingException {
-        if (node == null || node.isNull()) {
-            return null;
+    private static <T> T readParams(AgentRpcRequestReader.Call call, Class<T> type) {
+        if (call.paramsError != null) {
+            throw new IllegalArgumentException("Invalid params: " + call.paramsError.getOriginalMessage());
         }
-        return objectMapper.treeToValue(node, type);
+        return type.isInstance(call.request.params) ? type.cast(call.request.params) : null;
     }
 }
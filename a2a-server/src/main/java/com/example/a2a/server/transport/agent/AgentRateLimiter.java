@@ -0,0 +1,210 @@
+package com.example.a2a.server.transport.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /agent/message} 的调用方限流：检查 {@code agent-session-id}、客户端 IP 与“方法 + 调用方”
+ * 三个维度的令牌桶，任一维度耗尽即拒绝，并给出最早可重试的时间。
+ * <p>
+ * 会话与 IP 只依赖请求头，由 {@link #admit(String, String)} 在读取请求体之前检查，格式错误的请求同样计数，
+ * 被拒绝的调用方不会触发请求体解析与附件落盘；方法维度在读出方法名后由
+ * {@link #acquireMethod(String, String, String)} 检查。
+ * <p>
+ * 每个维度一张 {@link TokenBucketTable}，放行路径在每个维度上只有一次哈希计算与一次 CAS，不分配对象；方法限额在
+ * 启动时换算成纳秒并按方法名建表，运行期只读。方法维度以会话 ID 区分调用方，没有会话（如
+ * {@code initialize}）时退回 IP。拒绝次数通过 {@code a2a.ratelimit.rejected}（按 {@code dimension}
+ * 标签区分）暴露。
+ */
+@Component
+public class AgentRateLimiter {
+
+    /**
+     * 请求被限流时的 JSON-RPC 错误码。
+     */
+    public static final int RATE_LIMITED = -32029;
+
+    private final boolean enabled;
+    private final long origin = System.nanoTime() - 1;
+    private final TokenBucketTable sessions;
+    private final TokenBucketTable ips;
+    private final TokenBucketTable methods;
+    private final Rate sessionRate;
+    private final Rate ipRate;
+    private final Map<String, MethodRate> methodRates = new HashMap<>();
+    private final Counter sessionRejected;
+    private final Counter ipRejected;
+    private final Counter methodRejected;
+
+    /**
+     * 按配置创建各维度的桶表。
+     *
+     * @param properties    限流配置
+     * @param meterRegistry 指标注册表
+     */
+    public AgentRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        long idleNanos = properties.getIdleAfter().toNanos();
+        this.sessions = new TokenBucketTable(properties.getTableSize(), idleNanos);
+        this.ips = new TokenBucketTable(properties.getTableSize(), idleNanos);
+        this.methods = new TokenBucketTable(properties.getTableSize(), idleNanos);
+        this.sessionRate = Rate.of(properties.getSession());
+        this.ipRate = Rate.of(properties.getIp());
+        properties.getMethods().forEach((method, limit) -> {
+            Rate rate = Rate.of(limit);
+            if (rate != null) {
+                methodRates.put(method, new MethodRate(TokenBucketTable.hash(method), rate));
+            }
+        });
+        this.sessionRejected = rejected(meterRegistry, "session");
+        this.ipRejected = rejected(meterRegistry, "ip");
+        this.methodRejected = rejected(meterRegistry, "method");
+    }
+
+    /**
+     * 读取请求体之前按会话与客户端 IP 取令牌。
+     *
+     * @param agentSessionId 请求头中的会话 ID，可为 {@code null}
+     * @param clientIp       客户端 IP，可为 {@code null}
+     * @return 0 表示放行，否则为建议的重试等待毫秒数（至少 1）
+     */
+    public long admit(String agentSessionId, String clientIp) {
+        if (!enabled) {
+            return 0;
+        }
+        return admit(agentSessionId, clientIp, System.nanoTime() - origin);
+    }
+
+    /**
+     * 读出方法名后按“方法 + 调用方”取令牌，没有配置该方法的限额时直接放行。
+     *
+     * @param method         JSON-RPC 方法名，可为 {@code null}
+     * @param agentSessionId 请求头中的会话 ID，可为 {@code null}
+     * @param clientIp       客户端 IP，可为 {@code null}
+     * @return 0 表示放行，否则为建议的重试等待毫秒数（至少 1）
+     */
+    public long acquireMethod(String method, String agentSessionId, String clientIp) {
+        if (!enabled) {
+            return 0;
+        }
+        return acquireMethod(method, agentSessionId, clientIp, System.nanoTime() - origin);
+    }
+
+    /**
+     * 以指定时间在全部维度上取令牌，等价于先 {@link #admit(String, String)} 再
+     * {@link #acquireMethod(String, String, String)}，供测试控制时钟。
+     */
+    long acquire(String method, String agentSessionId, String clientIp, long now) {
+        long wait = admit(agentSessionId, clientIp, now);
+        return wait > 0 ? wait : acquireMethod(method, agentSessionId, clientIp, now);
+    }
+
+    /**
+     * 以指定时间按方法取令牌。
+     */
+    long acquireMethod(String method, String agentSessionId, String clientIp, long now) {
+        MethodRate methodRate = method != null ? methodRates.get(method) : null;
+        if (methodRate == null) {
+            return 0;
+        }
+        long caller = agentSessionId != null && !agentSessionId.isEmpty()
+                ? TokenBucketTable.hash(agentSessionId)
+                : clientIp != null ? TokenBucketTable.hash(clientIp) : 0;
+        long wait = methods.tryAcquire(TokenBucketTable.combine(methodRate.hash, caller), now,
+                methodRate.rate.intervalNanos, methodRate.rate.capacityNanos);
+        if (wait > 0) {
+            methodRejected.increment();
+            return toMillis(wait);
+        }
+        return 0;
+    }
+
+    /**
+     * 以指定时间按会话与 IP 取令牌。
+     */
+    long admit(String agentSessionId, String clientIp, long now) {
+        boolean hasSession = agentSessionId != null && !agentSessionId.isEmpty();
+        if (hasSession && sessionRate != null) {
+            long sessionKey = TokenBucketTable.hash(agentSessionId);
+            long wait = sessions.tryAcquire(sessionKey, now, sessionRate.intervalNanos, sessionRate.capacityNanos);
+            if (wait > 0) {
+                sessionRejected.increment();
+                return toMillis(wait);
+            }
+        }
+        if (clientIp != null && ipRate != null) {
+            long wait = ips.tryAcquire(TokenBucketTable.hash(clientIp), now,
+                    ipRate.intervalNanos, ipRate.capacityNanos);
+            if (wait > 0) {
+                ipRejected.increment();
+                return toMillis(wait);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 纳秒向上取整为毫秒。
+     */
+    private static long toMillis(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * 注册拒绝计数器。
+     */
+    private static Counter rejected(MeterRegistry meterRegistry, String dimension) {
+        return Counter.builder("a2a.ratelimit.rejected")
+                .description("Requests rejected by the /agent/message rate limiter")
+                .tag("dimension", dimension)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 换算为纳秒的令牌桶参数。
+     */
+    private static final class Rate {
+        final long intervalNanos;
+        final long capacityNanos;
+
+        /**
+         * 创建参数。
+         */
+        private Rate(long intervalNanos, long capacityNanos) {
+            this.intervalNanos = intervalNanos;
+            this.capacityNanos = capacityNanos;
+        }
+
+        /**
+         * 由配置换算，速率或容量不是正数时表示不限流，返回 {@code null}。
+         */
+        static Rate of(RateLimitProperties.Limit limit) {
+            if (limit == null || limit.getRatePerSecond() <= 0 || limit.getBurst() <= 0) {
+                return null;
+            }
+            long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRatePerSecond()));
+            return new Rate(interval, interval * limit.getBurst());
+        }
+    }
+
+    /**
+     * 方法名哈希与其限额。
+     */
+    private static final class MethodRate {
+        final long hash;
+        final Rate rate;
+
+        /**
+         * 创建方法限额。
+         */
+        MethodRate(long hash, Rate rate) {
+            this.hash = hash;
+            this.rate = rate;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.a2a.server.transport.agent;
+
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentRpcRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 以流式解析器单遍读取 {@code /agent/message} 请求体，先确定 {@code method}，再把 {@code params}
+ * 直接绑定为该方法的参数 DTO（如 {@code MessageStreamParams}、{@code TaskCancelParams}）。
+ * <p>
+ * 以往先把整个 {@code params} 构造成 {@code JsonNode} 树，再用 {@code treeToValue} 转换一次，
+ * 大体积的 message/stream 载荷因此被解析两遍并以树的形式常驻。这里 {@code method} 先于
+ * {@code params} 出现时（常见写法）读到参数即直接绑定；{@code params} 先出现时复制进
+ * {@link TokenBuffer}，待读到 {@code method} 后再从缓冲绑定。未登记参数类型的方法直接跳过参数。
+ * 参数绑定失败不会中断读取，而是记录在 {@link Call#paramsError} 中，由控制器在会话校验之后报告。
+ * <p>
+ * 传入 {@link AttachmentSpool} 时，文件部件的 {@code bytes} 由 {@link SpooledAttachmentDeserializer}
+ * 直接从解析器流式解码落盘；{@code params} 先于 {@code method} 出现时 base64 文本会先进入
+ * {@link TokenBuffer}，仍受请求字节上限约束，只是失去了流式解码的内存优势。
+ */
+final class AgentRpcRequestReader {
+
+    private final JsonFactory jsonFactory;
+    private final ObjectCodec codec;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ObjectReader> paramsReaders = new HashMap<>();
+
+    /**
+     * 创建读取器。
+     *
+     * @param objectMapper 提供解析工厂、参数读取器与缓冲回放所需的编解码器
+     */
+    AgentRpcRequestReader(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.codec = objectMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 登记方法的参数类型，并为其预先准备读取器；应在处理请求前完成。
+     *
+     * @param method     方法名
+     * @param paramsType 参数 DTO 类型
+     * @return 当前读取器，便于链式登记
+     */
+    AgentRpcRequestReader params(String method, Class<?> paramsType) {
+        paramsReaders.put(method, objectMapper.readerFor(paramsType));
+        return this;
+    }
+
+    /**
+     * 读取整个请求体。
+     *
+     * @param in 请求体
+     * @return 解析结果
+     * @throws JsonParseException 请求体为空、不是合法 JSON 或含有多余内容
+     * @throws IOException        读取失败
+     */
+    Call read(InputStream in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * 读取整个请求体，文件部件解码进给定的落盘区。
+     *
+     * @param in    请求体
+     * @param spool 本请求的附件落盘区，为 {@code null} 时附件解码到堆内
+     * @return 解析结果
+     * @throws JsonParseException 请求体为空、不是合法 JSON 或含有多余内容
+     * @throws IOException        读取失败
+     */
+    Call read(InputStream in, AttachmentSpool spool) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            parser.setCodec(codec);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Empty request body");
+            }
+            Call call = readCall(parser, spool);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after request");
+            }
+            return call;
+        }
+    }
+
+    /**
+     * 读取解析器当前位置的请求对象；不是对象时跳过该值并标记为无效请求。
+     */
+    private Call readCall(JsonParser parser, AttachmentSpool spool) throws IOException {
+        Call call = new Call();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            call.invalid = true;
+            return call;
+        }
+        TokenBuffer pendingParams = null;
+        boolean methodSeen = false;
+        ObjectReader paramsReader = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "jsonrpc" -> call.request.jsonrpc = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "id" -> {
+                    call.request.id = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                    parser.skipChildren();
+                }
+                case "method" -> {
+                    methodSeen = true;
+                    call.request.method = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    paramsReader = call.request.method == null ? null : paramsReaders.get(call.request.method);
+                    if (paramsReader != null && spool != null) {
+                        paramsReader = paramsReader.withAttribute(AttachmentSpool.ATTRIBUTE, spool);
+                    }
+                    parser.skipChildren();
+                }
+                case "params" -> {
+                    if (methodSeen) {
+                        bindParams(call, paramsReader, parser);
+                    } else {
+                        pendingParams = new TokenBuffer(parser);
+                        pendingParams.copyCurrentStructure(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (pendingParams != null) {
+            try (JsonParser buffered = pendingParams.asParser(codec)) {
+                buffered.nextToken();
+                bindParams(call, paramsReader, buffered);
+            }
+        }
+        return call;
+    }
+
+    /**
+     * 按参数读取器绑定 {@code params}；没有读取器时跳过，绑定失败时记录异常并跳到参数值末尾。
+     */
+    private static void bindParams(Call call, ObjectReader paramsReader, JsonParser parser) throws IOException {
+        if (paramsReader == null) {
+            parser.skipChildren();
+            return;
+        }
+        JsonStreamContext owner = parser.currentToken().isStructStart()
+                ? parser.getParsingContext().getParent()
+                : parser.getParsingContext();
+        try {
+            call.request.params = paramsReader.readValue(parser);
+        } catch (JsonMappingException e) {
+            call.paramsError = e;
+            while (parser.getParsingContext() != owner) {
+                if (parser.nextToken() == null) {
+                    throw new JsonParseException(parser, "Unterminated params");
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个请求的解析结果：请求字段（{@code params} 已是参数 DTO）、是否不是对象以及参数绑定异常。
+     */
+    static final class Call {
+        final AgentRpcRequest request = new AgentRpcRequest();
+        boolean invalid;
+        JsonMappingException paramsError;
+    }
+}
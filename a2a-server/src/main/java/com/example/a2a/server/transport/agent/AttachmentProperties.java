@@ -0,0 +1,51 @@
+package com.example.a2a.server.transport.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code /agent/message} 文件部件的落盘配置，对应 {@code a2a.attachments.*}。{@code file.bytes} 中的 base64
+ * 在解析时边读边解码，解码后不超过 {@link #memoryThreshold} 的附件留在堆内，更大的写入 {@link #directory}
+ * 下的临时文件；单个请求全部附件的解码字节数超过 {@link #maxRequestBytes} 时以参数错误拒绝。
+ */
+@ConfigurationProperties(prefix = "a2a.attachments")
+public class AttachmentProperties {
+
+    /**
+     * 留在堆内的单个附件字节数上限，超出后转存临时文件。
+     */
+    private int memoryThreshold = 64 * 1024;
+
+    /**
+     * 单个请求所有附件解码后的字节数上限。
+     */
+    private long maxRequestBytes = 32L * 1024 * 1024;
+
+    /**
+     * 临时文件目录，为空时使用 {@code java.io.tmpdir} 下的 {@code a2a-attachments}。
+     */
+    private String directory = "";
+
+    public int getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    public void setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    public long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    public void setMaxRequestBytes(long maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+}
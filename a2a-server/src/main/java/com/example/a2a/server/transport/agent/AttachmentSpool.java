@@ -0,0 +1,198 @@
+package com.example.a2a.server.transport.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个请求的附件落盘区：记录该请求解码出的附件字节总量并持有其临时文件，{@link #close()} 时全部删除。
+ * 写临时文件经由池化的直接缓冲区，解码后的内容不会在堆内整体出现。写入只发生在解析请求的线程上；
+ * 之后落盘区可能交给流式任务，由其他线程只读并关闭一次，不需要同步。
+ */
+public final class AttachmentSpool implements AutoCloseable {
+
+    /**
+     * 解析时通过 Jackson 上下文属性传递落盘区所用的键。
+     */
+    static final String ATTRIBUTE = AttachmentSpool.class.getName();
+
+    private final AttachmentSpooler.BufferPool buffers;
+    private final Path directory;
+    private final int memoryThreshold;
+    private final long maxRequestBytes;
+    private final List<Path> files = new ArrayList<>();
+    private long usedBytes;
+
+    /**
+     * 创建落盘区。
+     *
+     * @param buffers         写临时文件所用的直接缓冲区池
+     * @param directory       临时文件目录，需已存在
+     * @param memoryThreshold 留在堆内的单个附件字节数上限
+     * @param maxRequestBytes 本请求所有附件的字节数上限
+     */
+    AttachmentSpool(AttachmentSpooler.BufferPool buffers, Path directory, int memoryThreshold,
+                    long maxRequestBytes) {
+        this.buffers = buffers;
+        this.directory = directory;
+        this.memoryThreshold = Math.max(0, memoryThreshold);
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    /**
+     * 为一个附件创建写入端。
+     *
+     * @return 写入端
+     */
+    Sink newSink() {
+        return new Sink();
+    }
+
+    /**
+     * 本请求已解码的附件字节数。
+     *
+     * @return 字节数
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 删除本请求创建的全部临时文件。
+     */
+    @Override
+    public void close() {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // 目录在启动时清理，残留文件不影响正确性
+            }
+        }
+        files.clear();
+    }
+
+    /**
+     * 附件字节数超过请求上限。
+     */
+    static final class LimitExceededException extends IOException {
+
+        /**
+         * 创建异常。
+         */
+        LimitExceededException(long limit) {
+            super("attachments exceed " + limit + " bytes per request");
+        }
+    }
+
+    /**
+     * 单个附件的写入端：先写入堆内缓冲，超过阈值后把已写内容连同后续字节转入临时文件。
+     */
+    final class Sink extends OutputStream {
+
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream(256);
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private Path file;
+        private long size;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (usedBytes + len > maxRequestBytes) {
+                throw new LimitExceededException(maxRequestBytes);
+            }
+            usedBytes += len;
+            size += len;
+            if (channel == null && size <= memoryThreshold) {
+                memory.write(b, off, len);
+                return;
+            }
+            if (channel == null) {
+                spill();
+            }
+            while (len > 0) {
+                int chunk = Math.min(len, buffer.remaining());
+                buffer.put(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+                if (!buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+            }
+        }
+
+        /**
+         * 完成写入并返回附件内容。
+         *
+         * @return 附件内容
+         * @throws IOException 写临时文件失败
+         */
+        SpooledAttachment finish() throws IOException {
+            if (channel == null) {
+                return new SpooledAttachment(memory.toByteArray(), null, size);
+            }
+            close();
+            return new SpooledAttachment(null, file, size);
+        }
+
+        /**
+         * 关闭临时文件并归还直接缓冲区，可重复调用。
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel != null && channel.isOpen()) {
+                try {
+                    flushBuffer();
+                } finally {
+                    channel.close();
+                    buffers.release(buffer);
+                    buffer = null;
+                }
+            }
+        }
+
+        /**
+         * 创建临时文件并把堆内缓冲中已有的内容写入。
+         */
+        private void spill() throws IOException {
+            file = Files.createTempFile(directory, "part-", ".bin");
+            files.add(file);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            buffer = buffers.acquire();
+            ByteBuffer buffered = ByteBuffer.wrap(memory.toByteArray());
+            while (buffered.hasRemaining()) {
+                channel.write(buffered);
+            }
+            memory = null;
+        }
+
+        /**
+         * 把直接缓冲区中的内容写入临时文件。
+         */
+        private void flushBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
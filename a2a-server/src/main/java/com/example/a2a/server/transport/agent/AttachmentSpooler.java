@@ -0,0 +1,108 @@
+package com.example.a2a.server.transport.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * 为每个 {@code /agent/message} 请求创建 {@link AttachmentSpool}，并持有临时文件目录与直接缓冲区池。
+ * 启动时清空目录中上次运行遗留的临时文件。
+ */
+@Component
+public class AttachmentSpooler {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentSpooler.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOLED_BUFFERS = 32;
+
+    private final Path directory;
+    private final int memoryThreshold;
+    private final long maxRequestBytes;
+    private final BufferPool buffers = new BufferPool(POOLED_BUFFERS, BUFFER_SIZE);
+
+    /**
+     * 按配置准备临时文件目录。
+     *
+     * @param properties 附件配置
+     */
+    public AttachmentSpooler(AttachmentProperties properties) {
+        String configured = properties.getDirectory();
+        this.directory = configured == null || configured.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "a2a-attachments")
+                : Paths.get(configured);
+        this.memoryThreshold = properties.getMemoryThreshold();
+        this.maxRequestBytes = properties.getMaxRequestBytes();
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> stale = Files.list(directory)) {
+                stale.filter(path -> path.getFileName().toString().startsWith("part-"))
+                        .forEach(path -> {
+                            try {
+                                Files.deleteIfExists(path);
+                            } catch (IOException e) {
+                                log.warn("Failed to delete stale attachment {}", path, e);
+                            }
+                        });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare attachment directory " + directory, e);
+        }
+    }
+
+    /**
+     * 为一个请求创建落盘区，请求处理结束后必须关闭。
+     *
+     * @return 落盘区
+     */
+    public AttachmentSpool open() {
+        return new AttachmentSpool(buffers, directory, memoryThreshold, maxRequestBytes);
+    }
+
+    /**
+     * 有界的直接缓冲区池：池空时临时分配，池满时丢弃归还的缓冲区。
+     */
+    static final class BufferPool {
+
+        private final ArrayBlockingQueue<ByteBuffer> pool;
+        private final int bufferSize;
+
+        /**
+         * 创建缓冲区池。
+         *
+         * @param capacity   池中最多保留的缓冲区数
+         * @param bufferSize 单个缓冲区大小
+         */
+        BufferPool(int capacity, int bufferSize) {
+            this.pool = new ArrayBlockingQueue<>(capacity);
+            this.bufferSize = bufferSize;
+        }
+
+        /**
+         * 取出一个已清空的缓冲区。
+         */
+        ByteBuffer acquire() {
+            ByteBuffer buffer = pool.poll();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        /**
+         * 归还缓冲区。
+         */
+        void release(ByteBuffer buffer) {
+            if (buffer != null) {
+                buffer.clear();
+                pool.offer(buffer);
+            }
+        }
+    }
+}
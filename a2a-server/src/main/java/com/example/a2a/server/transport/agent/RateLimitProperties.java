@@ -0,0 +1,145 @@
+package com.example.a2a.server.transport.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /agent/message} 限流配置，对应 {@code a2a.rate-limit.*}。按 {@code agent-session-id}、客户端 IP
+ * 以及“方法 + 调用方”三个维度各自做令牌桶限流，每个维度的桶表大小固定，空闲超过 {@link #idleAfter}
+ * 的桶可被新的调用方复用。
+ */
+@ConfigurationProperties(prefix = "a2a.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个维度的桶表槽位数，向上取整为 2 的幂。
+     */
+    private int tableSize = 65536;
+
+    /**
+     * 桶在补满后保持空闲多久即可被其他调用方复用。
+     */
+    private Duration idleAfter = Duration.ofMinutes(10);
+
+    /**
+     * 每个 {@code agent-session-id} 的限额。
+     */
+    private Limit session = new Limit(20, 40);
+
+    /**
+     * 每个客户端 IP 的限额。
+     */
+    private Limit ip = new Limit(100, 200);
+
+    /**
+     * 按方法名配置的限额，以调用方的会话 ID（没有时用 IP）区分；未配置的方法不做方法级限流。
+     */
+    private Map<String, Limit> methods = new LinkedHashMap<>(Map.of(
+            "initialize", new Limit(2, 20),
+            "message/stream", new Limit(10, 20)));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    public void setTableSize(int tableSize) {
+        this.tableSize = tableSize;
+    }
+
+    public Duration getIdleAfter() {
+        return idleAfter;
+    }
+
+    public void setIdleAfter(Duration idleAfter) {
+        this.idleAfter = idleAfter;
+    }
+
+    public Limit getSession() {
+        return session;
+    }
+
+    public void setSession(Limit session) {
+        this.session = session;
+    }
+
+    public Limit getIp() {
+        return ip;
+    }
+
+    public void setIp(Limit ip) {
+        this.ip = ip;
+    }
+
+    public Map<String, Limit> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Map<String, Limit> methods) {
+        this.methods = methods;
+    }
+
+    /**
+     * 单个令牌桶的参数。
+     */
+    public static class Limit {
+
+        /**
+         * 每秒补充的令牌数。
+         */
+        private double ratePerSecond;
+
+        /**
+         * 桶容量，即允许的突发请求数。
+         */
+        private int burst;
+
+        /**
+         * 默认构造函数，供配置绑定使用。
+         */
+        public Limit() {
+        }
+
+        /**
+         * 指定速率与容量。
+         *
+         * @param ratePerSecond 每秒补充的令牌数
+         * @param burst         桶容量
+         */
+        public Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+}
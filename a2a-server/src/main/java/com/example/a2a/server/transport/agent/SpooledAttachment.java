@@ -0,0 +1,56 @@
+package com.example.a2a.server.transport.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 一个已解码的文件部件内容：小附件是堆内字节，大附件是 {@link AttachmentSpool} 管理的临时文件。
+ * 内容在所属 {@link AttachmentSpool} 关闭前有效：message/stream 中落盘区随流交给任务、流结束时关闭，
+ * 其余请求返回时即关闭；需要更久保留的调用方应自行转存。
+ */
+public final class SpooledAttachment {
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+
+    /**
+     * 创建附件内容，{@code bytes} 与 {@code file} 二选一。
+     */
+    SpooledAttachment(byte[] bytes, Path file, long size) {
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * 解码后的字节数。
+     *
+     * @return 字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 内容是否留在堆内。
+     *
+     * @return 堆内时返回 true
+     */
+    public boolean inMemory() {
+        return file == null;
+    }
+
+    /**
+     * 打开内容的输入流，可多次打开。
+     *
+     * @return 输入流，由调用方关闭
+     * @throws IOException 临时文件已被删除或无法读取
+     */
+    public InputStream openStream() throws IOException {
+        return file == null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+    }
+}
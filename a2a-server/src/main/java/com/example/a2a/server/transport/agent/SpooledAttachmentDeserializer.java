@@ -0,0 +1,39 @@
+package com.example.a2a.server.transport.agent;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.IOException;
+
+/**
+ * 把文件部件的 base64 {@code bytes} 边读边解码进 {@link AttachmentSpool}，解析器不会把整段 base64
+ * 文本或解码结果整体放进堆内。上下文中没有落盘区时（如单独使用 {@code ObjectMapper} 的测试）
+ * 退回一次性解码到堆内。超出请求字节上限时以 {@link JsonMappingException} 报告，
+ * 由 {@link AgentRpcRequestReader} 记为参数错误。
+ */
+public class SpooledAttachmentDeserializer extends JsonDeserializer<SpooledAttachment> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpooledAttachment deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            return (SpooledAttachment) ctxt.handleUnexpectedToken(SpooledAttachment.class, p);
+        }
+        Object attribute = ctxt.getAttribute(AttachmentSpool.ATTRIBUTE);
+        if (!(attribute instanceof AttachmentSpool spool)) {
+            byte[] bytes = p.getBinaryValue(ctxt.getBase64Variant());
+            return new SpooledAttachment(bytes, null, bytes.length);
+        }
+        try (AttachmentSpool.Sink sink = spool.newSink()) {
+            p.readBinaryValue(ctxt.getBase64Variant(), sink);
+            return sink.finish();
+        } catch (AttachmentSpool.LimitExceededException e) {
+            throw JsonMappingException.from(p, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.a2a.server.transport.agent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定大小、无锁的令牌桶表。
+ * <p>
+ * 每个桶只用一个 {@code long} 表示：按 GCRA（通用信元速率算法）保存“理论到达时间” TAT，等价于令牌桶，
+ * 但取令牌只需一次 CAS，不需要同时维护令牌数与补充时间。TAT 不晚于当前时间表示桶已补满，因此补满后
+ * 空闲超过 {@code idleNanos} 的桶不携带任何状态，可以直接交给新的键复用，内存占用与调用方数量无关。
+ * <p>
+ * 键是调用方标识的 64 位哈希，按哈希分散到槽位，在 {@value #PROBES} 个相邻槽位内线性探测；探测窗口内
+ * 没有本键、空槽或可复用的槽时，挤掉窗口内最早补满的桶，被挤掉的调用方下次访问时按满桶重新计数。
+ * 槽位被并发复用时个别请求可能计入新键的桶，这是以无锁换来的近似。连续 {@value #MAX_RETRIES} 次
+ * 争抢不到槽位时按拒绝处理（要求等待一个补充间隔），高并发冲击下不会退化为放行。
+ */
+final class TokenBucketTable {
+
+    private static final int PROBES = 8;
+    private static final int MAX_RETRIES = 4;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray tats;
+    private final int mask;
+    private final long idleNanos;
+
+    /**
+     * 创建桶表。
+     *
+     * @param size      槽位数，向上取整为 2 的幂
+     * @param idleNanos 桶补满后可被复用前的空闲时间
+     */
+    TokenBucketTable(int size, long idleNanos) {
+        int capacity = Integer.highestOneBit(Math.max(PROBES, size - 1)) << 1;
+        this.keys = new AtomicLongArray(capacity);
+        this.tats = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.idleNanos = Math.max(0, idleNanos);
+    }
+
+    /**
+     * 尝试为键取一个令牌。
+     *
+     * @param key            调用方哈希，见 {@link #hash(CharSequence)}
+     * @param now            当前时间（纳秒，单调递增且为正）
+     * @param intervalNanos  补充一个令牌所需的纳秒数
+     * @param capacityNanos  桶容量对应的纳秒数，即 {@code intervalNanos * burst}
+     * @return 0 表示放行，否则为需要等待的纳秒数；争抢不到槽位时返回 {@code intervalNanos}
+     */
+    long tryAcquire(long key, long now, long intervalNanos, long capacityNanos) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            int slot = slotFor(key, now);
+            if (slot < 0) {
+                continue;
+            }
+            while (true) {
+                long tat = tats.get(slot);
+                long next = Math.max(tat, now) + intervalNanos;
+                long excess = next - now - capacityNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (tats.compareAndSet(slot, tat, next)) {
+                    return 0;
+                }
+            }
+        }
+        return intervalNanos;
+    }
+
+    /**
+     * 找到键所在的槽位，没有时占用空槽、可复用的槽或窗口内最早补满的槽；并发争抢失败时返回 -1。
+     */
+    private int slotFor(long key, long now) {
+        int base = (int) (key ^ (key >>> 32)) & mask;
+        int victim = -1;
+        long victimKey = 0;
+        long victimTat = Long.MAX_VALUE;
+        boolean reusable = false;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (base + i) & mask;
+            long current = keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (reusable) {
+                continue;
+            }
+            long tat = tats.get(slot);
+            if (current == 0 || tat + idleNanos < now) {
+                victim = slot;
+                victimKey = current;
+                reusable = true;
+            } else if (tat < victimTat) {
+                victim = slot;
+                victimKey = current;
+                victimTat = tat;
+            }
+        }
+        if (!keys.compareAndSet(victim, victimKey, key)) {
+            return -1;
+        }
+        if (!reusable) {
+            // 被挤掉的桶尚未补满，新键从满桶开始
+            tats.set(victim, 0);
+        }
+        return victim;
+    }
+
+    /**
+     * 计算字符串的 64 位哈希（FNV-1a 加 murmur 终结混合），保证非零。
+     *
+     * @param value 字符串
+     * @return 哈希值
+     */
+    static long hash(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return finish(h);
+    }
+
+    /**
+     * 把两个哈希组合为一个键，用于“方法 + 调用方”这类复合维度。
+     *
+     * @param first  第一个哈希
+     * @param second 第二个哈希
+     * @return 组合后的哈希，非零
+     */
+    static long combine(long first, long second) {
+        return finish(first * 0x9e3779b97f4a7c15L + second);
+    }
+
+    /**
+     * murmur3 的 64 位终结混合，结果为 0 时换成 1，0 保留给空槽。
+     */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.a2a.server.transport.agent.dto;
 
+import com.example.a2a.server.transport.agent.SpooledAttachment;
+import com.example.a2a.server.transport.agent.SpooledAttachmentDeserializer;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.util.List;
 
@@ -25,7 +28,7 @@ public final class AgentJsonRpcDtos {
         public String jsonrpc;
         public String id;
         public String method;
-        public JsonNode params;
+        public Object params; // 由 AgentRpcRequestReader 按方法直接绑定为对应的参数 DTO
     }
 
     /**
@@ -67,6 +70,8 @@ public final class AgentJsonRpcDtos {
     public static class AgentRpcError {
         public int code;
         public String message;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Object data; // 可选的附加信息，如限流时的 retryAfterMs
 
         /**
          * 默认构造函数，方便序列化。
@@ -83,6 +88,13 @@ public final class AgentJsonRpcDtos {
         }
     }
 
+    /**
+     * 限流错误的附加信息。
+     */
+    public static class RateLimitedData {
+        public long retryAfterMs;
+    }
+
     /**
      * initialize 方法的响应结果。
      */
@@ -143,6 +155,8 @@ public final class AgentJsonRpcDtos {
         public String id;
         public String sessionId;
         public String agentLoginSessionId;
+        public String skillId; // 可选，缺省使用默认技能
+        public Long timeoutMs; // 可选，相对超时毫秒，请求头优先
         public AgentMessage message;
     }
 
@@ -166,12 +180,14 @@ public final class AgentJsonRpcDtos {
     }
 
     /**
-     * Agent 消息中的文件部件。
+     * Agent 消息中的文件部件。{@code bytes} 在解析时流式解码并按大小落盘，message/stream
+     * 中在整个流期间有效，其余方法只在请求处理期间有效；{@code uri} 原样交给任务，服务端不读取其内容。
      */
     public static class AgentFilePart {
         public String name;
         public String mimeType;
-        public String bytes;
+        @JsonDeserialize(using = SpooledAttachmentDeserializer.class)
+        public SpooledAttachment bytes;
         public String uri;
     }
 
@@ -0,0 +1,172 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DatasetWeatherBackendTest {
+
+    private static final long BASE_HOUR = 490_000L;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DatasetWeatherBackend backend;
+
+    @AfterEach
+    void tearDown() {
+        if (backend != null) {
+            backend.close();
+        }
+    }
+
+    @Test
+    void readsForecastByLocationAndHourBucket() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        writeTwoCities(file, (short) 125, (short) -35);
+        backend = newBackend(file, BASE_HOUR + 1);
+
+        assertThat(backend.forecast("gb-london")).isEqualTo("Cloudy 13.5°C");
+        assertThat(backend.forecast("cn-beijing")).isEqualTo("Snow -3.5°C");
+        assertThat(backend.forecast("atlantis")).isEqualTo(DatasetWeatherBackend.UNKNOWN_LOCATION);
+        assertThat(backend.forecastAll(List.of("gb-london", "atlantis")))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("gb-london", "Cloudy 13.5°C",
+                        "atlantis", DatasetWeatherBackend.UNKNOWN_LOCATION));
+    }
+
+    @Test
+    void wrapsHoursOutsideDatasetRange() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        writeTwoCities(file, (short) 125, (short) -35);
+
+        backend = newBackend(file, BASE_HOUR + 4);
+        assertThat(backend.forecast("gb-london")).isEqualTo("Sunny 12.5°C");
+        backend.close();
+        backend = newBackend(file, BASE_HOUR - 3);
+        assertThat(backend.forecast("gb-london")).isEqualTo("Cloudy 13.5°C");
+    }
+
+    @Test
+    void hotReloadsReplacedFileAndKeepsOldVersionOnCorruption() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        writeTwoCities(file, (short) 125, (short) -35);
+        backend = newBackend(file, BASE_HOUR);
+        assertThat(backend.reloadIfChanged()).isFalse();
+        assertThat(backend.forecast("gb-london")).isEqualTo("Sunny 12.5°C");
+
+        writeTwoCities(file, (short) 300, (short) 0);
+        assertThat(backend.reloadIfChanged()).isTrue();
+        assertThat(backend.forecast("gb-london")).isEqualTo("Sunny 30.0°C");
+
+        Path corrupt = dir.resolve("corrupt.tmp");
+        Files.write(corrupt, new byte[64]);
+        Files.move(corrupt, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        assertThat(backend.reloadIfChanged()).isFalse();
+        assertThat(backend.forecast("gb-london")).isEqualTo("Sunny 30.0°C");
+        assertThat(meterRegistry.get("a2a.weather.dataset.reloads").tag("result", "success").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("a2a.weather.dataset.reloads").tag("result", "failure").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void generatesSyntheticDatasetForGazetteerLocations() {
+        Path file = dir.resolve("generated/forecast.a2af");
+        backend = newBackend(file, BASE_HOUR);
+
+        assertThat(file).exists();
+        assertThat(meterRegistry.get("a2a.weather.dataset.locations").gauge().value()).isGreaterThan(40);
+        assertThat(backend.forecast("gb-london")).matches("[A-Za-z]+ -?\\d+\\.\\d°C");
+        assertThat(backend.forecast("us-new-york")).isNotEqualTo(DatasetWeatherBackend.UNKNOWN_LOCATION);
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        writeTwoCities(file, (short) 125, (short) -35);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> ForecastDataset.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void rejectsHeaderCountsThatOverflowTheFileSize() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        writeTwoCities(file, (short) 125, (short) -35);
+        byte[] valid = Files.readAllBytes(file);
+
+        byte[] hugeIdTable = valid.clone();
+        ByteBuffer.wrap(hugeIdTable).putInt(24, Integer.MAX_VALUE);
+        Files.write(file, hugeIdTable);
+        assertThatThrownBy(() -> ForecastDataset.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+
+        byte[] hugeCells = valid.clone();
+        ByteBuffer.wrap(hugeCells).putInt(12, Integer.MAX_VALUE);
+        Files.write(file, hugeCells);
+        assertThatThrownBy(() -> ForecastDataset.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+
+        byte[] hugeLocations = valid.clone();
+        ByteBuffer.wrap(hugeLocations).putInt(8, Integer.MAX_VALUE);
+        Files.write(file, hugeLocations);
+        assertThatThrownBy(() -> ForecastDataset.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Corrupt");
+    }
+
+    @Test
+    void registersLocationGaugeOnlyAfterTheFirstSuccessfulLoad() throws IOException {
+        Path file = dir.resolve("forecast.a2af");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> newBackend(file, BASE_HOUR)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(meterRegistry.find("a2a.weather.dataset.locations").gauge()).isNull();
+
+        writeTwoCities(file, (short) 125, (short) -35);
+        backend = newBackend(file, BASE_HOUR);
+        assertThat(meterRegistry.get("a2a.weather.dataset.locations").gauge().value()).isEqualTo(2);
+    }
+
+    private DatasetWeatherBackend newBackend(Path file, long epochHour) {
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getDataset().setPath(file.toString());
+        properties.getDataset().setHours(24);
+        Clock clock = Clock.fixed(Instant.EPOCH.plus(Duration.ofHours(epochHour)).plusSeconds(90), ZoneOffset.UTC);
+        return new DatasetWeatherBackend(properties, meterRegistry, clock, false);
+    }
+
+    /**
+     * 写出 2 个地点 × 4 小时的数据集：伦敦温度逐小时 +1°C，天气现象依次为 Sunny/Cloudy/Rain/Rain；
+     * 北京恒为 Snow。
+     */
+    private static void writeTwoCities(Path file, short londonBase, short beijing) throws IOException {
+        short[] temperatures = {londonBase, (short) (londonBase + 10), (short) (londonBase + 20),
+                (short) (londonBase + 20), beijing, beijing, beijing, beijing};
+        byte[] conditions = {0, 2, 4, 4, 6, 6, 6, 6};
+        ForecastDataset.write(file, List.of("gb-london", "cn-beijing"), BASE_HOUR, 4, temperatures, conditions);
+    }
+}
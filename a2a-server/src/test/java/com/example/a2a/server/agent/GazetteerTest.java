@@ -0,0 +1,110 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GazetteerTest {
+
+    private static Gazetteer gazetteer;
+
+    @BeforeAll
+    static void loadBundledGazetteer() throws IOException {
+        try (InputStream in = GazetteerTest.class.getResourceAsStream("/gazetteer/locations.tsv")) {
+            gazetteer = Gazetteer.load(in, 3, 2);
+        }
+    }
+
+    @Test
+    void resolvesNamesAndAliasesToCanonicalId() {
+        for (String query : List.of("New York", "new york", "NYC", "New York City", "纽约", "New York, NY")) {
+            assertThat(idOf(query)).as(query).isEqualTo("us-new-york");
+        }
+        for (String query : List.of("Beijing", "北京", "北京市", "bei jing", "Peking")) {
+            assertThat(idOf(query)).as(query).isEqualTo("cn-beijing");
+        }
+        assertThat(idOf("LA, CA")).isEqualTo("us-los-angeles");
+        assertThat(gazetteer.resolve("NYC").type).isEqualTo(Gazetteer.MatchType.EXACT);
+        assertThat(gazetteer.resolve("NYC").name).isEqualTo("New York");
+    }
+
+    @Test
+    void resolvesUniquePrefixesOnly() {
+        assertThat(gazetteer.resolve("Lond").type).isEqualTo(Gazetteer.MatchType.PREFIX);
+        assertThat(idOf("Lond")).isEqualTo("gb-london");
+        assertThat(idOf("Melb")).isEqualTo("au-melbourne");
+        assertThat(gazetteer.resolve("San")).as("San Francisco vs San Diego").isNull();
+        assertThat(gazetteer.resolve("Lo")).as("shorter than min prefix").isNull();
+    }
+
+    @Test
+    void toleratesSmallMisspellings() {
+        assertThat(gazetteer.resolve("Londn").type).isEqualTo(Gazetteer.MatchType.FUZZY);
+        assertThat(idOf("Londn")).isEqualTo("gb-london");
+        assertThat(idOf("Shangahi")).isEqualTo("cn-shanghai");
+        assertThat(idOf("San Fransisco")).isEqualTo("us-san-francisco");
+        assertThat(idOf("Guangzou")).isEqualTo("cn-guangzhou");
+    }
+
+    @Test
+    void doesNotGuessShortOrUnknownNames() {
+        assertThat(idOf("南京")).isEqualTo("cn-nanjing");
+        assertThat(gazetteer.resolve("东津")).isNull();
+        assertThat(gazetteer.resolve("Atlantis")).isNull();
+        assertThat(gazetteer.resolve("   ")).isNull();
+    }
+
+    @Test
+    void rejectsConflictingAliases() {
+        String data = "a-one\tOne\tShared\nb-two\tTwo\tshared\n";
+        assertThatThrownBy(() -> Gazetteer.load(stream(data), 3, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("shared");
+    }
+
+    @Test
+    void rejectsDuplicateIds() {
+        String data = "a-one\tOne\t\na-one\tAgain\t\n";
+        assertThatThrownBy(() -> Gazetteer.load(stream(data), 3, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("a-one");
+    }
+
+    @Test
+    void weatherAgentSharesCacheEntryAcrossAliases() {
+        List<String> upstreamKeys = new ArrayList<>();
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getBatch().setEnabled(false);
+        WeatherAgent agent = new WeatherAgent(key -> {
+            upstreamKeys.add(key);
+            return "Clear 20°C";
+        }, properties, new SimpleMeterRegistry(), Runnable::run, new AtomicLong()::get);
+
+        assertThat(agent.search("weather in NYC")).isEqualTo("Weather in NYC: Clear 20°C");
+        assertThat(agent.search("New York?")).isEqualTo("Weather in New York: Clear 20°C");
+        assertThat(agent.search("纽约")).isEqualTo("Weather in 纽约: Clear 20°C");
+        assertThat(agent.search("Atlantis")).isEqualTo("Weather in Atlantis: Clear 20°C");
+
+        assertThat(upstreamKeys).containsExactly("us-new-york", "atlantis");
+    }
+
+    private static String idOf(String query) {
+        Gazetteer.Match match = gazetteer.resolve(query);
+        return match == null ? null : match.id;
+    }
+
+    private static InputStream stream(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 经 {@link WeatherAgent} 串行查询注入长尾延迟的上游（每 25 次调用有一次 150 ms，其余 2 ms），
+ * 对比开启与关闭对冲时的延迟分布。采样模式直接给出 p50/p99 等分位数；预热阶段让对冲器积累足够样本。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HedgerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean hedge;
+
+    private WeatherAgent agent;
+
+    @Setup
+    public void setUp() {
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getCache().setEnabled(false);
+        properties.getBatch().setEnabled(false);
+        properties.getHedge().setEnabled(hedge);
+        properties.getHedge().setMinDelay(Duration.ofMillis(1));
+        properties.getHedge().setMaxDelay(Duration.ofMillis(100));
+        agent = new WeatherAgent(new LatencyInjectingBackend(25, 2, 150), properties, new SimpleMeterRegistry(),
+                Runnable::run, new AtomicLong()::get);
+    }
+
+    @TearDown
+    public void tearDown() {
+        agent.close();
+    }
+
+    @Benchmark
+    public String search() {
+        return agent.search("London");
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HedgerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 本地延迟注入上游替身：每 {@code slowEvery} 次调用中有一次耗时 {@code slowMillis}，其余耗时
+     * {@code fastMillis}，模拟个别上游实例抖动造成的长尾。
+     */
+    private static final class LatencyInjectingBackend implements WeatherBackend {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int slowEvery;
+        private final long fastMillis;
+        private final long slowMillis;
+
+        LatencyInjectingBackend(int slowEvery, long fastMillis, long slowMillis) {
+            this.slowEvery = slowEvery;
+            this.fastMillis = fastMillis;
+            this.slowMillis = slowMillis;
+        }
+
+        @Override
+        public String forecast(String locationKey) {
+            try {
+                Thread.sleep(calls.incrementAndGet() % slowEvery == 0 ? slowMillis : fastMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "Sunny 25°C";
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WeatherAgent agent;
+    private Hedger hedger;
+
+    @AfterEach
+    void tearDown() {
+        if (agent != null) {
+            agent.close();
+        }
+        if (hedger != null) {
+            hedger.close();
+        }
+    }
+
+    @Test
+    void weatherAgentHedgesAStalledUpstreamCall() {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getCache().setEnabled(false);
+        properties.getBatch().setEnabled(false);
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setMinDelay(Duration.ofMillis(1));
+        properties.getHedge().setMaxDelay(Duration.ofMillis(5));
+        agent = new WeatherAgent(key -> {
+            if (calls.incrementAndGet() == 1) {
+                // 原始调用一直挂起，只有对冲获胜后取消它时才会被中断返回
+                await(neverReleased);
+                return "Stale 0°C";
+            }
+            return "Sunny 25°C";
+        }, properties, meterRegistry, Runnable::run, new AtomicLong()::get);
+
+        assertThat(agent.search("London")).isEqualTo("Weather in London: Sunny 25°C");
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.get("a2a.hedge.requests").tag("name", "weather").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("a2a.hedge.wins").tag("name", "weather").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToHedgeWhenOriginalFailsLate() {
+        AtomicInteger calls = new AtomicInteger();
+        hedger = new Hedger("test", 0.95, Duration.ofMillis(1), Duration.ofMillis(5), 4, meterRegistry);
+
+        String result = hedger.call(() -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(30);
+                throw new IllegalStateException("upstream reset");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.get("a2a.hedge.wins").tag("name", "test").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotHedgeFastFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        hedger = new Hedger("test", 0.95, Duration.ofMillis(1), Duration.ofMillis(200), 4, meterRegistry);
+
+        assertThatThrownBy(() -> hedger.call(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("bad request");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("bad request");
+        assertThat(calls).hasValue(1);
+        assertThat(hedger.delayNanos()).isEqualTo(Duration.ofMillis(200).toNanos());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
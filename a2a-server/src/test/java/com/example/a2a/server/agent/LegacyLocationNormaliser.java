@@ -0,0 +1,44 @@
+package com.example.a2a.server.agent;
+
+/**
+ * 旧版基于 {@code toLowerCase}/{@code substring}/正则的地点规范化实现，保留用于差分测试与基准对比。
+ */
+final class LegacyLocationNormaliser {
+
+    /**
+     * 工具类不需要实例化。
+     */
+    private LegacyLocationNormaliser() {
+    }
+
+    /**
+     * 与重写前的 {@code WeatherAgent.normaliseLocation} 逐字一致。
+     *
+     * @param raw 原始输入文本
+     * @return 清洗后的地理位置
+     */
+    static String normalise(String raw) {
+        if (raw == null) {
+            return "";
+        }
+
+        String trimmed = raw.strip();
+        if (trimmed.isEmpty()) {
+            return "";
+        }
+
+        String prefix = "weather in";
+        String lower = trimmed.toLowerCase();
+        if (lower.startsWith(prefix)) {
+            trimmed = trimmed.substring(prefix.length()).stripLeading();
+            if (!trimmed.isEmpty() && trimmed.charAt(0) == ':') {
+                trimmed = trimmed.substring(1);
+            }
+        }
+
+        trimmed = trimmed.replaceFirst("^[\\s,:-]+", "");
+        trimmed = trimmed.replaceFirst("[\\s?.!]+$", "");
+
+        return trimmed.strip();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicroBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingBatchBackend backend = new RecordingBatchBackend();
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+    private MicroBatcher<String, String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void coalescesConcurrentLookupsWithinWindow() throws Exception {
+        batcher = new MicroBatcher<>("test", backend::forecastAll, 100, Duration.ofMillis(200), 1, meterRegistry);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String key = "city-" + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return batcher.submit(key).get(5, TimeUnit.SECONDS);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("forecast:city-" + i);
+        }
+
+        assertThat(backend.batches).hasSize(1);
+        assertThat(backend.batches.get(0)).hasSize(16);
+        assertThat(meterRegistry.get("a2a.batch.size").tag("name", "test").summary().totalAmount()).isEqualTo(16);
+    }
+
+    @Test
+    void flushesAsSoonAsBatchIsFullOnTheBatcherThread() throws Exception {
+        batcher = new MicroBatcher<>("test", backend::forecastAll, 4, Duration.ofSeconds(30), 1, meterRegistry);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(batcher.submit("city-" + i));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(backend.batches).containsExactly(
+                List.of("city-0", "city-1", "city-2", "city-3"),
+                List.of("city-4", "city-5", "city-6", "city-7"));
+        assertThat(backend.threads).allMatch(name -> name.startsWith("a2a-batch-test-"));
+    }
+
+    @Test
+    void abandonedWaitDoesNotFailTheBatch() throws Exception {
+        batcher = new MicroBatcher<>("test", backend::forecastAll, 100, Duration.ofMillis(300), 1, meterRegistry);
+
+        assertThatThrownBy(() -> batcher.submit("oslo").get(20, TimeUnit.MILLISECONDS))
+                .isInstanceOf(TimeoutException.class);
+
+        assertThat(batcher.submit("oslo").get(5, TimeUnit.SECONDS)).isEqualTo("forecast:oslo");
+        assertThat(backend.batches).containsExactly(List.of("oslo"));
+    }
+
+    @Test
+    void sharesOneLookupForDuplicateKeysInWindow() {
+        batcher = new MicroBatcher<>("test", backend::forecastAll, 100, Duration.ofMillis(20), 1, meterRegistry);
+
+        CompletableFuture<String> first = batcher.submit("paris");
+        CompletableFuture<String> second = batcher.submit("paris");
+        CompletableFuture<String> other = batcher.submit("rome");
+
+        assertThat(first).isSameAs(second);
+        assertThat(first.join()).isEqualTo("forecast:paris");
+        assertThat(other.join()).isEqualTo("forecast:rome");
+        assertThat(backend.batches).containsExactly(List.of("paris", "rome"));
+    }
+
+    @Test
+    void failsEveryWaiterWhenBatchCallFails() {
+        backend.failure = new IllegalStateException("upstream down");
+        batcher = new MicroBatcher<>("test", backend::forecastAll, 100, Duration.ofMillis(20), 1, meterRegistry);
+
+        CompletableFuture<String> first = batcher.submit("a");
+        CompletableFuture<String> second = batcher.submit("b");
+
+        assertThatThrownBy(() -> batcher.submit("c").get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .cause().hasMessage("upstream down");
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThat(backend.batches).hasSize(1);
+    }
+
+    @Test
+    void weatherAgentBatchesConcurrentCacheMisses() throws Exception {
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getBatch().setWindow(Duration.ofMillis(200));
+        WeatherAgent agent = new WeatherAgent(backend, properties, meterRegistry);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String query = "weather in City" + i;
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return agent.search(query);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get(5, TimeUnit.SECONDS))
+                        .isEqualTo("Weather in City" + i + ": forecast:city" + i);
+            }
+        } finally {
+            agent.close();
+        }
+
+        assertThat(backend.batches).hasSize(1);
+        assertThat(backend.singleCalls).isZero();
+    }
+
+    /**
+     * 本地批量上游替身：记录每次批量调用的键与执行线程，单键接口被调用时计数。
+     */
+    private static final class RecordingBatchBackend implements WeatherBackend {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        volatile int singleCalls;
+        volatile RuntimeException failure;
+
+        @Override
+        public String forecast(String locationKey) {
+            singleCalls++;
+            return "forecast:" + locationKey;
+        }
+
+        @Override
+        public Map<String, String> forecastAll(List<String> locationKeys) {
+            batches.add(List.copyOf(locationKeys));
+            threads.add(Thread.currentThread().getName());
+            if (failure != null) {
+                throw failure;
+            }
+            Map<String, String> results = new HashMap<>();
+            for (String key : locationKeys) {
+                results.put(key, "forecast:" + key);
+            }
+            return results;
+        }
+    }
+}
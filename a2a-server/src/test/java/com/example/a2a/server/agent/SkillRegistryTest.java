@@ -0,0 +1,263 @@
+package com.example.a2a.server.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SkillRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private SkillRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void routesBySkillIdAndFallsBackToFirstSkill() {
+        registry = new SkillRegistry(List.of(new WeatherAgent(), skill("echo", input -> "echo:" + input)),
+                new SkillRegistryProperties(), meterRegistry);
+
+        assertThat(registry.defaultSkillId()).isEqualTo(WeatherAgent.SKILL_ID);
+        assertThat(registry.execute(null, "London")).isEqualTo("Weather in London: Sunny 25°C");
+        assertThat(registry.execute("echo", "hi")).isEqualTo("echo:hi");
+        assertThat(registry.skillCards()).extracting(card -> card.id).containsExactly(WeatherAgent.SKILL_ID, "echo");
+        assertThatThrownBy(() -> registry.execute("missing", "x"))
+                .isInstanceOfSatisfying(SkillExecutionException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(SkillExecutionException.UNKNOWN_SKILL));
+    }
+
+    @Test
+    void slowSkillDoesNotStarveOtherSkills() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SkillRegistryProperties properties = new SkillRegistryProperties();
+        properties.getDefaults().setThreads(1);
+        properties.getDefaults().setQueueCapacity(1);
+        registry = new SkillRegistry(List.of(skill("slow", input -> {
+            await(release);
+            return "slow:" + input;
+        }), skill("fast", input -> "fast:" + input)), properties, meterRegistry);
+
+        Future<String> running = callers.submit(() -> registry.execute("slow", "1"));
+        awaitActive("slow", 1);
+        Future<String> queued = callers.submit(() -> registry.execute("slow", "2"));
+        awaitQueued("slow", 1);
+
+        assertThatThrownBy(() -> registry.execute("slow", "3"))
+                .isInstanceOfSatisfying(SkillExecutionException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(SkillExecutionException.SKILL_BUSY));
+        assertThat(registry.execute("fast", "ok")).isEqualTo("fast:ok");
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("slow:1");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("slow:2");
+        assertThat(meterRegistry.get("a2a.skill.execution").tags("skill", "slow", "outcome", "rejected")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void timesOutAndInterruptsHungSkill() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SkillRegistryProperties properties = new SkillRegistryProperties();
+        properties.getOverrides().put("hung", bulkhead(Duration.ofMillis(50)));
+        registry = new SkillRegistry(List.of(skill("hung", input -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return "late";
+        })), properties, meterRegistry);
+
+        assertThatThrownBy(() -> registry.execute("hung", "x"))
+                .isInstanceOfSatisfying(SkillExecutionException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(SkillExecutionException.SKILL_TIMEOUT));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("a2a.skill.execution").tags("skill", "hung", "outcome", "timeout")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void streamsChunksInOrderAndDropsLateChunksAfterTimeout() throws Exception {
+        CountDownLatch timedOut = new CountDownLatch(1);
+        SkillRegistryProperties properties = new SkillRegistryProperties();
+        properties.getOverrides().put("slow-stream", bulkhead(Duration.ofMillis(50)));
+        registry = new SkillRegistry(List.of(new WeatherAgent(), new AgentExecutor() {
+            @Override
+            public String skillId() {
+                return "slow-stream";
+            }
+
+            @Override
+            public SkillCard card() {
+                return new SkillCard();
+            }
+
+            @Override
+            public String execute(String input) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void executeStreaming(String input, AgentStreamSink sink) {
+                sink.text("early");
+                await(timedOut);
+                sink.text("late");
+            }
+        }), properties, meterRegistry);
+
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        AgentStreamSink recorder = new AgentStreamSink() {
+            @Override
+            public void reasoning(String chunk) {
+                chunks.add("reasoning:" + chunk);
+            }
+
+            @Override
+            public void text(String chunk) {
+                chunks.add("text:" + chunk);
+            }
+        };
+
+        registry.executeStreaming(null, "weather in Paris", recorder);
+        assertThat(chunks).containsExactly("reasoning:Looking up forecast for fr-paris",
+                "text:Weather in Paris: Sunny 25°C");
+
+        chunks.clear();
+        assertThatThrownBy(() -> registry.executeStreaming("slow-stream", "x", recorder))
+                .isInstanceOfSatisfying(SkillExecutionException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(SkillExecutionException.SKILL_TIMEOUT));
+        timedOut.countDown();
+        Thread.sleep(50);
+        assertThat(chunks).containsExactly("text:early");
+    }
+
+    @Test
+    void dropsCallsWhoseDeadlineExpiresBeforeOrWhileQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> started = new CopyOnWriteArrayList<>();
+        SkillRegistryProperties properties = new SkillRegistryProperties();
+        properties.getDefaults().setThreads(1);
+        registry = new SkillRegistry(List.of(skill("slow", input -> {
+            started.add(input);
+            if ("blocker".equals(input)) {
+                await(release);
+            }
+            return "done:" + input;
+        })), properties, meterRegistry);
+
+        assertThatThrownBy(() -> registry.execute("slow", "expired", Deadline.after(Duration.ZERO)))
+                .isInstanceOfSatisfying(SkillExecutionException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(SkillExecutionException.DEADLINE_EXCEEDED));
+
+        Future<String> blocker = callers.submit(() -> registry.execute("slow", "blocker"));
+        awaitActive("slow", 1);
+        Future<String> queued = callers.submit(() -> registry.execute("slow", "queued",
+                Deadline.after(Duration.ofMillis(50))));
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(SkillExecutionException.class)
+                .cause().satisfies(ex -> assertThat(((SkillExecutionException) ex).getCode())
+                        .isEqualTo(SkillExecutionException.DEADLINE_EXCEEDED));
+
+        release.countDown();
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isEqualTo("done:blocker");
+        assertThat(registry.execute("slow", "fresh", Deadline.after(Duration.ofSeconds(5)))).isEqualTo("done:fresh");
+        assertThat(started).containsExactly("blocker", "fresh");
+        assertThat(meterRegistry.get("a2a.skill.execution").tags("skill", "slow", "outcome", "expired")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void exposesDeadlineToRunningSkill() {
+        registry = new SkillRegistry(List.of(skill("probe", input -> {
+            Deadline deadline = Deadline.current();
+            return deadline == null ? "none" : String.valueOf(deadline.remainingNanos() > 0);
+        })), new SkillRegistryProperties(), meterRegistry);
+
+        assertThat(registry.execute("probe", "x")).isEqualTo("none");
+        assertThat(registry.execute("probe", "x", Deadline.after(Duration.ofSeconds(5)))).isEqualTo("true");
+    }
+
+    @Test
+    void wrapsSkillFailures() {
+        registry = new SkillRegistry(List.of(skill("broken", input -> {
+            throw new IllegalStateException("boom");
+        })), new SkillRegistryProperties(), meterRegistry);
+
+        assertThatThrownBy(() -> registry.execute("broken", "x"))
+                .isInstanceOfSatisfying(SkillExecutionException.class, ex -> {
+                    assertThat(ex.getCode()).isEqualTo(SkillExecutionException.SKILL_FAILED);
+                    assertThat(ex.getMessage()).contains("boom");
+                });
+    }
+
+    private void awaitActive(String skillId, int expected) throws InterruptedException {
+        awaitGauge("a2a.skill.active", skillId, expected);
+    }
+
+    private void awaitQueued(String skillId, int expected) throws InterruptedException {
+        awaitGauge("a2a.skill.queued", skillId, expected);
+    }
+
+    private void awaitGauge(String name, String skillId, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).tag("skill", skillId).gauge().value() < expected) {
+            assertThat(System.nanoTime()).as("waiting for %s", name).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static SkillRegistryProperties.Bulkhead bulkhead(Duration timeout) {
+        SkillRegistryProperties.Bulkhead bulkhead = new SkillRegistryProperties.Bulkhead();
+        bulkhead.setTimeout(timeout);
+        return bulkhead;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AgentExecutor skill(String id, Function<String, String> body) {
+        return new AgentExecutor() {
+            @Override
+            public String skillId() {
+                return id;
+            }
+
+            @Override
+            public SkillCard card() {
+                SkillCard card = new SkillCard();
+                card.id = id;
+                card.name = id;
+                return card;
+            }
+
+            @Override
+            public String execute(String input) {
+                return body.apply(input);
+            }
+        };
+    }
+}
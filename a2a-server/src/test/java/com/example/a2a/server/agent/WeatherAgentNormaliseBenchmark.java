@@ -0,0 +1,57 @@
+package com.example.a2a.server.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比旧版正则实现与单次扫描实现的地点规范化开销。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}，或配合
+ * {@code -prof gc} 观察每次调用的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherAgentNormaliseBenchmark {
+
+    @Param({"weather in London?", "  Weather in: New York, NY!  ", "北京", "weather in 上海？"})
+    public String query;
+
+    @Benchmark
+    public String legacy() {
+        return LegacyLocationNormaliser.normalise(query);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return WeatherAgent.normaliseLocation(query);
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WeatherAgentNormaliseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
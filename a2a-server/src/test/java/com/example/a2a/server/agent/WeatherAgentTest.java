@@ -1,8 +1,25 @@
 package com.example.a2a.server.agent;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class WeatherAgentTest {
 
@@ -24,4 +41,190 @@ class WeatherAgentTest {
     void leavesNonPrefixedQueriesUntouched() {
         assertThat(agent.search("New York, NY")).isEqualTo("Weather in New York, NY: Sunny 25°C");
     }
+
+    @Test
+    void normaliserMatchesTheLegacyRegexImplementation() {
+        String[] pieces = {"weather in", "Weather In", "WEATHER IN:", "weather in :", " ", "  ", "\t", "\n",
+                "\u2003", ",", ":", "-", "?", ".", "!", "London", "New York", "LA, CA", "北京", "上海市", "x",
+                "weather", "in", "?!", "..."};
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder query = new StringBuilder();
+            int parts = random.nextInt(6);
+            for (int j = 0; j < parts; j++) {
+                query.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String input = query.toString();
+            assertThat(WeatherAgent.normaliseLocation(input)).as("input [%s]", input)
+                    .isEqualTo(LegacyLocationNormaliser.normalise(input));
+        }
+        assertThat(WeatherAgent.normaliseLocation(null)).isEqualTo(LegacyLocationNormaliser.normalise(null));
+    }
+
+    @Test
+    void normaliserHandlesFullWidthCjkPunctuation() {
+        assertThat(WeatherAgent.normaliseLocation("weather in：北京？")).isEqualTo("北京");
+        assertThat(WeatherAgent.normaliseLocation("，、上海。")).isEqualTo("上海");
+        assertThat(WeatherAgent.normaliseLocation("\u3000－深圳！！")).isEqualTo("深圳");
+        assertThat(WeatherAgent.normaliseLocation("广州，天河区．")).isEqualTo("广州，天河区");
+    }
+
+    @Test
+    void normaliserReturnsTheInputWhenNothingNeedsTrimming() {
+        String query = "Reykjavik";
+        assertThat(WeatherAgent.normaliseLocation(query)).isSameAs(query);
+    }
+
+    @Test
+    void concurrentMissesForTheSameLocationCallUpstreamOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherAgent cached = newAgent(key -> {
+            calls.incrementAndGet();
+            await(release);
+            return "Rain 12°C";
+        }, new AtomicLong(), new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String query = i % 2 == 0 ? "weather in London" : "london?";
+            results.add(executor.submit(() -> cached.search(query)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).endsWith(": Rain 12°C");
+        }
+        executor.shutdown();
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void callerDeadlineOnlyBoundsItsOwnWaitForTheSharedLoad() {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherAgent cached = newAgent(key -> {
+            calls.incrementAndGet();
+            await(release);
+            return "Fog 9°C";
+        }, new AtomicLong(), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> Deadline.callWith(Deadline.after(Duration.ofMillis(50)),
+                () -> cached.search("Oslo")))
+                .isInstanceOfSatisfying(SkillExecutionException.class, ex ->
+                        assertThat(ex.getCode()).isEqualTo(SkillExecutionException.DEADLINE_EXCEEDED));
+        release.countDown();
+
+        assertThat(cached.search("Oslo")).isEqualTo("Weather in Oslo: Fog 9°C");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void refreshesHotLocationsAheadOfExpiry() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong nanos = new AtomicLong();
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        WeatherAgent cached = newAgent(key -> "Sunny " + calls.incrementAndGet() + "°C", nanos,
+                new SimpleMeterRegistry(), refreshes::add);
+
+        assertThat(cached.search("Paris")).isEqualTo("Weather in Paris: Sunny 1°C");
+        nanos.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(cached.search("Paris")).isEqualTo("Weather in Paris: Sunny 1°C");
+        assertThat(calls).hasValue(1);
+        while (!refreshes.isEmpty()) {
+            refreshes.poll().run();
+        }
+        assertThat(awaitAnswer(cached, "Paris", "Weather in Paris: Sunny 2°C")).isTrue();
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertThat(cached.search("Paris")).isEqualTo("Weather in Paris: Sunny 3°C");
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void failedLoadsAreEvictedOnCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getBatch().setEnabled(false);
+        WeatherAgent cached = new WeatherAgent(key -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("upstream down");
+            }
+            return "Windy 9°C";
+        }, properties, new SimpleMeterRegistry(), Runnable::run, new AtomicLong()::get);
+
+        assertThatThrownBy(() -> cached.search("Oslo")).isInstanceOf(IllegalStateException.class);
+        assertThat(cached.search("Oslo")).isEqualTo("Weather in Oslo: Windy 9°C");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void exportsHitRatioAndLoadLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        // 不经微批线程，查询在调用线程上完成，统计在 search 返回前已记录
+        properties.getBatch().setEnabled(false);
+        WeatherAgent cached = new WeatherAgent(key -> {
+            sleep(20);
+            return "Cloudy 18°C";
+        }, properties, registry, Runnable::run, new AtomicLong()::get);
+
+        cached.search("Berlin");
+        cached.search("berlin");
+        cached.search("Weather in Berlin!");
+        cached.search("Tokyo");
+
+        assertThat(registry.get("cache.gets").tag("cache", "weather").tag("result", "hit").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("cache", "weather").tag("result", "miss").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("cache.loads").tag("cache", "weather").tag("result", "success").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("cache.loads").tag("cache", "weather").tag("result", "success").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+        assertThat(registry.get("a2a.weather.upstream").timer().count()).isEqualTo(2);
+        assertThat(registry.get("a2a.weather.upstream").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(40);
+    }
+
+    private static WeatherAgent newAgent(WeatherBackend backend, AtomicLong nanos, SimpleMeterRegistry registry) {
+        return newAgent(backend, nanos, registry, Runnable::run);
+    }
+
+    private static WeatherAgent newAgent(WeatherBackend backend, AtomicLong nanos, SimpleMeterRegistry registry,
+                                         Executor executor) {
+        WeatherAgentProperties properties = new WeatherAgentProperties();
+        properties.getCache().setTtl(Duration.ofMinutes(10));
+        properties.getCache().setRefreshAfter(Duration.ofMinutes(8));
+        return new WeatherAgent(backend, properties, registry, executor, nanos::get);
+    }
+
+    private static boolean awaitAnswer(WeatherAgent agent, String location, String expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (agent.search(location).equals(expected)) {
+                return true;
+            }
+            sleep(1);
+        }
+        return false;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
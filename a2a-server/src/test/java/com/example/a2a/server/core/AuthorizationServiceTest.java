@@ -0,0 +1,89 @@
+package com.example.a2a.server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthorizationServiceTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final AuthorizationService service = new AuthorizationService(clock);
+
+    @Test
+    void loginsExpireAfterTheirOwnTtl() {
+        String shortLived = service.createLoginSession("agent-1", "CODE-1", Duration.ofMinutes(5)).agentLoginSessionId;
+        String longLived = service.createLoginSession("agent-1", "CODE-2", Duration.ofHours(1)).agentLoginSessionId;
+
+        clock.advance(Duration.ofMinutes(10));
+
+        assertThat(service.isActive(shortLived)).isFalse();
+        assertThat(service.isActive(longLived)).isTrue();
+        assertThatThrownBy(() -> service.requireLogin(shortLived))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("agentLoginSessionId expired");
+
+        assertThat(service.purgeExpired()).isEqualTo(1);
+        assertThat(service.listBySession("agent-1"))
+                .extracting(record -> record.agentLoginSessionId)
+                .containsExactly(longLived);
+        assertThat(service.listByAuthCode("CODE-1")).isEmpty();
+    }
+
+    @Test
+    void bulkRevokeRemovesEveryLoginOfAnAgentSession() {
+        service.createLoginSession("agent-1", "CODE-1");
+        service.createLoginSession("agent-1", "CODE-2");
+        String other = service.createLoginSession("agent-2", "CODE-1").agentLoginSessionId;
+
+        assertThat(service.listBySession("agent-1")).hasSize(2);
+        assertThat(service.revokeAllForSession("agent-1")).isEqualTo(2);
+
+        assertThat(service.listBySession("agent-1")).isEmpty();
+        assertThat(service.listByAuthCode("CODE-1"))
+                .extracting(record -> record.agentLoginSessionId)
+                .containsExactly(other);
+        assertThat(service.revokeAllForAuthCode("CODE-1")).isEqualTo(1);
+        assertThat(service.isActive(other)).isFalse();
+    }
+
+    @Test
+    void unknownOrNullLoginIsInactive() {
+        assertThat(service.isActive(null)).isFalse();
+        assertThat(service.revokeLogin("missing")).isFalse();
+        assertThatThrownBy(() -> service.requireLogin(null)).hasMessage("Unknown agentLoginSessionId");
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.a2a.server.core;
+
+import com.example.a2a.server.core.ConversationContextService.ContextKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColdContextStoreTest {
+
+    private static final String PAYLOAD = "x".repeat(1000);
+
+    @Test
+    void removesDeadSegmentsAndCompactsSparseOnes(@TempDir Path directory) throws Exception {
+        ColdContextStore store = new ColdContextStore(directory, 8 * 1024, 1024 * 1024, key -> { });
+        for (int i = 0; i < 40; i++) {
+            store.put(key(i), List.of(PAYLOAD, "turn-" + i));
+        }
+        for (int i = 0; i < 40; i++) {
+            if (i % 4 != 0) {
+                store.delete(key(i));
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            store.put(key(100 + i), List.of(PAYLOAD));
+        }
+
+        assertThat(store.size()).isEqualTo(30);
+        assertThat(store.segmentCount()).isLessThanOrEqualTo(4);
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(store.segmentCount());
+        }
+        for (int i = 0; i < 40; i += 4) {
+            assertThat(store.peek(key(i))).containsExactly(PAYLOAD, "turn-" + i);
+        }
+    }
+
+    @Test
+    void dropsOldestSegmentWhenDiskBudgetIsExceeded(@TempDir Path directory) {
+        List<ContextKey> dropped = new ArrayList<>();
+        ColdContextStore store = new ColdContextStore(directory, 8 * 1024, 16 * 1024, dropped::add);
+        for (int i = 0; i < 40; i++) {
+            store.put(key(i), List.of(PAYLOAD));
+        }
+
+        assertThat(store.diskBytes()).isLessThanOrEqualTo(16 * 1024);
+        assertThat(dropped).isNotEmpty().contains(key(0));
+        assertThat(store.contains(key(0))).isFalse();
+        assertThat(store.remove(key(39))).containsExactly(PAYLOAD);
+        assertThat(store.contains(key(39))).isFalse();
+    }
+
+    @Test
+    void reclaimsDeadSegmentsWithoutWaitingForTheActiveSegmentToFill(@TempDir Path directory) throws Exception {
+        ColdContextStore store = new ColdContextStore(directory, 8 * 1024, 1024 * 1024, key -> { });
+        for (int i = 0; i < 10; i++) {
+            store.put(key(i), List.of(PAYLOAD));
+        }
+        assertThat(store.segmentCount()).isEqualTo(2);
+        for (int i = 0; i < 8; i++) {
+            store.delete(key(i));
+        }
+
+        store.reclaimNow();
+
+        assertThat(store.segmentCount()).isEqualTo(1);
+        assertThat(store.diskBytes()).isEqualTo(8 * 1024);
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+        assertThat(store.peek(key(9))).containsExactly(PAYLOAD);
+    }
+
+    @Test
+    void closeReleasesEverySegment(@TempDir Path directory) throws Exception {
+        ColdContextStore store = new ColdContextStore(directory, 8 * 1024, 1024 * 1024, key -> { });
+        for (int i = 0; i < 10; i++) {
+            store.put(key(i), List.of(PAYLOAD));
+        }
+
+        store.close();
+
+        assertThat(store.segmentCount()).isZero();
+        assertThat(store.peek(key(9))).isNull();
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isZero();
+        }
+        assertThatThrownBy(() -> store.put(key(1), List.of(PAYLOAD))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void clearsSegmentsLeftByAPreviousRun(@TempDir Path directory) throws Exception {
+        new ColdContextStore(directory, 8 * 1024, 1024 * 1024, key -> { }).put(key(1), List.of("stale"));
+
+        ColdContextStore restarted = new ColdContextStore(directory, 8 * 1024, 1024 * 1024, key -> { });
+
+        assertThat(restarted.contains(key(1))).isFalse();
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    private static ContextKey key(int i) {
+        return new ContextKey("agent", "session-" + i);
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.a2a.server.core;
+
+import com.example.a2a.server.core.ConversationContextService.ConversationContext;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationContextServiceTest {
+
+    @Test
+    void keepsOnlyTheMostRecentMessages() {
+        ConversationContextService service = newService(3, 1024);
+        for (int i = 1; i <= 5; i++) {
+            service.append("agent", "conversation", "message-" + i);
+        }
+
+        assertThat(service.getContext("agent", "conversation").messages())
+                .containsExactly("message-3", "message-4", "message-5");
+    }
+
+    @Test
+    void evictsOldestMessagesWhenByteBudgetIsExceeded() {
+        ConversationContextService service = newService(64, 12);
+        service.append("agent", "conversation", "北京天气");
+        service.append("agent", "conversation", "上海");
+        service.append("agent", "conversation", "广州");
+
+        ConversationContext context = service.getContext("agent", "conversation");
+        assertThat(context.messages()).containsExactly("上海", "广州");
+        assertThat(context.bytes()).isEqualTo(12);
+    }
+
+    @Test
+    void concurrentAppendsStayBoundedAndLoseNothingWithinTheWindow() throws Exception {
+        ConversationContextService service = newService(10_000, Long.MAX_VALUE);
+        int threads = 8;
+        int perThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    service.append("agent", "conversation", thread + "-" + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        ConversationContext context = service.getContext("agent", "conversation");
+        assertThat(context.size()).isEqualTo(threads * perThread);
+        assertThat(context.messages()).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void weightCountsTheArenaChunksStillHeldByTheWindow() {
+        ConversationContext context = new ConversationContext(2, Long.MAX_VALUE);
+        ConversationContextService.ContextKey key = new ConversationContextService.ContextKey("agent", "conversation");
+        for (int i = 0; i < 20_000; i++) {
+            context.append("m" + (i % 10));
+        }
+
+        assertThat(context.bytes()).isEqualTo(4);
+        assertThat(context.weight(key)).isGreaterThanOrEqualTo(16 * 1024);
+    }
+
+    @Test
+    void retiredContextRejectsAppendsButStaysReadable() {
+        ConversationContext context = new ConversationContext(8, 1024);
+        context.append("before");
+        context.retire();
+
+        assertThat(context.tryAppend("after")).isFalse();
+        assertThat(context.messages()).containsExactly("before");
+    }
+
+    @Test
+    void appendsAfterSpillGoToThePromotedContext(@TempDir Path directory) {
+        DeferredExecutor executor = new DeferredExecutor();
+        AtomicLong nanos = new AtomicLong();
+        ConversationContextService service = newColdService(directory, executor, nanos::get);
+        service.append("agent", "idle", "first");
+        ConversationContext stale = service.getContext("agent", "idle");
+        nanos.addAndGet(Duration.ofMinutes(35).toNanos());
+        service.cleanUp();
+        executor.runAll();
+
+        assertThat(stale.tryAppend("lost?")).isFalse();
+        service.append("agent", "idle", "second");
+        assertThat(service.getContext("agent", "idle").messages()).containsExactly("first", "second");
+    }
+
+    @Test
+    void snapshotViewIsNotAffectedByLaterAppends() {
+        ConversationContextService service = newService(2, 1024);
+        service.append("agent", "conversation", "first");
+        List<String> before = service.getContext("agent", "conversation").messages();
+
+        service.append("agent", "conversation", "second");
+        service.append("agent", "conversation", "third");
+
+        assertThat(before).containsExactly("first");
+        assertThat(service.getContext("agent", "conversation").messages()).containsExactly("second", "third");
+    }
+
+    @Test
+    void globalBudgetKeepsFrequentlyUsedContextsOverOneShotScans() {
+        DeferredExecutor executor = new DeferredExecutor();
+        ConversationContextService service = newService(64, 1024, 32 * 1024, new SimpleMeterRegistry(), executor);
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 0; hot < 10; hot++) {
+                service.append("agent", "hot-" + hot, "x".repeat(500));
+                service.getContext("agent", "hot-" + hot);
+            }
+            service.cleanUp();
+            executor.runAll();
+        }
+        for (int scan = 0; scan < 500; scan++) {
+            service.append("agent", "scan-" + scan, "x".repeat(500));
+            service.cleanUp();
+            executor.runAll();
+        }
+
+        for (int hot = 0; hot < 10; hot++) {
+            assertThat(service.getContext("agent", "hot-" + hot)).as("hot-" + hot).isNotNull();
+        }
+        assertThat(service.snapshotValue("agent")).hasSizeLessThan(60);
+    }
+
+    @Test
+    void appendReportsWhenThePreviousContextWasEvicted() {
+        DeferredExecutor executor = new DeferredExecutor();
+        ConversationContextService service = newService(64, 1024, 4 * 1024, new SimpleMeterRegistry(), executor);
+        service.append("agent", "victim", "first question");
+        for (int i = 0; i < 100; i++) {
+            service.append("agent", "filler-" + i, "x".repeat(500));
+            service.getContext("agent", "filler-" + i);
+            service.cleanUp();
+            executor.runAll();
+        }
+
+        assertThat(service.getContext("agent", "victim")).isNull();
+        assertThat(service.isEvicted("agent", "victim")).isTrue();
+
+        assertThat(service.append("agent", "victim", "second question")).isTrue();
+        assertThat(service.isEvicted("agent", "victim")).isFalse();
+        assertThat(service.append("agent", "victim", "third question")).isFalse();
+        assertThat(service.getContext("agent", "victim").messages())
+                .containsExactly("second question", "third question");
+    }
+
+    @Test
+    void exposesHitMissAndBytesHeldMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConversationContextService service = newService(64, 1024, 1024 * 1024, registry, Runnable::run);
+        service.append("agent", "conversation", "hello");
+        service.getContext("agent", "conversation");
+        service.getContext("agent", "missing");
+
+        assertThat(registry.get("a2a.context.bytes").gauge().value()).isPositive();
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void idleContextsSpillToTheColdTierAndArePromotedOnAccess(@TempDir Path directory) {
+        DeferredExecutor executor = new DeferredExecutor();
+        AtomicLong nanos = new AtomicLong();
+        ConversationContextService service = newColdService(directory, executor, nanos::get);
+        service.append("agent", "idle", "北京天气");
+        service.append("agent", "idle", "明天呢");
+        service.append("agent", "busy", "上海天气");
+
+        nanos.addAndGet(Duration.ofMinutes(10).toNanos());
+        service.getContext("agent", "busy");
+        nanos.addAndGet(Duration.ofMinutes(25).toNanos());
+        service.cleanUp();
+        executor.runAll();
+
+        assertThat(service.snapshotValue("agent")).containsOnlyKeys("idle", "busy");
+        assertThat(service.isEvicted("agent", "idle")).isFalse();
+
+        assertThat(service.getContext("agent", "idle").messages()).containsExactly("北京天气", "明天呢");
+        assertThat(service.append("agent", "idle", "后天呢")).isFalse();
+        assertThat(service.getContext("agent", "idle").messages()).containsExactly("北京天气", "明天呢", "后天呢");
+    }
+
+    @Test
+    void clearRemovesContextsFromBothTiers(@TempDir Path directory) {
+        DeferredExecutor executor = new DeferredExecutor();
+        AtomicLong nanos = new AtomicLong();
+        ConversationContextService service = newColdService(directory, executor, nanos::get);
+        service.append("agent", "cold", "first");
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        service.cleanUp();
+        executor.runAll();
+        service.append("agent", "hot", "second");
+
+        service.clear("agent", null);
+
+        assertThat(service.getContext("agent", "cold")).isNull();
+        assertThat(service.getContext("agent", "hot")).isNull();
+        assertThat(service.snapshotValue("agent")).isNull();
+        assertThat(service.append("agent", "cold", "again")).isFalse();
+        assertThat(service.getContext("agent", "cold").messages()).containsExactly("again");
+    }
+
+    @Test
+    void storesMessagesAsUtf8AndDecodesThemOnRead() {
+        ConversationContextService service = newService(64, 1024);
+        List<String> messages = List.of("plain ascii", "北京天气怎么样？", "emoji 🌧️ rain", "lone \uD800 surrogate", "");
+        messages.forEach(message -> service.append("agent", "conversation", message));
+
+        ConversationContext context = service.getContext("agent", "conversation");
+        assertThat(context.messages())
+                .containsExactly("plain ascii", "北京天气怎么样？", "emoji 🌧️ rain", "lone \uFFFD surrogate", "");
+        assertThat(context.bytes()).isEqualTo(messages.stream()
+                .mapToLong(message -> message.replace('\uD800', '\uFFFD').getBytes(StandardCharsets.UTF_8).length)
+                .sum());
+    }
+
+    @Test
+    void repeatedMessagesAcrossSessionsShareAnInternedCopy() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConversationContextService service = newService(64, 1024, 1024 * 1024, registry, Runnable::run);
+        for (int i = 0; i < 100; i++) {
+            service.append("agent", "conversation-" + i, "北京天气");
+            service.append("agent", "conversation-" + i, "unique-" + i);
+        }
+
+        assertThat(registry.get("a2a.context.interned").functionCounter().count()).isGreaterThanOrEqualTo(98);
+        assertThat(service.getContext("agent", "conversation-42").messages()).containsExactly("北京天气", "unique-42");
+    }
+
+    @Test
+    void lastTokensReturnsTheNewestWholeMessagesWithinBudget() {
+        ConversationContext context = new ConversationContext(64, 65536, null, String::length);
+        context.append("aaaa");
+        context.append("bbb");
+        context.append("cc");
+        context.append("d");
+
+        assertThat(context.tokens()).isEqualTo(10);
+        assertThat(context.lastTokens(100)).containsExactly("aaaa", "bbb", "cc", "d");
+        assertThat(context.lastTokens(6)).containsExactly("bbb", "cc", "d");
+        assertThat(context.lastTokens(5)).containsExactly("cc", "d");
+        assertThat(context.lastTokens(1)).containsExactly("d");
+        assertThat(context.lastTokens(0)).isEmpty();
+
+        context.append("eeeee");
+        assertThat(context.lastTokens(8)).containsExactly("cc", "d", "eeeee");
+    }
+
+    @Test
+    void perTurnTokenizationCostDoesNotGrowWithHistory() {
+        AtomicLong scannedChars = new AtomicLong();
+        AtomicLong estimateCalls = new AtomicLong();
+        TokenEstimator counting = text -> {
+            estimateCalls.incrementAndGet();
+            scannedChars.addAndGet(text.length());
+            return TokenEstimator.HEURISTIC.estimate(text);
+        };
+        ConversationContext shortHistory = new ConversationContext(64, 65536, null, counting);
+        ConversationContext longHistory = new ConversationContext(64, 65536, null, counting);
+        for (int turn = 0; turn < 10; turn++) {
+            shortHistory.append(String.format("turn %05d: 明天北京会下雨吗？", turn));
+        }
+        for (int turn = 0; turn < 100_000; turn++) {
+            longHistory.append(String.format("turn %05d: 明天北京会下雨吗？", turn));
+        }
+
+        String message = "turn 99999: 明天北京会下雨吗？";
+        long[] shortTurn = measureTurn(shortHistory, message, estimateCalls, scannedChars);
+        long[] longTurn = measureTurn(longHistory, message, estimateCalls, scannedChars);
+
+        // 追加只估算新消息一次，lastTokens 完全不分词，两者都与历史轮数无关。
+        assertThat(shortTurn).containsExactly(1, message.length(), 0, 0, 3);
+        assertThat(longTurn).containsExactly(shortTurn);
+        assertThat(longHistory.size()).isEqualTo(64);
+        assertThat(longHistory.tokens()).isEqualTo(64 * TokenEstimator.HEURISTIC.estimate(message));
+    }
+
+    /**
+     * 追加一条消息并取最近 40 个 token，分别返回两步中估算器的调用次数与扫描字符数，以及取回的消息条数。
+     */
+    private static long[] measureTurn(ConversationContext context, String message,
+                                      AtomicLong estimateCalls, AtomicLong scannedChars) {
+        long calls = estimateCalls.get();
+        long chars = scannedChars.get();
+        context.append(message);
+        long appendCalls = estimateCalls.get() - calls;
+        long appendChars = scannedChars.get() - chars;
+        List<String> recent = context.lastTokens(40);
+        assertThat(recent).last().isEqualTo(message);
+        return new long[]{appendCalls, appendChars, estimateCalls.get() - calls - appendCalls,
+                scannedChars.get() - chars - appendChars, recent.size()};
+    }
+
+    @Test
+    void heuristicEstimatorCountsCjkCharactersAndAsciiWordPieces() {
+        assertThat(TokenEstimator.HEURISTIC.estimate("")).isZero();
+        assertThat(TokenEstimator.HEURISTIC.estimate("北京天气")).isEqualTo(4);
+        assertThat(TokenEstimator.HEURISTIC.estimate("weather in London")).isEqualTo(2 + 1 + 2);
+        assertThat(TokenEstimator.HEURISTIC.estimate("明天 rain?")).isEqualTo(2 + 1 + 1);
+        assertThat(TokenEstimator.HEURISTIC.estimate("🌧")).isEqualTo(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "a2a.context.benchmark", matches = "true")
+    void utf8ArenaRetainsLessHeapThanStringsForOneMillionContexts() throws Exception {
+        int contexts = 1_000_000;
+        String[] prompts = new String[200];
+        for (int i = 0; i < prompts.length; i++) {
+            prompts[i] = "城市" + i + "今天的天气怎么样？";
+        }
+
+        long baseline = retainedHeap(() -> {
+            List<List<String>> stored = new ArrayList<>(contexts);
+            for (int i = 0; i < contexts; i++) {
+                List<String> messages = new ArrayList<>(3);
+                messages.add(new String(prompts[i % prompts.length].toCharArray()));
+                messages.add(new String(prompts[(i * 7) % prompts.length].toCharArray()));
+                messages.add("会话" + i + "的追问：明天呢？");
+                stored.add(messages);
+            }
+            return stored;
+        });
+        MessageInterner interner = new MessageInterner(4096);
+        long compact = retainedHeap(() -> {
+            List<ConversationContext> stored = new ArrayList<>(contexts);
+            for (int i = 0; i < contexts; i++) {
+                ConversationContext context = new ConversationContext(64, 65536, interner);
+                context.append(new String(prompts[i % prompts.length].toCharArray()));
+                context.append(new String(prompts[(i * 7) % prompts.length].toCharArray()));
+                context.append("会话" + i + "的追问：明天呢？");
+                stored.add(context);
+            }
+            return stored;
+        });
+
+        assertThat(compact).isLessThan(baseline);
+    }
+
+    /**
+     * 估算构造结果在堆上的保留大小。
+     */
+    private static long retainedHeap(Callable<Object> builder) throws Exception {
+        long before = usedHeap();
+        Object retained = builder.call();
+        long after = usedHeap();
+        assertThat(retained).isNotNull();
+        return after - before;
+    }
+
+    /**
+     * 多次 GC 后读取已用堆内存。
+     */
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private ConversationContextService newColdService(Path directory, Executor executor, Ticker ticker) {
+        ConversationContextProperties properties = new ConversationContextProperties();
+        properties.getCold().setEnabled(true);
+        properties.getCold().setDirectory(directory.toString());
+        properties.getCold().setIdleAfter(Duration.ofMinutes(30));
+        return new ConversationContextService(properties, new SimpleMeterRegistry(), executor, ticker);
+    }
+
+    private ConversationContextService newService(int maxMessages, long maxBytes) {
+        ConversationContextProperties properties = new ConversationContextProperties();
+        properties.setMaxMessages(maxMessages);
+        properties.setMaxBytes(maxBytes);
+        return new ConversationContextService(properties, new SimpleMeterRegistry());
+    }
+
+    private ConversationContextService newService(int maxMessages, long maxBytes, long maxTotalBytes,
+                                                  SimpleMeterRegistry registry, Executor executor) {
+        ConversationContextProperties properties = new ConversationContextProperties();
+        properties.setMaxMessages(maxMessages);
+        properties.setMaxBytes(maxBytes);
+        properties.setMaxTotalBytes(maxTotalBytes);
+        return new ConversationContextService(properties, registry, executor, Ticker.systemTicker());
+    }
+
+    /**
+     * 收集缓存维护任务，由测试在合适的时机同步执行。
+     */
+    private static final class DeferredExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.a2a.server.core;
+
+import com.example.a2a.server.agent.SkillRegistry;
+import com.example.a2a.server.agent.SkillRegistryProperties;
+import com.example.a2a.server.agent.WeatherAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightEventsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, List<RecordedEvent>> recorded = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+    private SkillRegistry skillRegistry;
+    private PushNotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (stream != null) {
+            stream.close();
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (skillRegistry != null) {
+            skillRegistry.shutdown();
+        }
+    }
+
+    @Test
+    void recordsSessionCreationAndExpiry() throws Exception {
+        CountDownLatch expiredSeen = record("com.example.a2a.SessionCreated", "com.example.a2a.SessionExpired");
+        MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        AgentSessionService service = new AgentSessionService(clock);
+
+        String id = service.createSession().agentSessionId;
+        clock.advance(Duration.ofDays(7).plusMinutes(5));
+        assertThatThrownBy(() -> service.requireSession(id)).isInstanceOf(AgentSessionException.class);
+
+        assertThat(expiredSeen.await(10, TimeUnit.SECONDS)).isTrue();
+        RecordedEvent created = single("com.example.a2a.SessionCreated", id);
+        assertThat(created.getDuration("ttl")).isEqualTo(Duration.ofDays(7));
+        RecordedEvent expired = single("com.example.a2a.SessionExpired", id);
+        assertThat(expired.getDuration("overdue")).isEqualTo(Duration.ofMinutes(5));
+        assertThat(expired.getBoolean("restored")).isFalse();
+    }
+
+    @Test
+    void recordsTaskLifecycleWithQueueWaitAndExecutionTime() throws Exception {
+        CountDownLatch finishedSeen = record("com.example.a2a.TaskSubmitted", "com.example.a2a.TaskStarted",
+                "com.example.a2a.TaskFinished");
+        dispatcher = new PushNotificationDispatcher(new PushNotificationProperties(), new ObjectMapper(),
+                meterRegistry);
+        skillRegistry = new SkillRegistry(List.of(new WeatherAgent()), new SkillRegistryProperties(), meterRegistry);
+        TaskService taskService = new TaskService(skillRegistry, dispatcher, meterRegistry);
+
+        String taskId = taskService.submit("weather in Paris").taskId;
+
+        assertThat(finishedSeen.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(single("com.example.a2a.TaskSubmitted", taskId).getBoolean("push")).isFalse();
+        assertThat(single("com.example.a2a.TaskStarted", taskId).getDuration("queueWait")).isGreaterThanOrEqualTo(Duration.ZERO);
+        RecordedEvent finished = single("com.example.a2a.TaskFinished", taskId);
+        assertThat(finished.getString("state")).isEqualTo("COMPLETED");
+        assertThat(finished.getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+        assertThat(meterRegistry.get("a2a.task.queue.wait").timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * 开始流式录制给定事件，返回在最后一个事件到达时释放的闩锁。
+     */
+    private CountDownLatch record(String... names) throws InterruptedException {
+        CountDownLatch last = new CountDownLatch(1);
+        stream = new RecordingStream();
+        for (String name : names) {
+            stream.enable(name);
+            stream.onEvent(name, event -> {
+                recorded.computeIfAbsent(name, ignored -> new CopyOnWriteArrayList<>()).add(event);
+                if (name.equals(names[names.length - 1])) {
+                    last.countDown();
+                }
+            });
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        stream.onFlush(started::countDown);
+        stream.startAsync();
+        started.await(10, TimeUnit.SECONDS);
+        return last;
+    }
+
+    private RecordedEvent single(String name, String id) {
+        String field = name.contains("Session") ? "agentSessionId" : "taskId";
+        List<RecordedEvent> events = recorded.getOrDefault(name, List.of()).stream()
+                .filter(event -> id.equals(event.getString(field)))
+                .toList();
+        assertThat(events).hasSize(1);
+        return events.get(0);
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
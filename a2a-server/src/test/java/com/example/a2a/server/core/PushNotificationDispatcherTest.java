@@ -0,0 +1,215 @@
+package com.example.a2a.server.core;
+
+import com.example.a2a.server.agent.SkillRegistry;
+import com.example.a2a.server.agent.SkillRegistryProperties;
+import com.example.a2a.server.agent.WeatherAgent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PushNotificationDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+    private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+    private volatile CountDownLatch firstRequestGate = new CountDownLatch(0);
+    private HttpServer receiver;
+    private PushNotificationDispatcher dispatcher;
+    private SkillRegistry skillRegistry;
+
+    @BeforeEach
+    void startReceiver() throws IOException {
+        receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        receiver.createContext("/hook", this::receive);
+        receiver.setExecutor(Executors.newCachedThreadPool());
+        receiver.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.stop(0);
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (skillRegistry != null) {
+            skillRegistry.shutdown();
+        }
+    }
+
+    @Test
+    void postsTaskResultWithTokenWhenSubmittedTaskCompletes() throws Exception {
+        dispatcher = new PushNotificationDispatcher(fastRetries(), objectMapper, meterRegistry);
+        skillRegistry = new SkillRegistry(List.of(new WeatherAgent()), new SkillRegistryProperties(), meterRegistry);
+        TaskService taskService = new TaskService(skillRegistry, dispatcher, meterRegistry);
+
+        TaskService.TaskData task = taskService.submit(null, "weather in Paris", null, hookUrl(), "secret-1");
+
+        Received delivery = received.poll(5, TimeUnit.SECONDS);
+        assertThat(delivery).isNotNull();
+        assertThat(delivery.token).isEqualTo("secret-1");
+        assertThat(delivery.body.path("taskId").asText()).isEqualTo(task.taskId);
+        assertThat(delivery.body.path("state").asText()).isEqualTo("COMPLETED");
+        assertThat(delivery.body.path("message").path("parts").get(0).path("text").asText())
+                .isEqualTo("Weather in Paris: Sunny 25°C");
+        awaitIdle();
+        assertThat(counter("delivered")).isEqualTo(1);
+    }
+
+    @Test
+    void retriesServerErrorsWithBackoff() throws Exception {
+        dispatcher = new PushNotificationDispatcher(fastRetries(), objectMapper, meterRegistry);
+        failuresBeforeSuccess.set(2);
+
+        dispatcher.notifyTerminal(task("t-1", "FAILED"));
+
+        Received delivery = received.poll(5, TimeUnit.SECONDS);
+        assertThat(delivery).isNotNull();
+        assertThat(delivery.body.path("taskId").asText()).isEqualTo("t-1");
+        awaitIdle();
+        assertThat(counter("retried")).isEqualTo(2);
+        assertThat(counter("delivered")).isEqualTo(1);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        PushNotificationProperties properties = fastRetries();
+        properties.setMaxAttempts(3);
+        dispatcher = new PushNotificationDispatcher(properties, objectMapper, meterRegistry);
+        failuresBeforeSuccess.set(Integer.MAX_VALUE);
+
+        dispatcher.notifyTerminal(task("t-1", "COMPLETED"));
+
+        awaitIdle();
+        assertThat(counter("retried")).isEqualTo(2);
+        assertThat(counter("failed")).isEqualTo(1);
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void queuedNotificationsPerEndpointAreSentInOrder() throws Exception {
+        dispatcher = new PushNotificationDispatcher(fastRetries(), objectMapper, meterRegistry);
+        CountDownLatch gate = new CountDownLatch(1);
+        firstRequestGate = gate;
+
+        dispatcher.notifyTerminal(task("t-1", "COMPLETED"));
+        dispatcher.notifyTerminal(task("t-2", "FAILED"));
+        dispatcher.notifyTerminal(task("t-3", "COMPLETED"));
+        gate.countDown();
+
+        awaitIdle();
+        assertThat(received).extracting(r -> r.body.path("taskId").asText() + ":" + r.body.path("state").asText())
+                .containsExactly("t-1:COMPLETED", "t-2:FAILED", "t-3:COMPLETED");
+        assertThat(counter("delivered")).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsNonHttpCallbackUrls() {
+        dispatcher = new PushNotificationDispatcher(fastRetries(), objectMapper, meterRegistry);
+        assertThatThrownBy(() -> dispatcher.validate("ftp://example.com/hook"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dispatcher.validate("/relative"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(dispatcher.validate(hookUrl()).getPort()).isEqualTo(receiver.getAddress().getPort());
+    }
+
+    @Test
+    void rejectsInternalCallbackHostsByDefault() {
+        dispatcher = new PushNotificationDispatcher(new PushNotificationProperties(), objectMapper, meterRegistry);
+
+        for (String url : List.of("http://127.0.0.1/hook", "http://localhost:8080/hook",
+                "http://169.254.169.254/latest/meta-data", "http://10.1.2.3/hook", "http://192.168.0.1/hook",
+                "http://[::1]/hook", "http://[fd00::1]/hook", "http://0.0.0.0/hook")) {
+            assertThatThrownBy(() -> dispatcher.validate(url))
+                    .as(url)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(dispatcher.validate("http://203.0.113.10/hook").getHost()).isEqualTo("203.0.113.10");
+    }
+
+    @Test
+    void allowListReplacesTheAddressCheck() {
+        PushNotificationProperties properties = new PushNotificationProperties();
+        properties.setAllowedHosts(List.of("127.0.0.1"));
+        dispatcher = new PushNotificationDispatcher(properties, objectMapper, meterRegistry);
+
+        assertThat(dispatcher.validate(hookUrl()).getHost()).isEqualTo("127.0.0.1");
+        assertThatThrownBy(() -> dispatcher.validate("http://203.0.113.10/hook"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void receive(HttpExchange exchange) throws IOException {
+        try {
+            CountDownLatch gate = firstRequestGate;
+            firstRequestGate = new CountDownLatch(0);
+            gate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        int status;
+        if (failuresBeforeSuccess.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            status = 503;
+        } else {
+            received.add(new Received(exchange.getRequestHeaders().getFirst(PushNotificationDispatcher.TOKEN_HEADER),
+                    objectMapper.readTree(body)));
+            status = 204;
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.activeEndpoints() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.activeEndpoints()).isZero();
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("a2a.push.deliveries").tag("outcome", outcome).counter().count();
+    }
+
+    private String hookUrl() {
+        return "http://127.0.0.1:" + receiver.getAddress().getPort() + "/hook";
+    }
+
+    private TaskService.TaskData task(String taskId, String state) {
+        TaskService.TaskData data = new TaskService.TaskData();
+        data.taskId = taskId;
+        data.state = state;
+        data.pushUrl = hookUrl();
+        return data;
+    }
+
+    private static PushNotificationProperties fastRetries() {
+        PushNotificationProperties properties = new PushNotificationProperties();
+        properties.setAllowedHosts(List.of("127.0.0.1"));
+        properties.setInitialBackoff(Duration.ofMillis(5));
+        properties.setMaxBackoff(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private record Received(String token, JsonNode body) {
+    }
+}
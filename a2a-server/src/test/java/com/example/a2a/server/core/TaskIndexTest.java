@@ -0,0 +1,117 @@
+package com.example.a2a.server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskIndexTest {
+
+    private final TaskIndex index = new TaskIndex();
+
+    @Test
+    void pagesFromNewestToOldestWithCursors() {
+        for (int i = 0; i < 25; i++) {
+            add("t-" + i, 1_000 + i, "SUBMITTED");
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TaskIndex.Page page = index.list(null, null, null, cursor, 10);
+            page.tasks().forEach(task -> seen.add(task.taskId));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(25).startsWith("t-24", "t-23").endsWith("t-0");
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        for (int i = 0; i < 10; i++) {
+            add("t-" + i, 1_000, "SUBMITTED");
+        }
+
+        TaskIndex.Page page = index.list(null, null, null, null, 10);
+
+        assertThat(page.tasks()).hasSize(10);
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.tasks().get(0).taskId).isEqualTo("t-9");
+    }
+
+    @Test
+    void filtersByStateAndFollowsTransitions() {
+        TaskService.TaskData first = add("a", 1_000, "SUBMITTED");
+        add("b", 1_001, "SUBMITTED");
+        TaskService.TaskData third = add("c", 1_002, "SUBMITTED");
+
+        move(first, "RUNNING");
+        move(first, "COMPLETED");
+        move(third, "FAILED");
+
+        assertThat(ids(index.list("COMPLETED", null, null, null, 10))).containsExactly("a");
+        assertThat(ids(index.list("SUBMITTED", null, null, null, 10))).containsExactly("b");
+        assertThat(ids(index.list("RUNNING", null, null, null, 10))).isEmpty();
+        assertThat(ids(index.list("CANCELED", null, null, null, 10))).isEmpty();
+        assertThat(ids(index.list(null, null, null, null, 10))).containsExactly("c", "b", "a");
+    }
+
+    @Test
+    void restrictsToHalfOpenTimeRange() {
+        for (int i = 0; i < 10; i++) {
+            add("t-" + i, 1_000 + i * 10, i % 2 == 0 ? "COMPLETED" : "FAILED");
+        }
+
+        assertThat(ids(index.list(null, 1_020L, 1_050L, null, 10))).containsExactly("t-4", "t-3", "t-2");
+        assertThat(ids(index.list("COMPLETED", 1_020L, null, null, 10))).containsExactly("t-8", "t-6", "t-4", "t-2");
+
+        TaskIndex.Page first = index.list(null, 1_020L, 1_060L, null, 2);
+        assertThat(ids(first)).containsExactly("t-5", "t-4");
+        assertThat(ids(index.list(null, 1_020L, 1_060L, first.nextCursor(), 2))).containsExactly("t-3", "t-2");
+    }
+
+    @Test
+    void cursorsOutsideTheTimeRangeAndInvertedRangesYieldEmptyPages() {
+        for (int i = 0; i < 10; i++) {
+            add("t-" + i, 1_000 + i * 10, "COMPLETED");
+        }
+        TaskIndex.Page early = index.list(null, null, 1_030L, null, 1);
+        TaskIndex.Page late = index.list(null, 1_080L, null, null, 1);
+
+        assertThat(ids(index.list(null, 1_050L, null, early.nextCursor(), 10))).isEmpty();
+        assertThat(ids(index.list(null, 1_020L, 1_040L, late.nextCursor(), 10))).containsExactly("t-3", "t-2");
+        assertThat(ids(index.list(null, 1_060L, 1_020L, null, 10))).isEmpty();
+        assertThat(index.list(null, 1_060L, 1_020L, null, 10).nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsForgedCursor() {
+        assertThatThrownBy(() -> index.list(null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TaskService.TaskData add(String taskId, long createdAt, String state) {
+        TaskService.TaskData data = new TaskService.TaskData();
+        data.taskId = taskId;
+        data.createdAt = createdAt;
+        data.state = state;
+        index.add(data);
+        return data;
+    }
+
+    private void move(TaskService.TaskData data, String state) {
+        String previous = data.state;
+        data.state = state;
+        index.moved(data, previous);
+    }
+
+    private static List<String> ids(TaskIndex.Page page) {
+        return page.tasks().stream().map(task -> task.taskId).toList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.a2a.server.core.snapshot;
+
+import com.example.a2a.server.core.AgentSessionService;
+import com.example.a2a.server.core.AuthorizationService;
+import com.example.a2a.server.core.ConversationContextService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotManagerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresFullSnapshotFollowedByDeltas() throws Exception {
+        AgentSessionService sessions = new AgentSessionService();
+        AuthorizationService logins = new AuthorizationService();
+        ConversationContextService contexts = new ConversationContextService();
+        SnapshotManager manager = newManager(16, sessions, logins, contexts);
+        manager.start();
+
+        String kept = sessions.createSession().agentSessionId;
+        String cleared = sessions.createSession().agentSessionId;
+        String loginId = logins.createLoginSession(kept, "CODE-1").agentLoginSessionId;
+        contexts.append(kept, "conversation-1", "weather in London");
+        manager.snapshotNow();
+
+        sessions.markInitialized(kept);
+        sessions.clearSession(cleared);
+        contexts.append(kept, "conversation-1", "and tomorrow?");
+        manager.snapshotNow();
+        manager.stop();
+
+        AgentSessionService restoredSessions = new AgentSessionService();
+        AuthorizationService restoredLogins = new AuthorizationService();
+        ConversationContextService restoredContexts = new ConversationContextService();
+        SnapshotManager.SnapshotStats stats =
+                newManager(16, restoredSessions, restoredLogins, restoredContexts).restore();
+
+        assertThat(stats.entries).isGreaterThanOrEqualTo(3);
+        assertThat(restoredSessions.requireSession(kept).agentSessionId).isEqualTo(kept);
+        assertThat(restoredSessions.isInitialized(kept)).isTrue();
+        assertThat(restoredSessions.isInitialized(cleared)).isFalse();
+        assertThat(restoredLogins.isActive(loginId)).isTrue();
+        assertThat(restoredLogins.requireLogin(loginId).authCode).isEqualTo("CODE-1");
+        assertThat(restoredContexts.getContext(kept, "conversation-1").messages())
+                .containsExactly("weather in London", "and tomorrow?");
+    }
+
+    @Test
+    void rewritesFullSnapshotOnceDeltaLimitIsReached() throws Exception {
+        AgentSessionService sessions = new AgentSessionService();
+        SnapshotManager manager = newManager(1, sessions);
+        manager.start();
+
+        sessions.createSession();
+        manager.snapshotNow();
+        sessions.createSession();
+        manager.snapshotNow();
+        sessions.createSession();
+        manager.snapshotNow();
+        manager.stop();
+
+        try (Stream<Path> files = Files.list(directory.resolve(sessions.snapshotName()))) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .noneMatch(name -> name.startsWith("delta-"))
+                    .allMatch(name -> name.equals("MANIFEST") || name.startsWith("full-2-"));
+        }
+
+        AgentSessionService restored = new AgentSessionService();
+        assertThat(newManager(1, restored).restore().entries).isEqualTo(3);
+    }
+
+    @Test
+    void migratesLoginsFromVersionOneSnapshots() throws Exception {
+        Path dir = Files.createDirectories(directory.resolve("authorization-logins"));
+        Files.writeString(dir.resolve("MANIFEST"), "full 0 1\n", StandardCharsets.UTF_8);
+        Instant recent = Instant.now().truncatedTo(ChronoUnit.MILLIS).minus(1, ChronoUnit.DAYS);
+        Instant stale = recent.minus(30, ChronoUnit.DAYS);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(dir.resolve("full-0-0.bin")))) {
+            out.writeInt(0x41325353);
+            out.writeInt(1);
+            SnapshotIO.writeString(out, "authorization-logins");
+            writeVersionOneLogin(out, "recent", recent);
+            writeVersionOneLogin(out, "stale", stale);
+            out.writeByte(0);
+        }
+
+        AuthorizationService logins = new AuthorizationService();
+        newManager(16, logins).restore();
+
+        assertThat(logins.isActive("recent")).isTrue();
+        assertThat(logins.requireLogin("recent").expiresAt).isEqualTo(recent.plus(7, ChronoUnit.DAYS));
+        assertThat(logins.isActive("stale")).isFalse();
+        assertThat(logins.listByAuthCode("CODE")).hasSize(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "a2a.snapshot.benchmark", matches = "true")
+    void snapshotsAndRestoresOneMillionSessions() throws Exception {
+        AgentSessionService sessions = new AgentSessionService();
+        AuthorizationService logins = new AuthorizationService();
+        SnapshotManager manager = newManager(16, sessions, logins);
+        manager.start();
+        for (int i = 0; i < 1_000_000; i++) {
+            String id = sessions.createSession().agentSessionId;
+            logins.createLoginSession(id, "CODE-" + i);
+        }
+        SnapshotManager.SnapshotStats written = manager.snapshotNow();
+        manager.stop();
+
+        SnapshotManager.SnapshotStats restored =
+                newManager(16, new AgentSessionService(), new AuthorizationService()).restore();
+        assertThat(written.entries).isEqualTo(2_000_000);
+        assertThat(restored.entries).isEqualTo(2_000_000);
+        assertThat(restored.bytes).isEqualTo(written.bytes);
+    }
+
+    private static void writeVersionOneLogin(DataOutputStream out, String loginId, Instant createdAt)
+            throws Exception {
+        out.writeByte(1);
+        SnapshotIO.writeString(out, loginId);
+        SnapshotIO.writeString(out, "session-" + loginId);
+        SnapshotIO.writeString(out, "CODE");
+        SnapshotIO.writeInstant(out, createdAt);
+    }
+
+    private SnapshotManager newManager(int maxDeltas, SnapshotParticipant<?>... participants) {
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setInterval(Duration.ofHours(1));
+        properties.setShards(4);
+        properties.setMaxDeltas(maxDeltas);
+        return new SnapshotManager(properties, List.of(participants));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.a2a.server.transport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AgentCardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void servesWellKnownCardWithEtagAndHonoursIfNoneMatch() throws Exception {
+        MvcResult first = mockMvc.perform(get("/.well-known/agent-card.json"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=300")))
+            .andExpect(jsonPath("$.name").value("Weather Agent"))
+            .andExpect(jsonPath("$.protocolVersion").value("0.3.0"))
+            .andExpect(jsonPath("$.skills[0].id").value("weather_search"))
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        mockMvc.perform(get("/.well-known/agent-card.json").header(HttpHeaders.IF_NONE_MATCH, "\"stale\", " + etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/.well-known/agent-card.json").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void jsonRpcAgentCardEmbedsTheSameEncoding() throws Exception {
+        String wellKnown = mockMvc.perform(get("/.well-known/agent-card.json"))
+            .andReturn().getResponse().getContentAsString();
+
+        String rpc = mockMvc.perform(post("/jsonrpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"jsonrpc\":\"2.0\",\"id\":\"c1\",\"method\":\"agent_card\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value("c1"))
+            .andExpect(jsonPath("$.result.skills[0].id").value("weather_search"))
+            .andReturn().getResponse().getContentAsString();
+
+        assertThat(rpc).contains("\"result\":" + wellKnown);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.a2a.server.transport;
+
+import com.example.a2a.server.A2AServerApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对 {@value #TASKS} 个任务查询状态：{@code unbatched} 每个任务一次 {@code /jsonrpc} HTTP 请求，
+ * {@code batched} 把全部 {@code task_status} 放进一个 JSON-RPC 批量请求。结果按单次状态查询计，
+ * 两者之差即每次 HTTP 往返的固定开销。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}；基准在随机端口启动完整应用，
+ * 经本机回环地址发送请求。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRpcBatchBenchmark {
+
+    static final int TASKS = 50;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private URI endpoint;
+    private List<String> statusRequests;
+    private String statusBatch;
+
+    @Setup
+    public void start() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(A2AServerApplication.class)
+                .properties("server.port=0")
+                .run();
+        objectMapper = context.getBean(ObjectMapper.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        endpoint = URI.create("http://127.0.0.1:" + port + "/jsonrpc");
+
+        StringBuilder submit = new StringBuilder("[");
+        for (int i = 0; i < TASKS; i++) {
+            if (i > 0) {
+                submit.append(',');
+            }
+            submit.append("{\"jsonrpc\":\"2.0\",\"id\":\"submit-").append(i)
+                    .append("\",\"method\":\"task_submit\",\"params\":{\"text\":\"weather in London\"}}");
+        }
+        statusRequests = new ArrayList<>(TASKS);
+        int id = 0;
+        for (JsonNode response : objectMapper.readTree(post(submit.append(']').toString()))) {
+            statusRequests.add("{\"jsonrpc\":\"2.0\",\"id\":" + id++ + ",\"method\":\"task_status\","
+                    + "\"params\":{\"taskId\":\"" + response.path("result").path("taskId").asText() + "\"}}");
+        }
+        statusBatch = "[" + String.join(",", statusRequests) + "]";
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public int unbatched() throws IOException, InterruptedException {
+        int length = 0;
+        for (String request : statusRequests) {
+            length += post(request).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public int batched() throws IOException, InterruptedException {
+        return post(statusBatch).length();
+    }
+
+    private String post(String payload) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonRpcBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.a2a.server.transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class JsonRpcBatchTest {
+
+    private static final int TASKS = 50;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void batchReturnsResponsesInRequestOrderAndOmitsNotifications() throws Exception {
+        String payload = "[" +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"card\",\"method\":\"agent_card\"}," +
+                "{\"jsonrpc\":\"2.0\",\"method\":\"task_submit\",\"params\":{\"text\":\"weather in Paris\"}}," +
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"weather_search\",\"params\":{\"text\":\"weather in Paris\"}}," +
+                "7," +
+                "{\"jsonrpc\":\"2.0\",\"id\":\"missing\",\"method\":\"no_such_method\"}" +
+                "]";
+
+        ResponseEntity<String> response = post(payload);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode json = objectMapper.readTree(response.getBody());
+        assertThat(json.isArray()).isTrue();
+        assertThat(json).hasSize(4);
+        assertThat(json.get(0).path("id").asText()).isEqualTo("card");
+        assertThat(json.get(0).path("result").path("protocolVersion").asText()).isEqualTo("0.3.0");
+        assertThat(json.get(1).path("id").asText()).isEqualTo("2");
+        assertThat(json.get(1).path("result").path("parts").get(0).path("text").asText())
+                .isEqualTo("Weather in Paris: Sunny 25°C");
+        assertThat(json.get(2).path("id").isNull()).isTrue();
+        assertThat(json.get(2).path("error").path("code").asInt()).isEqualTo(-32600);
+        assertThat(json.get(3).path("id").asText()).isEqualTo("missing");
+        assertThat(json.get(3).path("error").path("code").asInt()).isEqualTo(-32601);
+    }
+
+    @Test
+    void batchOfOnlyNotificationsReturnsNoContent() {
+        String payload = "[{\"jsonrpc\":\"2.0\",\"method\":\"agent_card\"}," +
+                "{\"jsonrpc\":\"2.0\",\"method\":\"task_status\",\"params\":{\"taskId\":\"none\"}}]";
+
+        ResponseEntity<String> response = post(payload);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void emptyBatchIsInvalidRequest() throws Exception {
+        ResponseEntity<String> response = post("[]");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        JsonNode json = objectMapper.readTree(response.getBody());
+        assertThat(json.isObject()).isTrue();
+        assertThat(json.path("error").path("code").asInt()).isEqualTo(-32600);
+    }
+
+    @Test
+    void batchedStatusChecksAnswerEveryTaskInOneRequest() throws Exception {
+        List<String> taskIds = submitTasks();
+
+        JsonNode json = objectMapper.readTree(post(statusBatch(taskIds)).getBody());
+
+        assertThat(json).hasSize(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            assertThat(json.get(i).path("id").asInt()).isEqualTo(i);
+            assertThat(json.get(i).path("result").path("taskId").asText()).isEqualTo(taskIds.get(i));
+        }
+    }
+
+    private List<String> submitTasks() throws Exception {
+        StringBuilder payload = new StringBuilder("[");
+        for (int i = 0; i < TASKS; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append("{\"jsonrpc\":\"2.0\",\"id\":\"submit-").append(i)
+                    .append("\",\"method\":\"task_submit\",\"params\":{\"text\":\"weather in London\"}}");
+        }
+        JsonNode json = objectMapper.readTree(post(payload.append(']').toString()).getBody());
+        List<String> taskIds = new ArrayList<>(TASKS);
+        for (JsonNode response : json) {
+            taskIds.add(response.path("result").path("taskId").asText());
+        }
+        assertThat(taskIds).hasSize(TASKS).doesNotContain("");
+        return taskIds;
+    }
+
+    private static String statusBatch(List<String> taskIds) {
+        StringBuilder payload = new StringBuilder("[");
+        for (int i = 0; i < taskIds.size(); i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append(statusRequest(i, taskIds.get(i)));
+        }
+        return payload.append(']').toString();
+    }
+
+    private static String statusRequest(int id, String taskId) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"task_status\",\"params\":{\"taskId\":\""
+                + taskId + "\"}}";
+    }
+
+    private ResponseEntity<String> post(String payload) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.postForEntity("/jsonrpc", new HttpEntity<>(payload, headers), String.class);
+    }
+}
@@ -67,4 +67,26 @@ class JsonRpcControllerTest {
             .andExpect(jsonPath("$.result.parts[0].text", containsString("file name: spec.pdf")))
             .andExpect(jsonPath("$.result.parts[0].text", containsString("data payload: {foo=bar}")));
     }
+
+    @Test
+    void dropsSkillCallWhoseDeadlineHasAlreadyPassed() throws Exception {
+        String payload = """
+            {"jsonrpc": "2.0", "id": "rpc-2", "method": "weather_search", "params": {"text": "weather in Paris"}}
+            """;
+
+        mockMvc.perform(post("/jsonrpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("a2a-timeout-ms", "0")
+                .content(payload))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value("rpc-2"))
+            .andExpect(jsonPath("$.error.code").value(-32012));
+
+        mockMvc.perform(post("/jsonrpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("a2a-timeout-ms", "2000")
+                .content(payload))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.result.parts[0].text", containsString("Weather in Paris")));
+    }
 }
@@ -0,0 +1,147 @@
+package com.example.a2a.server.transport;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.a2a.server.transport.JsonRpcDtos.JsonRpcRequest;
+import static com.example.a2a.server.transport.JsonRpcDtos.TaskIdParams;
+import static com.example.a2a.server.transport.JsonRpcDtos.TaskSubmitParams;
+import static com.example.a2a.server.transport.JsonRpcDtos.WeatherParams;
+
+/**
+ * {@code /jsonrpc} 单个请求的解析与分派耗时：{@code legacy} 先把请求绑定为 {@code Object params}
+ * （得到 LinkedHashMap），再按方法名逐个比较并手工拷贝字段；{@code registry} 由
+ * {@link JsonRpcRequestReader} 单遍读取并按方法表直接绑定参数 DTO。{@code paramsFirst} 覆盖
+ * {@code params} 出现在 {@code method} 之前、需要经 TokenBuffer 回放的情形。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}，或配合
+ * {@code -prof gc} 观察每次调用的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRpcDispatchBenchmark {
+
+    @Param({"task_status", "weather_search", "task_submit", "paramsFirst"})
+    public String payload;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private JsonRpcRequestReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        JsonRpcMethodRegistry methods = new JsonRpcMethodRegistry(objectMapper);
+        methods.register("agent_card", null, (base, params, timeoutHeader) -> base);
+        methods.register("task_submit", TaskSubmitParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("task_status", TaskIdParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("task_result", TaskIdParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("task_cancel", TaskIdParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("weather_search", WeatherParams.class, (base, params, timeoutHeader) -> base);
+        reader = new JsonRpcRequestReader(objectMapper, methods);
+        String json = switch (payload) {
+            case "task_status" -> "{\"jsonrpc\":\"2.0\",\"id\":\"17\",\"method\":\"task_status\","
+                    + "\"params\":{\"taskId\":\"6f1c2d0e-8a4b-4c3e-9f57-2b1d7a9e0c44\"}}";
+            case "weather_search" -> "{\"jsonrpc\":\"2.0\",\"id\":\"18\",\"method\":\"weather_search\","
+                    + "\"params\":{\"text\":\"weather in New York\",\"timeoutMs\":1500}}";
+            case "task_submit" -> "{\"jsonrpc\":\"2.0\",\"id\":\"19\",\"method\":\"task_submit\","
+                    + "\"params\":{\"text\":\"weather in London\",\"skillId\":\"weather_search\"}}";
+            default -> "{\"jsonrpc\":\"2.0\",\"params\":{\"text\":\"weather in London\","
+                    + "\"skillId\":\"weather_search\"},\"id\":\"20\",\"method\":\"task_submit\"}";
+        };
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object legacy() throws IOException {
+        JsonRpcRequest request = objectMapper.readValue(new ByteArrayInputStream(body), JsonRpcRequest.class);
+        if ("agent_card".equals(request.method)) {
+            return null;
+        } else if ("task_submit".equals(request.method)) {
+            return legacyTaskSubmitParams(request.params);
+        } else if ("task_status".equals(request.method)
+                || "task_result".equals(request.method)
+                || "task_cancel".equals(request.method)) {
+            return legacyTaskIdParams(request.params);
+        } else if ("weather_search".equals(request.method)) {
+            return legacyWeatherParams(request.params);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object registry() throws IOException {
+        JsonRpcRequestReader.Call call = reader.read(new ByteArrayInputStream(body)).calls.get(0);
+        return call.target != null ? call.request.params : null;
+    }
+
+    private static WeatherParams legacyWeatherParams(Object params) {
+        if (params instanceof Map<?, ?> map) {
+            Object text = map.get("text");
+            Object timeoutMs = map.get("timeoutMs");
+            WeatherParams wp = new WeatherParams();
+            wp.text = text == null ? null : String.valueOf(text);
+            wp.timeoutMs = timeoutMs instanceof Number number ? number.longValue() : null;
+            return wp;
+        }
+        return null;
+    }
+
+    private static TaskSubmitParams legacyTaskSubmitParams(Object params) {
+        if (params instanceof Map<?, ?> map) {
+            Object text = map.get("text");
+            Object skillId = map.get("skillId");
+            TaskSubmitParams p = new TaskSubmitParams();
+            p.text = text == null ? null : String.valueOf(text);
+            p.skillId = skillId == null ? null : String.valueOf(skillId);
+            return p;
+        }
+        return null;
+    }
+
+    private static TaskIdParams legacyTaskIdParams(Object params) {
+        if (params instanceof Map<?, ?> map) {
+            Object taskId = map.get("taskId");
+            TaskIdParams p = new TaskIdParams();
+            p.taskId = taskId == null ? null : String.valueOf(taskId);
+            return p;
+        }
+        return null;
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonRpcDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
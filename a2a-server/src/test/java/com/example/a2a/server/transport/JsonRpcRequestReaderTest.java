@@ -0,0 +1,105 @@
+package com.example.a2a.server.transport;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.example.a2a.server.transport.JsonRpcDtos.TaskIdParams;
+import static com.example.a2a.server.transport.JsonRpcDtos.TaskSubmitParams;
+import static com.example.a2a.server.transport.JsonRpcDtos.WeatherParams;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonRpcRequestReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final JsonRpcRequestReader reader = new JsonRpcRequestReader(objectMapper, methods());
+
+    @Test
+    void bindsParamsDirectlyIntoMethodDto() throws IOException {
+        JsonRpcRequestReader.Call call = single("{\"jsonrpc\":\"2.0\",\"id\":42,\"method\":\"weather_search\","
+                + "\"params\":{\"text\":\"weather in Paris\",\"timeoutMs\":\"1500\",\"extra\":[1,{\"a\":2}]}}");
+
+        assertThat(call.error).isNull();
+        assertThat(call.hasId).isTrue();
+        assertThat(call.request.id).isEqualTo("42");
+        assertThat(call.target.name).isEqualTo("weather_search");
+        assertThat(call.request.params).isInstanceOfSatisfying(WeatherParams.class, params -> {
+            assertThat(params.text).isEqualTo("weather in Paris");
+            assertThat(params.timeoutMs).isEqualTo(1500L);
+        });
+    }
+
+    @Test
+    void replaysParamsThatPrecedeMethod() throws IOException {
+        JsonRpcRequestReader.Call call = single("{\"params\":{\"text\":\"hi\",\"skillId\":\"weather_search\"},"
+                + "\"jsonrpc\":\"2.0\",\"method\":\"task_submit\"}");
+
+        assertThat(call.hasId).isFalse();
+        assertThat(call.request.params).isInstanceOfSatisfying(TaskSubmitParams.class, params -> {
+            assertThat(params.text).isEqualTo("hi");
+            assertThat(params.skillId).isEqualTo("weather_search");
+        });
+    }
+
+    @Test
+    void recordsBindingFailureAndKeepsReadingTheBatch() throws IOException {
+        JsonRpcRequestReader.Body body = read("[{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"method\":\"task_status\","
+                + "\"params\":{\"taskId\":{\"nested\":[1,2,{\"deep\":true}]},\"tail\":1}},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":\"b\",\"method\":\"no_such\",\"params\":{\"x\":[1,2]}},"
+                + "\"oops\","
+                + "{\"jsonrpc\":\"2.0\",\"id\":\"c\",\"method\":\"task_status\",\"params\":{\"taskId\":\"t-1\"}}]");
+
+        assertThat(body.batch).isTrue();
+        assertThat(body.calls).hasSize(4);
+        assertThat(body.calls.get(0).request.id).isEqualTo("a");
+        assertThat(body.calls.get(0).error.code).isEqualTo(-32602);
+        assertThat(body.calls.get(1).target).isNull();
+        assertThat(body.calls.get(1).request.params).isNull();
+        assertThat(body.calls.get(2).error.code).isEqualTo(-32600);
+        assertThat(body.calls.get(3).request.params).isInstanceOfSatisfying(TaskIdParams.class,
+                params -> assertThat(params.taskId).isEqualTo("t-1"));
+    }
+
+    @Test
+    void ignoresParamsForMethodsWithoutParameters() throws IOException {
+        JsonRpcRequestReader.Call call = single("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"agent_card\","
+                + "\"params\":{\"anything\":[true]}}");
+
+        assertThat(call.error).isNull();
+        assertThat(call.target.name).isEqualTo("agent_card");
+        assertThat(call.request.params).isNull();
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThatThrownBy(() -> read("{\"jsonrpc\":\"2.0\",\"method\":")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> read("{} {}")).isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> read("")).isInstanceOf(JsonParseException.class);
+    }
+
+    private JsonRpcRequestReader.Call single(String json) throws IOException {
+        JsonRpcRequestReader.Body body = read(json);
+        assertThat(body.batch).isFalse();
+        return body.calls.get(0);
+    }
+
+    private JsonRpcRequestReader.Body read(String json) throws IOException {
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonRpcMethodRegistry methods() {
+        JsonRpcMethodRegistry methods = new JsonRpcMethodRegistry(objectMapper);
+        methods.register("agent_card", null, (base, params, timeoutHeader) -> base);
+        methods.register("task_submit", TaskSubmitParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("task_status", TaskIdParams.class, (base, params, timeoutHeader) -> base);
+        methods.register("weather_search", WeatherParams.class, (base, params, timeoutHeader) -> base);
+        return methods;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.a2a.server.transport;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RpcMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RpcMetrics metrics = new RpcMetrics(meterRegistry, "jsonrpc", List.of("task_submit", "task_status"));
+
+    @Test
+    void recordsCallsByMethodAndErrorCode() {
+        metrics.record("task_submit", 0, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.record("task_submit", 0, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.record("task_submit", -32602, TimeUnit.MILLISECONDS.toNanos(1));
+
+        Timer success = timer("task_submit", "0");
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(8);
+        assertThat(timer("task_submit", "-32602").count()).isEqualTo(1);
+        assertThat(timer("task_status", "0").count()).isZero();
+    }
+
+    @Test
+    void foldsUnregisteredMethodsIntoUnknown() {
+        metrics.record("no_such_method", -32601, 100);
+        metrics.record(null, -32700, 100);
+        metrics.record("another_one", -32601, 100);
+
+        assertThat(timer(RpcMetrics.UNKNOWN_METHOD, "-32601").count()).isEqualTo(2);
+        assertThat(timer(RpcMetrics.UNKNOWN_METHOD, "-32700").count()).isEqualTo(1);
+        assertThat(meterRegistry.find("a2a.rpc.server.requests").tag("method", "no_such_method").timer()).isNull();
+    }
+
+    private Timer timer(String method, String code) {
+        return meterRegistry.get("a2a.rpc.server.requests")
+                .tag("endpoint", "jsonrpc")
+                .tag("method", method)
+                .tag("code", code)
+                .timer();
+    }
+}
@@ -100,6 +100,58 @@ class AgentMessageControllerTest {
         assertThat(agentSessionService.isInitialized(agentSessionId)).isTrue();
     }
 
+    @Test
+    void malformedBodyAndBadParamsAreReportedAsJsonRpcErrors() throws Exception {
+        ResponseEntity<String> parseError = postJson("{\"jsonrpc\":\"2.0\",\"method\":", agentSessionId);
+        assertThat(parseError.getStatusCode().value()).isEqualTo(400);
+        assertThat(objectMapper.readTree(parseError.getBody()).path("error").path("code").asInt())
+                .isEqualTo(-32700);
+
+        String badParams = "{\"jsonrpc\":\"2.0\",\"id\":\"bad\",\"method\":\"tasks/cancel\","
+                + "\"params\":{\"id\":[\"not\",\"a\",\"string\"]}}";
+        JsonNode json = objectMapper.readTree(postJson(badParams, agentSessionId).getBody());
+        assertThat(json.path("id").asText()).isEqualTo("bad");
+        assertThat(json.path("error").path("code").asInt()).isEqualTo(-32602);
+    }
+
+    @Test
+    void messageStreamForwardsAgentChunksAsArtifactUpdates() throws Exception {
+        String payload = "{" +
+                "\"jsonrpc\":\"2.0\"," +
+                "\"id\":\"stream-chunks\"," +
+                "\"method\":\"message/stream\"," +
+                "\"params\":{" +
+                "\"id\":\"task-" + UUID.randomUUID() + "\"," +
+                "\"sessionId\":\"conversation-chunks\"," +
+                "\"message\":{" +
+                "\"role\":\"user\"," +
+                "\"parts\":[{" +
+                "\"kind\":\"text\",\"text\":\"weather in NYC\"" +
+                "}]}}}";
+
+        ResponseEntity<String> response = postStream(payload, agentSessionId);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+
+        java.util.List<JsonNode> artifacts = parseSseEvents(response.getBody()).stream()
+                .map(event -> event.path("result"))
+                .filter(result -> "artifact-update".equals(result.path("kind").asText()))
+                .toList();
+        assertThat(artifacts).hasSize(3);
+        assertThat(artifacts.get(0).path("append").asBoolean()).isFalse();
+        assertThat(artifacts.subList(1, 3)).allMatch(event -> event.path("append").asBoolean());
+        assertThat(artifacts.subList(0, 2)).noneMatch(event -> event.path("lastChunk").asBoolean());
+
+        JsonNode reasoning = artifacts.get(1).path("artifact").path("parts").get(0);
+        assertThat(reasoning.path("kind").asText()).isEqualTo("reasoningText");
+        assertThat(reasoning.path("reasoningText").asText()).isEqualTo("Looking up forecast for us-new-york");
+
+        JsonNode last = artifacts.get(2);
+        assertThat(last.path("lastChunk").asBoolean()).isTrue();
+        assertThat(last.path("final").asBoolean()).isTrue();
+        assertThat(last.path("artifact").path("parts").get(0).path("text").asText())
+                .endsWith("\nWeather in NYC: Sunny 25°C");
+    }
+
     @Test
     void messageStreamProducesSseEvents() throws Exception {
         String payload = "{" +
@@ -134,7 +186,7 @@ class AgentMessageControllerTest {
 
         ConversationContext context = conversationContextService.getContext(agentSessionId, "conversation-1");
         assertThat(context).isNotNull();
-        assertThat(context.messages).isNotEmpty();
+        assertThat(context.messages()).isNotEmpty();
     }
 
     @Test
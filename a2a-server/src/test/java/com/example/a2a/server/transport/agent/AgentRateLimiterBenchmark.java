@@ -0,0 +1,102 @@
+package com.example.a2a.server.transport.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按控制器的顺序先 {@link AgentRateLimiter#admit(String, String)} 再
+ * {@link AgentRateLimiter#acquireMethod(String, String, String)} 的单次调用开销：每次调用从 4096 个
+ * 会话 ID（32 位十六进制，与真实 {@code agent-session-id} 同长）与 256 个 IP 中轮换取值，依次经过
+ * 会话、IP、方法三个维度。限额设得足够高，测量的是放行路径；{@code contended} 以 8 个线程
+ * 并发调用，观察同一张表上的 CAS 竞争。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}，或配合
+ * {@code -prof gc} 确认放行路径不分配对象。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentRateLimiterBenchmark {
+
+    private static final int SESSIONS = 4096;
+    private static final int IPS = 256;
+
+    private AgentRateLimiter limiter;
+    private String[] sessions;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Limit unlimited = new RateLimitProperties.Limit(1e9, 1_000_000);
+        properties.setSession(unlimited);
+        properties.setIp(unlimited);
+        properties.getMethods().replaceAll((method, limit) -> unlimited);
+        limiter = new AgentRateLimiter(properties, new SimpleMeterRegistry());
+        sessions = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions[i] = UUID.randomUUID().toString().replace("-", "");
+        }
+        ips = new String[IPS];
+        for (int i = 0; i < IPS; i++) {
+            ips[i] = "10.0." + (i / 16) + "." + (i % 16);
+        }
+    }
+
+    /**
+     * 每个线程独立的轮换下标。
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public long uncontended(Cursor cursor) {
+        return acquire(cursor.next++);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long contended(Cursor cursor) {
+        return acquire(cursor.next++);
+    }
+
+    private long acquire(int i) {
+        String session = sessions[i & (SESSIONS - 1)];
+        String ip = ips[i & (IPS - 1)];
+        long wait = limiter.admit(session, ip);
+        return wait > 0 ? wait : limiter.acquireMethod("message/stream", session, ip);
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AgentRateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
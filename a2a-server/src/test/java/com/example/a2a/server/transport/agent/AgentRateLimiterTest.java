@@ -0,0 +1,118 @@
+package com.example.a2a.server.transport.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgentRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsBurstThenRejectsWithRetryAfterAndRefills() {
+        AgentRateLimiter limiter = limiter(properties(new RateLimitProperties.Limit(10, 5), null, Map.of()));
+        long now = SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.acquire("message/stream", "session-a", "10.0.0.1", now)).isZero();
+        }
+        assertThat(limiter.acquire("message/stream", "session-a", "10.0.0.1", now)).isEqualTo(100);
+        assertThat(limiter.acquire("message/stream", "session-b", "10.0.0.1", now)).isZero();
+
+        assertThat(limiter.acquire("message/stream", "session-a", "10.0.0.1", now + SECOND / 10)).isZero();
+        assertThat(limiter.acquire("message/stream", "session-a", "10.0.0.1", now + SECOND / 10)).isEqualTo(100);
+        assertThat(rejected("session")).isEqualTo(2);
+    }
+
+    @Test
+    void limitsByClientIpAcrossSessions() {
+        AgentRateLimiter limiter = limiter(properties(null, new RateLimitProperties.Limit(1, 3), Map.of()));
+        long now = SECOND;
+
+        assertThat(limiter.acquire("message/stream", "s-1", "10.0.0.1", now)).isZero();
+        assertThat(limiter.acquire("message/stream", "s-2", "10.0.0.1", now)).isZero();
+        assertThat(limiter.acquire("message/stream", "s-3", "10.0.0.1", now)).isZero();
+        assertThat(limiter.acquire("message/stream", "s-4", "10.0.0.1", now)).isEqualTo(1000);
+        assertThat(limiter.acquire("message/stream", "s-4", "10.0.0.2", now)).isZero();
+        assertThat(rejected("ip")).isEqualTo(1);
+    }
+
+    @Test
+    void methodLimitFallsBackToIpWithoutSession() {
+        AgentRateLimiter limiter = limiter(properties(null, null,
+                Map.of("initialize", new RateLimitProperties.Limit(1, 2))));
+        long now = SECOND;
+
+        assertThat(limiter.acquire("initialize", null, "10.0.0.1", now)).isZero();
+        assertThat(limiter.acquire("initialize", null, "10.0.0.1", now)).isZero();
+        assertThat(limiter.acquire("initialize", null, "10.0.0.1", now)).isPositive();
+        assertThat(limiter.acquire("initialize", null, "10.0.0.9", now)).isZero();
+        assertThat(limiter.acquire("message/stream", null, "10.0.0.1", now)).isZero();
+        assertThat(rejected("method")).isEqualTo(1);
+    }
+
+    @Test
+    void admitThrottlesBeforeTheMethodIsKnown() {
+        AgentRateLimiter limiter = limiter(properties(null, new RateLimitProperties.Limit(1, 2),
+                Map.of("initialize", new RateLimitProperties.Limit(1, 5))));
+        long now = SECOND;
+
+        assertThat(limiter.admit(null, "10.0.0.1", now)).isZero();
+        assertThat(limiter.admit("s-1", "10.0.0.1", now)).isZero();
+        assertThat(limiter.admit(null, "10.0.0.1", now)).isEqualTo(1000);
+        assertThat(limiter.acquireMethod("initialize", null, "10.0.0.1", now)).isZero();
+        assertThat(rejected("ip")).isEqualTo(1);
+        assertThat(rejected("method")).isZero();
+    }
+
+    @Test
+    void boundedTableReusesIdleBuckets() {
+        RateLimitProperties properties = properties(new RateLimitProperties.Limit(1, 1), null, Map.of());
+        properties.setTableSize(16);
+        properties.setIdleAfter(Duration.ofSeconds(5));
+        AgentRateLimiter limiter = limiter(properties);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limiter.acquire("tasks/cancel", "session-" + i, null, SECOND + i * SECOND / 1000)).isZero();
+        }
+        long later = 20 * SECOND;
+        assertThat(limiter.acquire("tasks/cancel", "hot", null, later)).isZero();
+        assertThat(limiter.acquire("tasks/cancel", "hot", null, later)).isEqualTo(1000);
+    }
+
+    @Test
+    void disabledLimiterAlwaysAllows() {
+        RateLimitProperties properties = properties(new RateLimitProperties.Limit(1, 1), null, Map.of());
+        properties.setEnabled(false);
+        AgentRateLimiter limiter = limiter(properties);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.admit("session-a", "10.0.0.1")).isZero();
+            assertThat(limiter.acquireMethod("message/stream", "session-a", "10.0.0.1")).isZero();
+        }
+    }
+
+    private AgentRateLimiter limiter(RateLimitProperties properties) {
+        return new AgentRateLimiter(properties, meterRegistry);
+    }
+
+    private static RateLimitProperties properties(RateLimitProperties.Limit session, RateLimitProperties.Limit ip,
+                                                  Map<String, RateLimitProperties.Limit> methods) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setSession(session);
+        properties.setIp(ip);
+        properties.setMethods(methods);
+        return properties;
+    }
+
+    private double rejected(String dimension) {
+        return meterRegistry.get("a2a.ratelimit.rejected").tag("dimension", dimension).counter().count();
+    }
+}
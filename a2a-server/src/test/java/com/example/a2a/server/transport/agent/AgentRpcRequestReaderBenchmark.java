@@ -0,0 +1,112 @@
+package com.example.a2a.server.transport.agent;
+
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AuthorizationParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.ClearContextParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.DeauthorizeParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.MessageStreamParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskCancelParams;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /agent/message} 请求体的解析耗时：{@code tree} 先把请求绑定为带 {@code JsonNode params}
+ * 的对象，再用 {@code treeToValue} 转换为 {@link MessageStreamParams}；{@code streaming} 由
+ * {@link AgentRpcRequestReader} 先确定方法，再把参数单遍直接绑定为 DTO。{@code parts} 控制
+ * message/stream 载荷中文本部件的数量，以观察大载荷下的差异。
+ * <p>
+ * 运行方式：{@code mvn -pl a2a-server test-compile} 后执行本类的 {@code main}，或配合
+ * {@code -prof gc} 观察每次调用的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentRpcRequestReaderBenchmark {
+
+    @Param({"1", "64"})
+    public int parts;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private AgentRpcRequestReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        reader = new AgentRpcRequestReader(objectMapper)
+                .params("message/stream", MessageStreamParams.class)
+                .params("tasks/cancel", TaskCancelParams.class)
+                .params("clearContext", ClearContextParams.class)
+                .params("authorize", AuthorizationParams.class)
+                .params("deauthorize", DeauthorizeParams.class);
+        StringBuilder json = new StringBuilder("{\"jsonrpc\":\"2.0\",\"id\":\"stream-1\",\"method\":\"message/stream\","
+                + "\"params\":{\"id\":\"task-6f1c2d0e\",\"sessionId\":\"conversation-1\",\"message\":{\"role\":\"user\","
+                + "\"parts\":[");
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"kind\":\"text\",\"text\":\"weather in London, paragraph ").append(i)
+                    .append(": what should I pack for a long weekend with a chance of showers?\"}");
+        }
+        body = json.append("]}}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object tree() throws IOException {
+        TreeRequest request = objectMapper.readValue(new ByteArrayInputStream(body), TreeRequest.class);
+        if ("message/stream".equals(request.method) && request.params != null && !request.params.isNull()) {
+            return objectMapper.treeToValue(request.params, MessageStreamParams.class);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object streaming() throws IOException {
+        return reader.read(new ByteArrayInputStream(body)).request.params;
+    }
+
+    /**
+     * 改造前的请求形态：{@code params} 先读成树。
+     */
+    public static class TreeRequest {
+        public String jsonrpc;
+        public String id;
+        public String method;
+        public JsonNode params;
+    }
+
+    /**
+     * 直接从 IDE 或命令行运行基准。
+     *
+     * @param args 未使用
+     * @throws RunnerException 基准运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AgentRpcRequestReaderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.a2a.server.transport.agent;
+
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.MessageStreamParams;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.TaskCancelParams;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentRpcRequestReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final AgentRpcRequestReader reader = new AgentRpcRequestReader(objectMapper)
+            .params("message/stream", MessageStreamParams.class)
+            .params("tasks/cancel", TaskCancelParams.class);
+
+    @Test
+    void bindsMessageStreamParamsDirectly() throws IOException {
+        AgentRpcRequestReader.Call call = read("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"message/stream\","
+                + "\"params\":{\"id\":\"task-1\",\"sessionId\":\"s-1\",\"timeoutMs\":2000,"
+                + "\"message\":{\"role\":\"user\",\"parts\":[{\"kind\":\"text\",\"text\":\"weather in Paris\"},"
+                + "{\"kind\":\"data\",\"data\":{\"authCode\":\"abc\"}}]}}}");
+
+        assertThat(call.invalid).isFalse();
+        assertThat(call.paramsError).isNull();
+        assertThat(call.request.jsonrpc).isEqualTo("2.0");
+        assertThat(call.request.id).isEqualTo("7");
+        assertThat(call.request.params).isInstanceOfSatisfying(MessageStreamParams.class, params -> {
+            assertThat(params.id).isEqualTo("task-1");
+            assertThat(params.timeoutMs).isEqualTo(2000L);
+            assertThat(params.message.parts).hasSize(2);
+            assertThat(params.message.parts.get(0).text).isEqualTo("weather in Paris");
+            assertThat(params.message.parts.get(1).data.path("authCode").asText()).isEqualTo("abc");
+        });
+    }
+
+    @Test
+    void replaysParamsThatPrecedeMethod() throws IOException {
+        AgentRpcRequestReader.Call call = read("{\"params\":{\"id\":\"task-2\",\"sessionId\":\"s-2\"},"
+                + "\"id\":\"c\",\"method\":\"tasks/cancel\",\"jsonrpc\":\"2.0\"}");
+
+        assertThat(call.request.method).isEqualTo("tasks/cancel");
+        assertThat(call.request.params).isInstanceOfSatisfying(TaskCancelParams.class, params -> {
+            assertThat(params.id).isEqualTo("task-2");
+            assertThat(params.sessionId).isEqualTo("s-2");
+        });
+    }
+
+    @Test
+    void skipsParamsOfMethodsWithoutDtoAndRecordsBindingFailures() throws IOException {
+        AgentRpcRequestReader.Call initialize = read("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"initialize\","
+                + "\"params\":{\"anything\":[1,{\"x\":true}]}}");
+        assertThat(initialize.request.params).isNull();
+        assertThat(initialize.paramsError).isNull();
+
+        AgentRpcRequestReader.Call cancel = read("{\"jsonrpc\":\"2.0\",\"method\":\"tasks/cancel\","
+                + "\"params\":{\"id\":{\"nested\":[1,2]},\"tail\":1},\"id\":\"after\"}");
+        assertThat(cancel.paramsError).isNotNull();
+        assertThat(cancel.request.params).isNull();
+        assertThat(cancel.request.id).isEqualTo("after");
+    }
+
+    @Test
+    void rejectsMalformedBodies() throws IOException {
+        assertThat(read("[1,2]").invalid).isTrue();
+        assertThatThrownBy(() -> read("{\"jsonrpc\":\"2.0\",\"params\":{")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> read("{} {}")).isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> read("")).isInstanceOf(JsonParseException.class);
+    }
+
+    private AgentRpcRequestReader.Call read(String json) throws IOException {
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
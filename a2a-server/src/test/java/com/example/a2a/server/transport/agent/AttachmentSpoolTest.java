@@ -0,0 +1,206 @@
+package com.example.a2a.server.transport.agent;
+
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.AgentFilePart;
+import com.example.a2a.server.transport.agent.dto.AgentJsonRpcDtos.MessageStreamParams;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttachmentSpoolTest {
+
+    private static final int LARGE_ATTACHMENT = 12 * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final AgentRpcRequestReader reader = new AgentRpcRequestReader(objectMapper)
+            .params("message/stream", MessageStreamParams.class);
+
+    @Test
+    void streamsLargeAttachmentToDiskWithoutHeapBuffering() throws IOException {
+        AttachmentSpooler spooler = spooler(64 * 1024, 32L * 1024 * 1024);
+        GeneratedBody body = new GeneratedBody(LARGE_ATTACHMENT);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        try (AttachmentSpool spool = spooler.open()) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            AgentRpcRequestReader.Call call = reader.read(body, spool);
+            long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+            assertThat(call.paramsError).isNull();
+            assertThat(call.request.id).isEqualTo("after");
+            AgentFilePart file = ((MessageStreamParams) call.request.params).message.parts.get(0).file;
+            assertThat(file.name).isEqualTo("big.bin");
+            assertThat(file.bytes.size()).isEqualTo(LARGE_ATTACHMENT);
+            assertThat(file.bytes.inMemory()).isFalse();
+            assertThat(crc(file.bytes)).isEqualTo(body.crc.getValue());
+            assertThat(allocated).isLessThan(LARGE_ATTACHMENT / 4);
+            assertThat(spool.usedBytes()).isEqualTo(LARGE_ATTACHMENT);
+            assertThat(files()).isEqualTo(1);
+        }
+        assertThat(files()).isZero();
+    }
+
+    @Test
+    void keepsSmallAttachmentsInMemoryAndPassesUriByReference() throws IOException {
+        AttachmentSpooler spooler = spooler(64 * 1024, 1024 * 1024);
+        String json = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"message/stream\",\"params\":{\"message\":"
+                + "{\"parts\":[{\"kind\":\"file\",\"file\":{\"name\":\"a.txt\",\"bytes\":\""
+                + Base64.getEncoder().encodeToString("hello".getBytes(StandardCharsets.UTF_8)) + "\"}},"
+                + "{\"kind\":\"file\",\"file\":{\"name\":\"b.pdf\",\"uri\":\"https://files.example.com/b.pdf\"}}]}}}";
+
+        try (AttachmentSpool spool = spooler.open()) {
+            AgentRpcRequestReader.Call call = reader.read(stream(json), spool);
+
+            MessageStreamParams params = (MessageStreamParams) call.request.params;
+            AgentFilePart inline = params.message.parts.get(0).file;
+            assertThat(inline.bytes.inMemory()).isTrue();
+            try (InputStream in = inline.bytes.openStream()) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("hello");
+            }
+            AgentFilePart byReference = params.message.parts.get(1).file;
+            assertThat(byReference.bytes).isNull();
+            assertThat(byReference.uri).isEqualTo("https://files.example.com/b.pdf");
+            assertThat(files()).isZero();
+        }
+    }
+
+    @Test
+    void recordsParamsErrorWhenRequestLimitIsExceeded() throws IOException {
+        AttachmentSpooler spooler = spooler(512, 4096);
+        byte[] payload = new byte[8192];
+        new Random(7).nextBytes(payload);
+        String json = "{\"jsonrpc\":\"2.0\",\"method\":\"message/stream\",\"params\":{\"message\":{\"parts\":["
+                + "{\"kind\":\"file\",\"file\":{\"bytes\":\"" + Base64.getEncoder().encodeToString(payload)
+                + "\"}}]},\"tail\":1},\"id\":\"after\"}";
+
+        try (AttachmentSpool spool = spooler.open()) {
+            AgentRpcRequestReader.Call call = reader.read(stream(json), spool);
+
+            assertThat(call.paramsError).isNotNull();
+            assertThat(call.paramsError.getOriginalMessage()).contains("4096 bytes per request");
+            assertThat(call.request.params).isNull();
+            assertThat(call.request.id).isEqualTo("after");
+        }
+        assertThat(files()).isZero();
+    }
+
+    private AttachmentSpooler spooler(int memoryThreshold, long maxRequestBytes) {
+        AttachmentProperties properties = new AttachmentProperties();
+        properties.setDirectory(directory.toString());
+        properties.setMemoryThreshold(memoryThreshold);
+        properties.setMaxRequestBytes(maxRequestBytes);
+        return new AttachmentSpooler(properties);
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.count();
+        }
+    }
+
+    private static long crc(SpooledAttachment attachment) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = attachment.openStream()) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按需生成带大附件的请求体，不在内存中保留完整内容，同时计算附件原始字节的 CRC。
+     */
+    private static final class GeneratedBody extends InputStream {
+
+        private static final int RAW_CHUNK = 3 * 1024;
+
+        private final byte[] prefix = ("{\"jsonrpc\":\"2.0\",\"method\":\"message/stream\",\"params\":{\"message\":"
+                + "{\"role\":\"user\",\"parts\":[{\"kind\":\"file\",\"file\":{\"name\":\"big.bin\",\"bytes\":\"")
+                .getBytes(StandardCharsets.UTF_8);
+        private final byte[] suffix = "\"}}]}},\"id\":\"after\"}".getBytes(StandardCharsets.UTF_8);
+        private final byte[] raw = new byte[RAW_CHUNK];
+        private final byte[] encoded = new byte[RAW_CHUNK / 3 * 4];
+        private final Base64.Encoder encoder = Base64.getEncoder();
+        private final Random random = new Random(42);
+        private final CRC32 crc = new CRC32();
+        private long remaining;
+        private byte[] current;
+        private int position;
+        private int limit;
+        private int stage;
+
+        GeneratedBody(long size) {
+            this.remaining = size;
+            this.current = prefix;
+            this.limit = prefix.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            while (position == limit) {
+                if (!advance()) {
+                    return -1;
+                }
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean advance() {
+            if (stage == 0 && remaining > 0) {
+                int chunk = (int) Math.min(RAW_CHUNK, remaining);
+                random.nextBytes(raw);
+                crc.update(raw, 0, chunk);
+                remaining -= chunk;
+                current = encoded;
+                limit = chunk == RAW_CHUNK ? encoder.encode(raw, encoded)
+                        : encoder.encode(Arrays.copyOf(raw, chunk), encoded);
+                position = 0;
+                return true;
+            }
+            if (stage == 0) {
+                stage = 1;
+                current = suffix;
+                limit = suffix.length;
+                position = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+}